@@ -0,0 +1,129 @@
+package com.loanmanagement.config;
+
+import io.micrometer.core.instrument.*;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import io.micrometer.core.instrument.distribution.PercentileHistogramBuckets;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.function.Supplier;
+
+/**
+ * Business meters for the loan lifecycle and the hot paths around it.
+ *
+ * Every timer publishes a percentile histogram (1 ms to 30 s), so latency
+ * percentiles and SLOs can be computed across instances from the buckets at
+ * /actuator/prometheus. The simple registry the app runs on ignores
+ * percentile histograms, so the same bucket bounds are also set as SLO
+ * boundaries, which every registry keeps. Loan meters are tagged by loan
+ * type; tag values are always from a small fixed set (loan type names,
+ * statuses, outcomes).
+ */
+@Component
+public class AppMetrics {
+
+    public static final String SUCCESS = "SUCCESS";
+    public static final String FAILURE = "FAILURE";
+
+    private static final String UNKNOWN = "unknown";
+
+    private static final Duration MIN_LATENCY = Duration.ofMillis(1);
+    private static final Duration MAX_LATENCY = Duration.ofSeconds(30);
+    private static final Duration[] LATENCY_BUCKETS = histogramBuckets(MIN_LATENCY.toNanos(), MAX_LATENCY.toNanos())
+            .mapToObj(nanos -> Duration.ofNanos((long) nanos)).toArray(Duration[]::new);
+    private static final double[] ROW_BUCKETS = histogramBuckets(1, 600).toArray();
+
+    private final MeterRegistry registry;
+
+    // test slices without metrics auto-configuration still get working (local) meters
+    @Autowired
+    public AppMetrics(ObjectProvider<MeterRegistry> registry) {
+        this(registry.getIfAvailable(SimpleMeterRegistry::new));
+    }
+
+    public AppMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    public Timer.Sample start() {
+        return Timer.start(registry);
+    }
+
+    // ✅ outcome: the status the application ended in, or FAILURE
+    public void loanApplied(Timer.Sample sample, String loanType, String outcome) {
+        sample.stop(timer("loan.apply", "Loan applications, from request to decision",
+                "loan.type", tag(loanType), "outcome", outcome));
+    }
+
+    public void loanStatusUpdated(Timer.Sample sample, String loanType, String status, String outcome) {
+        sample.stop(timer("loan.status.update", "Admin status changes by target status",
+                "loan.type", tag(loanType), "status", tag(status), "outcome", outcome));
+    }
+
+    public void scheduleGenerated(Timer.Sample sample, String loanType, int rows) {
+        sample.stop(timer("loan.schedule.generate", "EMI schedule generation", "loan.type", tag(loanType)));
+        DistributionSummary.builder("loan.schedule.rows")
+                .description("EMI rows per generated schedule")
+                .tag("loan.type", tag(loanType))
+                .publishPercentileHistogram()
+                .serviceLevelObjectives(ROW_BUCKETS)
+                .minimumExpectedValue(1.0)
+                .maximumExpectedValue(600.0)
+                .register(registry)
+                .record(rows);
+    }
+
+    // ✅ mode: single or batch; outcome: PAID, CLOSED (last EMI paid) or FAILURE
+    public void emiPaid(Timer.Sample sample, String loanType, String mode, String outcome) {
+        sample.stop(timer("loan.emi.payment", "Customer EMI payments",
+                "loan.type", tag(loanType), "mode", mode, "outcome", outcome));
+    }
+
+    public void mailSent(Timer.Sample sample, String kind, String outcome) {
+        sample.stop(timer("mail.send", "Rendering and sending one notification mail", "kind", kind, "outcome", outcome));
+    }
+
+    // ✅ Mails waiting for a dispatcher thread
+    public void monitorMailQueue(ThreadPoolExecutor dispatcher) {
+        Gauge.builder("mail.dispatch.queue", dispatcher, pool -> pool.getQueue().size())
+                .description("Mails queued for the dispatcher")
+                .register(registry);
+    }
+
+    public void jwtVerified(Timer.Sample sample, boolean valid) {
+        sample.stop(timer("auth.jwt.verify", "JWT signature and expiry checks", "outcome", valid ? "valid" : "invalid"));
+    }
+
+    // ✅ Time one admin dashboard query
+    public <T> T dashboardQuery(String query, Supplier<T> call) {
+        return timer("admin.dashboard.query", "Admin dashboard aggregates", "query", query).record(call);
+    }
+
+    private Timer timer(String name, String description, String... tags) {
+        return Timer.builder(name)
+                .description(description)
+                .tags(tags)
+                .publishPercentileHistogram()
+                .serviceLevelObjectives(LATENCY_BUCKETS)
+                .minimumExpectedValue(MIN_LATENCY)
+                .maximumExpectedValue(MAX_LATENCY)
+                .register(registry);
+    }
+
+    // Micrometer's percentile histogram bounds between min and max
+    private static java.util.stream.DoubleStream histogramBuckets(double min, double max) {
+        return PercentileHistogramBuckets.buckets(DistributionStatisticConfig.builder()
+                .percentilesHistogram(true)
+                .minimumExpectedValue(min)
+                .maximumExpectedValue(max)
+                .build()).stream().mapToDouble(Double::doubleValue);
+    }
+
+    private static String tag(String value) {
+        return value == null || value.isBlank() ? UNKNOWN : value;
+    }
+}
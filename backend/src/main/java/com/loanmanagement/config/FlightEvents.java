@@ -0,0 +1,142 @@
+package com.loanmanagement.config;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Java Flight Recorder events around the latency-sensitive paths. Each event
+ * carries its own duration plus the time spent in the part that usually
+ * explains a spike (BigDecimal math, the database, BCrypt, SMTP), so a
+ * recording shows where the time went without a profiler attached.
+ *
+ * Usage is begin / set fields / commit. While no recording is running the
+ * events are disabled and commit() is a no-op, so they can stay in the hot
+ * paths. Stack traces are off: the event type already says where it fired.
+ */
+public final class FlightEvents {
+
+    private FlightEvents() {
+    }
+
+    public static final String CATEGORY = "SmartLend";
+
+    public static long elapsed(long startNanos) {
+        return System.nanoTime() - startNanos;
+    }
+
+    @Name("com.loanmanagement.EmiSchedule")
+    @Label("EMI Schedule Generation")
+    @Category({CATEGORY, "Loans"})
+    @StackTrace(false)
+    public static class EmiSchedule extends Event {
+        @Label("Loan Id")
+        public long loanId;
+
+        @Label("Rows")
+        public int rows;
+
+        @Label("Math Time")
+        @Description("EMI formula and schedule rows (BigDecimal)")
+        @Timespan
+        public long mathTime;
+
+        @Label("Insert Time")
+        @Description("JDBC batch insert of the schedule")
+        @Timespan
+        public long insertTime;
+    }
+
+    @Name("com.loanmanagement.EmiPayment")
+    @Label("EMI Payment")
+    @Category({CATEGORY, "Loans"})
+    @StackTrace(false)
+    public static class EmiPayment extends Event {
+        @Label("EMI Id")
+        public long emiId;
+
+        @Label("Loan Id")
+        public long loanId;
+
+        @Label("Outcome")
+        @Description("PAID, CLOSED (last EMI paid) or FAILURE")
+        public String outcome;
+
+        @Label("Attempts")
+        @Description("Settlement transactions run, including optimistic-lock retries")
+        public int attempts;
+    }
+
+    @Name("com.loanmanagement.JwtCheck")
+    @Label("JWT Check")
+    @Category({CATEGORY, "Security"})
+    @StackTrace(false)
+    public static class JwtCheck extends Event {
+        @Label("Path")
+        public String path;
+
+        @Label("Token Present")
+        public boolean tokenPresent;
+
+        @Label("Valid")
+        public boolean valid;
+    }
+
+    @Name("com.loanmanagement.Login")
+    @Label("Login")
+    @Category({CATEGORY, "Security"})
+    @StackTrace(false)
+    public static class Login extends Event {
+        @Label("Username")
+        public String username;
+
+        @Label("Outcome")
+        @Description("SUCCESS, USER_NOT_FOUND or BAD_PASSWORD")
+        public String outcome;
+
+        @Label("Lookup Time")
+        @Description("Loading the user from the database")
+        @Timespan
+        public long lookupTime;
+
+        @Label("Password Check Time")
+        @Description("BCrypt hash comparison")
+        @Timespan
+        public long passwordCheckTime;
+
+        @Label("Token Time")
+        @Description("Signing the JWT")
+        @Timespan
+        public long tokenTime;
+    }
+
+    @Name("com.loanmanagement.MailSend")
+    @Label("Mail Send")
+    @Category({CATEGORY, "Mail"})
+    @StackTrace(false)
+    public static class MailSend extends Event {
+        @Label("Subject")
+        public String subject;
+
+        @Label("HTML Length")
+        @Description("Characters in the HTML body")
+        public int htmlChars;
+
+        @Label("Build Time")
+        @Description("Building the MIME message")
+        @Timespan
+        public long buildTime;
+
+        @Label("SMTP Time")
+        @Description("Handing the message to the mail server")
+        @Timespan
+        public long smtpTime;
+
+        @Label("Success")
+        public boolean success;
+    }
+}
@@ -0,0 +1,152 @@
+package com.loanmanagement.config;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.annotation.WebEndpoint;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Flight recordings on a live node, one at a time:
+ * <ul>
+ *   <li>{@code POST /actuator/flightrecorder} starts one; body (all optional)
+ *       {@code {"durationSeconds": 120, "settings": "default"}}. It stops by
+ *       itself after the duration.</li>
+ *   <li>{@code GET /actuator/flightrecorder} shows its state and size.</li>
+ *   <li>{@code DELETE /actuator/flightrecorder} stops it and downloads the
+ *       .jfr file (open it in JDK Mission Control or {@code jfr print}).</li>
+ * </ul>
+ * The JDK's "default" settings cost around 1% CPU; "profile" samples more
+ * and is meant for short captures. The app's own events (FlightEvents) are
+ * enabled under either.
+ */
+@Component
+@WebEndpoint(id = "flightrecorder")
+public class FlightRecorderEndpoint {
+
+    static final String NAME = "smartlend-on-demand";
+    private static final Set<String> SETTINGS = Set.of("default", "profile");
+
+    private final Duration maxDuration;
+    private final long maxSizeBytes;
+    private Recording recording;
+    private String activeSettings;
+
+    public FlightRecorderEndpoint(@Value("${jfr.max-duration-seconds:600}") long maxDurationSeconds,
+                                  @Value("${jfr.max-size-mb:200}") long maxSizeMb) {
+        this.maxDuration = Duration.ofSeconds(Math.max(1, maxDurationSeconds));
+        this.maxSizeBytes = Math.max(1, maxSizeMb) * 1024 * 1024;
+    }
+
+    @ReadOperation
+    public synchronized Map<String, Object> status() {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("available", FlightRecorder.isAvailable());
+        if (recording == null) {
+            body.put("state", "NONE");
+            return body;
+        }
+        body.put("state", recording.getState().name());
+        body.put("settings", activeSettings);
+        body.put("startTime", recording.getStartTime());
+        body.put("stopTime", recording.getStopTime());
+        body.put("durationSeconds", recording.getDuration() != null ? recording.getDuration().toSeconds() : null);
+        body.put("sizeBytes", recording.getSize());
+        return body;
+    }
+
+    @WriteOperation
+    public synchronized Map<String, Object> start(@Nullable Integer durationSeconds, @Nullable String settings) {
+        if (!FlightRecorder.isAvailable()) {
+            throw new RuntimeException("Flight Recorder is not available in this JVM");
+        }
+        if (recording != null && recording.getState() == RecordingState.RUNNING) {
+            throw new RuntimeException("A recording is already running; stop it first");
+        }
+        String profile = settings == null || settings.isBlank() ? "default" : settings.trim();
+        if (!SETTINGS.contains(profile)) {
+            throw new RuntimeException("Unknown settings: " + profile + " (use default or profile)");
+        }
+        Duration duration = durationSeconds == null || durationSeconds <= 0
+                ? Duration.ofSeconds(60)
+                : Duration.ofSeconds(durationSeconds);
+        if (duration.compareTo(maxDuration) > 0) {
+            duration = maxDuration;
+        }
+
+        discard();
+        Configuration configuration;
+        try {
+            configuration = Configuration.getConfiguration(profile);
+        } catch (Exception e) {
+            throw new RuntimeException("Could not load JFR settings " + profile + ": " + e.getMessage());
+        }
+        Recording started = new Recording(configuration);
+        started.setName(NAME);
+        started.setToDisk(true);
+        started.setDuration(duration);
+        started.setMaxSize(maxSizeBytes);
+        started.start();
+        recording = started;
+        activeSettings = profile;
+        System.out.println("[JFR] Recording started: " + profile + " settings for " + duration.toSeconds() + "s");
+        return status();
+    }
+
+    // ✅ stops the recording (if still running) and hands back the .jfr file
+    @DeleteOperation(produces = "application/octet-stream")
+    public synchronized Resource stopAndDownload() {
+        if (recording == null) {
+            throw new RuntimeException("No recording to download");
+        }
+        Path file = null;
+        try {
+            if (recording.getState() == RecordingState.RUNNING) {
+                recording.stop();
+            }
+            file = Files.createTempFile("smartlend-", ".jfr");
+            recording.dump(file);
+            byte[] data = Files.readAllBytes(file);
+            System.out.println("[JFR] Recording downloaded: " + data.length + " bytes");
+            return new ByteArrayResource(data) {
+                @Override
+                public String getFilename() {
+                    return NAME + ".jfr";
+                }
+            };
+        } catch (IOException e) {
+            throw new RuntimeException("Could not write the recording: " + e.getMessage());
+        } finally {
+            discard();
+            if (file != null) {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException ignore) {
+                }
+            }
+        }
+    }
+
+    private void discard() {
+        if (recording != null) {
+            recording.close();
+            recording = null;
+        }
+    }
+}
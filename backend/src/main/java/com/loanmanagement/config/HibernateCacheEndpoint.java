@@ -0,0 +1,63 @@
+package com.loanmanagement.config;
+
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * {@code GET /actuator/hibernatecache}: size, TTL and hit/miss counts of every
+ * second-level and query cache region, plus the session factory's totals.
+ */
+@Component
+@Endpoint(id = "hibernatecache")
+@RequiredArgsConstructor
+public class HibernateCacheEndpoint {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    @ReadOperation
+    public Map<String, Object> cacheStatistics() {
+        SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        Statistics stats = sessionFactory.getStatistics();
+
+        Map<String, Object> regions = new TreeMap<>();
+        if (sessionFactory.getCache().getRegionFactory() instanceof LocalCacheRegionFactory factory) {
+            for (LocalCacheStorage storage : factory.storages()) {
+                Map<String, Object> region = new LinkedHashMap<>();
+                region.put("entries", storage.size());
+                region.put("maxEntries", storage.maxEntries());
+                region.put("ttlSeconds", storage.ttlMs() / 1000);
+                CacheRegionStatistics regionStats = stats.getCacheRegionStatistics(storage.region());
+                if (regionStats != null) {
+                    long hits = regionStats.getHitCount(), misses = regionStats.getMissCount();
+                    region.put("hits", hits);
+                    region.put("misses", misses);
+                    region.put("puts", regionStats.getPutCount());
+                    region.put("hitRatio", hits + misses > 0 ? (double) hits / (hits + misses) : 0);
+                }
+                region.put("evictions", storage.evictions());
+                region.put("expirations", storage.expirations());
+                regions.put(storage.region(), region);
+            }
+        }
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("statisticsEnabled", stats.isStatisticsEnabled());
+        body.put("secondLevelCacheHits", stats.getSecondLevelCacheHitCount());
+        body.put("secondLevelCacheMisses", stats.getSecondLevelCacheMissCount());
+        body.put("queryCacheHits", stats.getQueryCacheHitCount());
+        body.put("queryCacheMisses", stats.getQueryCacheMissCount());
+        body.put("preparedStatements", stats.getPrepareStatementCount());
+        body.put("regions", regions);
+        return body;
+    }
+}
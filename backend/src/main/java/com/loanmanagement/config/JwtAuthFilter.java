@@ -28,9 +28,13 @@ public class JwtAuthFilter extends OncePerRequestFilter {
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
 
+        FlightEvents.JwtCheck check = new FlightEvents.JwtCheck();
+        check.begin();
         String token = jwtUtil.resolveToken(request);
+        check.tokenPresent = token != null;
 
         if (token != null && jwtUtil.isTokenValid(token)) {
+            check.valid = true;
             String username = jwtUtil.extractUsername(token);
             String role = jwtUtil.extractRole(token);
 
@@ -43,6 +47,9 @@ public class JwtAuthFilter extends OncePerRequestFilter {
 
             SecurityContextHolder.getContext().setAuthentication(authToken);
         }
+        // ✅ only the token work is timed, not the rest of the chain
+        check.path = request.getRequestURI();
+        check.commit();
 
         filterChain.doFilter(request, response);
     }
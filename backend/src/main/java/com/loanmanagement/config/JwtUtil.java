@@ -2,6 +2,7 @@ package com.loanmanagement.config;
 
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
@@ -17,6 +18,12 @@ public class JwtUtil {
     @Value("${jwt.expiration}")
     private long expirationMs;
 
+    private final AppMetrics metrics;
+
+    public JwtUtil(AppMetrics metrics) {
+        this.metrics = metrics;
+    }
+
     // ✅ Generate JWT token with username and role
     public String generateToken(String username, String role) {
         return Jwts.builder()
@@ -40,12 +47,16 @@ public class JwtUtil {
 
     // ✅ Validate token
     public boolean isTokenValid(String token) {
+        Timer.Sample sample = metrics.start();
+        boolean valid;
         try {
             extractAllClaims(token);
-            return true;
+            valid = true;
         } catch (JwtException | IllegalArgumentException e) {
-            return false;
+            valid = false;
         }
+        metrics.jwtVerified(sample, valid);
+        return valid;
     }
 
     // ✅ Internal: Get all claims
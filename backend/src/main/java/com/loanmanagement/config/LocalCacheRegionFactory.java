@@ -0,0 +1,86 @@
+package com.loanmanagement.config;
+
+import org.hibernate.boot.spi.SessionFactoryOptions;
+import org.hibernate.cache.cfg.spi.DomainDataRegionBuildingContext;
+import org.hibernate.cache.cfg.spi.DomainDataRegionConfig;
+import org.hibernate.cache.spi.support.DomainDataStorageAccess;
+import org.hibernate.cache.spi.support.RegionFactoryTemplate;
+import org.hibernate.cache.spi.support.StorageAccess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hibernate second-level / query cache kept in this JVM's heap.
+ *
+ * Hibernate's own support classes implement the read-write locking; this
+ * factory only supplies the storage, sized per region from
+ * {@code hibernate.cache.local.<region>.max-entries} and
+ * {@code hibernate.cache.local.<region>.ttl-seconds}, falling back to
+ * {@code hibernate.cache.local.default.*}. The TTL also bounds how stale a
+ * second application instance can be after a change made through the other.
+ */
+public class LocalCacheRegionFactory extends RegionFactoryTemplate {
+
+    static final String PREFIX = "hibernate.cache.local.";
+
+    private final Map<String, LocalCacheStorage> storages = new ConcurrentHashMap<>();
+    private Map<String, Object> settings = Map.of();
+
+    @Override
+    protected void prepareForUse(SessionFactoryOptions options, Map<String, Object> configValues) {
+        this.settings = configValues;
+    }
+
+    @Override
+    protected void releaseFromUse() {
+        storages.values().forEach(LocalCacheStorage::release);
+        storages.clear();
+    }
+
+    @Override
+    protected DomainDataStorageAccess createDomainDataStorageAccess(DomainDataRegionConfig regionConfig,
+                                                                    DomainDataRegionBuildingContext buildingContext) {
+        return storage(regionConfig.getRegionName(), true);
+    }
+
+    @Override
+    protected StorageAccess createQueryResultsRegionStorageAccess(String regionName, SessionFactoryImplementor sessionFactory) {
+        return storage(regionName, true);
+    }
+
+    // invalidation timestamps: never evicted or expired, or cached query results could be served stale
+    @Override
+    protected StorageAccess createTimestampsRegionStorageAccess(String regionName, SessionFactoryImplementor sessionFactory) {
+        return storage(regionName, false);
+    }
+
+    Collection<LocalCacheStorage> storages() {
+        return Collections.unmodifiableCollection(storages.values());
+    }
+
+    private LocalCacheStorage storage(String regionName, boolean bounded) {
+        return storages.computeIfAbsent(regionName, name -> {
+            int maxEntries = bounded ? (int) setting(name, "max-entries", 1000) : 0;
+            long ttlMs = bounded ? setting(name, "ttl-seconds", 600) * 1000 : 0;
+            System.out.println("[CACHE] Region " + name + ": "
+                    + (maxEntries > 0 ? maxEntries + " entries" : "unbounded") + ", "
+                    + (ttlMs > 0 ? "ttl " + ttlMs / 1000 + " s" : "no ttl"));
+            return new LocalCacheStorage(name, maxEntries, ttlMs);
+        });
+    }
+
+    private long setting(String region, String key, long fallback) {
+        Object value = settings.get(PREFIX + region + "." + key);
+        if (value == null) value = settings.get(PREFIX + "default." + key);
+        if (value == null) return fallback;
+        try {
+            return Long.parseLong(value.toString().trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Cache setting " + PREFIX + region + "." + key + " must be a number: " + value);
+        }
+    }
+}
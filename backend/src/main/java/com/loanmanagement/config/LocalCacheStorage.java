@@ -0,0 +1,101 @@
+package com.loanmanagement.config;
+
+import org.hibernate.cache.spi.support.DomainDataStorageAccess;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * One in-process cache region: least-recently-used eviction above
+ * {@code maxEntries}, and entries dropped {@code ttlMs} after they were put.
+ * {@code maxEntries} / {@code ttlMs} of 0 mean unbounded / no expiry (the
+ * update-timestamps region must never lose entries).
+ */
+final class LocalCacheStorage implements DomainDataStorageAccess {
+
+    private record Entry(Object value, long expiresAt) {}
+
+    private final String region;
+    private final int maxEntries;
+    private final long ttlMs;
+    private final LinkedHashMap<Object, Entry> entries;
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    LocalCacheStorage(String region, int maxEntries, long ttlMs) {
+        this.region = region;
+        this.maxEntries = maxEntries;
+        this.ttlMs = ttlMs;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Object, Entry> eldest) {
+                if (LocalCacheStorage.this.maxEntries <= 0 || size() <= LocalCacheStorage.this.maxEntries) return false;
+                evictions.increment();
+                return true;
+            }
+        };
+    }
+
+    String region() {
+        return region;
+    }
+
+    int maxEntries() {
+        return maxEntries;
+    }
+
+    long ttlMs() {
+        return ttlMs;
+    }
+
+    long evictions() {
+        return evictions.sum();
+    }
+
+    long expirations() {
+        return expirations.sum();
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    @Override
+    public synchronized Object getFromCache(Object key, SharedSessionContractImplementor session) {
+        Entry entry = entries.get(key);
+        if (entry == null) return null;
+        if (entry.expiresAt() != 0 && System.currentTimeMillis() >= entry.expiresAt()) {
+            entries.remove(key);
+            expirations.increment();
+            return null;
+        }
+        return entry.value();
+    }
+
+    @Override
+    public synchronized void putIntoCache(Object key, Object value, SharedSessionContractImplementor session) {
+        entries.put(key, new Entry(value, ttlMs > 0 ? System.currentTimeMillis() + ttlMs : 0));
+    }
+
+    @Override
+    public synchronized boolean contains(Object key) {
+        return entries.containsKey(key);
+    }
+
+    @Override
+    public synchronized void evictData() {
+        entries.clear();
+    }
+
+    @Override
+    public synchronized void evictData(Object key) {
+        entries.remove(key);
+    }
+
+    @Override
+    public void release() {
+        evictData();
+    }
+}
@@ -0,0 +1,156 @@
+package com.loanmanagement.config;
+
+import io.micrometer.core.instrument.*;
+import io.micrometer.core.instrument.config.NamingConvention;
+import io.micrometer.core.instrument.distribution.CountAtBucket;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.web.annotation.WebEndpoint;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code GET /actuator/prometheus}: every meter in the registry in the
+ * Prometheus text exposition format (0.0.4), timers and summaries as
+ * histograms with their le buckets.
+ *
+ * Written against the registry the app already has, so scraping needs no
+ * extra dependency; drop it for micrometer-registry-prometheus (which
+ * registers an endpoint with the same id) once that is on the classpath.
+ */
+@Component
+@WebEndpoint(id = "prometheus")
+@RequiredArgsConstructor
+public class PrometheusTextEndpoint {
+
+    static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final MeterRegistry registry;
+
+    @ReadOperation(produces = CONTENT_TYPE)
+    public String scrape() {
+        return render(registry);
+    }
+
+    // meters of one name are written together, after a single TYPE line
+    static String render(MeterRegistry registry) {
+        Map<String, List<Meter>> byName = new TreeMap<>();
+        for (Meter meter : registry.getMeters()) {
+            byName.computeIfAbsent(baseName(meter.getId()), n -> new ArrayList<>()).add(meter);
+        }
+
+        StringBuilder out = new StringBuilder(8192);
+        byName.forEach((name, meters) -> {
+            Meter.Id first = meters.get(0).getId();
+            if (first.getDescription() != null) {
+                out.append("# HELP ").append(name).append(' ').append(help(first.getDescription())).append('\n');
+            }
+            out.append("# TYPE ").append(name).append(' ').append(type(meters.get(0))).append('\n');
+            for (Meter meter : meters) {
+                write(out, name, meter);
+            }
+        });
+        return out.toString();
+    }
+
+    private static void write(StringBuilder out, String name, Meter meter) {
+        List<Tag> tags = meter.getId().getTags();
+        if (meter instanceof Counter counter) {
+            sample(out, name + "_total", tags, null, counter.count());
+        } else if (meter instanceof FunctionCounter counter) {
+            sample(out, name + "_total", tags, null, counter.count());
+        } else if (meter instanceof TimeGauge gauge) {
+            sample(out, name, tags, null, gauge.value(TimeUnit.SECONDS));
+        } else if (meter instanceof Gauge gauge) {
+            sample(out, name, tags, null, gauge.value());
+        } else if (meter instanceof Timer timer) {
+            histogram(out, name, tags, timer.takeSnapshot(), true);
+        } else if (meter instanceof DistributionSummary summary) {
+            histogram(out, name, tags, summary.takeSnapshot(), false);
+        } else {
+            // long task and function timers, custom meters: one sample per statistic
+            for (Measurement m : meter.measure()) {
+                sample(out, name + "_" + m.getStatistic().getTagValueRepresentation(), tags, null, m.getValue());
+            }
+        }
+    }
+
+    private static void histogram(StringBuilder out, String name, List<Tag> tags, HistogramSnapshot snapshot, boolean seconds) {
+        for (CountAtBucket bucket : snapshot.histogramCounts()) {
+            double le = seconds ? bucket.bucket(TimeUnit.SECONDS) : bucket.bucket();
+            sample(out, name + "_bucket", tags, number(le), bucket.count());
+        }
+        if (snapshot.histogramCounts().length > 0) {
+            sample(out, name + "_bucket", tags, "+Inf", snapshot.count());
+        }
+        sample(out, name + "_count", tags, null, snapshot.count());
+        sample(out, name + "_sum", tags, null, seconds ? snapshot.total(TimeUnit.SECONDS) : snapshot.total());
+        sample(out, name + "_max", tags, null, seconds ? snapshot.max(TimeUnit.SECONDS) : snapshot.max());
+    }
+
+    private static void sample(StringBuilder out, String name, List<Tag> tags, String le, double value) {
+        out.append(name);
+        if (!tags.isEmpty() || le != null) {
+            out.append('{');
+            boolean comma = false;
+            for (Tag tag : tags) {
+                if (comma) out.append(',');
+                out.append(sanitize(NamingConvention.snakeCase.tagKey(tag.getKey())))
+                        .append("=\"").append(escape(tag.getValue())).append('"');
+                comma = true;
+            }
+            if (le != null) {
+                if (comma) out.append(',');
+                out.append("le=\"").append(le).append('"');
+            }
+            out.append('}');
+        }
+        out.append(' ').append(number(value)).append('\n');
+    }
+
+    // snake_case name with the base unit as suffix; timers are in seconds
+    static String baseName(Meter.Id id) {
+        String name = sanitize(NamingConvention.snakeCase.name(id.getName(), id.getType()));
+        String unit = id.getType() == Meter.Type.TIMER || id.getType() == Meter.Type.LONG_TASK_TIMER
+                ? "seconds" : id.getBaseUnit();
+        if (unit != null && !unit.isBlank()) {
+            String suffix = "_" + sanitize(unit.toLowerCase(Locale.ROOT));
+            if (!name.endsWith(suffix)) name += suffix;
+        }
+        return name;
+    }
+
+    private static String type(Meter meter) {
+        return switch (meter.getId().getType()) {
+            case COUNTER -> "counter";
+            case GAUGE -> "gauge";
+            case TIMER, DISTRIBUTION_SUMMARY -> "histogram";
+            default -> "untyped";
+        };
+    }
+
+    private static String number(double v) {
+        if (Double.isNaN(v)) return "NaN";
+        if (Double.isInfinite(v)) return v > 0 ? "+Inf" : "-Inf";
+        return Double.toString(v);
+    }
+
+    private static String sanitize(String name) {
+        return name.replaceAll("[^a-zA-Z0-9_:]", "_");
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static String help(String text) {
+        return text.replace("\\", "\\\\").replace("\n", "\\n");
+    }
+}
@@ -0,0 +1,58 @@
+package com.loanmanagement.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+/**
+ * Primary + read replica pools behind a {@link ReadWriteRoutingDataSource}.
+ * Only active when {@code replica.url} is set; otherwise Spring Boot's single
+ * pool is used as before.
+ */
+@Configuration
+@ConditionalOnProperty(name = "replica.url")
+public class ReadReplicaConfig {
+
+    @Bean
+    public ReadWriteRoutingDataSource routingDataSource(
+            DataSourceProperties primaryProperties,
+            @Value("${replica.url}") String replicaUrl,
+            @Value("${replica.username:${spring.datasource.username}}") String replicaUsername,
+            @Value("${replica.password:${spring.datasource.password}}") String replicaPassword,
+            @Value("${replica.pool-size:10}") int replicaPoolSize,
+            @Value("${replica.max-lag-ms:2000}") long maxLagMs,
+            @Value("${replica.sticky-ms:5000}") long stickyMs,
+            @Value("${replica.lag-check-ms:1000}") long lagCheckMs) {
+
+        HikariDataSource primary = primaryProperties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        primary.setPoolName("primary");
+
+        HikariDataSource replica = new HikariDataSource();
+        replica.setPoolName("replica");
+        replica.setJdbcUrl(replicaUrl);
+        replica.setUsername(replicaUsername);
+        replica.setPassword(replicaPassword);
+        replica.setMaximumPoolSize(replicaPoolSize);
+        replica.setReadOnly(true);
+
+        System.out.println("[REPLICA] Read-only transactions routed to " + replicaUrl
+                + " (max lag " + maxLagMs + " ms, read-your-writes " + stickyMs + " ms)");
+        return new ReadWriteRoutingDataSource(primary, replica, maxLagMs, stickyMs, lagCheckMs);
+    }
+
+    // the DataSource everything else (JPA, JdbcTemplate, SchemaMigrator) gets
+    @Bean
+    @Primary
+    public DataSource dataSource(ReadWriteRoutingDataSource routingDataSource) {
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+}
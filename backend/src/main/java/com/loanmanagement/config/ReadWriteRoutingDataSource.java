@@ -0,0 +1,172 @@
+package com.loanmanagement.config;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Sends read-only transactions to the read replica and everything else to the primary.
+ *
+ * The replica is only used while it keeps up: every check writes a heartbeat
+ * on the primary and reads it back from the replica, and a replica more than
+ * {@code maxLagMs} behind (or unreachable) is skipped until it catches up.
+ * A user whose write transaction committed in the last {@code stickyMs} reads
+ * from the primary too, so they never miss their own payment or message.
+ *
+ * Must be wrapped in a LazyConnectionDataSourceProxy: JPA opens its connection
+ * before the read-only flag of the transaction is set, the proxy defers the
+ * real connection (and so this routing decision) to the first statement.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource implements DisposableBean {
+
+    enum Route { PRIMARY, REPLICA }
+
+    private static final String WRITE_BEAT = "UPDATE replica_heartbeat SET beat_ms = ? WHERE id = 1";
+    private static final String READ_BEAT = "SELECT beat_ms FROM replica_heartbeat WHERE id = 1";
+
+    private final DataSource primary;
+    private final DataSource replica;
+    private final long maxLagMs;
+    private final long stickyMs;
+    private final LongSupplier clock;
+
+    // username -> commit time of their last write transaction
+    private final Map<String, Long> lastWrite = new ConcurrentHashMap<>();
+    private volatile long replicaLagMs = Long.MAX_VALUE; // unknown until the first check
+    private final ScheduledExecutorService lagChecker; // null when checked by hand (tests)
+
+    /**
+     * @param lagCheckMs heartbeat interval; 0 means {@link #checkReplicaLag()} is driven by the caller
+     */
+    public ReadWriteRoutingDataSource(DataSource primary, DataSource replica,
+                                      long maxLagMs, long stickyMs, long lagCheckMs) {
+        this(primary, replica, maxLagMs, stickyMs, lagCheckMs, System::currentTimeMillis);
+    }
+
+    ReadWriteRoutingDataSource(DataSource primary, DataSource replica,
+                               long maxLagMs, long stickyMs, long lagCheckMs, LongSupplier clock) {
+        this.primary = primary;
+        this.replica = replica;
+        this.maxLagMs = maxLagMs;
+        this.stickyMs = stickyMs;
+        this.clock = clock;
+
+        setTargetDataSources(Map.of(Route.PRIMARY, primary, Route.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+
+        checkReplicaLag();
+        if (lagCheckMs > 0) {
+            lagChecker = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "replica-lag-check");
+                t.setDaemon(true);
+                return t;
+            });
+            lagChecker.scheduleWithFixedDelay(this::checkReplicaLag, lagCheckMs, lagCheckMs, TimeUnit.MILLISECONDS);
+        } else {
+            lagChecker = null;
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return route();
+    }
+
+    Route route() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            rememberWrite();
+            return Route.PRIMARY;
+        }
+        if (replicaLagMs > maxLagMs) return Route.PRIMARY;
+
+        String user = currentUser();
+        if (user != null) {
+            Long wroteAt = lastWrite.get(user);
+            if (wroteAt != null && clock.getAsLong() - wroteAt < stickyMs) return Route.PRIMARY;
+        }
+        return Route.REPLICA;
+    }
+
+    long replicaLagMs() {
+        return replicaLagMs;
+    }
+
+    // ✅ Heartbeat: write the time on the primary, read back what the replica has applied
+    void checkReplicaLag() {
+        long beat = clock.getAsLong();
+        try {
+            try (Connection con = primary.getConnection();
+                 PreparedStatement ps = con.prepareStatement(WRITE_BEAT)) {
+                ps.setLong(1, beat);
+                ps.executeUpdate();
+                if (!con.getAutoCommit()) con.commit();
+            }
+            long seen;
+            try (Connection con = replica.getConnection();
+                 PreparedStatement ps = con.prepareStatement(READ_BEAT);
+                 ResultSet rs = ps.executeQuery()) {
+                seen = rs.next() ? rs.getLong(1) : 0;
+            }
+            long lag = seen >= beat ? 0 : clock.getAsLong() - seen;
+            if ((lag > maxLagMs) != (replicaLagMs > maxLagMs)) {
+                System.out.println(lag > maxLagMs
+                        ? "[REPLICA] " + lag + " ms behind, reads go to the primary"
+                        : "[REPLICA] Caught up, read-only transactions use the replica again");
+            }
+            replicaLagMs = lag;
+        } catch (SQLException | RuntimeException e) {
+            if (replicaLagMs <= maxLagMs) {
+                System.out.println("[REPLICA] Lag check failed, reads go to the primary: " + e.getMessage());
+            }
+            replicaLagMs = Long.MAX_VALUE;
+        }
+
+        long expired = clock.getAsLong() - stickyMs;
+        lastWrite.values().removeIf(wroteAt -> wroteAt < expired);
+    }
+
+    // a write transaction by a signed-in user pins their reads to the primary once it commits
+    private void rememberWrite() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()
+                || !TransactionSynchronizationManager.isSynchronizationActive()) return;
+        String user = currentUser();
+        if (user == null) return;
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                lastWrite.put(user, clock.getAsLong());
+            }
+        });
+    }
+
+    private static String currentUser() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth == null || !auth.isAuthenticated() || auth instanceof AnonymousAuthenticationToken) return null;
+        return auth.getName();
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        if (lagChecker != null) lagChecker.shutdownNow();
+        for (DataSource pool : new DataSource[]{primary, replica}) {
+            if (pool instanceof AutoCloseable closeable) closeable.close();
+        }
+    }
+}
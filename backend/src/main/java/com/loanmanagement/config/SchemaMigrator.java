@@ -0,0 +1,178 @@
+package com.loanmanagement.config;
+
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryDependsOnPostProcessor;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.EncodedResource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.*;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+/**
+ * Applies versioned SQL migrations ({@code db/migration/V<n>__<description>.sql})
+ * before JPA starts, so Hibernate only has to validate the schema.
+ *
+ * Applied versions are recorded in {@code schema_version} with a checksum; a
+ * migration edited after it ran stops startup. A database that already has
+ * tables but no history (built by ddl-auto=update) is baselined: versions up
+ * to {@code schema.migration.baseline-version} are recorded without running.
+ * File naming follows Flyway's, so the scripts can move to it unchanged.
+ */
+@Component
+public class SchemaMigrator implements InitializingBean {
+
+    private static final Pattern FILE_NAME = Pattern.compile("V(\\d+)__(.+)\\.sql");
+
+    private static final String CREATE_HISTORY = "CREATE TABLE IF NOT EXISTS schema_version ("
+            + "version INT NOT NULL PRIMARY KEY, "
+            + "description VARCHAR(200) NOT NULL, "
+            + "checksum BIGINT NOT NULL, "
+            + "installed_at TIMESTAMP NOT NULL, "
+            + "execution_ms INT NOT NULL)";
+
+    // any table of the baseline schema: present means the database predates migrations
+    private static final String BASELINE_MARKER_TABLE = "loans";
+
+    private final DataSource dataSource;
+    private final String location;
+    private final int baselineVersion;
+    private final boolean enabled;
+
+    public SchemaMigrator(DataSource dataSource,
+                          @Value("${schema.migration.location:classpath:db/migration}") String location,
+                          @Value("${schema.migration.baseline-version:1}") int baselineVersion,
+                          @Value("${schema.migration.enabled:true}") boolean enabled) {
+        this.dataSource = dataSource;
+        this.location = location;
+        this.baselineVersion = baselineVersion;
+        this.enabled = enabled;
+    }
+
+    /** Makes the EntityManagerFactory (and its schema validation) wait for the migrations. */
+    @Component
+    static class JpaAfterMigrations extends EntityManagerFactoryDependsOnPostProcessor {
+        JpaAfterMigrations() {
+            super(SchemaMigrator.class);
+        }
+    }
+
+    record Migration(int version, String description, Resource script, long checksum) {}
+
+    @Override
+    public void afterPropertiesSet() throws SQLException, IOException {
+        if (!enabled) {
+            System.out.println("[SCHEMA] Migrations disabled (schema.migration.enabled=false)");
+            return;
+        }
+        migrate();
+    }
+
+    // ✅ Run every migration newer than the recorded ones, in version order; returns how many ran
+    public int migrate() throws SQLException, IOException {
+        List<Migration> migrations = load();
+        try (Connection con = dataSource.getConnection()) {
+            con.setAutoCommit(true); // DDL commits implicitly on MySQL anyway
+            try (Statement st = con.createStatement()) {
+                st.execute(CREATE_HISTORY);
+            }
+
+            Map<Integer, Long> applied = applied(con);
+            if (applied.isEmpty() && tableExists(con, BASELINE_MARKER_TABLE)) {
+                for (Migration m : migrations) {
+                    if (m.version() > baselineVersion) break;
+                    record(con, m, "<< baseline >> " + m.description(), 0);
+                    applied.put(m.version(), m.checksum());
+                }
+                System.out.println("[SCHEMA] Existing schema baselined at V" + baselineVersion);
+            }
+
+            int ran = 0;
+            for (Migration m : migrations) {
+                Long checksum = applied.get(m.version());
+                if (checksum != null) {
+                    if (checksum != m.checksum()) {
+                        throw new IllegalStateException("Migration V" + m.version() + "__" + m.description()
+                                + " has changed since it was applied; add a new migration instead");
+                    }
+                    continue;
+                }
+                long start = System.nanoTime();
+                ScriptUtils.executeSqlScript(con, new EncodedResource(m.script(), StandardCharsets.UTF_8));
+                int ms = (int) ((System.nanoTime() - start) / 1_000_000);
+                record(con, m, m.description(), ms);
+                System.out.println("[SCHEMA] Applied V" + m.version() + "__" + m.description() + " in " + ms + " ms");
+                ran++;
+            }
+            return ran;
+        }
+    }
+
+    List<Migration> load() throws IOException {
+        Resource[] resources = new PathMatchingResourcePatternResolver().getResources(location + "/V*__*.sql");
+        List<Migration> migrations = new ArrayList<>(resources.length);
+        Set<Integer> versions = new HashSet<>();
+        for (Resource resource : resources) {
+            Matcher m = FILE_NAME.matcher(Objects.requireNonNull(resource.getFilename()));
+            if (!m.matches()) continue;
+            int version = Integer.parseInt(m.group(1));
+            if (!versions.add(version)) {
+                throw new IllegalStateException("Duplicate migration version V" + version);
+            }
+            migrations.add(new Migration(version, m.group(2), resource, checksum(resource)));
+        }
+        migrations.sort(Comparator.comparingInt(Migration::version));
+        return migrations;
+    }
+
+    private static Map<Integer, Long> applied(Connection con) throws SQLException {
+        Map<Integer, Long> applied = new HashMap<>();
+        try (Statement st = con.createStatement();
+             ResultSet rs = st.executeQuery("SELECT version, checksum FROM schema_version")) {
+            while (rs.next()) applied.put(rs.getInt(1), rs.getLong(2));
+        }
+        return applied;
+    }
+
+    private static void record(Connection con, Migration m, String description, int ms) throws SQLException {
+        try (PreparedStatement ps = con.prepareStatement("INSERT INTO schema_version "
+                + "(version, description, checksum, installed_at, execution_ms) VALUES (?, ?, ?, ?, ?)")) {
+            ps.setInt(1, m.version());
+            ps.setString(2, description.length() > 200 ? description.substring(0, 200) : description);
+            ps.setLong(3, m.checksum());
+            ps.setTimestamp(4, new Timestamp(System.currentTimeMillis()));
+            ps.setInt(5, ms);
+            ps.executeUpdate();
+        }
+    }
+
+    private static boolean tableExists(Connection con, String table) throws SQLException {
+        DatabaseMetaData meta = con.getMetaData();
+        for (String name : new String[]{table, table.toUpperCase(Locale.ROOT)}) {
+            try (ResultSet rs = meta.getTables(con.getCatalog(), con.getSchema(), name, new String[]{"TABLE"})) {
+                if (rs.next()) return true;
+            }
+        }
+        return false;
+    }
+
+    // line endings normalized so a checkout on Windows does not look like an edit
+    private static long checksum(Resource resource) throws IOException {
+        String text;
+        try (var in = resource.getInputStream()) {
+            text = new String(in.readAllBytes(), StandardCharsets.UTF_8).replace("\r\n", "\n");
+        }
+        CRC32 crc = new CRC32();
+        crc.update(text.getBytes(StandardCharsets.UTF_8));
+        return crc.getValue();
+    }
+}
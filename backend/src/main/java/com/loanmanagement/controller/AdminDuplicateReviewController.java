@@ -0,0 +1,35 @@
+package com.loanmanagement.controller;
+
+import com.loanmanagement.model.DuplicateApplicationFlag;
+import com.loanmanagement.model.DuplicateApplicationFlag.FlagStatus;
+import com.loanmanagement.service.DuplicateReviewService;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/admin/duplicates")
+@RequiredArgsConstructor
+@PreAuthorize("hasRole('ADMIN')")
+public class AdminDuplicateReviewController {
+
+    private final DuplicateReviewService reviewService;
+
+    // ✅ Applications sharing a PAN / Aadhaar with another customer's (defaults to the open queue)
+    @GetMapping
+    public ResponseEntity<List<DuplicateApplicationFlag>> getFlags(
+            @RequestParam(value = "status", defaultValue = "OPEN") FlagStatus status) {
+        return ResponseEntity.ok(reviewService.getFlags(status));
+    }
+
+    // ✅ Resolve a flag: ?status=CLEARED or ?status=CONFIRMED
+    @PutMapping("/{id}")
+    public ResponseEntity<DuplicateApplicationFlag> resolveFlag(@PathVariable Long id,
+                                                                @RequestParam("status") FlagStatus status) {
+        return ResponseEntity.ok(reviewService.resolveFlag(id, status));
+    }
+}
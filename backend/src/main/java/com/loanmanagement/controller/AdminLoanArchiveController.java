@@ -0,0 +1,24 @@
+package com.loanmanagement.controller;
+
+import com.loanmanagement.dto.LoanArchiveRunDto;
+import com.loanmanagement.service.LoanArchiveService;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/admin/loan-archive")
+@RequiredArgsConstructor
+@PreAuthorize("hasRole('ADMIN')")
+public class AdminLoanArchiveController {
+
+    private final LoanArchiveService archiveService;
+
+    // ✅ Move loans settled before the retention window to the archive tables
+    @PostMapping("/run")
+    public ResponseEntity<LoanArchiveRunDto> runArchive() {
+        return ResponseEntity.ok(archiveService.archiveSettledLoans());
+    }
+}
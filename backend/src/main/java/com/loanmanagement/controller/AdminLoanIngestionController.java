@@ -0,0 +1,26 @@
+package com.loanmanagement.controller;
+
+import com.loanmanagement.dto.BulkIngestionReportDto;
+import com.loanmanagement.service.LoanIngestionService;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.InputStream;
+
+@RestController
+@RequestMapping("/api/admin/loans/bulk")
+@RequiredArgsConstructor
+@PreAuthorize("hasRole('ADMIN')")
+public class AdminLoanIngestionController {
+
+    private final LoanIngestionService ingestionService;
+
+    // ✅ Partner bulk upload: one JSON application per line (application/x-ndjson), streamed as it arrives
+    @PostMapping(consumes = {"application/x-ndjson", "application/json", "text/plain"})
+    public ResponseEntity<BulkIngestionReportDto> ingest(InputStream body) {
+        return ResponseEntity.ok(ingestionService.ingest(body));
+    }
+}
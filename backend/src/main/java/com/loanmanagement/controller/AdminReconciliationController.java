@@ -0,0 +1,36 @@
+package com.loanmanagement.controller;
+
+import com.loanmanagement.dto.ReconciliationReportDto;
+import com.loanmanagement.service.StatementReconciliationService;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+@RestController
+@RequestMapping("/api/admin/reconciliation")
+@RequiredArgsConstructor
+@PreAuthorize("hasRole('ADMIN')")
+public class AdminReconciliationController {
+
+    private final StatementReconciliationService reconciliationService;
+
+    // ✅ Import a bank / NACH statement CSV and settle the EMIs it covers
+    @PostMapping("/import")
+    public ResponseEntity<ReconciliationReportDto> importStatement(@RequestParam("file") MultipartFile file) throws IOException {
+        if (file.isEmpty()) {
+            throw new RuntimeException("Statement file is empty");
+        }
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8), 64 * 1024)) {
+            return ResponseEntity.ok(reconciliationService.importStatement(reader));
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.loanmanagement.controller;
+
+import com.loanmanagement.dto.StatementRunReportDto;
+import com.loanmanagement.service.LoanStatementService;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/admin/statements")
+@RequiredArgsConstructor
+@PreAuthorize("hasRole('ADMIN')")
+public class AdminStatementController {
+
+    private final LoanStatementService statementService;
+
+    // ✅ Start the monthly statement batch in the background (defaults to last month), e.g. ?month=2026-09;
+    // follow it under /runs/{jobId}
+    @PostMapping("/run")
+    public ResponseEntity<StatementRunReportDto> runStatements(@RequestParam(value = "month", required = false) String month) {
+        YearMonth period;
+        try {
+            period = month == null || month.isBlank() ? YearMonth.now().minusMonths(1) : YearMonth.parse(month.trim());
+        } catch (DateTimeParseException e) {
+            throw new RuntimeException("Invalid month, expected yyyy-MM: " + month);
+        }
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(statementService.start(period));
+    }
+
+    // ✅ Recent statement runs (newest first) with progress, throughput and partition timings
+    @GetMapping("/runs")
+    public ResponseEntity<List<StatementRunReportDto>> getRuns() {
+        return ResponseEntity.ok(statementService.getJobs());
+    }
+
+    @GetMapping("/runs/{jobId}")
+    public ResponseEntity<StatementRunReportDto> getRun(@PathVariable long jobId) {
+        return ResponseEntity.ok(statementService.getJob(jobId));
+    }
+}
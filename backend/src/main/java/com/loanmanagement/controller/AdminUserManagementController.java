@@ -1,6 +1,7 @@
 package com.loanmanagement.controller;
 
-import com.loanmanagement.dto.UserManagementDto;
+import com.loanmanagement.dto.UserManagementPageDto;
+import com.loanmanagement.dto.UserPurgeJobDto;
 import com.loanmanagement.service.AdminUserManagementService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
@@ -31,18 +32,28 @@ public class AdminUserManagementController {
     }
 
     /**
-     * Get all users with active loan count for customers.
+     * One page of users with the active loan count for customers.
+     * search: username / email prefix or user id; role: ADMIN, CUSTOMER or ALL;
+     * sortBy: userId, username, email, createdAt or activeLoanCount.
      * Only callable if frontend already validated super key.
      */
     @GetMapping
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<List<UserManagementDto>> getAllUsers() {
-        return ResponseEntity.ok(adminUserManagementService.getAllUsersWithLoanCount());
+    public ResponseEntity<UserManagementPageDto> getUsers(
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) String role,
+            @RequestParam(defaultValue = "userId") String sortBy,
+            @RequestParam(defaultValue = "asc") String direction,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(adminUserManagementService.getUsersPage(search, role, sortBy, direction, page, size));
     }
 
     /**
      * Delete a user (admins or customers).
      * Customers can only be deleted if active loan count = 0.
+     * Customers with a long repayment history are deleted by a background
+     * purge job; the message then names the job to follow under /purges.
      * Only callable if frontend already validated super key.
      * Returns a success message on deletion.
      */
@@ -52,4 +63,19 @@ public class AdminUserManagementController {
         String message = adminUserManagementService.deleteUserWithoutKeyCheck(userId);
         return ResponseEntity.ok(message);
     }
+
+    /**
+     * Recent background purge jobs (newest first) with their progress.
+     */
+    @GetMapping("/purges")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<UserPurgeJobDto>> getPurgeJobs() {
+        return ResponseEntity.ok(adminUserManagementService.getPurgeJobs());
+    }
+
+    @GetMapping("/purges/{jobId}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<UserPurgeJobDto> getPurgeJob(@PathVariable long jobId) {
+        return ResponseEntity.ok(adminUserManagementService.getPurgeJob(jobId));
+    }
 }
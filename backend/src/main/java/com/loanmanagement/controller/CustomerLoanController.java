@@ -1,14 +1,21 @@
 package com.loanmanagement.controller;
 
+import com.loanmanagement.dto.CustomerHomeDto;
+import com.loanmanagement.dto.EmiBatchPaymentRequest;
+import com.loanmanagement.dto.EmiBatchPaymentResultDto;
 import com.loanmanagement.dto.LoanRequestDto;
 import com.loanmanagement.dto.LoanStatusHistoryDto;
 import com.loanmanagement.dto.LoanTypeActiveCountDto;
 import com.loanmanagement.dto.LoanWithEmiDto;
+import com.loanmanagement.dto.PrepaymentQuoteDto;
+import com.loanmanagement.dto.PrepaymentRequest;
+import com.loanmanagement.dto.PrepaymentResultDto;
 import com.loanmanagement.model.EmiPayment;
 import com.loanmanagement.model.Loan;
 import com.loanmanagement.model.User;
 import com.loanmanagement.repository.UserRepository;
 import com.loanmanagement.service.CustomerLoanService;
+import com.loanmanagement.service.LoanPrepaymentService;
 import com.loanmanagement.config.JwtUtil;
 
 import jakarta.servlet.http.HttpServletRequest;
@@ -19,6 +26,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
+import java.math.BigDecimal;
 import java.util.List;
 import java.util.Map;
 
@@ -30,6 +38,9 @@ public class CustomerLoanController {
     @Autowired
     private CustomerLoanService loanService;
 
+    @Autowired
+    private LoanPrepaymentService prepaymentService;
+
     @Autowired
     private JwtUtil jwtUtil;
 
@@ -58,6 +69,13 @@ public class CustomerLoanController {
         return loanService.getLoansByCustomer(customer);
     }
 
+    // ✅ Home screen summary: loans, active counts per type and next due EMI in one round trip
+    @GetMapping("/home")
+    public ResponseEntity<CustomerHomeDto> getCustomerHome(HttpServletRequest request) {
+        User customer = getAuthenticatedCustomer(request);
+        return ResponseEntity.ok(loanService.getCustomerHome(customer));
+    }
+
     @GetMapping("/{id}")
     public Loan getLoanById(@PathVariable Long id, HttpServletRequest request) {
         User customer = getAuthenticatedCustomer(request);
@@ -100,4 +118,31 @@ public class CustomerLoanController {
         return ResponseEntity.ok(loanService.payEmi(emiId, customer));
     }
 
+    // ✅ Pay several EMIs of one loan in one go (explicit ids or next K installments)
+    @PostMapping("/emi/{loanId}/pay")
+    public ResponseEntity<EmiBatchPaymentResultDto> payEmis(@PathVariable Long loanId,
+                                                            @Valid @RequestBody EmiBatchPaymentRequest body,
+                                                            HttpServletRequest request) {
+        User customer = getAuthenticatedCustomer(request);
+        return ResponseEntity.ok(loanService.payEmis(loanId, body, customer));
+    }
+
+    // ✅ Foreclosure payoff and part-prepayment what-if (optional ?amount=)
+    @GetMapping("/{loanId}/prepayment-quote")
+    public ResponseEntity<PrepaymentQuoteDto> getPrepaymentQuote(@PathVariable Long loanId,
+                                                                 @RequestParam(required = false) BigDecimal amount,
+                                                                 HttpServletRequest request) {
+        User customer = getAuthenticatedCustomer(request);
+        return ResponseEntity.ok(prepaymentService.getQuote(loanId, amount, customer));
+    }
+
+    // ✅ Part-prepay (recasts remaining EMIs) or foreclose when the amount covers the payoff
+    @PostMapping("/{loanId}/prepayment")
+    public ResponseEntity<PrepaymentResultDto> prepay(@PathVariable Long loanId,
+                                                      @Valid @RequestBody PrepaymentRequest body,
+                                                      HttpServletRequest request) {
+        User customer = getAuthenticatedCustomer(request);
+        return ResponseEntity.ok(prepaymentService.prepay(loanId, body, customer));
+    }
+
 }
@@ -0,0 +1,27 @@
+package com.loanmanagement.dto;
+
+import lombok.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of a partner bulk upload, one result per non-blank line.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BulkIngestionReportDto {
+
+    private int received;
+    private int created;
+    private int failed;
+    private int chunks;
+
+    private long durationMs;
+    private double rowsPerSecond;
+
+    @Builder.Default
+    private List<BulkLoanResultDto> results = new ArrayList<>();
+}
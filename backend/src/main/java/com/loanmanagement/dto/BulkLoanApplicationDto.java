@@ -0,0 +1,21 @@
+package com.loanmanagement.dto;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+/**
+ * One line of a partner's bulk NDJSON upload: a regular application plus the
+ * customer it is for and the partner's own reference, echoed in the result.
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class BulkLoanApplicationDto extends LoanRequestDto {
+
+    @NotNull(message = "Customer id is required")
+    private Long customerId;
+
+    @Size(max = 64, message = "Reference must be at most 64 characters")
+    private String reference;
+}
@@ -0,0 +1,26 @@
+package com.loanmanagement.dto;
+
+import lombok.*;
+
+/**
+ * Outcome of one line of a bulk upload.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BulkLoanResultDto {
+
+    /** 1-based line number in the upload */
+    private int line;
+    private String reference;
+
+    /** CREATED or FAILED */
+    private String result;
+
+    private Long loanId;
+    /** Status after auto-decisioning (SUBMITTED, APPROVED or REJECTED) */
+    private String loanStatus;
+
+    private String error;
+}
@@ -0,0 +1,38 @@
+package com.loanmanagement.dto;
+
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Everything the customer home screen needs in one response:
+ * loans, active counts per loan type and the soonest EMI due.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class CustomerHomeDto {
+
+    @Builder.Default
+    private List<CustomerLoanSummaryDto> loans = new ArrayList<>();
+
+    /** SUBMITTED + APPROVED loans per loan type (same figures as /active-loan-counts-detailed) */
+    @Builder.Default
+    private List<LoanTypeActiveCountDto> activeLoanCounts = new ArrayList<>();
+
+    private int activeLoans;
+
+    /** Sum of unpaid EMIs across approved loans */
+    @Builder.Default
+    private BigDecimal totalOutstanding = BigDecimal.ZERO;
+
+    /** Soonest unpaid EMI across all loans (null when nothing is due) */
+    private Long nextDueLoanId;
+    private Long nextDueEmiId;
+    private LocalDate nextDueDate;
+    private BigDecimal nextDueAmount;
+}
@@ -0,0 +1,36 @@
+package com.loanmanagement.dto;
+
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * One loan on the customer home screen: status plus repayment position.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class CustomerLoanSummaryDto {
+
+    private Long loanId;
+    private Long loanTypeId;
+    private String loanTypeName;
+    private String status;
+
+    private BigDecimal amount;
+    private Double appliedInterestRate;
+    private int tenureYears;
+    private LocalDateTime submittedAt;
+
+    private int remainingEmis;
+    private int paidEmis;
+    private BigDecimal outstandingAmount;
+
+    /** Next unpaid installment (null when nothing is due) */
+    private LocalDate nextDueDate;
+    private Long nextEmiId;
+    private BigDecimal nextEmiAmount;
+}
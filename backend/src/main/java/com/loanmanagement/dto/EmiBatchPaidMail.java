@@ -0,0 +1,74 @@
+package com.loanmanagement.dto;
+
+import com.loanmanagement.model.EmiPayment;
+import com.loanmanagement.model.Loan;
+import com.loanmanagement.model.User;
+import lombok.Builder;
+import lombok.Value;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Consolidated receipt for a multi-installment payment, captured at settlement
+ * time so rendering needs no database access.
+ */
+@Value
+@Builder
+public class EmiBatchPaidMail {
+
+    String to;
+    Long userId;
+    String borrowerName;
+
+    Long loanId;
+    String loanName;
+
+    /** first settled EMI; its id doubles as the receipt number */
+    Long receiptEmiId;
+    LocalDate paidOn;
+    BigDecimal totalPaid;
+
+    /** outstanding on the loan after this payment */
+    BigDecimal outstanding;
+    int totalInstallments;
+
+    List<Line> lines;
+
+    @Value
+    public static class Line {
+        int installmentNo;
+        LocalDate dueOn;
+        String transactionRef;
+        BigDecimal amount;
+    }
+
+    public static EmiBatchPaidMail of(Loan loan, List<EmiPayment> paid, Map<Long, Integer> installmentNos) {
+        User user = loan.getCustomer();
+        BigDecimal totalPaid = BigDecimal.ZERO;
+        List<Line> lines = new ArrayList<>(paid.size());
+        for (EmiPayment emi : paid) {
+            totalPaid = totalPaid.add(emi.getAmount());
+            lines.add(new Line(installmentNos.getOrDefault(emi.getId(), 0), emi.getDueDate(),
+                    emi.getTransactionRef(), emi.getAmount()));
+        }
+
+        EmiPayment first = paid.get(0);
+        return EmiBatchPaidMail.builder()
+                .to(user != null ? user.getEmail() : null)
+                .userId(user != null ? user.getUserId() : null)
+                .borrowerName(user != null ? user.getName() : null)
+                .loanId(loan.getId())
+                .loanName(loan.getLoanType() != null ? loan.getLoanType().getName() : null)
+                .receiptEmiId(first.getId())
+                .paidOn(first.getPaymentDate())
+                .totalPaid(totalPaid)
+                .outstanding(loan.getOutstandingAmount())
+                .totalInstallments(loan.getPaidEmiCount() + loan.getPendingEmiCount())
+                .lines(List.copyOf(lines))
+                .build();
+    }
+}
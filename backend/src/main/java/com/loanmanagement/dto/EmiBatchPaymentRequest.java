@@ -0,0 +1,25 @@
+package com.loanmanagement.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Request to settle several EMIs of one loan in a single payment.
+ * Supply either explicit EMI ids or the number of upcoming installments.
+ */
+@Data
+public class EmiBatchPaymentRequest {
+
+    /** EMI ids to settle; each must belong to the loan and still be PENDING */
+    @Size(max = 360, message = "Cannot pay more than 360 EMIs at once")
+    private List<Long> emiIds;
+
+    /** Alternatively, settle the next K pending installments in due-date order */
+    @Min(value = 1, message = "Number of installments must be at least 1")
+    @Max(value = 360, message = "Cannot pay more than 360 EMIs at once")
+    private Integer nextInstallments;
+}
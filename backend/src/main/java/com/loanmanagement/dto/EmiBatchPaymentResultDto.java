@@ -0,0 +1,32 @@
+package com.loanmanagement.dto;
+
+import com.loanmanagement.model.EmiPayment;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Outcome of a multi-installment payment.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class EmiBatchPaymentResultDto {
+
+    /** ID of the loan the EMIs belong to */
+    private Long loanId;
+
+    /** Number of EMIs settled by this payment */
+    private int paidCount;
+
+    /** Sum of the settled EMI amounts */
+    private BigDecimal totalPaid;
+
+    /** True when this payment cleared the last pending EMI and closed the loan */
+    private boolean loanClosed;
+
+    /** The settled EMI records, in due-date order */
+    private List<EmiPayment> paidEmis;
+}
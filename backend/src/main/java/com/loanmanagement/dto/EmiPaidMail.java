@@ -0,0 +1,63 @@
+package com.loanmanagement.dto;
+
+import com.loanmanagement.model.EmiPayment;
+import com.loanmanagement.model.Loan;
+import com.loanmanagement.model.User;
+import lombok.Builder;
+import lombok.Value;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Everything an EMI receipt shows, captured when the payment is settled so the
+ * mail can be rendered later, on another thread, without touching the database.
+ */
+@Value
+@Builder
+public class EmiPaidMail {
+
+    String to;
+    Long userId;
+    String borrowerName;
+
+    Long loanId;
+    String loanName;
+    Double interestRate;
+    int tenureYears;
+    BigDecimal principal;
+
+    Long emiId;
+    String transactionRef;
+    BigDecimal amount;
+    LocalDate paidOn;
+    LocalDate dueOn;
+    BigDecimal remainingBalance;
+
+    /** "installment X of N" */
+    int installmentNo;
+    int totalInstallments;
+
+    public static EmiPaidMail of(EmiPayment emi, Loan loan, int installmentNo) {
+        User user = loan.getCustomer();
+        int total = loan.getPaidEmiCount() + loan.getPendingEmiCount();
+        return EmiPaidMail.builder()
+                .to(user != null ? user.getEmail() : null)
+                .userId(user != null ? user.getUserId() : null)
+                .borrowerName(user != null ? user.getName() : null)
+                .loanId(loan.getId())
+                .loanName(loan.getLoanType() != null ? loan.getLoanType().getName() : null)
+                .interestRate(loan.getAppliedInterestRate())
+                .tenureYears(loan.getTenureYears())
+                .principal(loan.getAmount())
+                .emiId(emi.getId())
+                .transactionRef(emi.getTransactionRef())
+                .amount(emi.getAmount())
+                .paidOn(emi.getPaymentDate())
+                .dueOn(emi.getDueDate())
+                .remainingBalance(emi.getRemainingBalance())
+                .installmentNo(installmentNo)
+                .totalInstallments(total)
+                .build();
+    }
+}
@@ -0,0 +1,23 @@
+package com.loanmanagement.dto;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Outcome of an archival run: loans moved to the archive tables and how long it took.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class LoanArchiveRunDto {
+
+    /** Loans settled before this moment were eligible */
+    private LocalDateTime cutoff;
+
+    private int retentionMonths;
+    private int chunks;
+    private long loansArchived;
+    private long durationMs;
+}
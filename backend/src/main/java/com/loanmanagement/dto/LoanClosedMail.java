@@ -0,0 +1,52 @@
+package com.loanmanagement.dto;
+
+import com.loanmanagement.model.Loan;
+import com.loanmanagement.model.User;
+import lombok.Builder;
+import lombok.Value;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Loan closure (NOC) mail contents, taken from the closed loan and its total
+ * repayable so the mail can be rendered off the request thread.
+ */
+@Value
+@Builder
+public class LoanClosedMail {
+
+    String to;
+    Long userId;
+    String borrowerName;
+
+    Long loanId;
+    String loanName;
+    BigDecimal loanAmount;
+    Double interestRate;
+    int tenureYears;
+    LocalDate startedOn;
+    LocalDate closedOn;
+
+    int emisPaid;
+    BigDecimal totalPaid;
+
+    public static LoanClosedMail of(Loan loan, BigDecimal totalPaid) {
+        User user = loan.getCustomer();
+        return LoanClosedMail.builder()
+                .to(user != null ? user.getEmail() : null)
+                .userId(user != null ? user.getUserId() : null)
+                .borrowerName(user != null ? user.getName() : null)
+                .loanId(loan.getId())
+                .loanName(loan.getLoanType() != null ? loan.getLoanType().getName() : null)
+                .loanAmount(loan.getAmount())
+                .interestRate(loan.getAppliedInterestRate())
+                .tenureYears(loan.getTenureYears())
+                .startedOn(loan.getSubmittedAt() != null ? loan.getSubmittedAt().toLocalDate() : null)
+                .closedOn(loan.getClosedAt() != null ? loan.getClosedAt().toLocalDate() : null)
+                // closure happens only once every EMI is PAID, so the snapshot's paid count is the total
+                .emisPaid(loan.getPaidEmiCount())
+                .totalPaid(totalPaid)
+                .build();
+    }
+}
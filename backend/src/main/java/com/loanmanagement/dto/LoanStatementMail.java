@@ -0,0 +1,67 @@
+package com.loanmanagement.dto;
+
+import com.loanmanagement.repository.LoanRepository;
+import lombok.Builder;
+import lombok.Value;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+
+/**
+ * One loan's monthly statement, built from the partition's aggregate row so
+ * rendering never goes back to the database.
+ */
+@Value
+@Builder
+public class LoanStatementMail {
+
+    YearMonth period;
+
+    String to;
+    Long userId;
+    String borrowerName;
+
+    Long loanId;
+    String loanName;
+    BigDecimal principal;
+
+    /** installments paid during the statement month */
+    long paidInPeriod;
+    BigDecimal paidInPeriodAmount;
+
+    BigDecimal paidToDate;
+    int paidEmiCount;
+    int pendingEmiCount;
+    BigDecimal outstanding;
+    LocalDate nextDueDate;
+
+    /** unpaid installments due on or before the end of the month */
+    long overdueCount;
+    BigDecimal penalties;
+
+    public static LoanStatementMail of(LoanRepository.StatementRow row, YearMonth period) {
+        return LoanStatementMail.builder()
+                .period(period)
+                .to(row.getEmail())
+                .userId(row.getUserId())
+                .borrowerName(row.getBorrowerName())
+                .loanId(row.getLoanId())
+                .loanName(row.getLoanName())
+                .principal(row.getPrincipal())
+                .paidInPeriod(row.getPaidInPeriod() != null ? row.getPaidInPeriod() : 0)
+                .paidInPeriodAmount(orZero(row.getPaidInPeriodAmount()))
+                .paidToDate(orZero(row.getPaidToDate()))
+                .paidEmiCount(row.getPaidEmiCount() != null ? row.getPaidEmiCount() : 0)
+                .pendingEmiCount(row.getPendingEmiCount() != null ? row.getPendingEmiCount() : 0)
+                .outstanding(orZero(row.getOutstanding()))
+                .nextDueDate(row.getNextDueDate())
+                .overdueCount(row.getOverdueCount() != null ? row.getOverdueCount() : 0)
+                .penalties(row.getPenalties() != null ? BigDecimal.valueOf(row.getPenalties()) : BigDecimal.ZERO)
+                .build();
+    }
+
+    private static BigDecimal orZero(BigDecimal v) {
+        return v != null ? v : BigDecimal.ZERO;
+    }
+}
@@ -42,4 +42,8 @@ public class LoanTypeDto {
     @Min(value = 1, message = "Max loans per customer must be at least 1")
     @Max(value = 3, message = "Max loans per customer cannot exceed 3")
     private int maxLoansPerCustomerPerLoanType;
+
+    // optional auto-decision rules, one per line, e.g. "REJECT when cibil < 600"
+    @Size(max = 2000, message = "Decision rules must not exceed 2000 characters")
+    private String decisionRules;
 }
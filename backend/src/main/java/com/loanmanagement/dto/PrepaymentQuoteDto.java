@@ -0,0 +1,62 @@
+package com.loanmanagement.dto;
+
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Foreclosure payoff of a loan and, when a prepayment amount is given, what
+ * that part-prepayment would do to the remaining schedule. Savings are
+ * measured against the installments still scheduled.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class PrepaymentQuoteDto {
+
+    private Long loanId;
+
+    /** Date the quote is valid for; accrued interest grows daily */
+    private LocalDate asOf;
+
+    /** Current installment */
+    private BigDecimal currentEmi;
+
+    /** Unpaid installments, including overdue ones */
+    private int pendingInstallments;
+
+    /** Unpaid installments already due, owed in full on foreclosure */
+    private int overdueInstallments;
+
+    private BigDecimal overdueAmount;
+
+    /** Sum of all unpaid installments as scheduled */
+    private BigDecimal outstandingAmount;
+
+    /** Principal left after the last installment boundary */
+    private BigDecimal principalOutstanding;
+
+    /** Interest accrued on that principal since the boundary */
+    private BigDecimal accruedInterest;
+
+    /** Amount that closes the loan today */
+    private BigDecimal payoffAmount;
+
+    private BigDecimal foreclosureSavings;
+
+    // ---- what-if for a part-prepayment (null when no amount was asked for) ----
+
+    private BigDecimal prepaymentAmount;
+
+    /** REDUCE_EMI: new installment over the same number of installments */
+    private BigDecimal reducedEmi;
+
+    private BigDecimal reducedEmiSavings;
+
+    /** REDUCE_TENURE: installments left when the EMI is kept */
+    private Integer reducedTenureInstallments;
+
+    private BigDecimal reducedTenureSavings;
+}
@@ -0,0 +1,25 @@
+package com.loanmanagement.dto;
+
+import com.loanmanagement.model.LoanPrepayment;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Digits;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+/**
+ * Lump-sum payment against a loan. An amount that covers the foreclosure
+ * payoff closes the loan; anything less recasts the remaining installments.
+ */
+@Data
+public class PrepaymentRequest {
+
+    @NotNull(message = "Prepayment amount is required")
+    @DecimalMin(value = "1.00", message = "Prepayment amount must be at least ₹1")
+    @Digits(integer = 13, fraction = 2, message = "Invalid prepayment amount format")
+    private BigDecimal amount;
+
+    /** How to recast a part-prepayment; defaults to REDUCE_EMI */
+    private LoanPrepayment.RecastMode mode;
+}
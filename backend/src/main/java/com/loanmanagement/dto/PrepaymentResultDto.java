@@ -0,0 +1,39 @@
+package com.loanmanagement.dto;
+
+import com.loanmanagement.model.LoanPrepayment;
+import lombok.*;
+
+import java.math.BigDecimal;
+
+/**
+ * Outcome of a part-prepayment or foreclosure.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class PrepaymentResultDto {
+
+    private Long loanId;
+
+    private LoanPrepayment.RecastMode mode;
+
+    /** Amount taken; a foreclosure never takes more than the payoff */
+    private BigDecimal amountPaid;
+
+    private BigDecimal principalBefore;
+
+    private BigDecimal principalAfter;
+
+    /** Installment after the recast (null once the loan is closed) */
+    private BigDecimal newEmi;
+
+    private int remainingInstallments;
+
+    /** Sum of the installments still scheduled */
+    private BigDecimal outstandingAmount;
+
+    private boolean loanClosed;
+
+    private String transactionRef;
+}
@@ -0,0 +1,34 @@
+package com.loanmanagement.dto;
+
+import lombok.*;
+
+import java.math.BigDecimal;
+
+/**
+ * One statement row that could not be applied cleanly during reconciliation.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ReconciliationLineDto {
+
+    public enum Outcome {
+        MATCHED,     // settled one or more whole installments exactly
+        PARTIAL,     // amount did not line up with whole installments
+        UNMATCHED,   // no unpaid EMI for the referenced loan
+        DUPLICATE,   // bank reference already applied
+        MALFORMED    // row could not be parsed
+    }
+
+    private int lineNumber;
+    private String reference;
+    private Long loanId;
+    private BigDecimal amount;
+    private Outcome outcome;
+
+    /** EMIs settled from this row (PARTIAL rows may still settle some) */
+    private int settledEmis;
+
+    private String message;
+}
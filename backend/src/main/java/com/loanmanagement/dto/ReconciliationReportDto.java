@@ -0,0 +1,43 @@
+package com.loanmanagement.dto;
+
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Summary of a bank / NACH statement import.
+ * Only exception rows are listed, capped so a bad file cannot blow up the response.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ReconciliationReportDto {
+
+    private long totalRows;
+    private long matchedRows;
+    private long partialRows;
+    private long unmatchedRows;
+    private long duplicateRows;
+    private long malformedRows;
+
+    /** EMIs marked PAID by this import */
+    private long settledEmis;
+
+    /** Sum of statement amounts applied to EMIs */
+    @Builder.Default
+    private BigDecimal settledAmount = BigDecimal.ZERO;
+
+    /** Loans closed because their last EMI was settled */
+    private long closedLoans;
+
+    private long durationMs;
+
+    /** True when more exception rows occurred than are listed */
+    private boolean truncated;
+
+    @Builder.Default
+    private List<ReconciliationLineDto> exceptions = new ArrayList<>();
+}
@@ -0,0 +1,29 @@
+package com.loanmanagement.dto;
+
+import lombok.*;
+
+/**
+ * Timings of one id-range partition of a statement run.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class StatementPartitionDto {
+
+    private long fromId;
+    private long toId;
+
+    private int loans;
+    private int mailsSent;
+    /** loans without a usable e-mail address */
+    private int skipped;
+
+    private long queryMs;
+    private long renderMs;
+    private long sendMs;
+    private long totalMs;
+
+    /** Set when the partition failed; its loans got no statement */
+    private String error;
+}
@@ -0,0 +1,47 @@
+package com.loanmanagement.dto;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Progress and outcome of a monthly statement run, with per-partition timings for sizing the run window.
+ * While the job runs, the totals, duration and throughput cover the partitions finished so far.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class StatementRunReportDto {
+
+    private long jobId;
+
+    /** Statement month, e.g. 2026-09 */
+    private String period;
+
+    /** QUEUED, RUNNING, COMPLETED or FAILED */
+    private String state;
+
+    private int workers;
+    private int partitions;
+    private int partitionsDone;
+    private int failedPartitions;
+    /** ranges of this month already mailed by earlier runs, not sent again */
+    private int previouslySentPartitions;
+
+    private long loans;
+    private long mailsSent;
+    private long skipped;
+
+    private long durationMs;
+    private double loansPerSecond;
+
+    private LocalDateTime queuedAt;
+    private LocalDateTime finishedAt;
+    private String error;
+
+    @Builder.Default
+    private List<StatementPartitionDto> partitionTimings = new ArrayList<>();
+}
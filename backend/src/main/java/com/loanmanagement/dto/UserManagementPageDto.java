@@ -0,0 +1,24 @@
+package com.loanmanagement.dto;
+
+import lombok.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One page of the admin user management list.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class UserManagementPageDto {
+
+    @Builder.Default
+    private List<UserManagementDto> users = new ArrayList<>();
+
+    private int page;
+    private int size;
+    private long totalElements;
+    private int totalPages;
+}
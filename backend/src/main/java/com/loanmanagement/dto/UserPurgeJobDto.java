@@ -0,0 +1,31 @@
+package com.loanmanagement.dto;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Progress of a background user purge (a customer too large to delete within the request).
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class UserPurgeJobDto {
+
+    private long jobId;
+    private Long userId;
+    private String username;
+
+    /** QUEUED, RUNNING, COMPLETED or FAILED */
+    private String state;
+
+    private long loansTotal;
+    private long loansDeleted;
+    private long emisTotal;
+    private long emisDeleted;
+
+    private LocalDateTime queuedAt;
+    private LocalDateTime finishedAt;
+    private String error;
+}
@@ -0,0 +1,51 @@
+package com.loanmanagement.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Keyed hash (HMAC-SHA256) of a PAN or Aadhaar seen on an application. Lets
+ * duplicate identities be found by index lookup without storing or scanning
+ * the raw numbers.
+ */
+@Entity
+@Table(name = "applicant_identity_hashes", indexes = {
+        @Index(name = "idx_identity_hash", columnList = "hash"),
+        @Index(name = "idx_identity_loan", columnList = "loan_id"),
+        @Index(name = "idx_identity_created", columnList = "created_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ApplicantIdentityHash {
+
+    public enum IdentityKind {
+        PAN,
+        AADHAAR
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // hex HMAC of "<KIND>:<normalized value>"
+    @Column(nullable = false, length = 64)
+    private String hash;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private IdentityKind kind;
+
+    // plain ids (no FK): rows are written in JDBC batches next to the loan insert
+    @Column(name = "loan_id", nullable = false)
+    private Long loanId;
+
+    @Column(name = "customer_id", nullable = false)
+    private Long customerId;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,29 @@
+package com.loanmanagement.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * One row per identity hash ever screened. Its primary key is what serialises
+ * concurrent applications carrying the same PAN or Aadhaar: the second
+ * screening blocks on this row until the first one's transaction ends, and
+ * then sees that application's hashes.
+ */
+@Entity
+@Table(name = "applicant_identity_locks")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ApplicantIdentityLock {
+
+    // same hex HMAC as ApplicantIdentityHash.hash (the kind is part of the HMAC input)
+    @Id
+    @Column(length = 64)
+    private String hash;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -7,7 +7,9 @@ import java.time.LocalDateTime;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 
 @Entity
-@Table(name = "application_status_history")
+@Table(name = "application_status_history", indexes = {
+        @Index(name = "idx_history_loan_updated", columnList = "loan_id, updated_at")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -0,0 +1,85 @@
+package com.loanmanagement.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * A CLOSED or REJECTED loan moved out of the hot tables once it is older than
+ * the retention window. Keeps the original loan id; the loan type is copied by
+ * id and name so the type can be deleted later. The EMI schedule and history
+ * are in {@link ArchivedLoanRecords}.
+ */
+@Entity
+@Table(name = "loans_archive", indexes = {
+        @Index(name = "idx_loans_archive_customer", columnList = "customer_id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ArchivedLoan {
+
+    @Id
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "customer_id", nullable = false)
+    @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private User customer;
+
+    @Column(name = "loan_type_id")
+    private Long loanTypeId;
+
+    @Column(name = "loan_type_name", length = 100)
+    private String loanTypeName;
+
+    @Column(nullable = false, precision = 15, scale = 2)
+    private BigDecimal amount;
+
+    @Column(name = "applied_interest_rate", nullable = false)
+    private Double appliedInterestRate;
+
+    @Column(nullable = false)
+    private int tenureYears;
+
+    @Column(nullable = false, length = 300)
+    private String purpose;
+
+    @Column(nullable = false)
+    private String income;
+
+    @Column(nullable = false, length = 100)
+    private String employmentInfo;
+
+    @Column(nullable = false)
+    private String aadhaar;
+
+    @Column(nullable = false)
+    private String pan;
+
+    @Column(nullable = false)
+    private int cibilScore;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Loan.LoanStatus loanStatus;
+
+    private LocalDateTime submittedAt;
+    private LocalDateTime closedAt;
+
+    @Column(name = "paid_emi_count", nullable = false)
+    private int paidEmiCount;
+
+    // sum of the PAID EMIs at archive time (dashboard totals without opening the records)
+    @Column(name = "repaid_amount", nullable = false, precision = 18, scale = 2)
+    private BigDecimal repaidAmount;
+
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+}
@@ -0,0 +1,27 @@
+package com.loanmanagement.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * The EMI schedule (with penalties), prepayments and status history of an
+ * {@link ArchivedLoan}, as one gzip-compressed JSON document. Only read when
+ * somebody opens the archived loan.
+ */
+@Entity
+@Table(name = "loans_archive_records")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ArchivedLoanRecords {
+
+    @Id
+    @Column(name = "loan_id")
+    private Long loanId;
+
+    @Lob
+    @Column(nullable = false)
+    @ToString.Exclude
+    private byte[] records;
+}
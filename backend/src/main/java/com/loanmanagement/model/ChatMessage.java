@@ -5,7 +5,9 @@ import lombok.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "chat_messages")
+@Table(name = "chat_messages", indexes = {
+        @Index(name = "idx_chat_customer_id", columnList = "customer_id, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -0,0 +1,61 @@
+package com.loanmanagement.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Review-queue entry: an application whose PAN or Aadhaar also appears on an
+ * application from a different customer account.
+ */
+@Entity
+@Table(name = "duplicate_application_flags", indexes = {
+        @Index(name = "idx_dup_flag_status", columnList = "status, created_at"),
+        @Index(name = "idx_dup_flag_loan", columnList = "loan_id"),
+        @Index(name = "idx_dup_flag_matched_loan", columnList = "matched_loan_id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DuplicateApplicationFlag {
+
+    public enum FlagStatus {
+        OPEN,       // waiting for an admin
+        CLEARED,    // legitimate (e.g. a customer's second account)
+        CONFIRMED   // confirmed duplicate / fraud
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // the new application
+    @Column(name = "loan_id", nullable = false)
+    private Long loanId;
+
+    @Column(name = "customer_id", nullable = false)
+    private Long customerId;
+
+    // the earlier application carrying the same identity
+    @Column(name = "matched_loan_id", nullable = false)
+    private Long matchedLoanId;
+
+    @Column(name = "matched_customer_id", nullable = false)
+    private Long matchedCustomerId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private ApplicantIdentityHash.IdentityKind kind;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private FlagStatus status;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "resolved_at")
+    private LocalDateTime resolvedAt;
+}
@@ -10,7 +10,14 @@ import java.time.LocalDate;
 
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 @Entity
-@Table(name = "emi_payment")
+@Table(name = "emi_payment", indexes = {
+        // reconciliation looks up already-applied bank references
+        @Index(name = "idx_emi_payment_txn_ref", columnList = "transactionRef"),
+        // a loan's schedule by status in due-date order
+        @Index(name = "idx_emi_loan_status_due", columnList = "loan_id, status, dueDate"),
+        // pending / overdue scans across loans
+        @Index(name = "idx_emi_status_due", columnList = "status, dueDate")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -51,6 +58,11 @@ public class EmiPayment {
     @Column(nullable = false)
     private LocalDate updatedAt;
 
+    // optimistic lock: concurrent pay/close attempts on the same EMI cannot both win
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
     public enum EmiStatus {
         PENDING, PAID, LATE
     }
@@ -9,7 +9,14 @@ import java.time.LocalDateTime;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 
 @Entity
-@Table(name = "loans")
+@Table(name = "loans", indexes = {
+        // active-loan counts per type: WHERE customer_id = ? AND loan_status IN (...) GROUP BY loan_type_id
+        @Index(name = "idx_loans_customer_status_type", columnList = "customer_id, loanStatus, loan_type_id"),
+        // status queues oldest first, MIN/MAX(id) per status for statement partitions
+        @Index(name = "idx_loans_status_submitted", columnList = "loanStatus, submittedAt"),
+        // archival scan: CLOSED loans by closing date
+        @Index(name = "idx_loans_status_closed", columnList = "loanStatus, closedAt")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -19,6 +26,12 @@ public class Loan {
     @OneToMany(mappedBy = "loan", cascade = CascadeType.ALL, orphanRemoval = true)
     private java.util.List<ApplicationStatusHistory> statusHistory;
 
+    @OneToMany(mappedBy = "loan", cascade = CascadeType.ALL, orphanRemoval = true)
+    @com.fasterxml.jackson.annotation.JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private java.util.List<LoanPrepayment> prepayments;
+
 
     public enum LoanStatus {
         SUBMITTED,   // When the customer submits a loan
@@ -104,4 +117,31 @@ public class Loan {
 
     private LocalDateTime submittedAt;
     private LocalDateTime closedAt;
+
+    // ---- repayment snapshot, kept in step with emi_payment in the same transaction ----
+
+    // EMIs not yet PAID
+    @Column(name = "pending_emi_count", nullable = false)
+    private int pendingEmiCount;
+
+    @Column(name = "paid_emi_count", nullable = false)
+    private int paidEmiCount;
+
+    // sum of unpaid EMI amounts
+    @Column(name = "outstanding_amount", precision = 18, scale = 2)
+    private java.math.BigDecimal outstandingAmount;
+
+    // amount of the last unpaid EMI; every earlier unpaid EMI is one amount, but a REDUCE_TENURE
+    // recast leaves a smaller last one (null when nothing is due)
+    @Column(name = "last_emi_amount", precision = 18, scale = 2)
+    private java.math.BigDecimal lastEmiAmount;
+
+    // due date of the earliest unpaid EMI (null when nothing is due)
+    @Column(name = "next_due_date")
+    private java.time.LocalDate nextDueDate;
+
+    // optimistic lock: bumped by every payment and status change on this loan
+    @Version
+    @Column(nullable = false)
+    private Long version;
 }
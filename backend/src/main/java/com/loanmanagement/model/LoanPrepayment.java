@@ -0,0 +1,65 @@
+package com.loanmanagement.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * A lump-sum payment outside the EMI schedule: a part-prepayment that recast
+ * the remaining installments, or the payoff of a foreclosure.
+ */
+@Entity
+@Table(name = "loan_prepayment")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LoanPrepayment {
+
+    public enum RecastMode {
+        REDUCE_EMI,     // keep the tenure, lower the installment
+        REDUCE_TENURE,  // keep the installment, finish earlier
+        FORECLOSURE     // payoff of the whole loan
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "loan_id", nullable = false)
+    @JsonIgnore
+    private Loan loan;
+
+    @Column(nullable = false, precision = 18, scale = 2)
+    private BigDecimal amount;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private RecastMode mode;
+
+    // principal at the last installment boundary, before and after this payment
+    @Column(name = "principal_before", nullable = false, precision = 18, scale = 2)
+    private BigDecimal principalBefore;
+
+    @Column(name = "principal_after", nullable = false, precision = 18, scale = 2)
+    private BigDecimal principalAfter;
+
+    @Column(nullable = false)
+    private LocalDate paymentDate;
+
+    @Column(length = 100)
+    private String transactionRef;
+
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    public void onCreate() {
+        this.createdAt = LocalDateTime.now();
+    }
+}
@@ -3,12 +3,17 @@ package com.loanmanagement.model;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.math.BigDecimal;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
 @Entity
 @Table(name = "loan_types")
+// reference data read with every loan; changes go through Hibernate, which keeps the cached copy current
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "loanTypes")
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -49,6 +54,10 @@ public class LoanType {
     @Column(precision = 5, scale = 2)
     private BigDecimal penaltyRatePercent;
     
+    // auto-decision rules applied at submission (see LoanDecisionRules); null = every application is reviewed manually
+    @Column(name = "decision_rules", length = 2000)
+    private String decisionRules;
+
     @OneToMany(mappedBy = "loanType", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     @JsonIgnore
     private java.util.List<Loan> loans;
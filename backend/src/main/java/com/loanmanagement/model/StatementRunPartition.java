@@ -0,0 +1,44 @@
+package com.loanmanagement.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * A loan-id range whose statements for a month went out. A later run for the
+ * same month only works on the ranges not recorded here, so re-running a
+ * month mails just the partitions that failed or never ran.
+ */
+@Entity
+@Table(name = "statement_run_partitions",
+        uniqueConstraints = @UniqueConstraint(name = "uk_statement_partition", columnNames = {"period", "from_id"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StatementRunPartition {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /** Statement month, e.g. 2026-09 */
+    @Column(nullable = false, length = 7)
+    private String period;
+
+    @Column(name = "from_id", nullable = false)
+    private long fromId;
+
+    @Column(name = "to_id", nullable = false)
+    private long toId;
+
+    @Column(nullable = false)
+    private int loans;
+
+    @Column(name = "mails_sent", nullable = false)
+    private int mailsSent;
+
+    @Column(name = "completed_at", nullable = false)
+    private LocalDateTime completedAt;
+}
@@ -2,6 +2,8 @@ package com.loanmanagement.model;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.time.LocalDateTime;
 
@@ -12,8 +14,12 @@ import java.time.LocalDateTime;
 @Entity
 @Table(
     name = "users",
-    uniqueConstraints = @UniqueConstraint(columnNames = "email")
+    uniqueConstraints = @UniqueConstraint(columnNames = "email"),
+    indexes = @Index(name = "idx_users_created_at", columnList = "createdAt")
 )
+// loaded eagerly with every loan and on every authenticated request; short TTL (see application.properties)
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "users")
 public class User {
 
     @Id
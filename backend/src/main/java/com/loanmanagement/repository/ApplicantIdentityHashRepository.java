@@ -0,0 +1,42 @@
+package com.loanmanagement.repository;
+
+import com.loanmanagement.model.ApplicantIdentityHash;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface ApplicantIdentityHashRepository extends JpaRepository<ApplicantIdentityHash, Long> {
+
+    // 🔒 Earlier applications carrying any of these identity hashes (index lookup on hash), as a locking
+    // read so rows committed after this transaction's snapshot was taken are seen
+    @Lock(LockModeType.PESSIMISTIC_READ)
+    @Query("SELECT h FROM ApplicantIdentityHash h WHERE h.hash IN :hashes")
+    List<ApplicantIdentityHash> findByHashInLocked(@Param("hashes") Collection<String> hashes);
+
+    // ✅ Hashes added after a given row, in id order (bloom filter warm-up / catch-up)
+    @Query("SELECT h.id AS id, h.hash AS hash FROM ApplicantIdentityHash h WHERE h.id > :afterId ORDER BY h.id")
+    List<HashRow> findHashesAfter(@Param("afterId") Long afterId, Pageable page);
+
+    // ✅ Hashes written since a point in time, in id order (bloom catch-up of rows that committed late)
+    @Query("SELECT h.id AS id, h.hash AS hash FROM ApplicantIdentityHash h "
+            + "WHERE h.createdAt >= :since AND h.id > :afterId ORDER BY h.id")
+    List<HashRow> findHashesCreatedSince(@Param("since") LocalDateTime since, @Param("afterId") Long afterId,
+                                         Pageable page);
+
+    @Modifying
+    @Query("DELETE FROM ApplicantIdentityHash h WHERE h.loanId IN :loanIds")
+    int deleteByLoanIdIn(@Param("loanIds") Collection<Long> loanIds);
+
+    interface HashRow {
+        Long getId();
+        String getHash();
+    }
+}
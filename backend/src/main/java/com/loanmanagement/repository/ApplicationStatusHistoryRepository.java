@@ -3,12 +3,22 @@ package com.loanmanagement.repository;
 import com.loanmanagement.model.ApplicationStatusHistory;
 import com.loanmanagement.model.Loan;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface ApplicationStatusHistoryRepository extends JpaRepository<ApplicationStatusHistory, Long> {
 
-    void deleteAllByLoan(Loan loan);
+    @Query("SELECT h FROM ApplicationStatusHistory h WHERE h.loan.id IN :loanIds ORDER BY h.updatedAt, h.id")
+    List<ApplicationStatusHistory> findByLoanIdIn(@Param("loanIds") Collection<Long> loanIds);
+
+    // ✅ Set-based purge (no entity loading)
+    @Modifying
+    @Query("DELETE FROM ApplicationStatusHistory h WHERE h.loan.id IN :loanIds")
+    int deleteByLoanIdIn(@Param("loanIds") Collection<Long> loanIds);
 
     // ✅ New method to get status history of a loan ordered by updatedAt
     List<ApplicationStatusHistory> findByLoanOrderByUpdatedAtAsc(Loan loan);
@@ -0,0 +1,16 @@
+package com.loanmanagement.repository;
+
+import com.loanmanagement.model.ArchivedLoanRecords;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+
+public interface ArchivedLoanRecordsRepository extends JpaRepository<ArchivedLoanRecords, Long> {
+
+    @Modifying
+    @Query("DELETE FROM ArchivedLoanRecords r WHERE r.loanId IN :loanIds")
+    int deleteByLoanIdIn(@Param("loanIds") Collection<Long> loanIds);
+}
@@ -0,0 +1,45 @@
+package com.loanmanagement.repository;
+
+import com.loanmanagement.model.ArchivedLoan;
+import com.loanmanagement.model.Loan;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface ArchivedLoanRepository extends JpaRepository<ArchivedLoan, Long> {
+
+    // ✅ A customer's archived loans (idx_loans_archive_customer); the customer is already known to the caller
+    @Query("SELECT a FROM ArchivedLoan a WHERE a.customer.userId = :customerId ORDER BY a.id")
+    List<ArchivedLoan> findByCustomerId(@Param("customerId") Long customerId);
+
+    @Query("SELECT a FROM ArchivedLoan a JOIN FETCH a.customer WHERE a.id = :id")
+    Optional<ArchivedLoan> findWithCustomerById(@Param("id") Long id);
+
+    @Query("SELECT a FROM ArchivedLoan a JOIN FETCH a.customer ORDER BY a.id")
+    List<ArchivedLoan> findAllWithCustomer();
+
+    @Query("SELECT a.id FROM ArchivedLoan a WHERE a.customer.userId = :customerId")
+    List<Long> findIdsByCustomerId(@Param("customerId") Long customerId);
+
+    @Modifying
+    @Query("DELETE FROM ArchivedLoan a WHERE a.id IN :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+
+    // ✅ Dashboard: archived loans per status with their amounts, one GROUP BY
+    @Query("SELECT a.loanStatus AS status, COUNT(a) AS count, COALESCE(SUM(a.amount), 0) AS amount, " +
+           "COALESCE(SUM(a.repaidAmount), 0) AS repaidAmount FROM ArchivedLoan a GROUP BY a.loanStatus")
+    List<StatusTotals> totalsGroupedByLoanStatus();
+
+    interface StatusTotals {
+        Loan.LoanStatus getStatus();
+        Long getCount();
+        BigDecimal getAmount();
+        BigDecimal getRepaidAmount();
+    }
+}
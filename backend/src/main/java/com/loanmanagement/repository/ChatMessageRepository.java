@@ -3,15 +3,32 @@ package com.loanmanagement.repository;
 import com.loanmanagement.model.ChatMessage;
 import com.loanmanagement.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 
 public interface ChatMessageRepository extends JpaRepository<ChatMessage, Long> {
     List<ChatMessage> findByCustomerOrderBySentAtAsc(User customer);
 
+    // ✅ Every chat, customer and admin fetched in the same query (no select per sender)
+    @Query("SELECT m FROM ChatMessage m LEFT JOIN FETCH m.customer c LEFT JOIN FETCH m.admin " +
+           "ORDER BY c.userId, m.sentAt")
     List<ChatMessage> findAllByOrderByCustomer_UserIdAscSentAtAsc();
 
-    List<ChatMessage> findByCustomer_UserIdOrderBySentAtAsc(Long customerId);
-    
-    void deleteAllByCustomer(User customer);
+    // ✅ One customer's thread in arrival order, filtered on chat_messages.customer_id (idx_chat_customer_id);
+    // replying admins are fetched in the same query, the one customer is a single lookup (usually cached)
+    @Query("SELECT m FROM ChatMessage m LEFT JOIN FETCH m.admin " +
+           "WHERE m.customer.userId = :customerId ORDER BY m.id")
+    List<ChatMessage> findThreadByCustomerId(@Param("customerId") Long customerId);
+
+    @Modifying
+    @Query("DELETE FROM ChatMessage m WHERE m.customer.userId = :customerId")
+    int deleteByCustomerId(@Param("customerId") Long customerId);
+
+    // ✅ A deleted admin's replies stay in the customers' threads without a sender
+    @Modifying
+    @Query("UPDATE ChatMessage m SET m.admin = null WHERE m.admin.userId = :adminId")
+    int clearAdmin(@Param("adminId") Long adminId);
 }
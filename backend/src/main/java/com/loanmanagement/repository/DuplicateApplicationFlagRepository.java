@@ -0,0 +1,24 @@
+package com.loanmanagement.repository;
+
+import com.loanmanagement.model.DuplicateApplicationFlag;
+import com.loanmanagement.model.DuplicateApplicationFlag.FlagStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface DuplicateApplicationFlagRepository extends JpaRepository<DuplicateApplicationFlag, Long> {
+
+    // ✅ Review queue, oldest first
+    List<DuplicateApplicationFlag> findByStatusOrderByCreatedAtAsc(FlagStatus status);
+
+    List<DuplicateApplicationFlag> findByLoanId(Long loanId);
+
+    // ✅ Flags raised by or against any of these loans (idx_dup_flag_loan / idx_dup_flag_matched_loan)
+    @Modifying
+    @Query("DELETE FROM DuplicateApplicationFlag f WHERE f.loanId IN :loanIds OR f.matchedLoanId IN :loanIds")
+    int deleteByLoanIdIn(@Param("loanIds") Collection<Long> loanIds);
+}
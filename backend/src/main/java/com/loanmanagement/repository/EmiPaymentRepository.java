@@ -2,14 +2,39 @@ package com.loanmanagement.repository;
 
 import com.loanmanagement.model.EmiPayment;
 import com.loanmanagement.model.Loan;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface EmiPaymentRepository extends JpaRepository<EmiPayment, Long> {
 
-    // ✅ Custom method to delete all EMI payments for a given loan
-    void deleteAllByLoan(Loan loan);
+    // ✅ Archival: the schedules of a chunk of loans
+    @Query("SELECT e FROM EmiPayment e WHERE e.loan.id IN :loanIds ORDER BY e.dueDate, e.id")
+    List<EmiPayment> findByLoanIdIn(@Param("loanIds") Collection<Long> loanIds);
+
+    // ✅ Purge: the next chunk of a loan set's EMI ids, deleted by id so one transaction stays small
+    @Query("SELECT e.id FROM EmiPayment e WHERE e.loan.id IN :loanIds ORDER BY e.id")
+    List<Long> findIdsByLoanIdIn(@Param("loanIds") Collection<Long> loanIds, Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM EmiPayment e WHERE e.id IN :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("DELETE FROM EmiPayment e WHERE e.loan.id IN :loanIds")
+    int deleteByLoanIdIn(@Param("loanIds") Collection<Long> loanIds);
+
+    // ✅ Size of a customer's repayment history (decides between an inline and a background purge)
+    @Query("SELECT COUNT(e) FROM EmiPayment e WHERE e.loan.customer.userId = :customerId")
+    long countByCustomerId(@Param("customerId") Long customerId);
 
     // (Optional) Get all EMI payments for a loan, ordered by payment date
     List<EmiPayment> findByLoanOrderByPaymentDateAsc(Loan loan);
@@ -20,11 +45,85 @@ public interface EmiPaymentRepository extends JpaRepository<EmiPayment, Long> {
     List<EmiPayment> findByLoanOrderByDueDateAsc(Loan loan);
 
     // (optional) if you prefer by loanId, you can also keep this
-    List<EmiPayment> findByLoanIdOrderByDueDateAsc(Long loanId);
+    // loanId queries are written out: e.loan.id filters on emi_payment.loan_id, a derived query joins loans first
+    @Query("SELECT e FROM EmiPayment e WHERE e.loan.id = :loanId ORDER BY e.dueDate")
+    List<EmiPayment> findByLoanIdOrderByDueDateAsc(@Param("loanId") Long loanId);
 
     // ✅ NEW: count remaining PENDING EMIs
     long countByLoanAndStatus(Loan loan, EmiPayment.EmiStatus status);
     
     List<EmiPayment> findByStatus(EmiPayment.EmiStatus status);
 
+    @Query("SELECT COALESCE(SUM(e.amount), 0) FROM EmiPayment e WHERE e.status = :status")
+    BigDecimal sumAmountByStatus(@Param("status") EmiPayment.EmiStatus status);
+
+    // ✅ Next K EMIs in a given status (multi-installment payment) — idx_emi_loan_status_due
+    @Query("SELECT e FROM EmiPayment e WHERE e.loan.id = :loanId AND e.status = :status ORDER BY e.dueDate")
+    List<EmiPayment> findByLoanIdAndStatusOrderByDueDateAsc(@Param("loanId") Long loanId,
+                                                            @Param("status") EmiPayment.EmiStatus status,
+                                                            Pageable pageable);
+
+    // ✅ Specific EMIs of one loan (multi-installment payment)
+    @Query("SELECT e FROM EmiPayment e WHERE e.loan.id = :loanId AND e.id IN :ids ORDER BY e.dueDate")
+    List<EmiPayment> findByLoanIdAndIdInOrderByDueDateAsc(@Param("loanId") Long loanId, @Param("ids") Collection<Long> ids);
+
+    // ✅ Conditional bulk settle: only rows not yet PAID are touched, each gets its own ref and a version bump
+    @Modifying
+    @Query("UPDATE EmiPayment e SET e.status = :paid, e.paymentDate = :paidOn, e.updatedAt = :paidOn, " +
+           "e.transactionRef = CONCAT(:refPrefix, CAST(e.id AS String)), e.version = e.version + 1 " +
+           "WHERE e.loan.id = :loanId AND e.status <> :paid")
+    int markUnpaidAsPaid(@Param("loanId") Long loanId,
+                         @Param("paid") EmiPayment.EmiStatus paid,
+                         @Param("paidOn") LocalDate paidOn,
+                         @Param("refPrefix") String refPrefix);
+
+    // ✅ Unpaid schedule of a loan in due-date order (prepayment recast)
+    @Query("SELECT e FROM EmiPayment e WHERE e.loan.id = :loanId AND e.status <> :status ORDER BY e.dueDate")
+    List<EmiPayment> findByLoanIdAndStatusNotOrderByDueDateAsc(@Param("loanId") Long loanId,
+                                                               @Param("status") EmiPayment.EmiStatus status);
+
+    // ✅ "installment X of N" for receipts: each EMI's position in its loan's schedule, one round trip
+    @Query("SELECT p.id AS id, (SELECT COUNT(e) FROM EmiPayment e WHERE e.loan.id = p.loan.id AND e.dueDate <= p.dueDate) AS installmentNo " +
+           "FROM EmiPayment p WHERE p.id IN :ids")
+    List<InstallmentNumber> findInstallmentNumbers(@Param("ids") Collection<Long> ids);
+
+    interface InstallmentNumber {
+        Long getId();
+        Long getInstallmentNo();
+    }
+
+    // 🏠 The next unpaid EMI of each of a customer's loans, picked via the loan's snapshot next-due date
+    @Query("SELECT e FROM EmiPayment e JOIN e.loan l " +
+           "WHERE l.customer.userId = :customerId AND l.loanStatus = :loanStatus " +
+           "AND e.status <> :paid AND e.dueDate = l.nextDueDate")
+    List<EmiPayment> findNextDueByCustomerId(@Param("customerId") Long customerId,
+                                             @Param("loanStatus") Loan.LoanStatus loanStatus,
+                                             @Param("paid") EmiPayment.EmiStatus paid);
+
+    // ✅ Earliest EMI not in the given status (next due date after a payment)
+    Optional<EmiPayment> findFirstByLoanIdAndStatusNotOrderByDueDateAsc(Long loanId, EmiPayment.EmiStatus status);
+
+    // ✅ Last unpaid EMI of a loan (its amount can differ after a REDUCE_TENURE recast)
+    Optional<EmiPayment> findFirstByLoanIdAndStatusNotOrderByDueDateDesc(Long loanId, EmiPayment.EmiStatus status);
+
+    // ✅ Reconciliation: unpaid EMIs of many loans due up to a horizon, earliest first (hash-join build side)
+    @Query("SELECT e FROM EmiPayment e WHERE e.loan.id IN :loanIds AND e.status IN :statuses " +
+           "AND e.dueDate <= :dueBy ORDER BY e.loan.id, e.dueDate")
+    List<EmiPayment> findOpenForLoans(@Param("loanIds") Collection<Long> loanIds,
+                                      @Param("statuses") Collection<EmiPayment.EmiStatus> statuses,
+                                      @Param("dueBy") LocalDate dueBy);
+
+    // ✅ Reconciliation: which bank references were already applied
+    @Query("SELECT DISTINCT e.transactionRef FROM EmiPayment e WHERE e.transactionRef IN :refs")
+    List<String> findExistingTransactionRefs(@Param("refs") Collection<String> refs);
+
+    // ✅ Total repayable (sum of all EMIs plus any part-prepayments) without loading the schedule
+    @Query("SELECT COALESCE(SUM(e.amount), 0) + " +
+           "(SELECT COALESCE(SUM(p.amount), 0) FROM LoanPrepayment p WHERE p.loan.id = :loanId) " +
+           "FROM EmiPayment e WHERE e.loan.id = :loanId")
+    BigDecimal sumAmountByLoanId(@Param("loanId") Long loanId);
+
+    @Query("SELECT COALESCE(SUM(e.amount), 0) FROM EmiPayment e WHERE e.loan.id = :loanId AND e.status <> :status")
+    BigDecimal sumAmountByLoanIdAndStatusNot(@Param("loanId") Long loanId, @Param("status") EmiPayment.EmiStatus status);
+
 }
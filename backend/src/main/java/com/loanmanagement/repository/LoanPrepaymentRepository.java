@@ -0,0 +1,23 @@
+package com.loanmanagement.repository;
+
+import com.loanmanagement.model.LoanPrepayment;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface LoanPrepaymentRepository extends JpaRepository<LoanPrepayment, Long> {
+
+    // ✅ Prepayments of a loan, most recent first
+    List<LoanPrepayment> findByLoanIdOrderByCreatedAtDesc(Long loanId);
+
+    @Query("SELECT p FROM LoanPrepayment p WHERE p.loan.id IN :loanIds ORDER BY p.createdAt, p.id")
+    List<LoanPrepayment> findByLoanIdIn(@Param("loanIds") Collection<Long> loanIds);
+
+    @Modifying
+    @Query("DELETE FROM LoanPrepayment p WHERE p.loan.id IN :loanIds")
+    int deleteByLoanIdIn(@Param("loanIds") Collection<Long> loanIds);
+}
@@ -1,14 +1,24 @@
 package com.loanmanagement.repository;
 
+import com.loanmanagement.model.EmiPayment;
 import com.loanmanagement.model.Loan;
 import com.loanmanagement.model.User;
 import com.loanmanagement.model.Loan.LoanStatus;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface LoanRepository extends JpaRepository<Loan, Long> {
 
@@ -25,14 +35,175 @@ public interface LoanRepository extends JpaRepository<Loan, Long> {
     @Query("SELECT COUNT(l) FROM Loan l WHERE l.customer = :customer AND l.loanStatus IN :statuses")
     Long countByCustomerAndLoanStatusIn(@Param("customer") User customer, @Param("statuses") List<Loan.LoanStatus> statuses);
 
-    // Delete all loans for a specific customer
-    void deleteAllByCustomer(User customer);
+    // ✅ Active loans per loan type for one customer, grouped in SQL (idx_loans_customer_status_type)
+    @Query("SELECT t.loanTypeId AS loanTypeId, t.name AS loanTypeName, COUNT(l) AS count " +
+           "FROM Loan l JOIN l.loanType t " +
+           "WHERE l.customer.userId = :customerId AND l.loanStatus IN :statuses " +
+           "GROUP BY t.loanTypeId, t.name")
+    List<LoanTypeCount> countByCustomerGroupedByLoanType(@Param("customerId") Long customerId,
+                                                         @Param("statuses") Collection<LoanStatus> statuses);
+
+    // ✅ Active loans of one customer for one loan type (apply-time limit check)
+    @Query("SELECT COUNT(l) FROM Loan l " +
+           "WHERE l.customer.userId = :customerId AND l.loanType.loanTypeId = :loanTypeId AND l.loanStatus IN :statuses")
+    long countByCustomerAndLoanType(@Param("customerId") Long customerId,
+                                    @Param("loanTypeId") Long loanTypeId,
+                                    @Param("statuses") Collection<LoanStatus> statuses);
+
+    // ✅ Active loans per (customer, type) for a set of customers (bulk limit check)
+    @Query("SELECT l.customer.userId AS customerId, l.loanType.loanTypeId AS loanTypeId, COUNT(l) AS count " +
+           "FROM Loan l " +
+           "WHERE l.customer.userId IN :customerIds AND l.loanStatus IN :statuses " +
+           "GROUP BY l.customer.userId, l.loanType.loanTypeId")
+    List<CustomerTypeCount> countByCustomersGroupedByLoanType(@Param("customerIds") Collection<Long> customerIds,
+                                                              @Param("statuses") Collection<LoanStatus> statuses);
+
+    interface CustomerTypeCount {
+        Long getCustomerId();
+        Long getLoanTypeId();
+        Long getCount();
+    }
+
+    interface LoanTypeCount {
+        Long getLoanTypeId();
+        String getLoanTypeName();
+        Long getCount();
+    }
+
+    // ✅ Archival: CLOSED loans by closing date (idx_loans_status_closed), REJECTED ones by application date
+    // (idx_loans_status_submitted); customer and type come along for the archive row
+    @Query("SELECT l FROM Loan l LEFT JOIN FETCH l.customer LEFT JOIN FETCH l.loanType " +
+           "WHERE (l.loanStatus = :closed AND l.closedAt < :cutoff) " +
+           "OR (l.loanStatus = :rejected AND l.submittedAt < :cutoff) ORDER BY l.id")
+    List<Loan> findArchivable(@Param("closed") LoanStatus closed,
+                              @Param("rejected") LoanStatus rejected,
+                              @Param("cutoff") LocalDateTime cutoff,
+                              Pageable pageable);
+
+    // ✅ Purge: a customer's loan ids, then set-based deletes (see LoanDataPurger)
+    @Query("SELECT l.id FROM Loan l WHERE l.customer.userId = :customerId ORDER BY l.id")
+    List<Long> findIdsByCustomerId(@Param("customerId") Long customerId);
+
+    @Modifying
+    @Query("DELETE FROM Loan l WHERE l.id IN :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
     
     long countByLoanStatus(Loan.LoanStatus status);
     List<Loan> findAllByLoanStatus(Loan.LoanStatus status);
     
-    // LoanRepository.java
-    List<Loan> findAllByLoanStatusIn(Collection<Loan.LoanStatus> statuses);
+    // ✅ Dashboard totals computed in the database instead of loading every loan
+    @Query("SELECT COALESCE(SUM(l.amount), 0) FROM Loan l WHERE l.loanStatus IN :statuses")
+    BigDecimal sumAmountByLoanStatusIn(@Param("statuses") Collection<Loan.LoanStatus> statuses);
+
+    @Query("SELECT l.loanStatus AS status, COUNT(l) AS count FROM Loan l GROUP BY l.loanStatus")
+    List<StatusCount> countGroupedByLoanStatus();
+
+    interface StatusCount {
+        LoanStatus getStatus();
+        Long getCount();
+    }
+
+    // ✅ Admin loan list: customer and loan type in the same query, not one select per distinct row
+    @Query("SELECT l FROM Loan l JOIN FETCH l.customer JOIN FETCH l.loanType")
+    List<Loan> findAllWithCustomerAndLoanType();
+
+    boolean existsByLoanTypeLoanTypeId(Long loanTypeId);
+
+    // 🔒 Load a loan and bump its version on commit, so concurrent writers on the same loan conflict
+    @Lock(LockModeType.OPTIMISTIC_FORCE_INCREMENT)
+    @Query("SELECT l FROM Loan l WHERE l.id = :id")
+    Optional<Loan> findByIdForUpdate(@Param("id") Long id);
+
+    // 🔒 Same as findByIdForUpdate, for a set of loans (reconciliation batches)
+    @Lock(LockModeType.OPTIMISTIC_FORCE_INCREMENT)
+    @Query("SELECT l FROM Loan l WHERE l.id IN :ids")
+    List<Loan> findAllByIdForUpdate(@Param("ids") Collection<Long> ids);
+
+    // 🧮 One-off fill of the repayment snapshot for loans whose schedule predates those columns
+    @Modifying
+    @Query("UPDATE Loan l SET " +
+           "l.pendingEmiCount = (SELECT COUNT(e) FROM EmiPayment e WHERE e.loan = l AND e.status <> :paid), " +
+           "l.paidEmiCount = (SELECT COUNT(e) FROM EmiPayment e WHERE e.loan = l AND e.status = :paid), " +
+           "l.outstandingAmount = (SELECT COALESCE(SUM(e.amount), 0) FROM EmiPayment e WHERE e.loan = l AND e.status <> :paid), " +
+           "l.nextDueDate = (SELECT MIN(e.dueDate) FROM EmiPayment e WHERE e.loan = l AND e.status <> :paid), " +
+           "l.lastEmiAmount = (SELECT MIN(e.amount) FROM EmiPayment e WHERE e.loan = l AND e.status <> :paid " +
+           "AND e.dueDate = (SELECT MAX(e2.dueDate) FROM EmiPayment e2 WHERE e2.loan = l AND e2.status <> :paid)) " +
+           "WHERE l.pendingEmiCount = 0 AND l.paidEmiCount = 0 " +
+           "AND EXISTS (SELECT e.id FROM EmiPayment e WHERE e.loan = l)")
+    int backfillRepaymentSnapshot(@Param("paid") EmiPayment.EmiStatus paid);
+
+    // 🏠 Customer home: every loan of a customer as flat rows (type + repayment snapshot), no entity graph
+    @Query("SELECT l.id AS loanId, t.loanTypeId AS loanTypeId, t.name AS loanTypeName, l.loanStatus AS loanStatus, " +
+           "l.amount AS amount, l.appliedInterestRate AS appliedInterestRate, l.tenureYears AS tenureYears, " +
+           "l.pendingEmiCount AS pendingEmiCount, l.paidEmiCount AS paidEmiCount, " +
+           "l.outstandingAmount AS outstandingAmount, l.nextDueDate AS nextDueDate, l.submittedAt AS submittedAt " +
+           "FROM Loan l LEFT JOIN l.loanType t WHERE l.customer.userId = :customerId ORDER BY l.id DESC")
+    List<CustomerLoanRow> findHomeRowsByCustomerId(@Param("customerId") Long customerId);
+
+    interface CustomerLoanRow {
+        Long getLoanId();
+        Long getLoanTypeId();
+        String getLoanTypeName();
+        LoanStatus getLoanStatus();
+        BigDecimal getAmount();
+        Double getAppliedInterestRate();
+        Integer getTenureYears();
+        Integer getPendingEmiCount();
+        Integer getPaidEmiCount();
+        BigDecimal getOutstandingAmount();
+        LocalDate getNextDueDate();
+        LocalDateTime getSubmittedAt();
+    }
+
+    // 🧾 Id bounds of the loans in a status, for splitting batch runs into id-range partitions
+    @Query("SELECT MIN(l.id) AS minId, MAX(l.id) AS maxId FROM Loan l WHERE l.loanStatus = :status")
+    @Transactional(readOnly = true)
+    IdRange findIdRangeByLoanStatus(@Param("status") LoanStatus status);
+
+    interface IdRange {
+        Long getMinId();
+        Long getMaxId();
+    }
+
+    // 🧾 Monthly statement figures for every loan in an id range: EMIs and penalties aggregated in one query
+    @Query("SELECT l.id AS loanId, c.userId AS userId, c.email AS email, c.name AS borrowerName, t.name AS loanName, " +
+           "l.amount AS principal, l.outstandingAmount AS outstanding, " +
+           "l.paidEmiCount AS paidEmiCount, l.pendingEmiCount AS pendingEmiCount, l.nextDueDate AS nextDueDate, " +
+           "COUNT(CASE WHEN e.status = :paid AND e.paymentDate BETWEEN :periodStart AND :periodEnd THEN e.id END) AS paidInPeriod, " +
+           "SUM(CASE WHEN e.status = :paid AND e.paymentDate BETWEEN :periodStart AND :periodEnd THEN e.amount END) AS paidInPeriodAmount, " +
+           "SUM(CASE WHEN e.status = :paid THEN e.amount END) AS paidToDate, " +
+           "COUNT(CASE WHEN e.status <> :paid AND e.dueDate <= :periodEnd THEN e.id END) AS overdueCount, " +
+           "(SELECT COALESCE(SUM(p.amount), 0.0) FROM Penalty p WHERE p.emi.loan.id = l.id) AS penalties " +
+           "FROM Loan l JOIN l.customer c LEFT JOIN l.loanType t LEFT JOIN EmiPayment e ON e.loan = l " +
+           "WHERE l.loanStatus = :status AND l.id BETWEEN :fromId AND :toId " +
+           "GROUP BY l.id, c.userId, c.email, c.name, t.name, l.amount, l.outstandingAmount, " +
+           "l.paidEmiCount, l.pendingEmiCount, l.nextDueDate " +
+           "ORDER BY l.id")
+    @Transactional(readOnly = true) // report query: served by the read replica when one is configured
+    List<StatementRow> findStatementRows(@Param("status") LoanStatus status,
+                                         @Param("fromId") Long fromId,
+                                         @Param("toId") Long toId,
+                                         @Param("paid") EmiPayment.EmiStatus paid,
+                                         @Param("periodStart") LocalDate periodStart,
+                                         @Param("periodEnd") LocalDate periodEnd);
+
+    interface StatementRow {
+        Long getLoanId();
+        Long getUserId();
+        String getEmail();
+        String getBorrowerName();
+        String getLoanName();
+        BigDecimal getPrincipal();
+        BigDecimal getOutstanding();
+        Integer getPaidEmiCount();
+        Integer getPendingEmiCount();
+        LocalDate getNextDueDate();
+        Long getPaidInPeriod();
+        BigDecimal getPaidInPeriodAmount();
+        BigDecimal getPaidToDate();
+        Long getOverdueCount();
+        Double getPenalties();
+    }
 
 
     
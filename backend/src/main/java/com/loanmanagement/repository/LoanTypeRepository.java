@@ -5,8 +5,20 @@ import com.loanmanagement.model.LoanType;
 
 // Spring Data JPA interface providing CRUD methods
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+
+import java.util.List;
 
 // Repository interface for LoanType entity with Long as ID type
 public interface LoanTypeRepository extends JpaRepository<LoanType, Long> {
-    // No custom methods needed yet — inherits basic CRUD methods from JpaRepository
+
+    // ✅ Loan type catalogue: ids served from the query cache, rows from the loanTypes region
+    @Override
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "query.loanTypes")
+    })
+    List<LoanType> findAll();
 }
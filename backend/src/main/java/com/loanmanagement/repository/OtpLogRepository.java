@@ -5,8 +5,14 @@ import com.loanmanagement.model.OtpLog;
 
 // Spring Data JPA interface providing CRUD methods
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 // Repository interface for OtpLog entity with Long as ID type
 public interface OtpLogRepository extends JpaRepository<OtpLog, Long> {
-    // No custom methods needed yet — inherits basic CRUD methods from JpaRepository
+
+    @Modifying
+    @Query("DELETE FROM OtpLog o WHERE o.user.userId = :userId")
+    int deleteByUserId(@Param("userId") Long userId);
 }
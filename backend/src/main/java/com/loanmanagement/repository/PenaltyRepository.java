@@ -5,8 +5,26 @@ import com.loanmanagement.model.Penalty;
 
 // Spring Data JPA interface providing CRUD methods
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
 
 // Repository interface for Penalty entity with Long as ID type
 public interface PenaltyRepository extends JpaRepository<Penalty, Long> {
-    // No custom methods needed yet — inherits basic CRUD methods from JpaRepository
+
+    // ✅ Archival: penalties of a chunk of loans, their EMI in the same query
+    @Query("SELECT p FROM Penalty p JOIN FETCH p.emi e WHERE e.loan.id IN :loanIds ORDER BY p.id")
+    List<Penalty> findByLoanIdIn(@Param("loanIds") Collection<Long> loanIds);
+
+    // ✅ Penalties hang off EMIs, so they go before the EMIs they reference
+    @Modifying
+    @Query("DELETE FROM Penalty p WHERE p.emi.id IN :emiIds")
+    int deleteByEmiIdIn(@Param("emiIds") Collection<Long> emiIds);
+
+    @Modifying
+    @Query("DELETE FROM Penalty p WHERE p.emi.id IN (SELECT e.id FROM EmiPayment e WHERE e.loan.id IN :loanIds)")
+    int deleteByLoanIdIn(@Param("loanIds") Collection<Long> loanIds);
 }
@@ -0,0 +1,12 @@
+package com.loanmanagement.repository;
+
+import com.loanmanagement.model.StatementRunPartition;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface StatementRunPartitionRepository extends JpaRepository<StatementRunPartition, Long> {
+
+    // ranges of a month already mailed, in id order
+    List<StatementRunPartition> findByPeriodOrderByFromIdAsc(String period);
+}
@@ -2,10 +2,23 @@
 
 package com.loanmanagement.repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
+import com.loanmanagement.model.Loan;
 import com.loanmanagement.model.User;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 
 public interface UserRepository extends JpaRepository<User, Long> {
@@ -19,9 +32,60 @@ public interface UserRepository extends JpaRepository<User, Long> {
     // ✅ Fetches a user by email (used for validation or search)
     Optional<User> findByEmail(String email);
 
-    // ✅ Fetches a user by username (used during login)
+    // ✅ Fetches a user by username (used during login and to resolve the caller on most requests)
+    // query cache maps username -> id, the row itself comes from the users region
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "query.usersByUsername")
+    })
     Optional<User> findByUsername(String username);
     
     long countByRole(User.Role role);
 
+    @Query("SELECT u.role AS role, COUNT(u) AS count FROM User u GROUP BY u.role")
+    List<RoleCount> countGroupedByRole();
+
+    interface RoleCount {
+        User.Role getRole();
+        Long getCount();
+    }
+
+    // ✅ User management page: users LEFT JOINed to their active loans and grouped, plus the count query
+    // prefix is a LIKE pattern escaped with '!'; userId matches a numeric search exactly
+    @Query(value = "SELECT u.userId AS userId, u.username AS username, u.email AS email, u.role AS role, "
+            + "u.createdAt AS createdAt, COUNT(l) AS activeLoanCount "
+            + "FROM User u LEFT JOIN Loan l ON l.customer = u AND l.loanStatus IN :statuses "
+            + "WHERE (:role IS NULL OR u.role = :role) "
+            + "AND (:prefix IS NULL OR u.username LIKE :prefix ESCAPE '!' OR u.email LIKE :prefix ESCAPE '!' "
+            + "OR u.userId = :userId) "
+            + "GROUP BY u.userId, u.username, u.email, u.role, u.createdAt",
+            countQuery = "SELECT COUNT(u) FROM User u "
+            + "WHERE (:role IS NULL OR u.role = :role) "
+            + "AND (:prefix IS NULL OR u.username LIKE :prefix ESCAPE '!' OR u.email LIKE :prefix ESCAPE '!' "
+            + "OR u.userId = :userId)")
+    Page<UserLoanCountRow> findPageWithActiveLoanCount(@Param("statuses") Collection<Loan.LoanStatus> statuses,
+                                                       @Param("role") User.Role role,
+                                                       @Param("prefix") String prefix,
+                                                       @Param("userId") Long userId,
+                                                       Pageable pageable);
+
+    interface UserLoanCountRow {
+        Long getUserId();
+        String getUsername();
+        String getEmail();
+        User.Role getRole();
+        LocalDateTime getCreatedAt();
+        Long getActiveLoanCount();
+    }
+
+    // 🔒 Row lock on the customer: serializes that customer's loan applications (other customers unaffected)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT u FROM User u WHERE u.userId = :id")
+    Optional<User> findByIdForUpdate(@Param("id") Long id);
+
+    // 🔒 Same lock for a batch of customers, taken in id order so two batches cannot deadlock
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT u FROM User u WHERE u.userId IN :ids ORDER BY u.userId")
+    List<User> findAllByIdForUpdate(@Param("ids") Collection<Long> ids);
+
 }
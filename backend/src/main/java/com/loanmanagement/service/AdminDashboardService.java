@@ -1,20 +1,25 @@
 package com.loanmanagement.service;
 
+import com.loanmanagement.config.AppMetrics;
 import com.loanmanagement.dto.AdminDashboardDto;
 import com.loanmanagement.dto.LoanBreakdownDto;
 import com.loanmanagement.dto.UserBreakdownDto;
 import com.loanmanagement.model.EmiPayment;
 import com.loanmanagement.model.Loan;
 import com.loanmanagement.model.User;
+import com.loanmanagement.repository.ArchivedLoanRepository;
 import com.loanmanagement.repository.EmiPaymentRepository;
 import com.loanmanagement.repository.LoanRepository;
 import com.loanmanagement.repository.UserRepository;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
@@ -23,23 +28,31 @@ public class AdminDashboardService {
     private final UserRepository userRepository;
     private final LoanRepository loanRepository;
     private final EmiPaymentRepository emiPaymentRepository;
+    private final ArchivedLoanRepository archivedLoanRepository;
+    private final AppMetrics metrics;
 
+    @Transactional(readOnly = true)
     public AdminDashboardDto getSummaryStats() {
+        return metrics.dashboardQuery("summary", this::summaryStats);
+    }
+
+    private AdminDashboardDto summaryStats() {
         long totalUsers = userRepository.count();
         long totalLoanApplications = loanRepository.count();
 
         BigDecimal totalApprovedLoanAmount = loanRepository
-        .findAllByLoanStatusIn(List.of(Loan.LoanStatus.APPROVED, Loan.LoanStatus.CLOSED))
-        .stream()
-        .map(Loan::getAmount)
-        .reduce(BigDecimal.ZERO, BigDecimal::add);
+                .sumAmountByLoanStatusIn(List.of(Loan.LoanStatus.APPROVED, Loan.LoanStatus.CLOSED));
 
+        BigDecimal totalRepaidAmount = emiPaymentRepository.sumAmountByStatus(EmiPayment.EmiStatus.PAID);
 
-        BigDecimal totalRepaidAmount = emiPaymentRepository
-                .findByStatus(EmiPayment.EmiStatus.PAID)
-                .stream()
-                .map(EmiPayment::getAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        // ✅ archived loans still count: their totals were kept when they left the hot tables
+        for (ArchivedLoanRepository.StatusTotals t : archivedLoanRepository.totalsGroupedByLoanStatus()) {
+            totalLoanApplications += t.getCount();
+            if (t.getStatus() == Loan.LoanStatus.CLOSED) {
+                totalApprovedLoanAmount = totalApprovedLoanAmount.add(t.getAmount());
+            }
+            totalRepaidAmount = totalRepaidAmount.add(t.getRepaidAmount());
+        }
 
         return AdminDashboardDto.builder()
                 .totalUsers(totalUsers)
@@ -49,9 +62,16 @@ public class AdminDashboardService {
                 .build();
     }
 
+    @Transactional(readOnly = true)
     public UserBreakdownDto getUserBreakdown() {
-        long adminCount = userRepository.countByRole(User.Role.ADMIN);
-        long customerCount = userRepository.countByRole(User.Role.CUSTOMER);
+        return metrics.dashboardQuery("users", this::userBreakdown);
+    }
+
+    private UserBreakdownDto userBreakdown() {
+        Map<User.Role, Long> byRole = new EnumMap<>(User.Role.class);
+        userRepository.countGroupedByRole().forEach(c -> byRole.put(c.getRole(), c.getCount()));
+        long adminCount = byRole.getOrDefault(User.Role.ADMIN, 0L);
+        long customerCount = byRole.getOrDefault(User.Role.CUSTOMER, 0L);
 
         return UserBreakdownDto.builder()
                 .totalAdmins(adminCount)
@@ -59,10 +79,18 @@ public class AdminDashboardService {
                 .build();
     }
 
+    @Transactional(readOnly = true)
     public LoanBreakdownDto getLoanBreakdown() {
-        long approved = loanRepository.countByLoanStatus(Loan.LoanStatus.APPROVED);
-        long closed = loanRepository.countByLoanStatus(Loan.LoanStatus.CLOSED);
-        long rejected = loanRepository.countByLoanStatus(Loan.LoanStatus.REJECTED);
+        return metrics.dashboardQuery("loans", this::loanBreakdown);
+    }
+
+    private LoanBreakdownDto loanBreakdown() {
+        Map<Loan.LoanStatus, Long> byStatus = new EnumMap<>(Loan.LoanStatus.class);
+        loanRepository.countGroupedByLoanStatus().forEach(c -> byStatus.put(c.getStatus(), c.getCount()));
+        archivedLoanRepository.totalsGroupedByLoanStatus().forEach(t -> byStatus.merge(t.getStatus(), t.getCount(), Long::sum));
+        long approved = byStatus.getOrDefault(Loan.LoanStatus.APPROVED, 0L);
+        long closed = byStatus.getOrDefault(Loan.LoanStatus.CLOSED, 0L);
+        long rejected = byStatus.getOrDefault(Loan.LoanStatus.REJECTED, 0L);
 
         return LoanBreakdownDto.builder()
                 .totalApprovedLoans(approved)
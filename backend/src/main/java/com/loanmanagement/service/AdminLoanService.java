@@ -3,11 +3,14 @@ package com.loanmanagement.service;
 import com.loanmanagement.dto.*;
 import com.loanmanagement.model.*;
 import com.loanmanagement.repository.*;
+import com.loanmanagement.config.AppMetrics;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -21,44 +24,58 @@ public class AdminLoanService {
     private final EmiPaymentRepository emiPaymentRepository;
     private final EmiGenerationService emiGenerationService;
     private final MailService mailService; // ✅ added
+    private final OptimisticLockRetry concurrencyRetry;
+    private final LoanDataPurger loanDataPurger;
+    private final LoanArchiveService archiveService;
+    private final AppMetrics metrics;
 
+    @Transactional(readOnly = true)
     public List<AdminLoanSummaryDto> getAllLoans() {
-        return loanRepository.findAll().stream().map(loan -> {
-            UserDto customerDto = UserDto.builder()
-                    .name(loan.getCustomer().getName())
-                    .email(loan.getCustomer().getEmail())
-                    .contactNumber(loan.getCustomer().getContactNumber())
-                    .alternatePhoneNumber(loan.getCustomer().getAlternatePhoneNumber())
-                    .gender(loan.getCustomer().getGender())
-                    .dateOfBirth(loan.getCustomer().getDateOfBirth())
-                    .street(loan.getCustomer().getStreet())
-                    .city(loan.getCustomer().getCity())
-                    .state(loan.getCustomer().getState())
-                    .pincode(loan.getCustomer().getPincode())
-                    .country(loan.getCustomer().getCountry())
-                    .build();
-
-            return AdminLoanSummaryDto.builder()
-                    .id(loan.getId())
-                    .loanType(loan.getLoanType().getName())
-                    .appliedInterestRate(loan.getAppliedInterestRate())
-                    .amount(loan.getAmount())
-                    .tenureYears(loan.getTenureYears())
-                    .loanStatus(loan.getLoanStatus().name())
-                    .purpose(loan.getPurpose())
-                    .submittedAt(loan.getSubmittedAt())
-                    .pan(loan.getPan())
-                    .aadhaar(loan.getAadhaar())
-                    .employmentInfo(loan.getEmploymentInfo())
-                    .income(loan.getIncome())
-                    .cibilScore(loan.getCibilScore())
-                    .customer(customerDto)
-                    .build();
-        }).collect(Collectors.toList());
+        // live loans, then the archived ones
+        return java.util.stream.Stream.concat(
+                        loanRepository.findAllWithCustomerAndLoanType().stream(),
+                        archiveService.getAllArchivedLoans().stream())
+                .map(AdminLoanService::toSummary)
+                .collect(Collectors.toList());
     }
 
+    private static AdminLoanSummaryDto toSummary(Loan loan) {
+        UserDto customerDto = UserDto.builder()
+                .name(loan.getCustomer().getName())
+                .email(loan.getCustomer().getEmail())
+                .contactNumber(loan.getCustomer().getContactNumber())
+                .alternatePhoneNumber(loan.getCustomer().getAlternatePhoneNumber())
+                .gender(loan.getCustomer().getGender())
+                .dateOfBirth(loan.getCustomer().getDateOfBirth())
+                .street(loan.getCustomer().getStreet())
+                .city(loan.getCustomer().getCity())
+                .state(loan.getCustomer().getState())
+                .pincode(loan.getCustomer().getPincode())
+                .country(loan.getCustomer().getCountry())
+                .build();
+
+        return AdminLoanSummaryDto.builder()
+                .id(loan.getId())
+                .loanType(loan.getLoanType().getName())
+                .appliedInterestRate(loan.getAppliedInterestRate())
+                .amount(loan.getAmount())
+                .tenureYears(loan.getTenureYears())
+                .loanStatus(loan.getLoanStatus().name())
+                .purpose(loan.getPurpose())
+                .submittedAt(loan.getSubmittedAt())
+                .pan(loan.getPan())
+                .aadhaar(loan.getAadhaar())
+                .employmentInfo(loan.getEmploymentInfo())
+                .income(loan.getIncome())
+                .cibilScore(loan.getCibilScore())
+                .customer(customerDto)
+                .build();
+    }
+
+    @Transactional(readOnly = true)
     public AdminLoanDetailDto getLoanById(Long id) {
         Loan loan = loanRepository.findById(id)
+                .or(() -> archiveService.findArchivedLoan(id))
                 .orElseThrow(() -> new RuntimeException("Loan not found"));
 
         UserDto customerDto = UserDto.builder()
@@ -93,33 +110,54 @@ public class AdminLoanService {
     }
 
     public void updateLoanStatus(Long id, LoanStatusUpdateRequest request) {
+        // status change commits under optimistic locking; retried if a payment races it
+        Timer.Sample sample = metrics.start();
+        String target = request.getStatus() != null ? request.getStatus().name() : null;
+        StatusChange change;
+        try {
+            change = concurrencyRetry.execute(() -> applyStatusChange(id, request));
+        } catch (RuntimeException e) {
+            metrics.loanStatusUpdated(sample, null, target, AppMetrics.FAILURE);
+            throw e;
+        }
+        metrics.loanStatusUpdated(sample, change.loan().getLoanType() != null ? change.loan().getLoanType().getName() : null,
+                target, AppMetrics.SUCCESS);
+
+        // ✅ Send closure email after commit
+        if (change.loan().getLoanStatus() == Loan.LoanStatus.CLOSED) {
+            try {
+                mailService.sendLoanClosedText(change.loan(), change.totalRepayable());
+            } catch (Exception ignore) { /* don’t block admin flow on email */ }
+        }
+    }
+
+    private StatusChange applyStatusChange(Long id, LoanStatusUpdateRequest request) {
         Loan loan = loanRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Loan not found"));
 
         Loan.LoanStatus newStatus = request.getStatus();
         loan.setLoanStatus(newStatus);
 
+        BigDecimal totalRepayable = null;
         if (newStatus == Loan.LoanStatus.CLOSED) {
             loan.setClosedAt(LocalDateTime.now());
 
-            // ✅ Mark all EMIs as PAID
-            List<EmiPayment> emis = emiPaymentRepository.findByLoanIdOrderByDueDateAsc(loan.getId());
-            for (EmiPayment emi : emis) {
-                if (emi.getStatus() != EmiPayment.EmiStatus.PAID) {
-                    emi.setStatus(EmiPayment.EmiStatus.PAID);
-                    emi.setPaymentDate(LocalDateTime.now().toLocalDate());
-                    emi.setTransactionRef(java.util.UUID.randomUUID().toString());
-                }
-            }
-            emiPaymentRepository.saveAll(emis);
-
-            // ✅ Compute total repayable (sum of all EMIs) and send closure email
-            try {
-                BigDecimal totalRepayable = emis.stream()
-                        .map(EmiPayment::getAmount)
-                        .reduce(BigDecimal.ZERO, BigDecimal::add);
-                mailService.sendLoanClosedText(loan, totalRepayable);
-            } catch (Exception ignore) { /* don’t block admin flow on email */ }
+            // ✅ Mark all EMIs as PAID in one conditional UPDATE (skips rows a customer already paid)
+            int settled = emiPaymentRepository.markUnpaidAsPaid(
+                    loan.getId(),
+                    EmiPayment.EmiStatus.PAID,
+                    LocalDate.now(),
+                    "CLOSE-" + java.util.UUID.randomUUID() + "-");
+
+            // ✅ Total repayable (sum of all EMIs) for the closure email
+            totalRepayable = emiPaymentRepository.sumAmountByLoanId(loan.getId());
+
+            // ✅ Nothing left to pay: settle the repayment snapshot
+            loan.setPaidEmiCount(loan.getPaidEmiCount() + settled);
+            loan.setPendingEmiCount(0);
+            loan.setOutstandingAmount(BigDecimal.ZERO.setScale(2));
+            loan.setLastEmiAmount(null);
+            loan.setNextDueDate(null);
         }
 
         if (newStatus == Loan.LoanStatus.APPROVED) {
@@ -136,20 +174,27 @@ public class AdminLoanService {
                 .build();
 
         historyRepository.save(history);
+        return new StatusChange(loan, totalRepayable);
+    }
+
+    private record StatusChange(Loan loan, BigDecimal totalRepayable) {
     }
 
     @Transactional
     public void deleteLoan(Long id) {
-        Loan loan = loanRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Loan not found"));
+        Loan loan = loanRepository.findById(id).orElse(null);
+        if (loan == null) {
+            // archived loans are settled (CLOSED or REJECTED), so they can always be deleted
+            if (loanDataPurger.purgeArchivedLoans(List.of(id)) > 0) return;
+            throw new RuntimeException("Loan not found");
+        }
 
         // Allow deletion only if REJECTED or CLOSED
         if (!(loan.getLoanStatus() == Loan.LoanStatus.REJECTED || loan.getLoanStatus() == Loan.LoanStatus.CLOSED)) {
             throw new RuntimeException("Loan can only be deleted if it is REJECTED or CLOSED");
         }
 
-        emiPaymentRepository.deleteAllByLoan(loan);
-        historyRepository.deleteAllByLoan(loan);
-        loanRepository.delete(loan);
+        // EMIs, penalties, prepayments, history, identity rows and flags in one set-based delete each
+        loanDataPurger.purgeLoans(List.of(loan.getId()));
     }
 }
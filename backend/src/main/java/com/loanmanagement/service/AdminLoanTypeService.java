@@ -7,6 +7,7 @@ import org.springframework.stereotype.Service;
 
 import com.loanmanagement.dto.LoanTypeDto;
 import com.loanmanagement.model.LoanType;
+import com.loanmanagement.repository.LoanRepository;
 import com.loanmanagement.repository.LoanTypeRepository;
 
 import lombok.RequiredArgsConstructor;
@@ -16,6 +17,7 @@ import lombok.RequiredArgsConstructor;
 public class AdminLoanTypeService {
 
     private final LoanTypeRepository loanTypeRepository;
+    private final LoanRepository loanRepository;
 
     public List<LoanTypeDto> getAllLoanTypes() {
         return loanTypeRepository.findAll().stream().map(this::convertToDto).collect(Collectors.toList());
@@ -38,6 +40,7 @@ public class AdminLoanTypeService {
                     dto.getMaxLoansPerCustomerPerLoanType() > 0
                         ? dto.getMaxLoansPerCustomerPerLoanType()
                         : 3)
+                .decisionRules(validRules(dto.getDecisionRules()))
                 .build();
 
         loanTypeRepository.save(type);
@@ -58,6 +61,7 @@ public class AdminLoanTypeService {
             dto.getMaxLoansPerCustomerPerLoanType() > 0
                 ? dto.getMaxLoansPerCustomerPerLoanType()
                 : 3);
+        existing.setDecisionRules(validRules(dto.getDecisionRules()));
 
         loanTypeRepository.save(existing);
         return convertToDto(existing);
@@ -67,7 +71,8 @@ public class AdminLoanTypeService {
         LoanType existing = loanTypeRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Loan type not found"));
 
-        if (!existing.getLoans().isEmpty()) {
+        // one EXISTS probe rather than loading every loan of the type
+        if (loanRepository.existsByLoanTypeLoanTypeId(id)) {
             throw new RuntimeException("Loan type is in use and cannot be deleted.");
         }
 
@@ -85,6 +90,7 @@ public class AdminLoanTypeService {
             dto.getMaxLoansPerCustomerPerLoanType() > 0
                 ? dto.getMaxLoansPerCustomerPerLoanType()
                 : 3);
+        existing.setDecisionRules(validRules(dto.getDecisionRules()));
 
         loanTypeRepository.save(existing);
         return convertToDto(existing);
@@ -111,6 +117,18 @@ public class AdminLoanTypeService {
                 .maxLoanAmount(loanType.getMaxLoanAmount())
                 .penaltyRatePercent(loanType.getPenaltyRatePercent())
                 .maxLoansPerCustomerPerLoanType(loanType.getMaxLoansPerCustomerPerLoanType())
+                .decisionRules(loanType.getDecisionRules())
                 .build();
     }
+
+    // ✅ Reject rules that do not compile, so a typo cannot silently disable auto-decisions
+    private String validRules(String rules) {
+        if (rules == null || rules.isBlank()) return null;
+        try {
+            LoanDecisionRules.compile(rules);
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Invalid decision rules: " + e.getMessage());
+        }
+        return rules.trim();
+    }
 }
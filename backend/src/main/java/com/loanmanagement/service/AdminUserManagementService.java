@@ -1,19 +1,25 @@
 package com.loanmanagement.service;
 
 import com.loanmanagement.dto.UserManagementDto;
+import com.loanmanagement.dto.UserManagementPageDto;
+import com.loanmanagement.dto.UserPurgeJobDto;
 import com.loanmanagement.model.Loan;
 import com.loanmanagement.model.User;
-import com.loanmanagement.repository.ApplicationStatusHistoryRepository;
-import com.loanmanagement.repository.ChatMessageRepository;
 import com.loanmanagement.repository.EmiPaymentRepository;
 import com.loanmanagement.repository.LoanRepository;
 import com.loanmanagement.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional; // ✅ Added import
 
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 @Service
 public class AdminUserManagementService {
@@ -25,39 +31,77 @@ public class AdminUserManagementService {
     private LoanRepository loanRepository;
 
     @Autowired
-    private ApplicationStatusHistoryRepository statusHistoryRepository;
+    private EmiPaymentRepository emiPaymentRepository;
 
     @Autowired
-    private EmiPaymentRepository emiPaymentRepository;
-    
+    private LoanDataPurger loanDataPurger;
+
     @Autowired
-    private ChatMessageRepository chatMessageRepository;
+    private UserPurgeService userPurgeService;
+
+    // customers with more EMIs than this are deleted by a background purge job
+    @Value("${purge.inline-max-emis:5000}")
+    private long inlinePurgeMaxEmis;
+
+    static final int MAX_PAGE_SIZE = 100;
+    private static final Set<String> SORTABLE = Set.of("userId", "username", "email", "createdAt", "activeLoanCount");
+    private static final Pattern USER_ID = Pattern.compile("[Uu]?(\\d{1,18})");
 
     /**
-     * Get all users with active loan count for customers.
-     * Active loans = SUBMITTED + APPROVED only.
+     * One page of users with the active loan count of customers
+     * (active = SUBMITTED + APPROVED), in two statements: the page and its total.
+     *
+     * @param search username or email prefix, or a user id ("42" / "U42"); blank for everyone
+     * @param role   ADMIN, CUSTOMER, or blank / ALL
+     * @param sortBy userId, username, email, createdAt or activeLoanCount
      */
-    public List<UserManagementDto> getAllUsersWithLoanCount() {
-        return userRepository.findAll().stream().map(user -> {
-            Long activeLoanCount = null;
-            if (user.getRole() == User.Role.CUSTOMER) {
-                activeLoanCount = loanRepository.countByCustomerAndLoanStatusIn(
-                        user,
-                        List.of(
-                                Loan.LoanStatus.SUBMITTED,
-                                Loan.LoanStatus.APPROVED
-                        )
-                );
+    @Transactional(readOnly = true)
+    public UserManagementPageDto getUsersPage(String search, String role, String sortBy, String direction,
+                                              int page, int size) {
+        if (page < 0) throw new RuntimeException("Page must not be negative");
+        if (size < 1 || size > MAX_PAGE_SIZE) throw new RuntimeException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+
+        String sortField = sortBy == null || sortBy.isBlank() ? "userId" : sortBy.trim();
+        if (!SORTABLE.contains(sortField)) throw new RuntimeException("Cannot sort users by " + sortField);
+        Sort.Direction sortDirection = Sort.Direction.fromOptionalString(direction).orElse(Sort.Direction.ASC);
+        Sort sort = Sort.by(sortDirection, sortField);
+        if (!sortField.equals("userId")) sort = sort.and(Sort.by("userId")); // stable paging across equal keys
+
+        User.Role roleFilter = null;
+        if (role != null && !role.isBlank() && !role.trim().equalsIgnoreCase("ALL")) {
+            try {
+                roleFilter = User.Role.valueOf(role.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new RuntimeException("Invalid role: " + role);
             }
-            return new UserManagementDto(
-                    user.getUserId(),
-                    user.getUsername(),
-                    user.getEmail(),
-                    user.getRole().name(),
-                    activeLoanCount,
-                    user.getCreatedAt() // ✅ Added
-            );
-        }).collect(Collectors.toList());
+        }
+
+        String prefix = null;
+        Long userId = null;
+        if (search != null && !search.isBlank()) {
+            String term = search.trim();
+            prefix = term.replace("!", "!!").replace("%", "!%").replace("_", "!_") + "%";
+            Matcher id = USER_ID.matcher(term);
+            if (id.matches()) userId = Long.parseLong(id.group(1));
+        }
+
+        Page<UserRepository.UserLoanCountRow> rows = userRepository.findPageWithActiveLoanCount(
+                List.of(Loan.LoanStatus.SUBMITTED, Loan.LoanStatus.APPROVED),
+                roleFilter, prefix, userId, PageRequest.of(page, size, sort));
+
+        return UserManagementPageDto.builder()
+                .users(rows.map(row -> new UserManagementDto(
+                        row.getUserId(),
+                        row.getUsername(),
+                        row.getEmail(),
+                        row.getRole().name(),
+                        row.getRole() == User.Role.CUSTOMER ? row.getActiveLoanCount() : null,
+                        row.getCreatedAt())).getContent())
+                .page(rows.getNumber())
+                .size(rows.getSize())
+                .totalElements(rows.getTotalElements())
+                .totalPages(rows.getTotalPages())
+                .build();
     }
 
 
@@ -65,13 +109,19 @@ public class AdminUserManagementService {
      * Delete a user safely.
      * - Admins: Can be deleted directly.
      * - Customers: Can only be deleted if no active loans (SUBMITTED / APPROVED).
-     *   All CLOSED/REJECTED loans and their related records will be removed.
+     *   All CLOSED/REJECTED loans and their related records will be removed,
+     *   in a fixed number of set-based deletes; customers with more than
+     *   purge.inline-max-emis EMIs are handed to a background purge job instead.
      */
     @Transactional
     public String deleteUserWithoutKeyCheck(Long userId) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
+        if (userPurgeService.isPurging(userId)) {
+            throw new RuntimeException("This user is already being deleted");
+        }
+
         String roleName = user.getRole().name().toLowerCase();
 
         if (user.getRole() == User.Role.CUSTOMER) {
@@ -85,28 +135,27 @@ public class AdminUserManagementService {
                 throw new RuntimeException("Cannot delete customer with active loans.");
             }
 
-            // Delete chat messages first
-            chatMessageRepository.deleteAllByCustomer(user);
-
-            // Fetch all loans for the customer (may be empty)
-            List<Loan> allLoans = loanRepository.findByCustomer(user);
-
-            if (!allLoans.isEmpty()) {
-                // Delete related history & payments first
-                for (Loan loan : allLoans) {
-                    statusHistoryRepository.deleteAllByLoan(loan);
-                    emiPaymentRepository.deleteAllByLoan(loan);
-                }
-
-                // Delete loans
-                loanRepository.deleteAll(allLoans);
+            // Long repayment histories are deleted in short chunked transactions off the request thread
+            long emiCount = emiPaymentRepository.countByCustomerId(userId);
+            if (emiCount > inlinePurgeMaxEmis) {
+                UserPurgeJobDto job = userPurgeService.start(user, emiCount);
+                return "Customer U" + userId + " has " + emiCount + " EMI records; deletion continues in the background (purge job "
+                        + job.getJobId() + ")";
             }
         }
 
-        // Delete the user (admins or customers)
-        userRepository.delete(user);
+        // Delete the user (admins or customers) with chats, OTPs, loans and their records
+        loanDataPurger.purgeUser(userId);
 
         return "User (" + roleName + ") deleted successfully";
     }
 
+    public List<UserPurgeJobDto> getPurgeJobs() {
+        return userPurgeService.getJobs();
+    }
+
+    public UserPurgeJobDto getPurgeJob(long jobId) {
+        return userPurgeService.getJob(jobId);
+    }
+
 }
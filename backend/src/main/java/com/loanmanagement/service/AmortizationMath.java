@@ -0,0 +1,47 @@
+package com.loanmanagement.service;
+
+/**
+ * Closed-form annuity math on doubles, used for prepayment quotes and schedule
+ * recasts. A quote is a handful of pow/log calls, cheap enough to re-run on every
+ * slider move; callers round the results to paise.
+ *
+ * All rates are per month and every value is taken at an installment boundary,
+ * with the next installment due one period later.
+ */
+final class AmortizationMath {
+
+    private AmortizationMath() {
+    }
+
+    static double monthlyRate(double annualRatePercent) {
+        return annualRatePercent / 1200.0;
+    }
+
+    // principal repaid by n equal installments
+    static double presentValue(double installment, double r, int n) {
+        if (n <= 0) return 0;
+        if (r == 0) return installment * n;
+        return installment * (1 - Math.pow(1 + r, -n)) / r;
+    }
+
+    // equal installment that repays principal over n periods
+    static double installment(double principal, double r, int n) {
+        if (n <= 0) return 0;
+        if (r == 0) return principal / n;
+        return principal * r / (1 - Math.pow(1 + r, -n));
+    }
+
+    // number of installments of the given size needed to repay principal (the last may be smaller)
+    static int tenure(double principal, double r, double installment) {
+        if (principal <= 0) return 0;
+        if (r == 0) return (int) Math.ceil(principal / installment - 1e-9);
+        double x = 1 - principal * r / installment;
+        if (x <= 0) return Integer.MAX_VALUE; // installment does not even cover the interest
+        return (int) Math.ceil(-Math.log(x) / Math.log(1 + r) - 1e-9);
+    }
+
+    // compound growth over a (possibly fractional) number of periods
+    static double growth(double r, double periods) {
+        return Math.pow(1 + r, periods);
+    }
+}
@@ -6,6 +6,7 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import com.loanmanagement.config.FlightEvents;
 import com.loanmanagement.config.JwtUtil;
 import com.loanmanagement.dto.AuthResponse;
 import com.loanmanagement.dto.LoginRequest;
@@ -81,22 +82,39 @@ public class AuthService {
 
     public AuthResponse login(LoginRequest request) {
         System.out.println("🔐 Manual login for: " + request.getUsername());
+        FlightEvents.Login event = new FlightEvents.Login();
+        event.begin();
+        event.username = request.getUsername();
+        try {
+            long start = System.nanoTime();
+            User user = userRepo.findByUsername(request.getUsername()).orElse(null);
+            event.lookupTime = FlightEvents.elapsed(start);
+            if (user == null) {
+                event.outcome = "USER_NOT_FOUND";
+                throw new RuntimeException("User not found");
+            }
 
-        User user = userRepo.findByUsername(request.getUsername())
-                .orElseThrow(() -> new RuntimeException("User not found"));
-
-        boolean match = passwordEncoder.matches(request.getPassword(), user.getPassword());
-        System.out.println("📦 Stored hash: " + user.getPassword());
-        System.out.println("🔍 Password matches? " + match);
+            start = System.nanoTime();
+            boolean match = passwordEncoder.matches(request.getPassword(), user.getPassword());
+            event.passwordCheckTime = FlightEvents.elapsed(start);
+            System.out.println("📦 Stored hash: " + user.getPassword());
+            System.out.println("🔍 Password matches? " + match);
 
-        if (!match) {
-            throw new RuntimeException("Invalid username or password");
-        }
+            if (!match) {
+                event.outcome = "BAD_PASSWORD";
+                throw new RuntimeException("Invalid username or password");
+            }
 
-        String token = jwtUtil.generateToken(user.getUsername(), user.getRole().name());
-        System.out.println("🎫 JWT issued for: " + user.getUsername());
+            start = System.nanoTime();
+            String token = jwtUtil.generateToken(user.getUsername(), user.getRole().name());
+            event.tokenTime = FlightEvents.elapsed(start);
+            event.outcome = "SUCCESS";
+            System.out.println("🎫 JWT issued for: " + user.getUsername());
 
-        return new AuthResponse(token, user.getRole());
+            return new AuthResponse(token, user.getRole());
+        } finally {
+            event.commit();
+        }
     }
 
     public User getUserByUsername(String username) {
@@ -0,0 +1,55 @@
+package com.loanmanagement.service;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free bloom filter over pre-hashed keys.
+ *
+ * Callers pass two independent 64-bit hashes of the key (here: slices of an
+ * HMAC, so already uniform); the k probe positions are derived from them by
+ * double hashing. No false negatives; false positives at about the rate the
+ * filter was sized for until it holds more than the expected number of keys.
+ */
+final class BloomFilter {
+
+    private final AtomicLongArray words;
+    private final long bits;
+    private final int probes;
+
+    BloomFilter(long expectedKeys, double falsePositiveRate) {
+        long n = Math.max(1, expectedKeys);
+        double p = Math.min(0.5, Math.max(1e-9, falsePositiveRate));
+        long m = (long) Math.ceil(-n * Math.log(p) / (Math.log(2) * Math.log(2)));
+        this.words = new AtomicLongArray((int) Math.min(Integer.MAX_VALUE - 8, (m + 63) >>> 6));
+        this.bits = (long) words.length() << 6;
+        this.probes = (int) Math.max(1, Math.min(16, Math.round((double) bits / n * Math.log(2))));
+    }
+
+    void put(long h1, long h2) {
+        for (int i = 0; i < probes; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bits);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current;
+            while (((current = words.get(word)) & mask) == 0 && !words.compareAndSet(word, current, current | mask)) {
+                // lost a race on this word; re-read and retry
+            }
+        }
+    }
+
+    boolean mightContain(long h1, long h2) {
+        for (int i = 0; i < probes; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bits);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) return false;
+        }
+        return true;
+    }
+
+    long bitCount() {
+        return bits;
+    }
+
+    int probes() {
+        return probes;
+    }
+}
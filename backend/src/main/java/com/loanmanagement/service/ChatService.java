@@ -81,7 +81,7 @@ public class ChatService {
             }
         }
 
-        return chatMessageRepository.findByCustomer_UserIdOrderBySentAtAsc(customerId)
+        return chatMessageRepository.findThreadByCustomerId(customerId)
                 .stream().map(this::toDto).collect(Collectors.toList());
     }
 
@@ -1,10 +1,19 @@
 package com.loanmanagement.service;
 
+import com.loanmanagement.config.AppMetrics;
+import com.loanmanagement.config.FlightEvents;
+import com.loanmanagement.dto.CustomerHomeDto;
+import com.loanmanagement.dto.CustomerLoanSummaryDto;
+import com.loanmanagement.dto.EmiBatchPaidMail;
+import com.loanmanagement.dto.EmiBatchPaymentRequest;
+import com.loanmanagement.dto.EmiBatchPaymentResultDto;
+import com.loanmanagement.dto.EmiPaidMail;
 import com.loanmanagement.dto.LoanStatusHistoryDto;
 import com.loanmanagement.dto.LoanRequestDto;
 import com.loanmanagement.dto.LoanTypeActiveCountDto;
 import com.loanmanagement.dto.LoanWithEmiDto;
 import com.loanmanagement.model.ApplicationStatusHistory;
+import com.loanmanagement.model.DuplicateApplicationFlag;
 import com.loanmanagement.model.EmiPayment;
 import com.loanmanagement.model.Loan;
 import com.loanmanagement.model.Loan.LoanStatus;
@@ -14,10 +23,12 @@ import com.loanmanagement.repository.ApplicationStatusHistoryRepository;
 import com.loanmanagement.repository.EmiPaymentRepository;
 import com.loanmanagement.repository.LoanRepository;
 import com.loanmanagement.repository.LoanTypeRepository;
+import com.loanmanagement.repository.UserRepository;
 
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
@@ -33,11 +44,58 @@ public class CustomerLoanService {
     private final ApplicationStatusHistoryRepository statusHistoryRepository;
     private final EmiPaymentRepository emiPaymentRepository;
     private final MailService mailService;
+    private final OptimisticLockRetry concurrencyRetry;
+    private final UserRepository userRepository;
+    private final LoanDecisionEngine decisionEngine;
+    private final EmiGenerationService emiGenerationService;
+    private final DuplicateApplicationDetector duplicateDetector;
+    private final LoanArchiveService archiveService;
+    private final AppMetrics metrics;
+
+    // loans that count against a customer's per-type limit
+    static final List<LoanStatus> ACTIVE_STATUSES = List.of(LoanStatus.SUBMITTED, LoanStatus.APPROVED);
 
     public Loan applyLoan(LoanRequestDto dto, User customer) {
-        LoanType loanType = loanTypeRepository.findById(dto.getLoanTypeId())
-                .orElseThrow(() -> new RuntimeException("Loan Type not found"));
+        Timer.Sample sample = metrics.start();
+        String typeName = null;
+        try {
+            LoanType loanType = loanTypeRepository.findById(dto.getLoanTypeId())
+                    .orElseThrow(() -> new RuntimeException("Loan Type not found"));
+            typeName = loanType.getName();
+
+            // 🔒 count-then-insert under the customer's row lock, so parallel submissions cannot all pass the limit
+            Loan applied = concurrencyRetry.execute(() -> {
+                // a fresh entity per attempt: a rolled-back attempt leaves its id and version on the one it saved
+                Loan loan = newApplication(dto, loanType);
+                loan.setCustomer(customer);
+                userRepository.findByIdForUpdate(customer.getUserId())
+                        .orElseThrow(() -> new RuntimeException("User not found"));
+                long active = loanRepository.countByCustomerAndLoanType(
+                        customer.getUserId(), loanType.getLoanTypeId(), ACTIVE_STATUSES);
+                if (active >= loanType.getMaxLoansPerCustomerPerLoanType()) {
+                    throw new RuntimeException("You already have the maximum of "
+                            + loanType.getMaxLoansPerCustomerPerLoanType() + " active " + loanType.getName() + " loans");
+                }
+                Loan saved = loanRepository.save(loan);
+                List<DuplicateApplicationFlag> flags = duplicateDetector.screen(List.of(saved)).get(saved.getId());
+                if (flags != null) {
+                    holdForReview(saved, flags); // shared PAN / Aadhaar: a person decides, not the rules
+                    return saved;
+                }
+                LoanDecisionEngine.LoanDecision decision = decisionEngine.decide(saved, loanType);
+                if (decision != null) applyDecision(saved, decision); // no rules for this type: manual flow as before
+                return saved;
+            });
+            metrics.loanApplied(sample, typeName, applied.getLoanStatus().name());
+            return applied;
+        } catch (RuntimeException e) {
+            metrics.loanApplied(sample, typeName, AppMetrics.FAILURE);
+            throw e;
+        }
+    }
 
+    // ✅ Validate an application against its loan type and build the (unsaved) SUBMITTED loan
+    static Loan newApplication(LoanRequestDto dto, LoanType loanType) {
         if (dto.getLoanAmount() == null)
             throw new RuntimeException("Loan amount is required");
         if (dto.getLoanDuration() <= 0)
@@ -63,18 +121,60 @@ public class CustomerLoanService {
         loan.setPan(dto.getPan());
         loan.setCibilScore(dto.getCibilScore());
         loan.setLoanStatus(LoanStatus.SUBMITTED);
-        loan.setCustomer(customer);
         loan.setSubmittedAt(java.time.LocalDateTime.now());
+        return loan;
+    }
 
-        return loanRepository.save(loan);
+    // 🚩 Keep a flagged application SUBMITTED and say why in its history
+    void holdForReview(Loan loan, List<DuplicateApplicationFlag> flags) {
+        Set<String> kinds = new TreeSet<>();
+        Set<Long> otherCustomers = new TreeSet<>();
+        for (DuplicateApplicationFlag flag : flags) {
+            kinds.add(flag.getKind().name());
+            otherCustomers.add(flag.getMatchedCustomerId());
+        }
+        String reason = "Held for review: " + String.join(" and ", kinds) + " also used on "
+                + flags.size() + " application(s) from customer(s) " + otherCustomers;
+        statusHistoryRepository.save(ApplicationStatusHistory.builder()
+                .loan(loan)
+                .status(loan.getLoanStatus())
+                .comments(reason.length() > 500 ? reason.substring(0, 500) : reason)
+                .updatedAt(LocalDateTime.now())
+                .build());
+        System.out.println("[FRAUD] Loan " + loan.getId() + ": " + reason);
+    }
+
+    // 🤖 Apply a rule decision to a saved application: approve / reject / leave for review, with history
+    void applyDecision(Loan loan, LoanDecisionEngine.LoanDecision decision) {
+        switch (decision.action()) {
+            case APPROVE -> {
+                loan.setLoanStatus(LoanStatus.APPROVED);
+                emiGenerationService.generateSchedule(loan);
+            }
+            case REJECT -> loan.setLoanStatus(LoanStatus.REJECTED);
+            case REVIEW -> { /* stays SUBMITTED */ }
+        }
+        loanRepository.save(loan);
+
+        statusHistoryRepository.save(ApplicationStatusHistory.builder()
+                .loan(loan)
+                .status(loan.getLoanStatus())
+                .comments(decision.reason().length() > 500 ? decision.reason().substring(0, 500) : decision.reason())
+                .updatedAt(LocalDateTime.now())
+                .build());
+        System.out.println("[DECISION] Loan " + loan.getId() + ": " + decision.reason());
     }
 
+    // ✅ Live loans followed by archived ones (read back from the archive tables)
     public List<Loan> getLoansByCustomer(User customer) {
-        return loanRepository.findByCustomer(customer);
+        List<Loan> loans = new ArrayList<>(loanRepository.findByCustomer(customer));
+        loans.addAll(archiveService.getArchivedLoansWithHistory(customer));
+        return loans;
     }
 
     public Loan getLoanByIdForCustomer(Long loanId, User customer) {
         Loan loan = loanRepository.findById(loanId)
+                .or(() -> archiveService.findArchivedLoan(loanId))
                 .orElseThrow(() -> new RuntimeException("Loan not found"));
         if (!loan.getCustomer().getUserId().equals(customer.getUserId())) {
             throw new RuntimeException("Unauthorized access to loan");
@@ -83,49 +183,116 @@ public class CustomerLoanService {
     }
 
     public Map<Long, Integer> getActiveLoanCounts(User customer) {
-        List<Loan> activeLoans = loanRepository.findByCustomerAndLoanStatusIn(
-                customer,
-                List.of(LoanStatus.SUBMITTED, LoanStatus.APPROVED));
-
-        return activeLoans.stream()
-                .collect(java.util.stream.Collectors.groupingBy(
-                        loan -> loan.getLoanType().getLoanTypeId(),
-                        java.util.stream.Collectors.reducing(0, e -> 1, Integer::sum)));
+        Map<Long, Integer> counts = new HashMap<>();
+        for (LoanTypeActiveCountDto c : getActiveLoanCountsDetailed(customer)) {
+            counts.put(c.getLoanTypeId(), c.getCount());
+        }
+        return counts;
     }
 
+    // ✅ One GROUP BY query; no Loan entities (or their eager customer / type) are loaded
     public List<LoanTypeActiveCountDto> getActiveLoanCountsDetailed(User customer) {
-        List<Loan> activeLoans = loanRepository.findByCustomerAndLoanStatusIn(
-                customer,
-                List.of(Loan.LoanStatus.SUBMITTED, Loan.LoanStatus.APPROVED));
-
-        Map<Long, LoanTypeActiveCountDto> map = new HashMap<>();
-
-        for (Loan loan : activeLoans) {
-            Long loanTypeId = loan.getLoanType().getLoanTypeId();
-            String loanTypeName = loan.getLoanType().getName();
-
-            map.compute(loanTypeId, (id, existing) -> {
-                if (existing == null) {
-                    return new LoanTypeActiveCountDto(loanTypeId, loanTypeName, 1);
-                } else {
-                    existing.setCount(existing.getCount() + 1);
-                    return existing;
+        return loanRepository.countByCustomerGroupedByLoanType(customer.getUserId(), ACTIVE_STATUSES).stream()
+                .map(c -> new LoanTypeActiveCountDto(c.getLoanTypeId(), c.getLoanTypeName(), c.getCount().intValue()))
+                .toList();
+    }
+
+    // 🏠 Home screen in one call: two set-based queries (loan rows, next-due EMIs), counts folded in memory
+    public CustomerHomeDto getCustomerHome(User customer) {
+        List<LoanRepository.CustomerLoanRow> rows = loanRepository.findHomeRowsByCustomerId(customer.getUserId());
+
+        Map<Long, EmiPayment> nextDue = new HashMap<>();
+        boolean anyDue = rows.stream().anyMatch(r -> r.getLoanStatus() == LoanStatus.APPROVED && r.getNextDueDate() != null);
+        if (anyDue) {
+            for (EmiPayment emi : emiPaymentRepository.findNextDueByCustomerId(
+                    customer.getUserId(), LoanStatus.APPROVED, EmiPayment.EmiStatus.PAID)) {
+                nextDue.putIfAbsent(emi.getLoan().getId(), emi);
+            }
+        }
+
+        List<Loan> archived = archiveService.getArchivedLoans(customer);
+        List<CustomerLoanSummaryDto> loans = new ArrayList<>(rows.size() + archived.size());
+        Map<Long, LoanTypeActiveCountDto> counts = new LinkedHashMap<>();
+        BigDecimal totalOutstanding = BigDecimal.ZERO;
+        int activeLoans = 0;
+        EmiPayment soonest = null;
+
+        for (LoanRepository.CustomerLoanRow row : rows) {
+            EmiPayment next = nextDue.get(row.getLoanId());
+            loans.add(CustomerLoanSummaryDto.builder()
+                    .loanId(row.getLoanId())
+                    .loanTypeId(row.getLoanTypeId())
+                    .loanTypeName(row.getLoanTypeName())
+                    .status(row.getLoanStatus() != null ? row.getLoanStatus().name() : null)
+                    .amount(row.getAmount())
+                    .appliedInterestRate(row.getAppliedInterestRate())
+                    .tenureYears(row.getTenureYears() != null ? row.getTenureYears() : 0)
+                    .submittedAt(row.getSubmittedAt())
+                    .remainingEmis(row.getPendingEmiCount() != null ? row.getPendingEmiCount() : 0)
+                    .paidEmis(row.getPaidEmiCount() != null ? row.getPaidEmiCount() : 0)
+                    .outstandingAmount(row.getOutstandingAmount() != null ? row.getOutstandingAmount() : BigDecimal.ZERO)
+                    .nextDueDate(next != null ? next.getDueDate() : null)
+                    .nextEmiId(next != null ? next.getId() : null)
+                    .nextEmiAmount(next != null ? next.getAmount() : null)
+                    .build());
+
+            if (row.getLoanStatus() == LoanStatus.SUBMITTED || row.getLoanStatus() == LoanStatus.APPROVED) {
+                activeLoans++;
+                if (row.getLoanTypeId() != null) {
+                    LoanTypeActiveCountDto c = counts.computeIfAbsent(row.getLoanTypeId(),
+                            id -> new LoanTypeActiveCountDto(id, row.getLoanTypeName(), 0));
+                    c.setCount(c.getCount() + 1);
                 }
-            });
+            }
+            if (row.getLoanStatus() == LoanStatus.APPROVED && row.getOutstandingAmount() != null) {
+                totalOutstanding = totalOutstanding.add(row.getOutstandingAmount());
+            }
+            if (next != null && (soonest == null || next.getDueDate().isBefore(soonest.getDueDate()))) {
+                soonest = next;
+            }
+        }
+
+        // archived loans are settled: listed, but nothing due and no active count
+        for (Loan loan : archived) {
+            loans.add(CustomerLoanSummaryDto.builder()
+                    .loanId(loan.getId())
+                    .loanTypeId(loan.getLoanType() != null ? loan.getLoanType().getLoanTypeId() : null)
+                    .loanTypeName(loan.getLoanType() != null ? loan.getLoanType().getName() : null)
+                    .status(loan.getLoanStatus() != null ? loan.getLoanStatus().name() : null)
+                    .amount(loan.getAmount())
+                    .appliedInterestRate(loan.getAppliedInterestRate())
+                    .tenureYears(loan.getTenureYears())
+                    .submittedAt(loan.getSubmittedAt())
+                    .remainingEmis(0)
+                    .paidEmis(loan.getPaidEmiCount())
+                    .outstandingAmount(BigDecimal.ZERO)
+                    .build());
         }
 
-        return new ArrayList<>(map.values());
+        return CustomerHomeDto.builder()
+                .loans(loans)
+                .activeLoanCounts(new ArrayList<>(counts.values()))
+                .activeLoans(activeLoans)
+                .totalOutstanding(totalOutstanding.setScale(2, RoundingMode.HALF_UP))
+                .nextDueLoanId(soonest != null ? soonest.getLoan().getId() : null)
+                .nextDueEmiId(soonest != null ? soonest.getId() : null)
+                .nextDueDate(soonest != null ? soonest.getDueDate() : null)
+                .nextDueAmount(soonest != null ? soonest.getAmount() : null)
+                .build();
     }
 
     public List<LoanStatusHistoryDto> getStatusHistoryByLoanId(Long loanId, User customer) {
-        Loan loan = loanRepository.findById(loanId)
+        Optional<Loan> live = loanRepository.findById(loanId);
+        Loan loan = live.or(() -> archiveService.findArchivedLoan(loanId))
                 .orElseThrow(() -> new RuntimeException("Loan not found"));
 
         if (!loan.getCustomer().getUserId().equals(customer.getUserId())) {
             throw new RuntimeException("Access denied for this loan");
         }
 
-        List<ApplicationStatusHistory> historyList = statusHistoryRepository.findByLoanOrderByUpdatedAtAsc(loan);
+        List<ApplicationStatusHistory> historyList = live.isPresent()
+                ? statusHistoryRepository.findByLoanOrderByUpdatedAtAsc(loan)
+                : archiveService.getArchivedHistory(loan);
 
         return historyList.stream()
                 .map(h -> LoanStatusHistoryDto.builder()
@@ -138,20 +305,19 @@ public class CustomerLoanService {
 
     // ✅ Fetch EMI list with loan details
     public LoanWithEmiDto getLoanWithEmis(Long loanId) {
-        Loan loan = loanRepository.findById(loanId)
+        Optional<Loan> live = loanRepository.findById(loanId);
+        Loan loan = live.or(() -> archiveService.findArchivedLoan(loanId))
                 .orElseThrow(() -> new RuntimeException("Loan not found"));
 
-        List<EmiPayment> emis = emiPaymentRepository.findByLoanOrderByDueDateAsc(loan);
-
-        int remainingEmis = (int) emis.stream()
-                .filter(e -> e.getStatus() != EmiPayment.EmiStatus.PAID)
-                .count();
+        List<EmiPayment> emis = live.isPresent()
+                ? emiPaymentRepository.findByLoanOrderByDueDateAsc(loan)
+                : archiveService.getArchivedEmis(loan);
 
-        BigDecimal remainingAmount = emis.stream()
-                .filter(e -> e.getStatus() != EmiPayment.EmiStatus.PAID)
-                .map(EmiPayment::getAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add)
-                .setScale(2, RoundingMode.HALF_UP);
+        // remaining figures come from the loan's repayment snapshot, no pass over the schedule
+        int remainingEmis = loan.getPendingEmiCount();
+        BigDecimal remainingAmount = loan.getOutstandingAmount() == null
+                ? BigDecimal.ZERO.setScale(2)
+                : loan.getOutstandingAmount().setScale(2, RoundingMode.HALF_UP);
 
         Long id = loan.getId(); // or loan.getLoanId()
 
@@ -166,13 +332,60 @@ public class CustomerLoanService {
     }
 
     // ✅ Pay EMI + auto-close loan when last EMI paid (also email loan closure)
-    @Transactional
     public EmiPayment payEmi(Long emiId, User customer) {
+        // settle under optimistic locking; a lost race is retried against fresh rows
+        Timer.Sample sample = metrics.start();
+        FlightEvents.EmiPayment event = new FlightEvents.EmiPayment();
+        event.begin();
+        event.emiId = emiId;
+        EmiSettlement settlement;
+        try {
+            settlement = concurrencyRetry.execute(() -> {
+                event.attempts++;
+                return settleEmi(emiId, customer);
+            });
+        } catch (RuntimeException e) {
+            metrics.emiPaid(sample, null, "single", AppMetrics.FAILURE);
+            event.outcome = AppMetrics.FAILURE;
+            event.commit();
+            throw e;
+        }
+        EmiPayment saved = settlement.emis().get(0);
+        String outcome = settlement.loanClosed() ? "CLOSED" : "PAID";
+        metrics.emiPaid(sample, loanTypeName(saved.getLoan()), "single", outcome);
+        event.loanId = saved.getLoan().getId();
+        event.outcome = outcome;
+        event.commit();
+
+        // 🔔 mails go out only once the payment has committed (non-blocking try/catch)
+        try {
+            mailService.sendEmiPaidText(EmiPaidMail.of(saved, saved.getLoan(),
+                    settlement.installmentNos().getOrDefault(saved.getId(), 0)));
+        } catch (Exception ignore) {
+        }
+
+        if (settlement.loanClosed()) {
+            try {
+                mailService.sendLoanClosedText(saved.getLoan(), settlement.totalRepayable());
+            } catch (Exception ignore) {
+            }
+        }
+
+        return saved;
+    }
+
+    private EmiSettlement settleEmi(Long emiId, User customer) {
         EmiPayment emi = emiPaymentRepository.findById(emiId)
                 .orElseThrow(() -> new RuntimeException("EMI not found"));
 
+        // every payment bumps the loan version, so two payments on one loan serialize
+        // and whichever commits last is guaranteed to see zero pending EMIs.
+        // Lock before touching the lazy loan, otherwise the lock mode is not applied.
+        Loan loan = loanRepository.findByIdForUpdate(emi.getLoan().getId())
+                .orElseThrow(() -> new RuntimeException("Loan not found"));
+
         // ownership
-        if (!emi.getLoan().getCustomer().getUserId().equals(customer.getUserId())) {
+        if (!loan.getCustomer().getUserId().equals(customer.getUserId())) {
             throw new RuntimeException("Unauthorized access to this EMI");
         }
         // status
@@ -180,41 +393,207 @@ public class CustomerLoanService {
             throw new RuntimeException("EMI is not pending or already paid");
         }
 
-        // mark paid
+        // mark paid (version-checked UPDATE ... WHERE version = ?)
         emi.setStatus(EmiPayment.EmiStatus.PAID);
         emi.setPaymentDate(java.time.LocalDate.now());
         emi.setTransactionRef(java.util.UUID.randomUUID().toString());
-
-        // save first
         EmiPayment saved = emiPaymentRepository.save(emi);
 
-        // 🔔 send plain-text payment receipt (non-blocking try/catch)
+        // 🔒 If no more PENDING EMIs, close the loan
+        BigDecimal totalRepayable = recordSettlement(loan, List.of(saved));
+        return new EmiSettlement(List.of(saved), installmentNumbers(List.of(saved)), totalRepayable != null, totalRepayable);
+    }
+
+    // ✅ Pay several EMIs of one loan at once: one transaction, one closure check, one receipt
+    public EmiBatchPaymentResultDto payEmis(Long loanId, EmiBatchPaymentRequest request, User customer) {
+        boolean byIds = request.getEmiIds() != null && !request.getEmiIds().isEmpty();
+        if (byIds == (request.getNextInstallments() != null)) {
+            throw new RuntimeException("Provide either EMI ids or the number of installments to pay");
+        }
+
+        Timer.Sample sample = metrics.start();
+        EmiSettlement settlement;
         try {
-            mailService.sendEmiPaidText(saved);
+            settlement = concurrencyRetry.execute(() -> settleEmis(loanId, request, customer));
+        } catch (RuntimeException e) {
+            metrics.emiPaid(sample, null, "batch", AppMetrics.FAILURE);
+            throw e;
+        }
+        List<EmiPayment> paid = settlement.emis();
+        Loan loan = paid.get(0).getLoan();
+        metrics.emiPaid(sample, loanTypeName(loan), "batch", settlement.loanClosed() ? "CLOSED" : "PAID");
+
+        // 🔔 one consolidated receipt (and closure mail) after commit
+        try {
+            mailService.sendEmiBatchPaidText(EmiBatchPaidMail.of(loan, paid, settlement.installmentNos()));
         } catch (Exception ignore) {
         }
 
-        // 🔒 If no more PENDING EMIs, close the loan
-        Loan loan = saved.getLoan();
-        long pendingLeft = emiPaymentRepository.countByLoanAndStatus(loan, EmiPayment.EmiStatus.PENDING);
-        if (pendingLeft == 0) {
-            loan.setLoanStatus(LoanStatus.CLOSED);
-            loan.setClosedAt(LocalDateTime.now());
-            loanRepository.save(loan);
-
-            // compute totals for closure email: total repayable = sum of all EMIs
+        if (settlement.loanClosed()) {
             try {
-                List<EmiPayment> allEmis = emiPaymentRepository.findByLoanOrderByDueDateAsc(loan);
-                BigDecimal totalRepayable = allEmis.stream()
-                        .map(EmiPayment::getAmount)
-                        .reduce(BigDecimal.ZERO, BigDecimal::add)
-                        .setScale(2, RoundingMode.HALF_UP);
-
-                mailService.sendLoanClosedText(loan, totalRepayable);
+                mailService.sendLoanClosedText(loan, settlement.totalRepayable());
             } catch (Exception ignore) {
             }
         }
 
-        return saved;
+        BigDecimal totalPaid = paid.stream()
+                .map(EmiPayment::getAmount)
+                .reduce(BigDecimal.ZERO, BigDecimal::add)
+                .setScale(2, RoundingMode.HALF_UP);
+
+        return EmiBatchPaymentResultDto.builder()
+                .loanId(loanId)
+                .paidCount(paid.size())
+                .totalPaid(totalPaid)
+                .loanClosed(settlement.loanClosed())
+                .paidEmis(paid)
+                .build();
+    }
+
+    private EmiSettlement settleEmis(Long loanId, EmiBatchPaymentRequest request, User customer) {
+        Loan loan = loanRepository.findByIdForUpdate(loanId)
+                .orElseThrow(() -> new RuntimeException("Loan not found"));
+
+        if (!loan.getCustomer().getUserId().equals(customer.getUserId())) {
+            throw new RuntimeException("Unauthorized access to this loan");
+        }
+
+        List<EmiPayment> targets;
+        if (request.getNextInstallments() != null) {
+            targets = emiPaymentRepository.findByLoanIdAndStatusOrderByDueDateAsc(
+                    loanId, EmiPayment.EmiStatus.PENDING, PageRequest.of(0, request.getNextInstallments()));
+            if (targets.isEmpty()) {
+                throw new RuntimeException("No pending EMIs left on this loan");
+            }
+        } else {
+            Set<Long> ids = new HashSet<>(request.getEmiIds());
+            targets = emiPaymentRepository.findByLoanIdAndIdInOrderByDueDateAsc(loanId, ids);
+            if (targets.size() != ids.size()) {
+                throw new RuntimeException("One or more EMIs do not belong to this loan");
+            }
+            if (targets.stream().anyMatch(e -> e.getStatus() != EmiPayment.EmiStatus.PENDING)) {
+                throw new RuntimeException("EMI is not pending or already paid");
+            }
+        }
+
+        // mark paid; flushed as one JDBC batch of version-checked UPDATEs
+        java.time.LocalDate today = java.time.LocalDate.now();
+        String batchRef = java.util.UUID.randomUUID().toString();
+        for (EmiPayment emi : targets) {
+            emi.setStatus(EmiPayment.EmiStatus.PAID);
+            emi.setPaymentDate(today);
+            emi.setTransactionRef(batchRef + "-" + emi.getId());
+        }
+        List<EmiPayment> saved = emiPaymentRepository.saveAll(targets);
+
+        BigDecimal totalRepayable = recordSettlement(loan, saved);
+        return new EmiSettlement(saved, installmentNumbers(saved), totalRepayable != null, totalRepayable);
+    }
+
+    // receipt numbering ("X of N") resolved here, so the mail needs no schedule load
+    private Map<Long, Integer> installmentNumbers(List<EmiPayment> emis) {
+        Map<Long, Integer> numbers = new HashMap<>();
+        for (EmiPaymentRepository.InstallmentNumber n : emiPaymentRepository.findInstallmentNumbers(
+                emis.stream().map(EmiPayment::getId).toList())) {
+            numbers.put(n.getId(), n.getInstallmentNo().intValue());
+        }
+        return numbers;
+    }
+
+    /**
+     * Books EMIs just marked PAID against their (locked) loan inside the caller's
+     * transaction: updates the repayment snapshot and closes the loan when nothing
+     * is left to pay. Returns the total repayable for the closure mail, or null
+     * when the loan stays open. Shared with statement reconciliation.
+     */
+    BigDecimal recordSettlement(Loan loan, List<EmiPayment> paid) {
+        applyToSnapshot(loan, paid);
+        return closeIfFullyPaid(loan);
+    }
+
+    // keeps the loan's repayment snapshot in step with EMIs just marked PAID (same transaction)
+    private void applyToSnapshot(Loan loan, List<EmiPayment> paid) {
+        if (loan.getPendingEmiCount() + loan.getPaidEmiCount() == 0) {
+            // schedule predates the snapshot and has not been backfilled yet: derive it from the rows
+            refreshSnapshot(loan);
+            return;
+        }
+
+        BigDecimal paidAmount = BigDecimal.ZERO;
+        boolean nextDuePaid = false;
+        boolean inOrder = loan.getNextDueDate() != null;
+        for (EmiPayment emi : paid) {
+            paidAmount = paidAmount.add(emi.getAmount());
+            nextDuePaid |= emi.getDueDate() != null && emi.getDueDate().equals(loan.getNextDueDate());
+            // the front installments are due in consecutive months from the next due date
+            inOrder &= emi.getDueDate() != null
+                    && emi.getDueDate().isBefore(loan.getNextDueDate().plusMonths(paid.size()));
+        }
+
+        BigDecimal outstanding = loan.getOutstandingAmount() == null ? BigDecimal.ZERO : loan.getOutstandingAmount();
+        loan.setPaidEmiCount(loan.getPaidEmiCount() + paid.size());
+        loan.setPendingEmiCount(Math.max(0, loan.getPendingEmiCount() - paid.size()));
+        loan.setOutstandingAmount(outstanding.subtract(paidAmount).max(BigDecimal.ZERO).setScale(2, RoundingMode.HALF_UP));
+
+        if (loan.getPendingEmiCount() == 0) {
+            loan.setNextDueDate(null);
+            loan.setLastEmiAmount(null);
+            return;
+        }
+        if (!inOrder) {
+            // an out-of-order payment may have taken the last installment
+            loan.setLastEmiAmount(lastUnpaidAmount(loan));
+        }
+        // only an in-order payment moves the next due date; out-of-order prepayments leave it alone
+        if (nextDuePaid || loan.getNextDueDate() == null) {
+            loan.setNextDueDate(emiPaymentRepository
+                    .findFirstByLoanIdAndStatusNotOrderByDueDateAsc(loan.getId(), EmiPayment.EmiStatus.PAID)
+                    .map(EmiPayment::getDueDate)
+                    .orElse(null));
+        }
+    }
+
+    private void refreshSnapshot(Loan loan) {
+        long paid = emiPaymentRepository.countByLoanAndStatus(loan, EmiPayment.EmiStatus.PAID);
+        long total = emiPaymentRepository.countByLoan(loan);
+        loan.setPaidEmiCount((int) paid);
+        loan.setPendingEmiCount((int) (total - paid));
+        loan.setOutstandingAmount(emiPaymentRepository
+                .sumAmountByLoanIdAndStatusNot(loan.getId(), EmiPayment.EmiStatus.PAID)
+                .setScale(2, RoundingMode.HALF_UP));
+        loan.setNextDueDate(emiPaymentRepository
+                .findFirstByLoanIdAndStatusNotOrderByDueDateAsc(loan.getId(), EmiPayment.EmiStatus.PAID)
+                .map(EmiPayment::getDueDate)
+                .orElse(null));
+        loan.setLastEmiAmount(lastUnpaidAmount(loan));
+    }
+
+    private BigDecimal lastUnpaidAmount(Loan loan) {
+        return emiPaymentRepository
+                .findFirstByLoanIdAndStatusNotOrderByDueDateDesc(loan.getId(), EmiPayment.EmiStatus.PAID)
+                .map(EmiPayment::getAmount)
+                .orElse(null);
+    }
+
+    // closes the loan when nothing is left to pay; returns the total repayable for the closure mail, else null
+    BigDecimal closeIfFullyPaid(Loan loan) {
+        if (loan.getPendingEmiCount() > 0) {
+            return null;
+        }
+
+        loan.setLoanStatus(LoanStatus.CLOSED);
+        loan.setClosedAt(LocalDateTime.now());
+        loanRepository.save(loan);
+
+        // total repayable = sum of all EMIs (single aggregate, no schedule load)
+        return emiPaymentRepository.sumAmountByLoanId(loan.getId()).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    private static String loanTypeName(Loan loan) {
+        return loan.getLoanType() != null ? loan.getLoanType().getName() : null;
+    }
+
+    private record EmiSettlement(List<EmiPayment> emis, Map<Long, Integer> installmentNos,
+                                 boolean loanClosed, BigDecimal totalRepayable) {
     }
 }
@@ -0,0 +1,308 @@
+package com.loanmanagement.service;
+
+import com.loanmanagement.model.ApplicantIdentityHash;
+import com.loanmanagement.model.ApplicantIdentityHash.IdentityKind;
+import com.loanmanagement.model.DuplicateApplicationFlag;
+import com.loanmanagement.model.Loan;
+import com.loanmanagement.repository.ApplicantIdentityHashRepository;
+import com.loanmanagement.repository.DuplicateApplicationFlagRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Flags applications whose PAN or Aadhaar already appears on an application
+ * from a different customer account.
+ *
+ * Identities are stored only as HMACs in applicant_identity_hashes. Before
+ * probing that table, screening locks the identity's row in
+ * applicant_identity_locks (creating it on first sight), so two applications
+ * with the same PAN in flight at once are screened one after the other and
+ * the second one sees the first. Only identities whose lock row already
+ * existed are probed.
+ *
+ * A bloom filter over the stored hashes picks the cheaper path per identity:
+ * an identity it has never seen (the usual case) goes straight to the lock-row
+ * insert, a known one to a locking read. A miss in the filter therefore costs
+ * one failed insert, never a missed duplicate. The filter is loaded on first
+ * use and catches up with other instances every {@code fraud.bloom.sync-ms},
+ * re-reading the last {@code fraud.bloom.sync-lookback-ms} of rows because
+ * IDENTITY ids do not commit in order.
+ */
+@Component
+public class DuplicateApplicationDetector {
+
+    private static final int SYNC_PAGE = 10_000;
+    private static final String INSERT_HASH = "INSERT INTO applicant_identity_hashes "
+            + "(hash, kind, loan_id, customer_id, created_at) VALUES (?, ?, ?, ?, ?)";
+    private static final String INSERT_LOCK = "INSERT INTO applicant_identity_locks (hash, created_at) VALUES (?, ?)";
+    private static final String SELECT_LOCKS = "SELECT hash FROM applicant_identity_locks WHERE hash IN (%s) "
+            + "ORDER BY hash FOR UPDATE";
+
+    private final ApplicantIdentityHashRepository hashRepository;
+    private final DuplicateApplicationFlagRepository flagRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final Mac prototype; // null when no key is configured: screening is off
+    private final ThreadLocal<Mac> macs;
+    private final BloomFilter bloom;
+    private final long syncMs;
+    private final long syncLookbackMs;
+
+    private long lastSyncedId = -1;          // guarded by this
+    private long lastSyncStartedAt;          // guarded by this
+    private volatile long nextSyncAt;
+
+    public DuplicateApplicationDetector(ApplicantIdentityHashRepository hashRepository,
+                                        DuplicateApplicationFlagRepository flagRepository,
+                                        JdbcTemplate jdbcTemplate,
+                                        @Value("${fraud.identity.hmac-key:}") String hmacKey,
+                                        @Value("${fraud.bloom.expected-entries:1000000}") long expectedEntries,
+                                        @Value("${fraud.bloom.false-positive-rate:0.01}") double falsePositiveRate,
+                                        @Value("${fraud.bloom.sync-ms:5000}") long syncMs,
+                                        @Value("${fraud.bloom.sync-lookback-ms:300000}") long syncLookbackMs) {
+        this.hashRepository = hashRepository;
+        this.flagRepository = flagRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.bloom = new BloomFilter(expectedEntries, falsePositiveRate);
+        this.syncMs = Math.max(0, syncMs);
+        this.syncLookbackMs = Math.max(0, syncLookbackMs);
+
+        if (hmacKey == null || hmacKey.isBlank()) {
+            System.out.println("[FRAUD] fraud.identity.hmac-key is not set: duplicate detection is off");
+            this.prototype = null;
+        } else {
+            try {
+                Mac mac = Mac.getInstance("HmacSHA256");
+                mac.init(new SecretKeySpec(hmacKey.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+                this.prototype = mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("HmacSHA256 unavailable", e);
+            }
+        }
+        this.macs = ThreadLocal.withInitial(this::newMac);
+    }
+
+    // one identity of one application, hashed
+    private record Identity(Loan loan, IdentityKind kind, byte[] digest, String hash) {}
+
+    /**
+     * Hashes the PAN and Aadhaar of freshly saved applications, records them and
+     * files a review flag for every earlier application from another customer
+     * that shares one. Runs inside the caller's transaction, and holds the
+     * identities' lock rows until it ends.
+     *
+     * @return the new flags per loan id; loans without a match are absent
+     */
+    public Map<Long, List<DuplicateApplicationFlag>> screen(List<Loan> loans) {
+        if (prototype == null || loans.isEmpty()) return Map.of();
+        syncBloom();
+
+        List<Identity> identities = new ArrayList<>(loans.size() * 2);
+        for (Loan loan : loans) {
+            if (loan.getPan() != null) identities.add(identity(loan, IdentityKind.PAN, loan.getPan()));
+            if (loan.getAadhaar() != null) identities.add(identity(loan, IdentityKind.AADHAAR, loan.getAadhaar()));
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        Set<String> seen = lockIdentities(identities, Timestamp.valueOf(now));
+        Map<String, List<ApplicantIdentityHash>> earlier = new HashMap<>();
+        if (!seen.isEmpty()) {
+            for (ApplicantIdentityHash row : hashRepository.findByHashInLocked(seen)) {
+                earlier.computeIfAbsent(row.getHash(), h -> new ArrayList<>()).add(row);
+            }
+        }
+
+        Map<Long, List<DuplicateApplicationFlag>> flags = new HashMap<>();
+        List<DuplicateApplicationFlag> allFlags = new ArrayList<>();
+        for (Identity id : identities) {
+            Long customerId = id.loan().getCustomer().getUserId();
+            for (ApplicantIdentityHash match : earlier.getOrDefault(id.hash(), List.of())) {
+                if (match.getCustomerId().equals(customerId) || match.getLoanId().equals(id.loan().getId())) continue;
+                DuplicateApplicationFlag flag = DuplicateApplicationFlag.builder()
+                        .loanId(id.loan().getId())
+                        .customerId(customerId)
+                        .matchedLoanId(match.getLoanId())
+                        .matchedCustomerId(match.getCustomerId())
+                        .kind(id.kind())
+                        .status(DuplicateApplicationFlag.FlagStatus.OPEN)
+                        .createdAt(now)
+                        .build();
+                flags.computeIfAbsent(id.loan().getId(), k -> new ArrayList<>()).add(flag);
+                allFlags.add(flag);
+            }
+            // later applications in the same batch see this one
+            earlier.computeIfAbsent(id.hash(), h -> new ArrayList<>()).add(ApplicantIdentityHash.builder()
+                    .hash(id.hash()).kind(id.kind()).loanId(id.loan().getId()).customerId(customerId).build());
+        }
+
+        Timestamp createdAt = Timestamp.valueOf(now);
+        jdbcTemplate.batchUpdate(INSERT_HASH, identities, identities.size(), (ps, id) -> {
+            ps.setString(1, id.hash());
+            ps.setString(2, id.kind().name());
+            ps.setLong(3, id.loan().getId());
+            ps.setLong(4, id.loan().getCustomer().getUserId());
+            ps.setTimestamp(5, createdAt);
+        });
+        // a rolled-back insert only leaves a false positive behind, which the table lookup weeds out
+        for (Identity id : identities) bloom.put(h1(id.digest()), h2(id.digest()));
+
+        if (!allFlags.isEmpty()) {
+            flagRepository.saveAll(allFlags);
+            System.out.println("[FRAUD] " + allFlags.size() + " duplicate identity match(es) flagged for review");
+        }
+        return flags;
+    }
+
+    /**
+     * Locks the lock row of every identity, inserting the rows of identities the
+     * bloom filter has never seen. An insert that collides with an uncommitted
+     * row waits for that transaction and then fails; the row is then locked like
+     * a known one. Rows are taken in hash order, so overlapping batches wait
+     * rather than deadlock (a rare deadlock between the two paths is retried by
+     * the callers' concurrency retry).
+     *
+     * @return the hashes whose row already existed: these have been seen before and are probed
+     */
+    private Set<String> lockIdentities(List<Identity> identities, Timestamp now) {
+        SortedSet<String> known = new TreeSet<>();
+        SortedSet<String> fresh = new TreeSet<>();
+        for (Identity id : identities) {
+            if (bloom.mightContain(h1(id.digest()), h2(id.digest()))) known.add(id.hash());
+            else fresh.add(id.hash());
+        }
+
+        Set<String> seen = new HashSet<>();
+        if (!known.isEmpty()) {
+            seen.addAll(lockExisting(known));
+            for (String hash : known) {
+                if (!seen.contains(hash)) fresh.add(hash); // bloom false positive
+            }
+        }
+        if (fresh.isEmpty()) return seen;
+
+        List<String> inserts = new ArrayList<>(fresh);
+        try {
+            jdbcTemplate.batchUpdate(INSERT_LOCK, inserts, inserts.size(), (ps, hash) -> {
+                ps.setString(1, hash);
+                ps.setTimestamp(2, now);
+            });
+        } catch (DataIntegrityViolationException batchFailed) {
+            // another transaction holds or wrote one of them: row by row, probing every row that collides
+            for (String hash : inserts) {
+                try {
+                    jdbcTemplate.update(INSERT_LOCK, hash, now);
+                } catch (DuplicateKeyException e) {
+                    lockExisting(List.of(hash));
+                    seen.add(hash);
+                }
+            }
+        }
+        return seen;
+    }
+
+    private List<String> lockExisting(Collection<String> hashes) {
+        String placeholders = String.join(", ", Collections.nCopies(hashes.size(), "?"));
+        return jdbcTemplate.queryForList(SELECT_LOCKS.formatted(placeholders), String.class, hashes.toArray());
+    }
+
+    /** Hex HMAC of an identity, as stored in applicant_identity_hashes. */
+    String hash(IdentityKind kind, String value) {
+        return HexFormat.of().formatHex(digest(kind, value));
+    }
+
+    /** Bloom-only pre-check, without touching the database. */
+    boolean mightBeKnown(IdentityKind kind, String value) {
+        byte[] d = digest(kind, value);
+        return bloom.mightContain(h1(d), h2(d));
+    }
+
+    boolean enabled() {
+        return prototype != null;
+    }
+
+    private Identity identity(Loan loan, IdentityKind kind, String value) {
+        byte[] d = digest(kind, value);
+        return new Identity(loan, kind, d, HexFormat.of().formatHex(d));
+    }
+
+    private byte[] digest(IdentityKind kind, String value) {
+        // the kind is part of the input so a PAN and an Aadhaar never share a hash
+        String normalized = kind.name() + ":" + value.trim().toUpperCase(Locale.ROOT);
+        return macs.get().doFinal(normalized.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Mac newMac() {
+        if (prototype == null) return null;
+        try {
+            return (Mac) prototype.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException("HmacSHA256 provider does not support clone", e);
+        }
+    }
+
+    private static long h1(byte[] digest) {
+        return ByteBuffer.wrap(digest, 0, 8).getLong();
+    }
+
+    private static long h2(byte[] digest) {
+        return ByteBuffer.wrap(digest, 8, 8).getLong() | 1; // odd, so the probes never collapse onto one bit
+    }
+
+    private static byte[] unhex(String hash) {
+        return HexFormat.of().parseHex(hash);
+    }
+
+    // load hashes written since the last sync (all of them on first use)
+    private void syncBloom() {
+        if (System.currentTimeMillis() < nextSyncAt) return;
+        synchronized (this) {
+            if (System.currentTimeMillis() < nextSyncAt) return;
+            long startedAt = System.currentTimeMillis();
+            long after = lastSyncedId;
+            List<ApplicantIdentityHashRepository.HashRow> page;
+            do {
+                page = hashRepository.findHashesAfter(after, PageRequest.of(0, SYNC_PAGE));
+                after = putAll(page, after);
+            } while (page.size() == SYNC_PAGE);
+
+            // a row with a lower id can commit after we read past it: re-read the recent window too
+            if (nextSyncAt != 0) {
+                LocalDateTime since = new Timestamp(lastSyncStartedAt - syncLookbackMs).toLocalDateTime();
+                long windowAfter = Long.MIN_VALUE;
+                do {
+                    page = hashRepository.findHashesCreatedSince(since, windowAfter, PageRequest.of(0, SYNC_PAGE));
+                    windowAfter = putAll(page, windowAfter);
+                } while (page.size() == SYNC_PAGE);
+            }
+            if (nextSyncAt == 0) {
+                System.out.println("[FRAUD] Identity bloom filter loaded up to hash #" + after + " ("
+                        + bloom.bitCount() + " bits, " + bloom.probes() + " probes)");
+            }
+            lastSyncedId = after;
+            lastSyncStartedAt = startedAt;
+            nextSyncAt = System.currentTimeMillis() + syncMs;
+        }
+    }
+
+    // adds a page of hashes to the filter; returns the last id read
+    private long putAll(List<ApplicantIdentityHashRepository.HashRow> page, long after) {
+        for (ApplicantIdentityHashRepository.HashRow row : page) {
+            byte[] d = unhex(row.getHash());
+            bloom.put(h1(d), h2(d));
+            after = Math.max(after, row.getId());
+        }
+        return after;
+    }
+}
@@ -0,0 +1,39 @@
+package com.loanmanagement.service;
+
+import com.loanmanagement.model.DuplicateApplicationFlag;
+import com.loanmanagement.model.DuplicateApplicationFlag.FlagStatus;
+import com.loanmanagement.repository.DuplicateApplicationFlagRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+public class DuplicateReviewService {
+
+    private final DuplicateApplicationFlagRepository flagRepository;
+
+    // ✅ Review queue by status, oldest first
+    public List<DuplicateApplicationFlag> getFlags(FlagStatus status) {
+        return flagRepository.findByStatusOrderByCreatedAtAsc(status);
+    }
+
+    // ✅ Close an OPEN flag as CLEARED (legitimate) or CONFIRMED (duplicate)
+    @Transactional
+    public DuplicateApplicationFlag resolveFlag(Long id, FlagStatus status) {
+        if (status == null || status == FlagStatus.OPEN) {
+            throw new RuntimeException("A flag can only be resolved as CLEARED or CONFIRMED");
+        }
+        DuplicateApplicationFlag flag = flagRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Flag not found"));
+        if (flag.getStatus() != FlagStatus.OPEN) {
+            throw new RuntimeException("Flag is already " + flag.getStatus());
+        }
+        flag.setStatus(status);
+        flag.setResolvedAt(LocalDateTime.now());
+        return flagRepository.save(flag);
+    }
+}
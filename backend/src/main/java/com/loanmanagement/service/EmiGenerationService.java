@@ -1,14 +1,19 @@
 package com.loanmanagement.service;
 
+import com.loanmanagement.config.AppMetrics;
+import com.loanmanagement.config.FlightEvents;
 import com.loanmanagement.model.EmiPayment;
 import com.loanmanagement.model.Loan;
 import com.loanmanagement.repository.EmiPaymentRepository;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.math.MathContext;
 import java.math.RoundingMode;
+import java.sql.Date;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
@@ -17,7 +22,13 @@ import java.util.List;
 @RequiredArgsConstructor
 public class EmiGenerationService {
 
+    // the whole schedule goes in as one JDBC batch: with IDENTITY ids Hibernate would insert row by row
+    private static final String INSERT_EMI = "INSERT INTO emi_payment (loan_id, amount, due_date, status, "
+            + "remaining_balance, created_at, updated_at, version) VALUES (?, ?, ?, ?, ?, ?, ?, 0)";
+
     private final EmiPaymentRepository emiPaymentRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final AppMetrics metrics;
 
     // use a high precision context for intermediate steps
     private static final MathContext MC = new MathContext(34, RoundingMode.HALF_UP);
@@ -28,6 +39,10 @@ public class EmiGenerationService {
         if (emiPaymentRepository.countByLoan(loan) > 0) {
             return;
         }
+        Timer.Sample sample = metrics.start();
+        FlightEvents.EmiSchedule event = new FlightEvents.EmiSchedule();
+        event.begin();
+        long mathStart = System.nanoTime();
 
         BigDecimal monthlyEmi = calculateEmi(
                 loan.getAmount(),                 // BigDecimal
@@ -42,7 +57,8 @@ public class EmiGenerationService {
         BigDecimal remainingBalance = totalRepayable; // ✅ Total repayable = principal + interest
 
 
-        List<EmiPayment> emis = new ArrayList<>();
+        Date today = Date.valueOf(LocalDate.now());
+        List<Object[]> emis = new ArrayList<>(totalMonths);
 
         for (int i = 0; i < totalMonths; i++) {
             // reduce remaining balance; never negative
@@ -51,18 +67,32 @@ public class EmiGenerationService {
                 remainingBalance = BigDecimal.ZERO;
             }
 
-            EmiPayment emi = EmiPayment.builder()
-                    .loan(loan)
-                    .amount(monthlyEmi)                                   // BigDecimal(2 dp)
-                    .dueDate(firstDueDate.plusMonths(i))
-                    .status(EmiPayment.EmiStatus.PENDING)
-                    .remainingBalance(remainingBalance.setScale(2, RM))   // 2 dp
-                    .build();
-
-            emis.add(emi);
+            emis.add(new Object[]{
+                    loan.getId(),
+                    monthlyEmi,                                           // BigDecimal(2 dp)
+                    Date.valueOf(firstDueDate.plusMonths(i)),
+                    EmiPayment.EmiStatus.PENDING.name(),
+                    remainingBalance.setScale(2, RM),                     // 2 dp
+                    today,
+                    today});
         }
 
-        emiPaymentRepository.saveAll(emis);
+        event.mathTime = FlightEvents.elapsed(mathStart);
+        long insertStart = System.nanoTime();
+        jdbcTemplate.batchUpdate(INSERT_EMI, emis);
+        event.insertTime = FlightEvents.elapsed(insertStart);
+
+        // seed the loan's repayment snapshot (persisted with the loan by the caller)
+        loan.setPendingEmiCount(totalMonths);
+        loan.setPaidEmiCount(0);
+        loan.setOutstandingAmount(totalRepayable.setScale(2, RM));
+        loan.setLastEmiAmount(totalMonths > 0 ? monthlyEmi : null);
+        loan.setNextDueDate(totalMonths > 0 ? firstDueDate : null);
+
+        metrics.scheduleGenerated(sample, loan.getLoanType() != null ? loan.getLoanType().getName() : null, totalMonths);
+        event.loanId = loan.getId();
+        event.rows = totalMonths;
+        event.commit();
     }
 
     private BigDecimal calculateEmi(BigDecimal principal, double annualRatePercent, int tenureYears) {
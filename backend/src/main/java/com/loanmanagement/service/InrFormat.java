@@ -0,0 +1,61 @@
+package com.loanmanagement.service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Rupee amounts for mails, e.g. {@code 1234567.5 -> "₹1,234,567.50"}.
+ *
+ * Same output as {@code "₹" + String.format("%,.2f", v)} (thousands grouping,
+ * two decimals, half-up), but written digit by digit from the unscaled long
+ * instead of going through Formatter on every amount.
+ */
+final class InrFormat {
+
+    // beyond this the long arithmetic could overflow; fall back to Formatter
+    private static final long MAX_FAST = 1_000_000_000_000_000L;
+
+    private InrFormat() {
+    }
+
+    static String format(BigDecimal value) {
+        StringBuilder sb = new StringBuilder(20);
+        appendTo(sb, value);
+        return sb.toString();
+    }
+
+    static void appendTo(StringBuilder out, BigDecimal value) {
+        out.append('₹');
+        if (value == null) {
+            out.append("0.00");
+            return;
+        }
+
+        BigDecimal scaled = value.setScale(2, RoundingMode.HALF_UP);
+        if (scaled.unscaledValue().bitLength() > 62 || Math.abs(scaled.unscaledValue().longValue()) >= MAX_FAST) {
+            out.append(String.format("%,.2f", scaled));
+            return;
+        }
+
+        long cents = scaled.unscaledValue().longValue();
+        if (cents < 0) {
+            out.append('-');
+            cents = -cents;
+        }
+
+        long units = cents / 100;
+        int fraction = (int) (cents % 100);
+
+        String digits = Long.toString(units);
+        int lead = digits.length() % 3;
+        if (lead == 0) lead = 3;
+        out.append(digits, 0, lead);
+        for (int i = lead; i < digits.length(); i += 3) {
+            out.append(',').append(digits, i, i + 3);
+        }
+
+        out.append('.');
+        if (fraction < 10) out.append('0');
+        out.append(fraction);
+    }
+}
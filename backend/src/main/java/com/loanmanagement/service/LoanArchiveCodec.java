@@ -0,0 +1,71 @@
+package com.loanmanagement.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.loanmanagement.model.EmiPayment;
+import com.loanmanagement.model.Loan;
+import com.loanmanagement.model.LoanPrepayment;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The child rows of an archived loan as one gzip-compressed JSON document.
+ * A 30-year schedule is 360 EMI rows in the hot tables and a few kilobytes here.
+ */
+final class LoanArchiveCodec {
+
+    record Records(List<Emi> emis, List<Prepayment> prepayments, List<StatusChange> history) {
+    }
+
+    record Emi(Long id, BigDecimal amount, LocalDate dueDate, EmiPayment.EmiStatus status, LocalDate paymentDate,
+               String transactionRef, BigDecimal remainingBalance, LocalDate createdAt, LocalDate updatedAt,
+               List<Penalty> penalties) {
+    }
+
+    record Penalty(Long id, double amount, String reason) {
+    }
+
+    record Prepayment(Long id, BigDecimal amount, LoanPrepayment.RecastMode mode, BigDecimal principalBefore,
+                      BigDecimal principalAfter, LocalDate paymentDate, String transactionRef, LocalDateTime createdAt) {
+    }
+
+    record StatusChange(Long id, Loan.LoanStatus status, String comments, LocalDateTime updatedAt) {
+    }
+
+    private static final ObjectMapper JSON = JsonMapper.builder()
+            .addModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+
+    private LoanArchiveCodec() {
+    }
+
+    static byte[] encode(Records records) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+            JSON.writeValue(gzip, records);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not encode archived loan records", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static Records decode(byte[] compressed) {
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            return JSON.readValue(gzip, Records.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read archived loan records", e);
+        }
+    }
+}
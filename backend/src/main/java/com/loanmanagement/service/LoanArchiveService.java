@@ -0,0 +1,168 @@
+package com.loanmanagement.service;
+
+import com.loanmanagement.dto.LoanArchiveRunDto;
+import com.loanmanagement.model.*;
+import com.loanmanagement.repository.ArchivedLoanRecordsRepository;
+import com.loanmanagement.repository.ArchivedLoanRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Retention for settled loans, and read-through to the archive.
+ *
+ * An archival run moves CLOSED loans closed (and REJECTED loans applied for)
+ * more than archive.retention-months ago to the archive tables, a chunk per
+ * transaction. Archived loans come back as detached {@link Loan},
+ * {@link EmiPayment} and {@link ApplicationStatusHistory} objects, so the
+ * customer and admin views show them next to the hot ones; they are never
+ * written back.
+ */
+@Service
+@RequiredArgsConstructor
+public class LoanArchiveService {
+
+    private final LoanArchiver archiver;
+    private final ArchivedLoanRepository archivedLoanRepository;
+    private final ArchivedLoanRecordsRepository archivedRecordsRepository;
+
+    @Value("${archive.retention-months:24}")
+    private int retentionMonths;
+
+    // loans per archive transaction
+    @Value("${archive.chunk-size:200}")
+    private int chunkSize;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    // ✅ Archive every loan past the retention window; one run at a time
+    public LoanArchiveRunDto archiveSettledLoans() {
+        if (!running.compareAndSet(false, true)) {
+            throw new RuntimeException("An archival run is already in progress");
+        }
+        try {
+            long start = System.nanoTime();
+            LocalDateTime cutoff = LocalDateTime.now().minusMonths(retentionMonths);
+            int chunks = 0;
+            long archived = 0;
+            int moved;
+            while ((moved = archiver.archiveChunk(cutoff, chunkSize)) > 0) {
+                chunks++;
+                archived += moved;
+            }
+            long durationMs = (System.nanoTime() - start) / 1_000_000;
+            System.out.println("[ARCHIVE] " + archived + " loans settled before " + cutoff.toLocalDate()
+                    + " archived in " + chunks + " chunks, " + durationMs + " ms");
+            return LoanArchiveRunDto.builder()
+                    .cutoff(cutoff)
+                    .retentionMonths(retentionMonths)
+                    .chunks(chunks)
+                    .loansArchived(archived)
+                    .durationMs(durationMs)
+                    .build();
+        } finally {
+            running.set(false);
+        }
+    }
+
+    // ✅ A customer's archived loans (no status history; one query)
+    public List<Loan> getArchivedLoans(User customer) {
+        return archivedLoanRepository.findByCustomerId(customer.getUserId()).stream()
+                .map(a -> toLoan(a, customer))
+                .toList();
+    }
+
+    // ✅ A customer's archived loans with their status history (one more query when there are any)
+    public List<Loan> getArchivedLoansWithHistory(User customer) {
+        List<Loan> loans = getArchivedLoans(customer);
+        if (loans.isEmpty()) return loans;
+        Map<Long, ArchivedLoanRecords> records = new HashMap<>();
+        archivedRecordsRepository.findAllById(loans.stream().map(Loan::getId).toList())
+                .forEach(r -> records.put(r.getLoanId(), r));
+        for (Loan loan : loans) {
+            ArchivedLoanRecords r = records.get(loan.getId());
+            loan.setStatusHistory(r == null ? List.of() : history(loan, LoanArchiveCodec.decode(r.getRecords())));
+        }
+        return loans;
+    }
+
+    // ✅ One archived loan with its customer, for lookups that missed the hot table
+    public Optional<Loan> findArchivedLoan(Long loanId) {
+        return archivedLoanRepository.findWithCustomerById(loanId).map(a -> toLoan(a, a.getCustomer()));
+    }
+
+    // ✅ Every archived loan with its customer (admin list)
+    public List<Loan> getAllArchivedLoans() {
+        return archivedLoanRepository.findAllWithCustomer().stream().map(a -> toLoan(a, a.getCustomer())).toList();
+    }
+
+    public List<ApplicationStatusHistory> getArchivedHistory(Loan archivedLoan) {
+        return history(archivedLoan, records(archivedLoan.getId()));
+    }
+
+    // ✅ The archived EMI schedule in due-date order
+    public List<EmiPayment> getArchivedEmis(Loan archivedLoan) {
+        return records(archivedLoan.getId()).emis().stream()
+                .map(e -> EmiPayment.builder()
+                        .id(e.id())
+                        .loan(archivedLoan)
+                        .amount(e.amount())
+                        .dueDate(e.dueDate())
+                        .status(e.status())
+                        .paymentDate(e.paymentDate())
+                        .transactionRef(e.transactionRef())
+                        .remainingBalance(e.remainingBalance())
+                        .createdAt(e.createdAt())
+                        .updatedAt(e.updatedAt())
+                        .build())
+                .toList();
+    }
+
+    private LoanArchiveCodec.Records records(Long loanId) {
+        return archivedRecordsRepository.findById(loanId)
+                .map(r -> LoanArchiveCodec.decode(r.getRecords()))
+                .orElse(new LoanArchiveCodec.Records(List.of(), List.of(), List.of()));
+    }
+
+    private static List<ApplicationStatusHistory> history(Loan loan, LoanArchiveCodec.Records records) {
+        return records.history().stream()
+                .map(h -> ApplicationStatusHistory.builder()
+                        .id(h.id())
+                        .loan(loan)
+                        .status(h.status())
+                        .comments(h.comments())
+                        .updatedAt(h.updatedAt())
+                        .build())
+                .toList();
+    }
+
+    // settled loans: nothing pending or outstanding
+    private static Loan toLoan(ArchivedLoan a, User customer) {
+        return Loan.builder()
+                .id(a.getId())
+                .customer(customer)
+                .loanType(a.getLoanTypeName() == null ? null
+                        : LoanType.builder().loanTypeId(a.getLoanTypeId()).name(a.getLoanTypeName()).build())
+                .amount(a.getAmount())
+                .appliedInterestRate(a.getAppliedInterestRate())
+                .tenureYears(a.getTenureYears())
+                .purpose(a.getPurpose())
+                .income(a.getIncome())
+                .employmentInfo(a.getEmploymentInfo())
+                .aadhaar(a.getAadhaar())
+                .pan(a.getPan())
+                .cibilScore(a.getCibilScore())
+                .loanStatus(a.getLoanStatus())
+                .submittedAt(a.getSubmittedAt())
+                .closedAt(a.getClosedAt())
+                .paidEmiCount(a.getPaidEmiCount())
+                .pendingEmiCount(0)
+                .outstandingAmount(BigDecimal.ZERO.setScale(2))
+                .build();
+    }
+}
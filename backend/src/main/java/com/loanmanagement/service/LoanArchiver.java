@@ -0,0 +1,118 @@
+package com.loanmanagement.service;
+
+import com.loanmanagement.model.*;
+import com.loanmanagement.repository.*;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Moves one chunk of old CLOSED / REJECTED loans to the archive tables in a
+ * single transaction: read the loans and their child rows (one query per
+ * table), write an archive row and a compressed records row per loan, then
+ * delete the hot rows set-based. Identity hashes and duplicate flags stay in
+ * place, so new applications are still screened against archived ones.
+ */
+@Component
+@RequiredArgsConstructor
+public class LoanArchiver {
+
+    private final LoanRepository loanRepository;
+    private final EmiPaymentRepository emiPaymentRepository;
+    private final PenaltyRepository penaltyRepository;
+    private final LoanPrepaymentRepository prepaymentRepository;
+    private final ApplicationStatusHistoryRepository historyRepository;
+    private final LoanDataPurger loanDataPurger;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // ✅ Archive up to chunkSize loans settled before the cutoff; returns how many were moved (0 = done)
+    @Transactional
+    public int archiveChunk(LocalDateTime cutoff, int chunkSize) {
+        List<Loan> loans = loanRepository.findArchivable(Loan.LoanStatus.CLOSED, Loan.LoanStatus.REJECTED, cutoff,
+                PageRequest.of(0, Math.max(1, chunkSize)));
+        if (loans.isEmpty()) return 0;
+        List<Long> ids = loans.stream().map(Loan::getId).toList();
+
+        Map<Long, List<LoanArchiveCodec.Penalty>> penaltiesByEmi = penaltyRepository.findByLoanIdIn(ids).stream()
+                .collect(Collectors.groupingBy(p -> p.getEmi().getId(), Collectors.mapping(
+                        p -> new LoanArchiveCodec.Penalty(p.getId(), p.getAmount(), p.getReason()), Collectors.toList())));
+        Map<Long, List<EmiPayment>> emisByLoan = emiPaymentRepository.findByLoanIdIn(ids).stream()
+                .collect(Collectors.groupingBy(e -> e.getLoan().getId()));
+        Map<Long, List<LoanPrepayment>> prepaymentsByLoan = prepaymentRepository.findByLoanIdIn(ids).stream()
+                .collect(Collectors.groupingBy(p -> p.getLoan().getId()));
+        Map<Long, List<ApplicationStatusHistory>> historyByLoan = historyRepository.findByLoanIdIn(ids).stream()
+                .collect(Collectors.groupingBy(h -> h.getLoan().getId()));
+
+        LocalDateTime now = LocalDateTime.now();
+        List<ArchivedLoanRecords> records = new ArrayList<>(loans.size());
+        for (Loan loan : loans) {
+            List<EmiPayment> emis = emisByLoan.getOrDefault(loan.getId(), List.of());
+            entityManager.persist(archived(loan, emis, now));
+            records.add(ArchivedLoanRecords.builder()
+                    .loanId(loan.getId())
+                    .records(LoanArchiveCodec.encode(new LoanArchiveCodec.Records(
+                            emis.stream().map(e -> emi(e, penaltiesByEmi.getOrDefault(e.getId(), List.of()))).toList(),
+                            prepaymentsByLoan.getOrDefault(loan.getId(), List.of()).stream().map(LoanArchiver::prepayment).toList(),
+                            historyByLoan.getOrDefault(loan.getId(), List.of()).stream().map(LoanArchiver::statusChange).toList())))
+                    .build());
+        }
+        records.forEach(entityManager::persist); // after their archive rows: records reference them
+        entityManager.flush();
+
+        loanDataPurger.deleteLoanRows(ids);
+        entityManager.clear();
+        return loans.size();
+    }
+
+    private static ArchivedLoan archived(Loan loan, List<EmiPayment> emis, LocalDateTime archivedAt) {
+        BigDecimal repaid = emis.stream()
+                .filter(e -> e.getStatus() == EmiPayment.EmiStatus.PAID)
+                .map(EmiPayment::getAmount)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        return ArchivedLoan.builder()
+                .id(loan.getId())
+                .customer(loan.getCustomer())
+                .loanTypeId(loan.getLoanType() != null ? loan.getLoanType().getLoanTypeId() : null)
+                .loanTypeName(loan.getLoanType() != null ? loan.getLoanType().getName() : null)
+                .amount(loan.getAmount())
+                .appliedInterestRate(loan.getAppliedInterestRate())
+                .tenureYears(loan.getTenureYears())
+                .purpose(loan.getPurpose())
+                .income(loan.getIncome())
+                .employmentInfo(loan.getEmploymentInfo())
+                .aadhaar(loan.getAadhaar())
+                .pan(loan.getPan())
+                .cibilScore(loan.getCibilScore())
+                .loanStatus(loan.getLoanStatus())
+                .submittedAt(loan.getSubmittedAt())
+                .closedAt(loan.getClosedAt())
+                .paidEmiCount(loan.getPaidEmiCount())
+                .repaidAmount(repaid.setScale(2))
+                .archivedAt(archivedAt)
+                .build();
+    }
+
+    private static LoanArchiveCodec.Emi emi(EmiPayment e, List<LoanArchiveCodec.Penalty> penalties) {
+        return new LoanArchiveCodec.Emi(e.getId(), e.getAmount(), e.getDueDate(), e.getStatus(), e.getPaymentDate(),
+                e.getTransactionRef(), e.getRemainingBalance(), e.getCreatedAt(), e.getUpdatedAt(), penalties);
+    }
+
+    private static LoanArchiveCodec.Prepayment prepayment(LoanPrepayment p) {
+        return new LoanArchiveCodec.Prepayment(p.getId(), p.getAmount(), p.getMode(), p.getPrincipalBefore(),
+                p.getPrincipalAfter(), p.getPaymentDate(), p.getTransactionRef(), p.getCreatedAt());
+    }
+
+    private static LoanArchiveCodec.StatusChange statusChange(ApplicationStatusHistory h) {
+        return new LoanArchiveCodec.StatusChange(h.getId(), h.getStatus(), h.getComments(), h.getUpdatedAt());
+    }
+}
@@ -0,0 +1,89 @@
+package com.loanmanagement.service;
+
+import com.loanmanagement.repository.*;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Set-based deletes for loans, users and everything hanging off them.
+ *
+ * Each table is cleared with one DELETE ... WHERE loan_id IN (...) instead of
+ * loading the rows as entities and removing them one at a time, so the
+ * statement count does not grow with the number of loans or EMIs. Children go
+ * before their parents (penalties, EMIs, prepayments, history, identity rows,
+ * duplicate flags, then the loans). Archived loans are removed the same way.
+ * Every method joins the caller's transaction or runs in its own.
+ */
+@Component
+@RequiredArgsConstructor
+public class LoanDataPurger {
+
+    private final LoanRepository loanRepository;
+    private final EmiPaymentRepository emiPaymentRepository;
+    private final PenaltyRepository penaltyRepository;
+    private final LoanPrepaymentRepository prepaymentRepository;
+    private final ApplicationStatusHistoryRepository historyRepository;
+    private final ApplicantIdentityHashRepository identityHashRepository;
+    private final DuplicateApplicationFlagRepository duplicateFlagRepository;
+    private final ChatMessageRepository chatMessageRepository;
+    private final OtpLogRepository otpLogRepository;
+    private final UserRepository userRepository;
+    private final ArchivedLoanRepository archivedLoanRepository;
+    private final ArchivedLoanRecordsRepository archivedRecordsRepository;
+
+    // ✅ Delete the given loans with all their child rows; returns the number of loans deleted
+    @Transactional
+    public int purgeLoans(Collection<Long> loanIds) {
+        if (loanIds.isEmpty()) return 0;
+        identityHashRepository.deleteByLoanIdIn(loanIds);
+        duplicateFlagRepository.deleteByLoanIdIn(loanIds);
+        return deleteLoanRows(loanIds);
+    }
+
+    // ✅ The loans with their schedules, prepayments and history; identity rows and flags stay (archival)
+    @Transactional
+    public int deleteLoanRows(Collection<Long> loanIds) {
+        if (loanIds.isEmpty()) return 0;
+        penaltyRepository.deleteByLoanIdIn(loanIds);
+        emiPaymentRepository.deleteByLoanIdIn(loanIds);
+        prepaymentRepository.deleteByLoanIdIn(loanIds);
+        historyRepository.deleteByLoanIdIn(loanIds);
+        return loanRepository.deleteByIdIn(loanIds);
+    }
+
+    // ✅ Delete archived loans with their records, identity rows and flags; returns the number deleted
+    @Transactional
+    public int purgeArchivedLoans(Collection<Long> loanIds) {
+        if (loanIds.isEmpty()) return 0;
+        identityHashRepository.deleteByLoanIdIn(loanIds);
+        duplicateFlagRepository.deleteByLoanIdIn(loanIds);
+        archivedRecordsRepository.deleteByLoanIdIn(loanIds);
+        return archivedLoanRepository.deleteByIdIn(loanIds);
+    }
+
+    // ✅ Delete up to maxRows EMIs (and their penalties) of the given loans; 0 once none are left
+    @Transactional
+    public int purgeEmiChunk(Collection<Long> loanIds, int maxRows) {
+        if (loanIds.isEmpty()) return 0;
+        List<Long> emiIds = emiPaymentRepository.findIdsByLoanIdIn(loanIds, PageRequest.of(0, Math.max(1, maxRows)));
+        if (emiIds.isEmpty()) return 0;
+        penaltyRepository.deleteByEmiIdIn(emiIds);
+        return emiPaymentRepository.deleteByIdIn(emiIds);
+    }
+
+    // ✅ Delete a user with their loans, chats and OTPs; an admin's chat replies are kept without a sender
+    @Transactional
+    public void purgeUser(Long userId) {
+        chatMessageRepository.deleteByCustomerId(userId);
+        chatMessageRepository.clearAdmin(userId);
+        otpLogRepository.deleteByUserId(userId);
+        purgeLoans(loanRepository.findIdsByCustomerId(userId));
+        purgeArchivedLoans(archivedLoanRepository.findIdsByCustomerId(userId));
+        userRepository.deleteById(userId);
+    }
+}
@@ -0,0 +1,71 @@
+package com.loanmanagement.service;
+
+import com.loanmanagement.model.Loan;
+import com.loanmanagement.model.LoanType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Scores a new application against its loan type's decision rules.
+ *
+ * Rules are compiled on first use and kept per loan type; an admin edit is
+ * picked up on the next application because the cached source no longer
+ * matches the loan type's text.
+ */
+@Component
+public class LoanDecisionEngine {
+
+    @Value("${loan.decision.enabled:true}")
+    private boolean enabled;
+
+    private final Map<Long, LoanDecisionRules> compiled = new ConcurrentHashMap<>();
+
+    /** Outcome of scoring one application; {@code rule} is -1 when nothing matched. */
+    public record LoanDecision(LoanDecisionRules.Action action, int rule, String reason) {
+    }
+
+    /**
+     * Returns null when the loan type has no rules (or the engine is off),
+     * leaving the application to the usual manual flow.
+     */
+    public LoanDecision decide(Loan loan, LoanType type) {
+        if (!enabled) return null;
+        LoanDecisionRules rules = rulesFor(type);
+        if (rules == null || rules.size() == 0) return null;
+
+        double[] features = new double[LoanDecisionRules.FEATURES];
+        LoanDecisionRules.features(loan, type, features);
+        int rule = rules.match(features);
+        if (rule < 0) {
+            return new LoanDecision(LoanDecisionRules.Action.REVIEW, -1, "Auto-decision: no rule matched, sent for manual review");
+        }
+
+        LoanDecisionRules.Action action = rules.action(rule);
+        String verb = switch (action) {
+            case APPROVE -> "Auto-approved";
+            case REJECT -> "Auto-rejected";
+            case REVIEW -> "Sent for manual review";
+        };
+        return new LoanDecision(action, rule, verb + " by rule " + (rule + 1) + ": " + rules.ruleText(rule));
+    }
+
+    private LoanDecisionRules rulesFor(LoanType type) {
+        String source = type.getDecisionRules();
+        if (source == null || source.isBlank() || type.getLoanTypeId() == null) return null;
+
+        LoanDecisionRules rules = compiled.get(type.getLoanTypeId());
+        if (rules != null && rules.source().equals(source)) return rules;
+        try {
+            rules = LoanDecisionRules.compile(source);
+        } catch (IllegalArgumentException e) {
+            // rules are validated on save; a bad stored text must not block applications
+            System.out.println("[DECISION] Rules for loan type " + type.getLoanTypeId() + " ignored: " + e.getMessage());
+            return null;
+        }
+        compiled.put(type.getLoanTypeId(), rules);
+        return rules;
+    }
+}
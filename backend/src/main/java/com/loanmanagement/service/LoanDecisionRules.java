@@ -0,0 +1,247 @@
+package com.loanmanagement.service;
+
+import com.loanmanagement.model.Loan;
+import com.loanmanagement.model.LoanType;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A loan type's auto-decision rules, compiled once into flat arrays.
+ *
+ * Rules are written one per line (or separated by ';') and tried top to bottom;
+ * the first rule whose conditions all hold decides:
+ * <pre>
+ *   REJECT  when cibil &lt; 600
+ *   REJECT  when amountRatio &gt; 0.8 and cibil &lt; 700
+ *   APPROVE when cibil &gt;= 750 and income &gt;= 2 and employment in [Software (IT), Government Employee]
+ *   REVIEW  when employment = Student
+ * </pre>
+ * Fields: {@code cibil}, {@code amount} (₹), {@code tenure} (years),
+ * {@code amountRatio} / {@code tenureRatio} (share of the loan type's maximum),
+ * {@code income} (band 0 = N/A … 4 = above ₹1,00,000) and {@code employment}.
+ * Operators: {@code < <= > >= = !=}, and {@code in [..]} / {@code not in [..]}
+ * for employment. No match means manual review.
+ *
+ * {@link #match(double[])} walks primitive arrays only, so scoring an
+ * application allocates nothing.
+ */
+final class LoanDecisionRules {
+
+    enum Action { APPROVE, REJECT, REVIEW }
+
+    // feature slots in the double[] handed to match()
+    static final int CIBIL = 0, AMOUNT = 1, TENURE = 2, AMOUNT_RATIO = 3, TENURE_RATIO = 4, INCOME = 5, EMPLOYMENT = 6;
+    static final int FEATURES = 7;
+
+    private static final String[] FIELD_NAMES = {"cibil", "amount", "tenure", "amountratio", "tenureratio", "income", "employment"};
+
+    static final List<String> INCOME_BANDS = List.of(
+            "N/A", "< ₹30,000", "₹30,000 - ₹70,000", "₹70,001 - ₹1,00,000", "> ₹1,00,000");
+
+    static final List<String> EMPLOYMENTS = List.of(
+            "Software (IT)", "Software (Non-IT)", "Entrepreneur", "Farming / Agriculture", "Government Employee",
+            "Self-Employed / Freelancer", "Student", "Healthcare / Medical", "Education / Teaching", "Other");
+
+    private static final byte LT = 0, LE = 1, GT = 2, GE = 3, EQ = 4, NE = 5, IN = 6, NOT_IN = 7;
+
+    static final LoanDecisionRules NONE = new LoanDecisionRules("", new int[]{0}, new Action[0], new String[0],
+            new byte[0], new byte[0], new double[0], new long[0]);
+
+    private final String source;
+    private final int[] ruleStart;     // conditions of rule r: [ruleStart[r], ruleStart[r + 1])
+    private final Action[] actions;
+    private final String[] ruleText;
+    private final byte[] field;
+    private final byte[] op;
+    private final double[] value;
+    private final long[] mask;         // IN / NOT_IN: bit i set for EMPLOYMENTS.get(i)
+
+    private LoanDecisionRules(String source, int[] ruleStart, Action[] actions, String[] ruleText,
+                              byte[] field, byte[] op, double[] value, long[] mask) {
+        this.source = source;
+        this.ruleStart = ruleStart;
+        this.actions = actions;
+        this.ruleText = ruleText;
+        this.field = field;
+        this.op = op;
+        this.value = value;
+        this.mask = mask;
+    }
+
+    String source() {
+        return source;
+    }
+
+    int size() {
+        return actions.length;
+    }
+
+    Action action(int rule) {
+        return actions[rule];
+    }
+
+    String ruleText(int rule) {
+        return ruleText[rule];
+    }
+
+    /** Index of the first rule that holds for these features, or -1. */
+    int match(double[] f) {
+        rules:
+        for (int r = 0; r < actions.length; r++) {
+            for (int c = ruleStart[r], end = ruleStart[r + 1]; c < end; c++) {
+                double x = f[field[c]];
+                boolean holds = switch (op[c]) {
+                    case LT -> x < value[c];
+                    case LE -> x <= value[c];
+                    case GT -> x > value[c];
+                    case GE -> x >= value[c];
+                    case EQ -> x == value[c];
+                    case NE -> x != value[c];
+                    case IN -> x >= 0 && ((mask[c] >>> (int) x) & 1L) != 0;
+                    default -> x < 0 || ((mask[c] >>> (int) x) & 1L) == 0;
+                };
+                if (!holds) continue rules;
+            }
+            return r;
+        }
+        return -1;
+    }
+
+    /** Fills {@code out} (length {@link #FEATURES}) from an application. */
+    static void features(Loan loan, LoanType type, double[] out) {
+        double amount = loan.getAmount() != null ? loan.getAmount().doubleValue() : 0;
+        BigDecimal maxAmount = type.getMaxLoanAmount();
+        out[CIBIL] = loan.getCibilScore();
+        out[AMOUNT] = amount;
+        out[TENURE] = loan.getTenureYears();
+        out[AMOUNT_RATIO] = maxAmount != null && maxAmount.signum() > 0 ? amount / maxAmount.doubleValue() : 1;
+        out[TENURE_RATIO] = type.getMaxTenureYears() > 0 ? (double) loan.getTenureYears() / type.getMaxTenureYears() : 1;
+        out[INCOME] = INCOME_BANDS.indexOf(loan.getIncome());
+        out[EMPLOYMENT] = EMPLOYMENTS.indexOf(loan.getEmploymentInfo());
+    }
+
+    static LoanDecisionRules compile(String source) {
+        if (source == null || source.isBlank()) return NONE;
+
+        List<Integer> starts = new ArrayList<>();
+        List<Action> actions = new ArrayList<>();
+        List<String> texts = new ArrayList<>();
+        List<byte[]> conds = new ArrayList<>(); // {field, op}
+        List<Double> values = new ArrayList<>();
+        List<Long> masks = new ArrayList<>();
+
+        int lineNo = 0;
+        for (String raw : source.split("[;\\n]")) {
+            lineNo++;
+            String line = raw.trim();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+
+            int when = indexOfWord(line, "when");
+            if (when < 0) throw error(lineNo, "expected '<ACTION> when <conditions>'");
+            Action action;
+            try {
+                action = Action.valueOf(line.substring(0, when).trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw error(lineNo, "action must be APPROVE, REJECT or REVIEW");
+            }
+
+            starts.add(conds.size());
+            actions.add(action);
+            texts.add(line);
+            for (String cond : line.substring(when + 4).split("(?i)\\s+and\\s+")) {
+                parseCondition(cond.trim(), lineNo, conds, values, masks);
+            }
+        }
+        if (actions.isEmpty()) return NONE;
+        starts.add(conds.size());
+
+        int n = conds.size();
+        byte[] field = new byte[n], op = new byte[n];
+        double[] value = new double[n];
+        long[] mask = new long[n];
+        for (int i = 0; i < n; i++) {
+            field[i] = conds.get(i)[0];
+            op[i] = conds.get(i)[1];
+            value[i] = values.get(i);
+            mask[i] = masks.get(i);
+        }
+        return new LoanDecisionRules(source, starts.stream().mapToInt(Integer::intValue).toArray(),
+                actions.toArray(Action[]::new), texts.toArray(String[]::new), field, op, value, mask);
+    }
+
+    private static void parseCondition(String cond, int lineNo, List<byte[]> conds, List<Double> values, List<Long> masks) {
+        if (cond.isEmpty()) throw error(lineNo, "empty condition");
+
+        int sp = 0;
+        while (sp < cond.length() && Character.isLetter(cond.charAt(sp))) sp++;
+        String name = cond.substring(0, sp).toLowerCase(Locale.ROOT);
+        int f = List.of(FIELD_NAMES).indexOf(name);
+        if (f < 0) throw error(lineNo, "unknown field '" + cond.substring(0, sp) + "'");
+        String rest = cond.substring(sp).trim();
+
+        if (f == EMPLOYMENT) {
+            byte o;
+            String list;
+            if (rest.regionMatches(true, 0, "not in", 0, 6)) {
+                o = NOT_IN;
+                list = rest.substring(6).trim();
+            } else if (rest.regionMatches(true, 0, "in", 0, 2)) {
+                o = IN;
+                list = rest.substring(2).trim();
+            } else if (rest.startsWith("!=")) {
+                o = NOT_IN;
+                list = "[" + rest.substring(2).trim() + "]";
+            } else if (rest.startsWith("=")) {
+                o = IN;
+                list = "[" + rest.substring(1).trim() + "]";
+            } else {
+                throw error(lineNo, "employment supports =, !=, in [..] and not in [..]");
+            }
+            if (!list.startsWith("[") || !list.endsWith("]")) throw error(lineNo, "expected [..] after in");
+
+            long bits = 0;
+            for (String item : list.substring(1, list.length() - 1).split(",")) {
+                int idx = EMPLOYMENTS.indexOf(item.trim());
+                if (idx < 0) throw error(lineNo, "unknown employment '" + item.trim() + "'");
+                bits |= 1L << idx;
+            }
+            conds.add(new byte[]{(byte) f, o});
+            values.add(0d);
+            masks.add(bits);
+            return;
+        }
+
+        byte o;
+        int len;
+        if (rest.startsWith("<=")) { o = LE; len = 2; }
+        else if (rest.startsWith(">=")) { o = GE; len = 2; }
+        else if (rest.startsWith("!=")) { o = NE; len = 2; }
+        else if (rest.startsWith("<")) { o = LT; len = 1; }
+        else if (rest.startsWith(">")) { o = GT; len = 1; }
+        else if (rest.startsWith("=")) { o = EQ; len = rest.startsWith("==") ? 2 : 1; }
+        else throw error(lineNo, "expected a comparison after '" + name + "'");
+
+        double v;
+        try {
+            v = Double.parseDouble(rest.substring(len).trim().replace("_", ""));
+        } catch (NumberFormatException e) {
+            throw error(lineNo, "'" + rest.substring(len).trim() + "' is not a number");
+        }
+        conds.add(new byte[]{(byte) f, o});
+        values.add(v);
+        masks.add(0L);
+    }
+
+    private static int indexOfWord(String line, String word) {
+        String lower = line.toLowerCase(Locale.ROOT);
+        int i = lower.indexOf(" " + word + " ");
+        return i < 0 ? -1 : i + 1;
+    }
+
+    private static IllegalArgumentException error(int lineNo, String message) {
+        return new IllegalArgumentException("Rule " + lineNo + ": " + message);
+    }
+}
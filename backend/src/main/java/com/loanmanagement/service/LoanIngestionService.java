@@ -0,0 +1,317 @@
+package com.loanmanagement.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.loanmanagement.dto.BulkIngestionReportDto;
+import com.loanmanagement.dto.BulkLoanApplicationDto;
+import com.loanmanagement.dto.BulkLoanResultDto;
+import com.loanmanagement.model.DuplicateApplicationFlag;
+import com.loanmanagement.model.Loan;
+import com.loanmanagement.model.LoanType;
+import com.loanmanagement.model.User;
+import com.loanmanagement.repository.LoanRepository;
+import com.loanmanagement.repository.LoanTypeRepository;
+import com.loanmanagement.repository.UserRepository;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.*;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk loan applications from channel partners, one JSON application per line.
+ *
+ * The upload is read as a stream and cut into chunks. Each line is validated on
+ * its own against a snapshot of the loan types taken once per upload; each chunk
+ * then runs in one transaction: lock its customers, one grouped count for their
+ * per-type limits, one JDBC batch insert, one duplicate-identity screen. A bad
+ * line is reported and the rest of the upload carries on; a chunk the database
+ * rejects is split in halves and re-run, so only the rows that fail on their
+ * own are reported FAILED.
+ */
+@Service
+public class LoanIngestionService {
+
+    static final String RESULT_CREATED = "CREATED";
+    static final String RESULT_FAILED = "FAILED";
+
+    private static final String INSERT_LOAN = "INSERT INTO loans (customer_id, loan_type_id, applied_interest_rate, "
+            + "amount, purpose, income, employment_info, aadhaar, pan, cibil_score, tenure_years, loan_status, "
+            + "submitted_at, pending_emi_count, paid_emi_count, version) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0, 0, 0)";
+
+    private final LoanTypeRepository loanTypeRepository;
+    private final LoanRepository loanRepository;
+    private final UserRepository userRepository;
+    private final CustomerLoanService customerLoanService;
+    private final LoanDecisionEngine decisionEngine;
+    private final DuplicateApplicationDetector duplicateDetector;
+    private final OptimisticLockRetry concurrencyRetry;
+    private final JdbcTemplate jdbcTemplate;
+    private final Validator validator;
+    private final ObjectReader reader;
+
+    @Value("${ingest.chunk-size:500}")
+    private int chunkSize;
+
+    public LoanIngestionService(LoanTypeRepository loanTypeRepository, LoanRepository loanRepository,
+                                UserRepository userRepository, CustomerLoanService customerLoanService,
+                                LoanDecisionEngine decisionEngine, DuplicateApplicationDetector duplicateDetector,
+                                OptimisticLockRetry concurrencyRetry,
+                                JdbcTemplate jdbcTemplate, Validator validator, ObjectMapper objectMapper) {
+        this.loanTypeRepository = loanTypeRepository;
+        this.loanRepository = loanRepository;
+        this.userRepository = userRepository;
+        this.customerLoanService = customerLoanService;
+        this.decisionEngine = decisionEngine;
+        this.duplicateDetector = duplicateDetector;
+        this.concurrencyRetry = concurrencyRetry;
+        this.jdbcTemplate = jdbcTemplate;
+        this.validator = validator;
+        this.reader = objectMapper.readerFor(BulkLoanApplicationDto.class);
+    }
+
+    // a line that passed validation, waiting for its chunk
+    private record Row(int line, String reference, Long customerId, Loan loan) {}
+
+    private record Quota(Long customerId, Long loanTypeId) {}
+
+    // ✅ Read, validate and insert an NDJSON upload; every non-blank line gets a result
+    public BulkIngestionReportDto ingest(InputStream body) {
+        long start = System.nanoTime();
+        Map<Long, LoanType> loanTypes = loanTypeRepository.findAll().stream()
+                .collect(Collectors.toMap(LoanType::getLoanTypeId, Function.identity()));
+
+        List<BulkLoanResultDto> results = new ArrayList<>();
+        List<Row> chunk = new ArrayList<>(Math.max(1, chunkSize));
+        int received = 0, chunks = 0;
+
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            String text;
+            int lineNo = 0;
+            while ((text = in.readLine()) != null) {
+                lineNo++;
+                if (text.isBlank()) continue;
+                received++;
+
+                Object parsed = parse(lineNo, text, loanTypes);
+                if (parsed instanceof Row row) {
+                    chunk.add(row);
+                } else {
+                    results.add((BulkLoanResultDto) parsed);
+                }
+                if (chunk.size() >= Math.max(1, chunkSize)) {
+                    results.addAll(runChunk(chunk));
+                    chunks++;
+                    chunk.clear();
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Could not read the upload: " + e.getMessage(), e);
+        }
+        if (!chunk.isEmpty()) {
+            results.addAll(runChunk(chunk));
+            chunks++;
+        }
+
+        results.sort(Comparator.comparingInt(BulkLoanResultDto::getLine));
+        int created = (int) results.stream().filter(r -> RESULT_CREATED.equals(r.getResult())).count();
+        long durationMs = (System.nanoTime() - start) / 1_000_000;
+
+        System.out.println("[INGEST] " + received + " applications: " + created + " created, "
+                + (received - created) + " failed, " + chunks + " chunks in " + durationMs + " ms");
+        return BulkIngestionReportDto.builder()
+                .received(received)
+                .created(created)
+                .failed(received - created)
+                .chunks(chunks)
+                .durationMs(durationMs)
+                .rowsPerSecond(durationMs > 0 ? received * 1000.0 / durationMs : received)
+                .results(results)
+                .build();
+    }
+
+    // a Row ready for insertion, or the FAILED result explaining why not
+    private Object parse(int lineNo, String text, Map<Long, LoanType> loanTypes) {
+        BulkLoanApplicationDto dto;
+        try {
+            dto = reader.readValue(text);
+        } catch (JsonProcessingException e) {
+            return failed(lineNo, null, "Malformed JSON: " + e.getOriginalMessage());
+        } catch (IOException e) {
+            return failed(lineNo, null, "Malformed JSON: " + e.getMessage());
+        }
+
+        Set<ConstraintViolation<BulkLoanApplicationDto>> violations = validator.validate(dto);
+        if (!violations.isEmpty()) {
+            return failed(lineNo, dto.getReference(), violations.stream()
+                    .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining("; ")));
+        }
+
+        LoanType loanType = loanTypes.get(dto.getLoanTypeId());
+        if (loanType == null) return failed(lineNo, dto.getReference(), "Loan Type not found");
+        try {
+            return new Row(lineNo, dto.getReference(), dto.getCustomerId(), CustomerLoanService.newApplication(dto, loanType));
+        } catch (RuntimeException e) {
+            return failed(lineNo, dto.getReference(), e.getMessage());
+        }
+    }
+
+    private List<BulkLoanResultDto> runChunk(List<Row> chunk) {
+        List<Row> rows = List.copyOf(chunk);
+        try {
+            return concurrencyRetry.execute(() -> insertChunk(rows));
+        } catch (RuntimeException e) {
+            if (rows.size() == 1) {
+                Row row = rows.get(0);
+                System.out.println("[INGEST] Line " + row.line() + " FAILED: " + e.getMessage());
+                return List.of(failed(row.line(), row.reference(), "Insert failed: " + e.getMessage()));
+            }
+            // 🔍 the chunk rolled back as a whole: bisect it until the failing rows are isolated
+            System.out.println("[INGEST] Chunk at line " + rows.get(0).line() + " FAILED, re-running in halves: "
+                    + e.getMessage());
+            int half = rows.size() / 2;
+            List<BulkLoanResultDto> results = new ArrayList<>(runChunk(rows.subList(0, half)));
+            results.addAll(runChunk(rows.subList(half, rows.size())));
+            return results;
+        }
+    }
+
+    // 🔒 Same rule as applyLoan: customers' rows are locked while their active loans are counted and added to
+    private List<BulkLoanResultDto> insertChunk(List<Row> rows) {
+        Set<Long> customerIds = new TreeSet<>();
+        for (Row row : rows) customerIds.add(row.customerId());
+
+        Map<Long, User> customers = new HashMap<>();
+        for (User user : userRepository.findAllByIdForUpdate(customerIds)) customers.put(user.getUserId(), user);
+
+        Map<Quota, Long> active = new HashMap<>();
+        for (LoanRepository.CustomerTypeCount c : loanRepository.countByCustomersGroupedByLoanType(
+                customerIds, CustomerLoanService.ACTIVE_STATUSES)) {
+            active.put(new Quota(c.getCustomerId(), c.getLoanTypeId()), c.getCount());
+        }
+
+        List<BulkLoanResultDto> results = new ArrayList<>(rows.size());
+        List<Row> accepted = new ArrayList<>(rows.size());
+        for (Row row : rows) {
+            User customer = customers.get(row.customerId());
+            if (customer == null || customer.getRole() != User.Role.CUSTOMER) {
+                results.add(failed(row.line(), row.reference(), "Customer not found: " + row.customerId()));
+                continue;
+            }
+            LoanType type = row.loan().getLoanType();
+            Quota quota = new Quota(customer.getUserId(), type.getLoanTypeId());
+            long held = active.getOrDefault(quota, 0L);
+            if (held >= type.getMaxLoansPerCustomerPerLoanType()) {
+                results.add(failed(row.line(), row.reference(), "Customer already has the maximum of "
+                        + type.getMaxLoansPerCustomerPerLoanType() + " active " + type.getName() + " loans"));
+                continue;
+            }
+            active.put(quota, held + 1);
+            row.loan().setCustomer(customer);
+            accepted.add(row);
+        }
+        if (accepted.isEmpty()) return results;
+
+        long[] ids = insertLoans(accepted);
+        List<Loan> inserted = new ArrayList<>(accepted.size());
+        for (int i = 0; i < accepted.size(); i++) {
+            Loan loan = accepted.get(i).loan();
+            loan.setId(ids[i]);
+            inserted.add(loan);
+        }
+        Map<Long, List<DuplicateApplicationFlag>> flagged = duplicateDetector.screen(inserted);
+
+        // rules are scored in memory; only flagged or decided applications are loaded again
+        Map<Long, LoanDecisionEngine.LoanDecision> decisions = new HashMap<>();
+        for (Loan loan : inserted) {
+            if (flagged.containsKey(loan.getId())) continue;
+            LoanDecisionEngine.LoanDecision decision = decisionEngine.decide(loan, loan.getLoanType());
+            if (decision != null) decisions.put(loan.getId(), decision);
+        }
+        Map<Long, Loan.LoanStatus> statuses = new HashMap<>();
+        Set<Long> followUp = new HashSet<>(decisions.keySet());
+        followUp.addAll(flagged.keySet());
+        if (!followUp.isEmpty()) {
+            for (Loan loan : loanRepository.findAllById(followUp)) {
+                if (flagged.containsKey(loan.getId())) {
+                    customerLoanService.holdForReview(loan, flagged.get(loan.getId()));
+                } else {
+                    customerLoanService.applyDecision(loan, decisions.get(loan.getId()));
+                }
+                statuses.put(loan.getId(), loan.getLoanStatus());
+            }
+        }
+
+        for (int i = 0; i < accepted.size(); i++) {
+            Row row = accepted.get(i);
+            results.add(BulkLoanResultDto.builder()
+                    .line(row.line())
+                    .reference(row.reference())
+                    .result(RESULT_CREATED)
+                    .loanId(ids[i])
+                    .loanStatus(statuses.getOrDefault(ids[i], Loan.LoanStatus.SUBMITTED).name())
+                    .build());
+        }
+        return results;
+    }
+
+    // ⚡ One JDBC batch for the chunk (IDENTITY ids keep Hibernate from batching inserts)
+    private long[] insertLoans(List<Row> rows) {
+        return jdbcTemplate.execute((ConnectionCallback<long[]>) con -> {
+            try (PreparedStatement ps = con.prepareStatement(INSERT_LOAN, Statement.RETURN_GENERATED_KEYS)) {
+                for (Row row : rows) {
+                    Loan loan = row.loan();
+                    ps.setLong(1, loan.getCustomer().getUserId());
+                    ps.setLong(2, loan.getLoanType().getLoanTypeId());
+                    ps.setDouble(3, loan.getAppliedInterestRate());
+                    ps.setBigDecimal(4, loan.getAmount());
+                    ps.setString(5, loan.getPurpose());
+                    ps.setString(6, loan.getIncome());
+                    ps.setString(7, loan.getEmploymentInfo());
+                    ps.setString(8, loan.getAadhaar());
+                    ps.setString(9, loan.getPan());
+                    ps.setInt(10, loan.getCibilScore());
+                    ps.setInt(11, loan.getTenureYears());
+                    ps.setString(12, loan.getLoanStatus().name());
+                    ps.setTimestamp(13, Timestamp.valueOf(loan.getSubmittedAt()));
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+
+                long[] ids = new long[rows.size()];
+                int n = 0;
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    while (keys.next() && n < ids.length) ids[n++] = keys.getLong(1);
+                }
+                if (n != ids.length) {
+                    throw new SQLException("Expected " + ids.length + " generated ids, got " + n);
+                }
+                return ids;
+            }
+        });
+    }
+
+    private static BulkLoanResultDto failed(int line, String reference, String error) {
+        return BulkLoanResultDto.builder()
+                .line(line)
+                .reference(reference)
+                .result(RESULT_FAILED)
+                .error(error)
+                .build();
+    }
+}
@@ -0,0 +1,320 @@
+package com.loanmanagement.service;
+
+import com.loanmanagement.dto.PrepaymentQuoteDto;
+import com.loanmanagement.dto.PrepaymentRequest;
+import com.loanmanagement.dto.PrepaymentResultDto;
+import com.loanmanagement.model.EmiPayment;
+import com.loanmanagement.model.Loan;
+import com.loanmanagement.model.LoanPrepayment;
+import com.loanmanagement.model.LoanPrepayment.RecastMode;
+import com.loanmanagement.model.User;
+import com.loanmanagement.repository.EmiPaymentRepository;
+import com.loanmanagement.repository.LoanPrepaymentRepository;
+import com.loanmanagement.repository.LoanRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static com.loanmanagement.service.AmortizationMath.*;
+
+/**
+ * Foreclosure quotes, part-prepayments and foreclosures.
+ *
+ * Quotes are computed from the loan's repayment snapshot alone (count, total
+ * and last amount of the unpaid installments), so they need no schedule load. Executing a prepayment rewrites only the unpaid installments:
+ * a part-prepayment recasts them in place (lower EMI, or fewer installments with
+ * the surplus rows deleted in one statement), a foreclosure settles overdue ones
+ * and replaces the rest with the payoff.
+ */
+@Service
+@RequiredArgsConstructor
+public class LoanPrepaymentService {
+
+    private final LoanRepository loanRepository;
+    private final EmiPaymentRepository emiPaymentRepository;
+    private final LoanPrepaymentRepository prepaymentRepository;
+    private final CustomerLoanService customerLoanService;
+    private final OptimisticLockRetry concurrencyRetry;
+    private final MailService mailService;
+
+    // ✅ Foreclosure payoff, plus the effect of an optional part-prepayment
+    public PrepaymentQuoteDto getQuote(Long loanId, BigDecimal prepaymentAmount, User customer) {
+        Loan loan = loanRepository.findById(loanId)
+                .orElseThrow(() -> new RuntimeException("Loan not found"));
+        checkPrepayable(loan, customer);
+        return quote(loan, prepaymentAmount, LocalDate.now());
+    }
+
+    PrepaymentQuoteDto quote(Loan loan, BigDecimal prepaymentAmount, LocalDate asOf) {
+        int pending = loan.getPendingEmiCount();
+        if (pending == 0 || loan.getNextDueDate() == null || loan.getOutstandingAmount() == null) {
+            throw new RuntimeException("No pending EMIs left on this loan");
+        }
+
+        // unpaid installments are consecutive months from the next due date on, all of one amount
+        // except the last (smaller after a REDUCE_TENURE recast)
+        double outstandingValue = loan.getOutstandingAmount().doubleValue();
+        double last = loan.getLastEmiAmount() != null ? loan.getLastEmiAmount().doubleValue() : outstandingValue / pending;
+        double emi = pending == 1 ? last : (outstandingValue - last) / (pending - 1);
+        int overdue = 0;
+        while (overdue < pending && !loan.getNextDueDate().plusMonths(overdue).isAfter(asOf)) {
+            overdue++;
+        }
+        int future = pending - overdue;
+
+        double r = monthlyRate(loan.getAppliedInterestRate());
+        double principal = future == 0 ? 0 : presentValue(emi, r, future - 1) + last / growth(r, future);
+        double accrual = future == 0 ? 1 : growth(r, elapsedPeriod(loan.getNextDueDate().plusMonths(overdue), asOf));
+        BigDecimal overdueAmount = money(future == 0 ? emi * (overdue - 1) + last : emi * overdue);
+        BigDecimal outstanding = loan.getOutstandingAmount().setScale(2, RoundingMode.HALF_UP);
+        BigDecimal payoff = overdueAmount.add(money(principal * accrual));
+
+        PrepaymentQuoteDto.PrepaymentQuoteDtoBuilder quote = PrepaymentQuoteDto.builder()
+                .loanId(loan.getId())
+                .asOf(asOf)
+                .currentEmi(money(emi))
+                .pendingInstallments(pending)
+                .overdueInstallments(overdue)
+                .overdueAmount(overdueAmount)
+                .outstandingAmount(outstanding)
+                .principalOutstanding(money(principal))
+                .accruedInterest(money(principal * (accrual - 1)))
+                .payoffAmount(payoff)
+                .foreclosureSavings(outstanding.subtract(payoff).max(BigDecimal.ZERO));
+
+        if (prepaymentAmount == null || overdue > 0) {
+            return quote.build();
+        }
+
+        quote.prepaymentAmount(prepaymentAmount);
+        if (prepaymentAmount.compareTo(payoff) >= 0) {
+            // the slider reached the payoff: this prepayment would close the loan
+            BigDecimal savings = outstanding.subtract(payoff).max(BigDecimal.ZERO);
+            return quote.reducedEmi(BigDecimal.ZERO).reducedEmiSavings(savings)
+                    .reducedTenureInstallments(0).reducedTenureSavings(savings)
+                    .build();
+        }
+
+        double remaining = principal - prepaymentAmount.doubleValue() / accrual;
+        List<BigDecimal> reducedEmi = recastAmounts(RecastMode.REDUCE_EMI, remaining, r, future, money(emi));
+        List<BigDecimal> reducedTenure = recastAmounts(RecastMode.REDUCE_TENURE, remaining, r, future, money(emi));
+
+        return quote
+                .reducedEmi(reducedEmi.get(0))
+                .reducedEmiSavings(savings(outstanding, prepaymentAmount, reducedEmi))
+                .reducedTenureInstallments(reducedTenure.size())
+                .reducedTenureSavings(savings(outstanding, prepaymentAmount, reducedTenure))
+                .build();
+    }
+
+    // ✅ Part-prepayment (recast) or foreclosure when the amount covers the payoff
+    public PrepaymentResultDto prepay(Long loanId, PrepaymentRequest request, User customer) {
+        Prepayment outcome = concurrencyRetry.execute(() -> applyPrepayment(loanId, request, customer));
+
+        // 🔔 closure mail only once the payoff has committed
+        if (outcome.result().isLoanClosed()) {
+            try {
+                mailService.sendLoanClosedText(outcome.loan(), outcome.totalRepayable());
+            } catch (Exception ignore) {
+            }
+        }
+        return outcome.result();
+    }
+
+    private Prepayment applyPrepayment(Long loanId, PrepaymentRequest request, User customer) {
+        Loan loan = loanRepository.findByIdForUpdate(loanId)
+                .orElseThrow(() -> new RuntimeException("Loan not found"));
+        checkPrepayable(loan, customer);
+
+        List<EmiPayment> unpaid = emiPaymentRepository
+                .findByLoanIdAndStatusNotOrderByDueDateAsc(loanId, EmiPayment.EmiStatus.PAID);
+        if (unpaid.isEmpty()) {
+            throw new RuntimeException("No pending EMIs left on this loan");
+        }
+
+        // same position as the quote, but from the actual rows
+        LocalDate today = LocalDate.now();
+        int overdue = 0;
+        BigDecimal overdueAmount = BigDecimal.ZERO;
+        while (overdue < unpaid.size() && !unpaid.get(overdue).getDueDate().isAfter(today)) {
+            overdueAmount = overdueAmount.add(unpaid.get(overdue).getAmount());
+            overdue++;
+        }
+        List<EmiPayment> future = unpaid.subList(overdue, unpaid.size());
+
+        double r = monthlyRate(loan.getAppliedInterestRate());
+        double principal = 0;
+        double discount = 1;
+        for (EmiPayment emi : future) {
+            discount /= 1 + r;
+            principal += emi.getAmount().doubleValue() * discount;
+        }
+        double accrual = future.isEmpty() ? 1 : growth(r, elapsedPeriod(future.get(0).getDueDate(), today));
+        BigDecimal payoff = overdueAmount.add(money(principal * accrual));
+
+        RecastMode mode = request.getMode() == null ? RecastMode.REDUCE_EMI : request.getMode();
+        String ref = UUID.randomUUID().toString();
+
+        if (request.getAmount().compareTo(payoff) >= 0) {
+            return foreclose(loan, unpaid, overdue, payoff.subtract(overdueAmount), principal, today, ref);
+        }
+        if (mode == RecastMode.FORECLOSURE) {
+            throw new RuntimeException("Amount is below the foreclosure payoff of " + payoff);
+        }
+        if (overdue > 0) {
+            throw new RuntimeException("Clear overdue EMIs before prepaying");
+        }
+
+        double remaining = principal - request.getAmount().doubleValue() / accrual;
+        List<BigDecimal> amounts = recastAmounts(mode, remaining, r, future.size(), future.get(0).getAmount());
+
+        // rewrite the surviving installments in place (one JDBC batch), drop the rest in one DELETE
+        BigDecimal outstanding = amounts.stream().reduce(BigDecimal.ZERO, BigDecimal::add);
+        BigDecimal after = outstanding;
+        List<EmiPayment> kept = new ArrayList<>(future.subList(0, amounts.size()));
+        for (int i = 0; i < kept.size(); i++) {
+            after = after.subtract(amounts.get(i));
+            kept.get(i).setAmount(amounts.get(i));
+            kept.get(i).setRemainingBalance(after);
+        }
+        emiPaymentRepository.saveAll(kept);
+        if (kept.size() < future.size()) {
+            emiPaymentRepository.deleteAllInBatch(new ArrayList<>(future.subList(kept.size(), future.size())));
+        }
+
+        prepaymentRepository.save(LoanPrepayment.builder()
+                .loan(loan)
+                .amount(request.getAmount())
+                .mode(mode)
+                .principalBefore(money(principal))
+                .principalAfter(money(remaining))
+                .paymentDate(today)
+                .transactionRef(ref)
+                .build());
+
+        // nothing was paid off the schedule itself; only what is left of it changed
+        loan.setPendingEmiCount(kept.size());
+        loan.setOutstandingAmount(outstanding);
+        loan.setLastEmiAmount(amounts.get(amounts.size() - 1));
+
+        return new Prepayment(loan, null, PrepaymentResultDto.builder()
+                .loanId(loan.getId())
+                .mode(mode)
+                .amountPaid(request.getAmount())
+                .principalBefore(money(principal))
+                .principalAfter(money(remaining))
+                .newEmi(amounts.get(0))
+                .remainingInstallments(kept.size())
+                .outstandingAmount(outstanding)
+                .loanClosed(false)
+                .transactionRef(ref)
+                .build());
+    }
+
+    // overdue installments are settled as scheduled; the payoff replaces everything after them
+    private Prepayment foreclose(Loan loan, List<EmiPayment> unpaid, int overdue, BigDecimal futurePayoff,
+                                 double principal, LocalDate today, String ref) {
+        List<EmiPayment> settled = new ArrayList<>(unpaid.subList(0, overdue));
+        for (EmiPayment emi : settled) {
+            emi.setStatus(EmiPayment.EmiStatus.PAID);
+            emi.setPaymentDate(today);
+            emi.setTransactionRef(ref + "-" + emi.getId());
+        }
+        emiPaymentRepository.saveAll(settled);
+
+        List<EmiPayment> future = new ArrayList<>(unpaid.subList(overdue, unpaid.size()));
+        if (!future.isEmpty()) {
+            emiPaymentRepository.deleteAllInBatch(future);
+            prepaymentRepository.save(LoanPrepayment.builder()
+                    .loan(loan)
+                    .amount(futurePayoff)
+                    .mode(RecastMode.FORECLOSURE)
+                    .principalBefore(money(principal))
+                    .principalAfter(BigDecimal.ZERO.setScale(2))
+                    .paymentDate(today)
+                    .transactionRef(ref)
+                    .build());
+        }
+
+        loan.setPaidEmiCount(loan.getPaidEmiCount() + settled.size());
+        loan.setPendingEmiCount(0);
+        loan.setOutstandingAmount(BigDecimal.ZERO.setScale(2));
+        loan.setLastEmiAmount(null);
+        loan.setNextDueDate(null);
+        BigDecimal totalRepayable = customerLoanService.closeIfFullyPaid(loan);
+
+        BigDecimal amountPaid = futurePayoff;
+        for (EmiPayment emi : settled) {
+            amountPaid = amountPaid.add(emi.getAmount());
+        }
+
+        return new Prepayment(loan, totalRepayable, PrepaymentResultDto.builder()
+                .loanId(loan.getId())
+                .mode(RecastMode.FORECLOSURE)
+                .amountPaid(amountPaid)
+                .principalBefore(money(principal))
+                .principalAfter(BigDecimal.ZERO.setScale(2))
+                .remainingInstallments(0)
+                .outstandingAmount(BigDecimal.ZERO.setScale(2))
+                .loanClosed(true)
+                .transactionRef(ref)
+                .build());
+    }
+
+    // installments repaying `principal` after a recast; never more of them than `slots`
+    private static List<BigDecimal> recastAmounts(RecastMode mode, double principal, double r, int slots, BigDecimal currentEmi) {
+        List<BigDecimal> amounts = new ArrayList<>();
+        if (mode == RecastMode.REDUCE_EMI) {
+            BigDecimal emi = money(installment(principal, r, slots));
+            for (int i = 0; i < slots; i++) amounts.add(emi);
+            return amounts;
+        }
+
+        double emi = currentEmi.doubleValue();
+        int n = Math.min(Math.max(tenure(principal, r, emi), 1), slots);
+        // whatever the full installments leave over, grown to the last due date
+        BigDecimal last = money((principal - presentValue(emi, r, n - 1)) * growth(r, n));
+        for (int i = 0; i < n - 1; i++) amounts.add(currentEmi);
+        if (last.signum() > 0 || amounts.isEmpty()) {
+            amounts.add(last.max(new BigDecimal("0.01")));
+        }
+        return amounts;
+    }
+
+    private static BigDecimal savings(BigDecimal outstanding, BigDecimal prepayment, List<BigDecimal> recast) {
+        BigDecimal total = prepayment;
+        for (BigDecimal amount : recast) total = total.add(amount);
+        return outstanding.subtract(total).max(BigDecimal.ZERO);
+    }
+
+    // fraction of the current period (previous due date -> next due date) elapsed on `asOf`
+    private static double elapsedPeriod(LocalDate nextDue, LocalDate asOf) {
+        LocalDate boundary = nextDue.minusMonths(1);
+        long elapsed = ChronoUnit.DAYS.between(boundary, asOf);
+        if (elapsed <= 0) return 0;
+        return Math.min(1.0, (double) elapsed / ChronoUnit.DAYS.between(boundary, nextDue));
+    }
+
+    private static void checkPrepayable(Loan loan, User customer) {
+        if (!loan.getCustomer().getUserId().equals(customer.getUserId())) {
+            throw new RuntimeException("Unauthorized access to loan");
+        }
+        if (loan.getLoanStatus() != Loan.LoanStatus.APPROVED) {
+            throw new RuntimeException("Only active loans can be prepaid");
+        }
+    }
+
+    private static BigDecimal money(double value) {
+        return BigDecimal.valueOf(value).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    private record Prepayment(Loan loan, BigDecimal totalRepayable, PrepaymentResultDto result) {
+    }
+}
@@ -0,0 +1,31 @@
+package com.loanmanagement.service;
+
+import com.loanmanagement.model.EmiPayment;
+import com.loanmanagement.repository.LoanRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Fills Loan's repayment snapshot (pending/paid counts, outstanding amount,
+ * next due date) for loans whose EMI schedule was generated before those
+ * columns existed. Only rows still at their zero defaults are touched, so
+ * this is a no-op after the first start.
+ */
+@Component
+@RequiredArgsConstructor
+public class LoanSnapshotBackfill implements ApplicationRunner {
+
+    private final LoanRepository loanRepository;
+
+    @Override
+    @Transactional
+    public void run(ApplicationArguments args) {
+        int updated = loanRepository.backfillRepaymentSnapshot(EmiPayment.EmiStatus.PAID);
+        if (updated > 0) {
+            System.out.println("[LOAN] Backfilled repayment snapshot for " + updated + " loans");
+        }
+    }
+}
@@ -0,0 +1,303 @@
+package com.loanmanagement.service;
+
+import com.loanmanagement.dto.LoanStatementMail;
+import com.loanmanagement.dto.StatementPartitionDto;
+import com.loanmanagement.dto.StatementRunReportDto;
+import com.loanmanagement.model.EmiPayment;
+import com.loanmanagement.model.Loan;
+import com.loanmanagement.model.StatementRunPartition;
+import com.loanmanagement.repository.LoanRepository;
+import com.loanmanagement.repository.StatementRunPartitionRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Monthly statements for every active loan, as a background job.
+ *
+ * Active loans are split into id-range partitions worked on in parallel. A
+ * partition costs one aggregate query (EMIs and penalties per loan), then its
+ * statements are rendered and handed to MailService as a single pooled batch.
+ * Every partition that went out is recorded, and a run only covers the id
+ * ranges of its month not recorded yet: posting the same month again mails
+ * nobody twice and picks up the partitions that failed. Runs go one at a time;
+ * their progress and partition timings can be read while they work.
+ */
+@Service
+@RequiredArgsConstructor
+public class LoanStatementService {
+
+    private static final int KEEP_FINISHED = 20;
+
+    private final LoanRepository loanRepository;
+    private final StatementRunPartitionRepository partitionRepository;
+    private final MailService mailService;
+
+    // width of one partition in loan ids (not a loan count: ids of closed/rejected loans leave gaps)
+    @Value("${statement.partition-size:500}")
+    private int partitionSize;
+
+    @Value("${statement.workers:4}")
+    private int workers;
+
+    private final AtomicLong jobIds = new AtomicLong();
+    private final Map<Long, Job> jobs = new LinkedHashMap<>(); // guarded by this
+    private final ExecutorService runner = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "statement-run");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // ✅ Queue the statements of the given month; one run at a time
+    public synchronized StatementRunReportDto start(YearMonth period) {
+        if (jobs.values().stream().anyMatch(j -> !j.isFinished())) {
+            throw new RuntimeException("A statement run is already in progress");
+        }
+        Job job = new Job(jobIds.incrementAndGet(), period);
+        jobs.put(job.id, job);
+        trimFinished();
+        runner.submit(() -> run(job));
+        System.out.println("[STATEMENT] Job " + job.id + " queued for " + period);
+        return job.snapshot();
+    }
+
+    // ✅ Recent runs, newest first
+    public synchronized List<StatementRunReportDto> getJobs() {
+        List<StatementRunReportDto> recent = new ArrayList<>(jobs.size());
+        jobs.values().forEach(j -> recent.add(j.snapshot()));
+        Collections.reverse(recent);
+        return recent;
+    }
+
+    public synchronized StatementRunReportDto getJob(long jobId) {
+        Job job = jobs.get(jobId);
+        if (job == null) throw new RuntimeException("Statement run not found");
+        return job.snapshot();
+    }
+
+    void run(Job job) {
+        job.state = "RUNNING";
+        job.startedNanos = System.nanoTime();
+        try {
+            List<StatementRunPartition> sent = partitionRepository.findByPeriodOrderByFromIdAsc(job.period.toString());
+            job.previouslySent = sent.size();
+            List<long[]> partitions = partitions(sent);
+            int threads = Math.max(1, Math.min(workers, partitions.size()));
+            job.workers = threads;
+            job.partitions = partitions.size();
+
+            if (!partitions.isEmpty()) {
+                ExecutorService pool = newPool(threads);
+                try {
+                    List<Future<?>> results = new ArrayList<>(partitions.size());
+                    for (long[] range : partitions) {
+                        results.add(pool.submit(() -> job.timings.add(attempt(job.period, range))));
+                    }
+                    for (Future<?> result : results) {
+                        result.get();
+                    }
+                } finally {
+                    pool.shutdownNow();
+                }
+            }
+            job.state = "COMPLETED";
+            StatementRunReportDto report = job.snapshot();
+            System.out.println("[STATEMENT] " + job.period + ": " + report.getLoans() + " loans, "
+                    + report.getMailsSent() + " mailed, " + report.getPartitions() + " partitions on "
+                    + report.getWorkers() + " workers in " + report.getDurationMs() + " ms ("
+                    + report.getFailedPartitions() + " failed, " + report.getPreviouslySentPartitions()
+                    + " already sent)");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            job.state = "FAILED";
+            job.error = "Interrupted during statement run";
+        } catch (ExecutionException | RuntimeException e) {
+            job.state = "FAILED";
+            job.error = e.getMessage();
+            System.out.println("[STATEMENT] Job " + job.id + " FAILED: " + e.getMessage());
+        } finally {
+            job.finishedNanos = System.nanoTime();
+            job.finishedAt = LocalDateTime.now();
+        }
+    }
+
+    StatementPartitionDto runPartition(YearMonth period, long fromId, long toId) {
+        long t0 = System.nanoTime();
+        List<LoanRepository.StatementRow> rows = loanRepository.findStatementRows(
+                Loan.LoanStatus.APPROVED, fromId, toId, EmiPayment.EmiStatus.PAID,
+                period.atDay(1), period.atEndOfMonth());
+        long t1 = System.nanoTime();
+
+        List<MailService.HtmlMail> mails = new ArrayList<>(rows.size());
+        int skipped = 0;
+        for (LoanRepository.StatementRow row : rows) {
+            if (row.getEmail() == null || row.getEmail().isBlank()) {
+                skipped++;
+                continue;
+            }
+            mails.add(mailService.renderStatement(LoanStatementMail.of(row, period)));
+        }
+        long t2 = System.nanoTime();
+
+        int sent = mails.isEmpty() ? 0 : mailService.sendHtmlBatch(mails);
+        long t3 = System.nanoTime();
+        if (sent == 0 && !mails.isEmpty()) {
+            // nothing went out (mail server down): leave the range unrecorded so the next run retries it
+            throw new RuntimeException("None of the " + mails.size() + " statements could be sent");
+        }
+
+        partitionRepository.save(StatementRunPartition.builder()
+                .period(period.toString())
+                .fromId(fromId)
+                .toId(toId)
+                .loans(rows.size())
+                .mailsSent(sent)
+                .completedAt(LocalDateTime.now())
+                .build());
+
+        return StatementPartitionDto.builder()
+                .fromId(fromId)
+                .toId(toId)
+                .loans(rows.size())
+                .mailsSent(sent)
+                .skipped(skipped)
+                .queryMs((t1 - t0) / 1_000_000)
+                .renderMs((t2 - t1) / 1_000_000)
+                .sendMs((t3 - t2) / 1_000_000)
+                .totalMs((t3 - t0) / 1_000_000)
+                .build();
+    }
+
+    private StatementPartitionDto attempt(YearMonth period, long[] range) {
+        try {
+            return runPartition(period, range[0], range[1]);
+        } catch (RuntimeException e) {
+            System.out.println("[STATEMENT] Partition " + range[0] + "-" + range[1] + " FAILED: " + e.getMessage());
+            return StatementPartitionDto.builder()
+                    .fromId(range[0])
+                    .toId(range[1])
+                    .error(e.getMessage())
+                    .build();
+        }
+    }
+
+    // [from, to] id ranges covering every active loan outside the ranges already sent
+    private List<long[]> partitions(List<StatementRunPartition> sent) {
+        LoanRepository.IdRange range = loanRepository.findIdRangeByLoanStatus(Loan.LoanStatus.APPROVED);
+        List<long[]> partitions = new ArrayList<>();
+        if (range == null || range.getMinId() == null) return partitions;
+
+        List<long[]> open = new ArrayList<>();
+        long cursor = range.getMinId();
+        for (StatementRunPartition done : sent) {
+            if (cursor > range.getMaxId()) break;
+            if (done.getToId() < cursor) continue;
+            if (done.getFromId() > cursor) {
+                open.add(new long[]{cursor, Math.min(range.getMaxId(), done.getFromId() - 1)});
+            }
+            cursor = Math.max(cursor, done.getToId() + 1);
+        }
+        if (cursor <= range.getMaxId()) open.add(new long[]{cursor, range.getMaxId()});
+
+        long width = Math.max(1, partitionSize);
+        for (long[] gap : open) {
+            for (long from = gap[0]; from <= gap[1]; from += width) {
+                partitions.add(new long[]{from, Math.min(gap[1], from + width - 1)});
+            }
+        }
+        return partitions;
+    }
+
+    private void trimFinished() {
+        int excess = jobs.size() - KEEP_FINISHED;
+        Iterator<Job> oldestFirst = jobs.values().iterator();
+        while (excess > 0 && oldestFirst.hasNext()) {
+            if (oldestFirst.next().isFinished()) {
+                oldestFirst.remove();
+                excess--;
+            }
+        }
+    }
+
+    private static ExecutorService newPool(int threads) {
+        AtomicInteger threadNo = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "statement-" + threadNo.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        runner.shutdownNow();
+    }
+
+    // progress is written by the runner and its partition workers, and read by request threads
+    static final class Job {
+        final long id;
+        final YearMonth period;
+        final LocalDateTime queuedAt = LocalDateTime.now();
+        final List<StatementPartitionDto> timings = new CopyOnWriteArrayList<>();
+        volatile String state = "QUEUED";
+        volatile int workers;
+        volatile int partitions;
+        volatile int previouslySent;
+        volatile long startedNanos;
+        volatile long finishedNanos;
+        volatile LocalDateTime finishedAt;
+        volatile String error;
+
+        Job(long id, YearMonth period) {
+            this.id = id;
+            this.period = period;
+        }
+
+        boolean isFinished() {
+            return finishedAt != null;
+        }
+
+        StatementRunReportDto snapshot() {
+            List<StatementPartitionDto> done = new ArrayList<>(timings);
+            done.sort(Comparator.comparingLong(StatementPartitionDto::getFromId));
+            long loans = 0, sent = 0, skipped = 0;
+            int failed = 0;
+            for (StatementPartitionDto p : done) {
+                loans += p.getLoans();
+                sent += p.getMailsSent();
+                skipped += p.getSkipped();
+                if (p.getError() != null) failed++;
+            }
+            long durationMs = startedNanos == 0 ? 0
+                    : ((finishedAt != null ? finishedNanos : System.nanoTime()) - startedNanos) / 1_000_000;
+
+            return StatementRunReportDto.builder()
+                    .jobId(id)
+                    .period(period.toString())
+                    .state(state)
+                    .workers(workers)
+                    .partitions(partitions)
+                    .partitionsDone(done.size())
+                    .failedPartitions(failed)
+                    .previouslySentPartitions(previouslySent)
+                    .loans(loans)
+                    .mailsSent(sent)
+                    .skipped(skipped)
+                    .durationMs(durationMs)
+                    .loansPerSecond(durationMs > 0 ? loans * 1000.0 / durationMs : loans)
+                    .queuedAt(queuedAt)
+                    .finishedAt(finishedAt)
+                    .error(error)
+                    .partitionTimings(done)
+                    .build();
+        }
+    }
+}
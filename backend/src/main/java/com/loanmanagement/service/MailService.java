@@ -1,21 +1,34 @@
 package com.loanmanagement.service;
 
-import com.loanmanagement.model.EmiPayment;
+import com.loanmanagement.config.AppMetrics;
+import com.loanmanagement.config.FlightEvents;
+import com.loanmanagement.dto.EmiBatchPaidMail;
+import com.loanmanagement.dto.EmiPaidMail;
+import com.loanmanagement.dto.LoanClosedMail;
+import com.loanmanagement.dto.LoanStatementMail;
 import com.loanmanagement.model.Loan;
-import com.loanmanagement.model.User;
-import com.loanmanagement.repository.EmiPaymentRepository;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ByteArrayResource;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.internet.InternetAddress;
 import jakarta.mail.internet.MimeMessage;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.nio.charset.StandardCharsets;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -24,7 +37,8 @@ import java.util.regex.Pattern;
 public class MailService {
 
     private final JavaMailSender mailSender;
-    private final EmiPaymentRepository emiPaymentRepository; // ✅ to compute X/N and totals
+    private final SmtpTransportPool transportPool;           // ✅ kept-open connections for bulk runs
+    private final AppMetrics metrics;
 
     // Set this in application.properties, e.g. SmartLendOfficial <smartlendlms1@gmail.com>
     @Value("${mail.from:smartlendlms1@gmail.com}")
@@ -42,261 +56,454 @@ public class MailService {
     @Value("${brand.email:smartlendlms1@gmail.com}")
     private String brandEmail;
 
+    // per-recipient digest: mails to the same address within the window go out as one (0 = off)
+    @Value("${mail.digest.window-ms:0}")
+    private long digestWindowMs;
+
+    @Value("${mail.digest.tick-ms:1000}")
+    private long digestTickMs;
+
+    @Value("${mail.digest.max-events:20}")
+    private int digestMaxEvents;
+
     private static final DateTimeFormatter D_ONLY = DateTimeFormatter.ofPattern("dd MMM yyyy");
     private static final DateTimeFormatter D_LONG = DateTimeFormatter.ofPattern("dd MMMM yyyy");
+    private static final DateTimeFormatter D_PERIOD = DateTimeFormatter.ofPattern("MMMM yyyy");
+
+
+    private static final Pattern FROM_PATTERN = Pattern.compile("^\\s*(.*?)\\s*<\\s*(.+@.+)\\s*>\\s*$");
+
+    // per-thread render buffers, reused across mails (dropped if one huge mail inflated them)
+    private static final int MAX_RETAINED_BUFFER = 64 * 1024;
+    private static final ThreadLocal<StringBuilder> BODY_BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(4096));
+    private static final ThreadLocal<StringBuilder> PAGE_BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(8192));
+
+    // mails are rendered and sent here, never on the request thread; a full queue pushes back on the caller
+    private Executor dispatcher = newDispatcher();
+
+    // compiled once at startup
+    private InternetAddress sender;
+    private MailTemplate shellTemplate;
+    private MailTemplate emiPaidTemplate;
+    private MailTemplate emiBatchPaidTemplate;
+    private MailTemplate emiBatchRowTemplate;
+    private MailTemplate loanClosedTemplate;
+    private MailTemplate statementTemplate;
+    private MailTemplate digestTemplate;
+    private MailTemplate digestSectionTemplate;
+
+    private NotificationCoalescer<Notice> digest; // null when digest mode is off
+
+    /** One rendered notification body waiting in a recipient's digest. */
+    record Notice(String title, String subject, String body) {
+    }
+
+    @PostConstruct
+    void init() throws Exception {
+        sender = parseFrom(from);
+        shellTemplate = MailTemplate.load("mail/shell.html").bind(Map.of("brandName", brandName));
+        emiPaidTemplate = MailTemplate.load("mail/emi-paid.html");
+        emiBatchPaidTemplate = MailTemplate.load("mail/emi-batch-paid.html");
+        emiBatchRowTemplate = MailTemplate.load("mail/emi-batch-row.html");
+        loanClosedTemplate = MailTemplate.load("mail/loan-closed.html");
+        statementTemplate = MailTemplate.load("mail/statement.html");
+        digestTemplate = MailTemplate.load("mail/digest.html");
+        digestSectionTemplate = MailTemplate.load("mail/digest-section.html");
+
+        if (dispatcher instanceof ThreadPoolExecutor pool) {
+            metrics.monitorMailQueue(pool);
+        }
+
+        if (digestWindowMs > 0) {
+            long tick = Math.max(1, Math.min(digestTickMs, digestWindowMs));
+            int windowTicks = (int) Math.ceil((double) digestWindowMs / tick);
+            digest = new NotificationCoalescer<>(windowTicks, digestMaxEvents, tick,
+                    (to, notices) -> dispatch("Digest mail", () -> deliverDigest(to, notices)));
+        }
+    }
+
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        if (digest != null) {
+            digest.close(); // hand whatever is still buffered to the dispatcher first
+        }
+        if (dispatcher instanceof ExecutorService pool) {
+            pool.shutdown();
+            pool.awaitTermination(10, TimeUnit.SECONDS); // let queued mails go out
+        }
+    }
+
+    private static ExecutorService newDispatcher() {
+        AtomicInteger threadNo = new AtomicInteger();
+        return new ThreadPoolExecutor(2, 2, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(10_000), r -> {
+            Thread t = new Thread(r, "mail-dispatch-" + threadNo.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
 
 
     // ---------- helpers ----------
 
+    @FunctionalInterface
+    private interface MailJob {
+        void run() throws Exception;
+    }
+
+    private void dispatch(String what, MailJob job) {
+        dispatcher.execute(() -> {
+            Timer.Sample sample = metrics.start();
+            try {
+                job.run();
+                metrics.mailSent(sample, what, AppMetrics.SUCCESS);
+            } catch (Exception e) {
+                metrics.mailSent(sample, what, AppMetrics.FAILURE);
+                System.out.println("[MAIL] " + what + " FAILED: " + e.getMessage());
+                e.printStackTrace();
+            }
+        });
+    }
+
+    private static String orDash(String s) {
+        return (s == null || s.isBlank()) ? "—" : s;
+    }
+
+    private static String borrower(String name) {
+        return (name != null && !name.trim().isEmpty()) ? name : "Customer";
+    }
+
+    private static String installment(int no, int total) {
+        return (no > 0 ? no : 1) + " / " + (total > 0 ? total : 1);
+    }
+
     private static String inr(BigDecimal v) {
-        if (v == null) return "₹0.00";
-        return "₹" + String.format("%,.2f", v);
+        return InrFormat.format(v);
+    }
+
+    // "LN00042", "RCPT-000042", ... without going through Formatter
+    private static String code(String prefix, Long id, int width) {
+        String digits = Long.toString(id == null ? 0 : id);
+        StringBuilder sb = new StringBuilder(prefix.length() + Math.max(width, digits.length())).append(prefix);
+        for (int i = digits.length(); i < width; i++) sb.append('0');
+        return sb.append(digits).toString();
     }
 
-    private static String esc(String s) {
-        if (s == null) return "";
-        return s.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    // 7.5 -> "7.50%" (receipt) or "7.5%" (trimmed, NOC)
+    private static String rate(Double percent, boolean trim) {
+        if (percent == null) return "—";
+        BigDecimal r = BigDecimal.valueOf(percent).setScale(2, RoundingMode.HALF_UP);
+        return (trim ? r.stripTrailingZeros().toPlainString() : r.toPlainString()) + "%";
     }
 
-    private static class FromParts { String email; String personal; }
-    private static FromParts parseFrom(String from) {
-        FromParts fp = new FromParts();
-        if (from == null) { fp.email = "no-reply@example.com"; return fp; }
-        Matcher m = Pattern.compile("^\\s*(.*?)\\s*<\\s*(.+@.+)\\s*>\\s*$").matcher(from);
+    private static InternetAddress parseFrom(String from) throws Exception {
+        if (from == null) return new InternetAddress("no-reply@example.com");
+        Matcher m = FROM_PATTERN.matcher(from);
         if (m.find()) {
-            fp.personal = m.group(1).trim();
-            fp.email = m.group(2).trim();
-        } else {
-            fp.email = from.trim();
+            String personal = m.group(1).trim();
+            String email = m.group(2).trim();
+            return personal.isEmpty() ? new InternetAddress(email)
+                    : new InternetAddress(email, personal, StandardCharsets.UTF_8.name());
         }
-        return fp;
+        return new InternetAddress(from.trim());
     }
 
     private void sendHtml(String to, String subject, String html) throws Exception {
+        FlightEvents.MailSend event = new FlightEvents.MailSend();
+        event.begin();
+        event.subject = subject;
+        event.htmlChars = html.length();
+        try {
+            long start = System.nanoTime();
+            MimeMessage mime = toMime(new HtmlMail(to, subject, html));
+            event.buildTime = FlightEvents.elapsed(start);
+            start = System.nanoTime();
+            mailSender.send(mime);
+            event.smtpTime = FlightEvents.elapsed(start);
+            event.success = true;
+        } finally {
+            event.commit();
+        }
+    }
+
+    private MimeMessage toMime(HtmlMail mail) throws Exception {
         MimeMessage mime = mailSender.createMimeMessage();
-        MimeMessageHelper helper = new MimeMessageHelper(mime, false, StandardCharsets.UTF_8.name());
-        FromParts fp = parseFrom(from);
-        if (fp.personal != null && !fp.personal.isEmpty()) helper.setFrom(fp.email, fp.personal);
-        else helper.setFrom(fp.email);
-        helper.setTo(to);
-        helper.setSubject(subject);
-        helper.setText(html, true);
-        mailSender.send(mime);
+        boolean multipart = mail.attachment() != null;
+        MimeMessageHelper helper = new MimeMessageHelper(mime, multipart, StandardCharsets.UTF_8.name());
+        helper.setFrom(sender);
+        helper.setTo(mail.to());
+        helper.setSubject(mail.subject());
+        helper.setText(mail.html(), true);
+        if (multipart) {
+            helper.addAttachment(mail.attachmentName(), new ByteArrayResource(mail.attachment()), "text/csv");
+        }
+        return mime;
     }
 
-    private String shell(String title, String bodyInnerHtml) {
-        // inline CSS, print-friendly
-        String brand = "#0B5FFF", text = "#111827", muted = "#6B7280", border = "#E5E7EB", bg = "#f6f7fb";
-        StringBuilder sb = new StringBuilder();
-        sb.append("<!doctype html><html><head>")
-          .append("<meta charset=\"UTF-8\"><meta name=\"viewport\" content=\"width=device-width,initial-scale=1\">")
-          .append("<title>").append(esc(title)).append("</title>")
-          .append("<style>")
-          .append("body{margin:0;background:").append(bg).append(";font-family:Inter,Segoe UI,Arial,sans-serif;color:").append(text).append(";}")
-          .append(".container{max-width:720px;margin:24px auto;padding:0 16px;}")
-          .append(".card{background:#fff;border:1px solid ").append(border).append(";border-radius:12px;box-shadow:0 1px 2px rgba(0,0,0,.04);overflow:hidden;}")
-          .append(".brandbar{background:").append(brand).append(";color:#fff;padding:14px 18px;font-weight:700;font-size:18px;letter-spacing:.2px;}")
-          .append(".content{padding:22px;}")
-          .append(".title{font-size:20px;font-weight:800;margin:0 0 12px;}")
-          .append(".muted{color:").append(muted).append(";}")
-          .append(".row{display:flex;gap:10px;flex-wrap:wrap;margin:8px 0 0 0}")
-          .append(".pill{background:#f3f4f6;color:#111827;border-radius:999px;padding:6px 10px;font-size:12px;border:1px solid ").append(border).append(";}")
-          .append(".hdr{display:flex;justify-content:space-between;align-items:flex-start;gap:12px;margin-bottom:6px}")
-          .append(".small{font-size:12px;color:").append(muted).append(";line-height:1.5}")
-          .append("table{width:100%;border-collapse:collapse;margin-top:12px}")
-          .append("th,td{padding:10px 12px;border-bottom:1px dashed ").append(border).append(";text-align:left;font-size:14px}")
-          .append("th{color:#374151;font-weight:700;background:#fafafa}")
-          .append(".right{text-align:right}")
-          .append(".total{font-weight:800}")
-          .append(".footer{color:").append(muted).append(";font-size:12px;margin-top:16px;line-height:1.5}")
-          .append("@media print{body{background:#fff}.container{margin:0;max-width:none;padding:0}.card{border:none;box-shadow:none}}")
-          .append("</style></head><body>")
-          .append("<div class=\"container\"><div class=\"card\">")
-          .append("<div class=\"brandbar\">").append(esc(brandName)).append("</div>")
-          .append("<div class=\"content\">")
-          .append(bodyInnerHtml)
-          .append("<div class=\"footer\">This is an automated email from ").append(esc(brandName))
-          .append(". For help, reply to this email.<br/>© ").append(java.time.Year.now())
-          .append(" ").append(esc(brandName)).append(". All rights reserved.</div>")
-          .append("</div></div></div></body></html>");
-        return sb.toString();
+    /** A rendered HTML mail waiting to be sent in a batch, optionally with a CSV attachment. */
+    public record HtmlMail(String to, String subject, String html, String attachmentName, byte[] attachment) {
+        public HtmlMail(String to, String subject, String html) {
+            this(to, subject, html, null, null);
+        }
     }
 
-    // ---------- PUBLIC: EMI receipt (HTML; printable) ----------
-    public void sendEmiPaidText(EmiPayment emi) {
-    try {
-        if (emi == null || emi.getLoan() == null || emi.getLoan().getCustomer() == null) {
-            System.out.println("[MAIL] Skip EMI receipt: missing data");
+    // ---------- PUBLIC: bulk send over pooled SMTP connections (reminder / statement runs) ----------
+    public int sendHtmlBatch(List<HtmlMail> mails) {
+        Timer.Sample sample = metrics.start();
+        List<MimeMessage> messages = new ArrayList<>(mails.size());
+        for (HtmlMail mail : mails) {
+            try {
+                messages.add(toMime(mail));
+            } catch (Exception e) {
+                System.out.println("[MAIL] Skip batch mail to " + mail.to() + ": " + e.getMessage());
+            }
+        }
+
+        int sent;
+        try {
+            if (transportPool.isAvailable()) {
+                sent = transportPool.sendAll(messages);
+            } else {
+                // no SMTP transport to pool (e.g. a stub sender): one send call, still a single connection
+                mailSender.send(messages.toArray(MimeMessage[]::new));
+                sent = messages.size();
+            }
+        } catch (RuntimeException e) {
+            metrics.mailSent(sample, "Bulk batch", AppMetrics.FAILURE);
+            throw e;
+        }
+        metrics.mailSent(sample, "Bulk batch", sent == mails.size() ? AppMetrics.SUCCESS : AppMetrics.FAILURE);
+        System.out.println("[MAIL] Batch sent " + sent + " / " + mails.size() + " mails");
+        return sent;
+    }
+
+    // renders the body template, then wraps it in the branded shell
+    String render(String title, MailTemplate body, Map<String, ? extends CharSequence> values) {
+        StringBuilder inner = buffer(BODY_BUFFER);
+        body.renderTo(inner, values);
+        return wrap(title, inner);
+    }
+
+    private String wrap(String title, CharSequence inner) {
+        StringBuilder page = buffer(PAGE_BUFFER);
+        shellTemplate.renderTo(page, Map.of(
+                "title", title,
+                "year", java.time.Year.now().toString(),
+                "body", inner));
+        return page.toString();
+    }
+
+    // sends the mail now, or parks its rendered body in the recipient's digest
+    private void post(String to, String title, String subject,
+                      MailTemplate body, Map<String, ? extends CharSequence> values) throws Exception {
+        if (digest == null) {
+            sendHtml(to, subject, render(title, body, values));
             return;
         }
+        StringBuilder inner = buffer(BODY_BUFFER);
+        body.renderTo(inner, values);
+        digest.add(to.trim().toLowerCase(), new Notice(title, subject, inner.toString()));
+    }
 
-        Loan loan = emi.getLoan();
-        User user = loan.getCustomer();
-        String to = user.getEmail();
-        if (to == null || to.trim().isEmpty()) {
-            System.out.println("[MAIL] Skip EMI receipt: recipient email blank for userId=" + user.getUserId());
+    // a lone notice goes out as the normal mail; several become one digest
+    void deliverDigest(String to, List<Notice> notices) throws Exception {
+        if (notices.size() == 1) {
+            Notice only = notices.get(0);
+            sendHtml(to, only.subject(), wrap(only.title(), only.body()));
+            System.out.println("[MAIL] " + only.title() + " sent to " + to);
             return;
         }
 
-        List<EmiPayment> all = emiPaymentRepository.findByLoanOrderByDueDateAsc(loan);
-        int totalEmis = all.size();
-        int index = -1;
-        for (int i = 0; i < totalEmis; i++) {
-            if (all.get(i).getId().equals(emi.getId())) {
-                index = i;
-                break;
-            }
+        StringBuilder sections = new StringBuilder(notices.size() * 2048);
+        Map<String, CharSequence> section = new HashMap<>(4);
+        for (Notice notice : notices) {
+            section.put("title", notice.title());
+            section.put("body", notice.body());
+            digestSectionTemplate.renderTo(sections, section);
         }
-        String emiNo = (index >= 0 ? (index + 1) : 1) + " / " + (totalEmis > 0 ? totalEmis : 1);
-
-        BigDecimal monthlyEmi = emi.getAmount();
-        BigDecimal totalRepayable = monthlyEmi.multiply(BigDecimal.valueOf(totalEmis)).setScale(2, RoundingMode.HALF_UP);
-        BigDecimal principal = loan.getAmount() != null ? loan.getAmount() : BigDecimal.ZERO;
-        BigDecimal interestAmt = totalRepayable.subtract(principal);
-
-        String subject = "EMI Payment Receipt — Loan #" + loan.getId();
-        String receiptNo = "RCPT-" + String.format("%06d", emi.getId() == null ? 0 : emi.getId());
-        String tx = (emi.getTransactionRef() == null || emi.getTransactionRef().isBlank()) ? "—" : esc(emi.getTransactionRef());
-        String paidOn = emi.getPaymentDate() != null ? D_ONLY.format(emi.getPaymentDate()) : "—";
-        String dueOn = emi.getDueDate() != null ? D_ONLY.format(emi.getDueDate()) : "—";
-        String remBal = emi.getRemainingBalance() != null ? inr(emi.getRemainingBalance()) : "—";
-        String borrower = (user.getName() != null && !user.getName().trim().isEmpty()) ? esc(user.getName()) : "Customer";
-        String rateStr = loan.getAppliedInterestRate() == null ? "—" : String.format("%.2f%%", loan.getAppliedInterestRate());
-        String loanName = (loan.getLoanType() != null && loan.getLoanType().getName() != null)
-                ? esc(loan.getLoanType().getName()) : "—";
-
-        // HTML layout
-        StringBuilder head = new StringBuilder();
-        head.append("<div class=\"hdr\" style=\"display:flex;justify-content:space-between;align-items:center;gap:24px;padding:6px 0 12px;\">")
-            .append("<div class=\"small\" style=\"letter-spacing:.2px;\">")
-              .append("Receipt No. <b>").append(esc(receiptNo)).append("</b>")
-            .append("</div>")
-            .append("<div class=\"small\" style=\"text-align:right;\">")
-              .append("<span class=\"pill\" style=\"background:#E8FFF0;color:#065F46;border-color:#D1FAE5;font-weight:700;margin-left:8px;padding:6px 12px;\">PAID</span>")
-            .append("</div>")
-          .append("</div>");
-
-        StringBuilder body = new StringBuilder();
-        body.append(head)
-            .append("<p>Dear ").append(borrower).append(",</p>")
-            .append("<p>Thank you for your EMI payment. Below are the transaction details:</p>")
-            .append("<table>")
-              .append("<tr><th>Transaction Ref ID</th><td>").append(tx).append("</td></tr>")
-              .append("<tr><th>Loan ID</th><td>LN").append(String.format("%05d", loan.getId())).append("</td></tr>")
-              .append("<tr><th>Loan Name</th><td>").append(loanName).append("</td></tr>")
-              .append("<tr><th>EMI No.</th><td>").append(esc(emiNo)).append("</td></tr>")
-              .append("<tr><th>EMI Amount</th><td>").append(inr(emi.getAmount())).append("</td></tr>")
-              .append("<tr><th>Paid On</th><td>").append(esc(paidOn)).append("</td></tr>")
-              .append("<tr><th>Due Date</th><td>").append(esc(dueOn)).append("</td></tr>")
-              .append("<tr><th>Status</th><td>PAID</td></tr>")
-              .append("<tr><th>Interest (R)</th><td>").append(esc(rateStr)).append("</td></tr>")
-              .append("<tr><th>Tenure (T)</th><td>").append(loan.getTenureYears()).append(" years</td></tr>")
-              .append("<tr><th>Principal (P)</th><td>").append(inr(principal)).append("</td></tr>")
-              .append("<tr><th>Interest amount (I)</th><td>").append(inr(interestAmt)).append("</td></tr>")
-              .append("<tr><th>Total repayable (P + I)</th><td class=\"total\">").append(inr(totalRepayable)).append("</td></tr>")
-              .append("<tr><th>Remaining balance after this payment</th><td>").append(remBal).append("</td></tr>")
-            .append("</table>")
-            .append("<p class=\"muted\">This receipt has been recorded in your dashboard for future reference.<br/>")
-            .append("For any discrepancies, kindly contact support within 48 hours.</p>");
-
-        String html = shell("EMI Payment Receipt", body.toString());
-        sendHtml(to, subject, html);
-        System.out.println("[MAIL] EMI receipt (HTML) sent to " + to);
-
-    } catch (Exception e) {
-        System.out.println("[MAIL] EMI receipt FAILED: " + e.getMessage());
-        e.printStackTrace();
+
+        String count = Integer.toString(notices.size());
+        String subject = brandName + " — " + count + " updates on your account";
+        sendHtml(to, subject, render("Your account updates", digestTemplate, Map.of("count", count, "sections", sections)));
+        System.out.println("[MAIL] Digest (" + count + " notices) sent to " + to);
     }
-}
 
+    private static StringBuilder buffer(ThreadLocal<StringBuilder> holder) {
+        StringBuilder sb = holder.get();
+        if (sb.capacity() > MAX_RETAINED_BUFFER) {
+            sb = new StringBuilder(MAX_RETAINED_BUFFER / 8);
+            holder.set(sb);
+        }
+        sb.setLength(0);
+        return sb;
+    }
 
+    // ---------- PUBLIC: EMI receipt (HTML; printable) ----------
+    public void sendEmiPaidText(EmiPaidMail mail) {
+        dispatch("EMI receipt", () -> deliverEmiPaid(mail));
+    }
 
-// ---------- PUBLIC: Loan closed (NOC-style) HTML; styled same as receipt ----------
-public void sendLoanClosedText(Loan loan, BigDecimal totalRepayableIgnored) {
-    try {
+    void deliverEmiPaid(EmiPaidMail mail) throws Exception {
+        if (mail == null || mail.getTo() == null || mail.getTo().trim().isEmpty()) {
+            System.out.println("[MAIL] Skip EMI receipt: recipient email blank for userId=" + (mail == null ? null : mail.getUserId()));
+            return;
+        }
+
+        BigDecimal totalRepayable = mail.getAmount().multiply(BigDecimal.valueOf(mail.getTotalInstallments())).setScale(2, RoundingMode.HALF_UP);
+        BigDecimal principal = mail.getPrincipal() != null ? mail.getPrincipal() : BigDecimal.ZERO;
+
+        Map<String, String> v = new HashMap<>(32);
+        v.put("receiptNo", code("RCPT-", mail.getEmiId(), 6));
+        v.put("borrower", borrower(mail.getBorrowerName()));
+        v.put("transactionRef", orDash(mail.getTransactionRef()));
+        v.put("loanNo", code("LN", mail.getLoanId(), 5));
+        v.put("loanName", orDash(mail.getLoanName()));
+        v.put("emiNo", installment(mail.getInstallmentNo(), mail.getTotalInstallments()));
+        v.put("emiAmount", inr(mail.getAmount()));
+        v.put("paidOn", mail.getPaidOn() != null ? D_ONLY.format(mail.getPaidOn()) : "—");
+        v.put("dueOn", mail.getDueOn() != null ? D_ONLY.format(mail.getDueOn()) : "—");
+        v.put("rate", rate(mail.getInterestRate(), false));
+        v.put("tenureYears", Integer.toString(mail.getTenureYears()));
+        v.put("principal", inr(principal));
+        v.put("interest", inr(totalRepayable.subtract(principal)));
+        v.put("totalRepayable", inr(totalRepayable));
+        v.put("remainingBalance", mail.getRemainingBalance() != null ? inr(mail.getRemainingBalance()) : "—");
+
+        String subject = "EMI Payment Receipt — Loan #" + mail.getLoanId();
+        post(mail.getTo(), "EMI Payment Receipt", subject, emiPaidTemplate, v);
+        System.out.println("[MAIL] EMI receipt (HTML) posted to " + mail.getTo());
+    }
+
+    // ---------- PUBLIC: consolidated receipt for a multi-EMI payment ----------
+    public void sendEmiBatchPaidText(EmiBatchPaidMail mail) {
+        dispatch("Batch EMI receipt", () -> deliverEmiBatchPaid(mail));
+    }
+
+    void deliverEmiBatchPaid(EmiBatchPaidMail mail) throws Exception {
+        if (mail == null || mail.getLines() == null || mail.getLines().isEmpty()) {
+            System.out.println("[MAIL] Skip batch EMI receipt: missing data");
+            return;
+        }
+        if (mail.getTo() == null || mail.getTo().trim().isEmpty()) {
+            System.out.println("[MAIL] Skip batch EMI receipt: recipient email blank for userId=" + mail.getUserId());
+            return;
+        }
+
+        StringBuilder rows = new StringBuilder(mail.getLines().size() * 128);
+        Map<String, String> row = new HashMap<>(8);
+        for (EmiBatchPaidMail.Line line : mail.getLines()) {
+            row.put("emiNo", installment(line.getInstallmentNo(), mail.getTotalInstallments()));
+            row.put("dueOn", line.getDueOn() != null ? D_ONLY.format(line.getDueOn()) : "—");
+            row.put("transactionRef", orDash(line.getTransactionRef()));
+            row.put("amount", inr(line.getAmount()));
+            emiBatchRowTemplate.renderTo(rows, row);
+        }
+
+        int count = mail.getLines().size();
+        Map<String, CharSequence> v = new HashMap<>(16);
+        v.put("receiptNo", code("RCPT-", mail.getReceiptEmiId(), 6));
+        v.put("borrower", borrower(mail.getBorrowerName()));
+        v.put("count", Integer.toString(count));
+        v.put("loanNo", code("LN", mail.getLoanId(), 5));
+        v.put("loanName", orDash(mail.getLoanName()));
+        v.put("paidOn", mail.getPaidOn() != null ? D_ONLY.format(mail.getPaidOn()) : "—");
+        v.put("totalPaid", inr(mail.getTotalPaid()));
+        v.put("remaining", mail.getOutstanding() != null ? inr(mail.getOutstanding()) : "—");
+        v.put("rows", rows);
+
+        String subject = "EMI Payment Receipt — " + count + " installments, Loan #" + mail.getLoanId();
+        post(mail.getTo(), "EMI Payment Receipt", subject, emiBatchPaidTemplate, v);
+        System.out.println("[MAIL] Batch EMI receipt (HTML, " + count + " EMIs) posted to " + mail.getTo());
+    }
+
+    // ---------- PUBLIC: Loan closed (NOC-style) HTML; styled same as receipt ----------
+    public void sendLoanClosedText(Loan loan, BigDecimal totalPaid) {
         if (loan == null || loan.getCustomer() == null) {
             System.out.println("[MAIL] Skip loan-closed: missing data");
             return;
         }
-        User user = loan.getCustomer();
-        String to = user.getEmail();
-        if (to == null || to.trim().isEmpty()) {
-            System.out.println("[MAIL] Skip loan-closed: recipient email blank for userId=" + user.getUserId());
+        // snapshot the closed loan now; the mail itself is rendered off this thread
+        LoanClosedMail mail = LoanClosedMail.of(loan, totalPaid);
+        dispatch("Loan-closed mail", () -> deliverLoanClosed(mail));
+    }
+
+    void deliverLoanClosed(LoanClosedMail mail) throws Exception {
+        if (mail.getTo() == null || mail.getTo().trim().isEmpty()) {
+            System.out.println("[MAIL] Skip loan-closed: recipient email blank for userId=" + mail.getUserId());
             return;
         }
 
-        // --- derive values ---
-        String borrower   = (user.getName() != null && !user.getName().trim().isEmpty()) ? esc(user.getName()) : "Customer";
-        String loanName   = (loan.getLoanType() != null && loan.getLoanType().getName() != null) ? esc(loan.getLoanType().getName()) : "—";
-        BigDecimal principal = loan.getAmount() != null ? loan.getAmount() : BigDecimal.ZERO;
-
-        String appliedOn = loan.getSubmittedAt() != null ? loan.getSubmittedAt().toLocalDate().format(D_LONG) : "—";
-        String closedOn  = loan.getClosedAt()   != null ? loan.getClosedAt().toLocalDate().format(D_LONG)   : "—";
-
-        // Count PAID EMIs and sum their amounts
-        long totalEmisPaid = emiPaymentRepository.countByLoanAndStatus(loan, com.loanmanagement.model.EmiPayment.EmiStatus.PAID);
-        List<com.loanmanagement.model.EmiPayment> emis = emiPaymentRepository.findByLoanOrderByDueDateAsc(loan);
-        BigDecimal totalPaidAmount = emis.stream()
-                .filter(e -> e.getStatus() == com.loanmanagement.model.EmiPayment.EmiStatus.PAID)
-                .map(com.loanmanagement.model.EmiPayment::getAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        // Interest rate as nice string (e.g., 7.5%)
-        String rateStr = "—";
-        if (loan.getAppliedInterestRate() != null) {
-            String r = String.format("%.2f", loan.getAppliedInterestRate());
-            r = r.replaceAll("\\.?0+$", ""); // trim trailing .00 / .0
-            rateStr = r + "%";
-        }
+        Map<String, String> v = new HashMap<>(16);
+        v.put("nocNo", code("NOC-", mail.getLoanId(), 6));
+        v.put("borrower", borrower(mail.getBorrowerName()));
+        v.put("loanNo", code("LN", mail.getLoanId(), 5));
+        v.put("loanName", orDash(mail.getLoanName()));
+        v.put("loanAmount", inr(mail.getLoanAmount() != null ? mail.getLoanAmount() : BigDecimal.ZERO));
+        v.put("startDate", mail.getStartedOn() != null ? mail.getStartedOn().format(D_LONG) : "—");
+        v.put("closedDate", mail.getClosedOn() != null ? mail.getClosedOn().format(D_LONG) : "—");
+        v.put("emisPaid", Integer.toString(mail.getEmisPaid()));
+        v.put("rate", rate(mail.getInterestRate(), true));
+        v.put("tenureMonths", Integer.toString(Math.max(mail.getTenureYears(), 0) * 12));
+        v.put("totalPaid", inr(mail.getTotalPaid() != null ? mail.getTotalPaid() : BigDecimal.ZERO));
+
+        String subject = "Loan Closed — NOC Confirmation for Loan #" + mail.getLoanId();
+        post(mail.getTo(), "Loan Closed — NOC Confirmation", subject, loanClosedTemplate, v);
+        System.out.println("[MAIL] Loan-closed (NOC) email posted to " + mail.getTo());
+    }
 
-        // Tenure in months
-        int tenureMonths = Math.max(loan.getTenureYears(), 0) * 12;
-
-        String subject = "Loan Closed — NOC Confirmation for Loan #" + loan.getId();
-        String nocNo   = "NOC-" + String.format("%06d", loan.getId() == null ? 0 : loan.getId());
-
-        // Header: left NOC No, right CLOSED pill (same spacing as receipt)
-        StringBuilder head = new StringBuilder();
-        head.append("<div class=\"hdr\" ")
-            .append("style=\"display:flex;justify-content:space-between;align-items:center;gap:24px;padding:6px 0 12px;\">")
-            .append("<div class=\"small\" style=\"letter-spacing:.2px;\">")
-              .append("NOC No. <b>").append(esc(nocNo)).append("</b>")
-            .append("</div>")
-            .append("<div class=\"small\" style=\"text-align:right;\">")
-              .append("<span class=\"pill\" ")
-              .append("style=\"background:#DBEAFE;color:#1E3A8A;border-color:#BFDBFE;font-weight:700;")
-              .append("margin-left:8px;padding:6px 12px;\">CLOSED</span>")
-            .append("</div>")
-          .append("</div>");
-
-        // Body table with requested fields
-        StringBuilder body = new StringBuilder();
-        body.append(head)
-            .append("<p>Dear ").append(borrower).append(",</p>")
-            .append("<p>Your loan has been <b>fully repaid</b> and is now <b>closed</b>. Please find the closure details below:</p>")
-            .append("<table>")
-              .append("<tr><th>Loan ID</th><td>LN").append(String.format("%05d", loan.getId())).append("</td></tr>")
-              .append("<tr><th>Loan Name</th><td>").append(loanName).append("</td></tr>")
-              .append("<tr><th>Borrower Name</th><td>").append(borrower).append("</td></tr>")
-              .append("<tr><th>Loan Amount</th><td>").append(inr(principal)).append("</td></tr>")
-              .append("<tr><th>Loan Start Date</th><td>").append(esc(appliedOn)).append("</td></tr>")
-              .append("<tr><th>Loan Closed Date</th><td>").append(esc(closedOn)).append("</td></tr>")
-              .append("<tr><th>Total EMIs Paid</th><td>").append(totalEmisPaid).append("</td></tr>")
-              .append("<tr><th>Interest Rate</th><td>").append(rateStr).append("</td></tr>")
-              .append("<tr><th>Tenure</th><td>").append(tenureMonths).append(" months</td></tr>")
-              .append("<tr><th>Total Paid Amount</th><td class=\"total\">").append(inr(totalPaidAmount)).append("</td></tr>")
-            .append("</table>")
-            .append("<p>This is an electronic NOC confirming there are <b>no outstanding liabilities</b> on this loan account.</p>")
-            .append("<p class=\"muted\">For any queries, reply to this email.</p>");
-
-        String html = shell("Loan Closed — NOC Confirmation", body.toString());
-        sendHtml(to, subject, html);
-        System.out.println("[MAIL] Loan-closed (NOC) email sent to " + to);
-    } catch (Exception e) {
-        System.out.println("[MAIL] Loan-closed mail FAILED: " + e.getMessage());
-        e.printStackTrace();
+    // ---------- PUBLIC: monthly loan statement (HTML body + CSV copy), rendered for a batch send ----------
+    public HtmlMail renderStatement(LoanStatementMail st) {
+        String period = st.getPeriod().format(D_PERIOD);
+        String loanNo = code("LN", st.getLoanId(), 5);
+        String nextDue = st.getNextDueDate() != null ? D_ONLY.format(st.getNextDueDate()) : "—";
+
+        Map<String, String> v = new HashMap<>(32);
+        v.put("period", period);
+        v.put("borrower", borrower(st.getBorrowerName()));
+        v.put("loanNo", loanNo);
+        v.put("loanName", orDash(st.getLoanName()));
+        v.put("principal", inr(st.getPrincipal()));
+        v.put("paidInPeriod", Long.toString(st.getPaidInPeriod()));
+        v.put("paidInPeriodAmount", inr(st.getPaidInPeriodAmount()));
+        v.put("paidToDate", inr(st.getPaidToDate()));
+        v.put("emisPaid", Integer.toString(st.getPaidEmiCount()));
+        v.put("emisPending", Integer.toString(st.getPendingEmiCount()));
+        v.put("overdue", Long.toString(st.getOverdueCount()));
+        v.put("penalties", inr(st.getPenalties()));
+        v.put("nextDue", nextDue);
+        v.put("outstanding", inr(st.getOutstanding()));
+
+        StringBuilder csv = new StringBuilder(512)
+                .append("period,loan_no,loan_name,installments_paid_in_period,amount_paid_in_period,paid_to_date,")
+                .append("emis_paid,emis_pending,overdue_emis,penalties,next_due_date,outstanding\r\n");
+        csv.append(st.getPeriod()).append(',').append(loanNo).append(',');
+        csvField(csv, st.getLoanName());
+        csv.append(',').append(st.getPaidInPeriod())
+                .append(',').append(plain(st.getPaidInPeriodAmount()))
+                .append(',').append(plain(st.getPaidToDate()))
+                .append(',').append(st.getPaidEmiCount())
+                .append(',').append(st.getPendingEmiCount())
+                .append(',').append(st.getOverdueCount())
+                .append(',').append(plain(st.getPenalties()))
+                .append(',').append(st.getNextDueDate() != null ? st.getNextDueDate().toString() : "")
+                .append(',').append(plain(st.getOutstanding()))
+                .append("\r\n");
+
+        String subject = "Loan Statement — " + period + ", Loan #" + st.getLoanId();
+        return new HtmlMail(st.getTo(), subject, render("Loan Statement", statementTemplate, v),
+                "statement-" + loanNo + "-" + st.getPeriod() + ".csv", csv.toString().getBytes(StandardCharsets.UTF_8));
     }
-}
 
+    private static String plain(BigDecimal v) {
+        return (v != null ? v : BigDecimal.ZERO).setScale(2, RoundingMode.HALF_UP).toPlainString();
+    }
 
+    private static void csvField(StringBuilder out, String value) {
+        if (value == null) return;
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            out.append(value);
+            return;
+        }
+        out.append('"').append(value.replace("\"", "\"\"")).append('"');
+    }
 }
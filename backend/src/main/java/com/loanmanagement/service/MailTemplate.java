@@ -0,0 +1,124 @@
+package com.loanmanagement.service;
+
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An HTML mail template parsed once into literal segments and named slots.
+ *
+ * {@code {{name}}} is replaced by the HTML-escaped value, {@code {{{name}}}} by
+ * the raw value (for pre-rendered fragments). Rendering is a straight walk over
+ * the segments into the caller's buffer; nothing is parsed or matched per mail.
+ */
+final class MailTemplate {
+
+    private final String[] literals; // literals.length == slots.length + 1
+    private final String[] slots;
+    private final boolean[] raw;
+
+    private MailTemplate(String[] literals, String[] slots, boolean[] raw) {
+        this.literals = literals;
+        this.slots = slots;
+        this.raw = raw;
+    }
+
+    static MailTemplate load(String classpathLocation) {
+        try (InputStream in = new ClassPathResource(classpathLocation).getInputStream()) {
+            return compile(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Mail template not found: " + classpathLocation, e);
+        }
+    }
+
+    static MailTemplate compile(String source) {
+        List<String> literals = new ArrayList<>();
+        List<String> slots = new ArrayList<>();
+        List<Boolean> raw = new ArrayList<>();
+
+        int pos = 0;
+        while (true) {
+            int open = source.indexOf("{{", pos);
+            if (open < 0) break;
+            boolean isRaw = source.startsWith("{{{", open);
+            String close = isRaw ? "}}}" : "}}";
+            int nameStart = open + (isRaw ? 3 : 2);
+            int end = source.indexOf(close, nameStart);
+            if (end < 0) {
+                throw new IllegalArgumentException("Unclosed placeholder at offset " + open);
+            }
+            literals.add(source.substring(pos, open));
+            slots.add(source.substring(nameStart, end).trim());
+            raw.add(isRaw);
+            pos = end + close.length();
+        }
+        literals.add(source.substring(pos));
+
+        boolean[] rawFlags = new boolean[raw.size()];
+        for (int i = 0; i < rawFlags.length; i++) rawFlags[i] = raw.get(i);
+        return new MailTemplate(literals.toArray(String[]::new), slots.toArray(String[]::new), rawFlags);
+    }
+
+    /**
+     * Folds values that never change (brand name, address, ...) into the literal
+     * segments, leaving a template with only the per-mail slots.
+     */
+    MailTemplate bind(Map<String, ? extends CharSequence> constants) {
+        List<String> literals = new ArrayList<>();
+        List<String> slots = new ArrayList<>();
+        List<Boolean> raw = new ArrayList<>();
+
+        StringBuilder pending = new StringBuilder(this.literals[0]);
+        for (int i = 0; i < this.slots.length; i++) {
+            CharSequence value = constants.get(this.slots[i]);
+            if (value != null) {
+                append(pending, value, this.raw[i]);
+            } else {
+                literals.add(pending.toString());
+                slots.add(this.slots[i]);
+                raw.add(this.raw[i]);
+                pending.setLength(0);
+            }
+            pending.append(this.literals[i + 1]);
+        }
+        literals.add(pending.toString());
+
+        boolean[] rawFlags = new boolean[raw.size()];
+        for (int i = 0; i < rawFlags.length; i++) rawFlags[i] = raw.get(i);
+        return new MailTemplate(literals.toArray(String[]::new), slots.toArray(String[]::new), rawFlags);
+    }
+
+    void renderTo(StringBuilder out, Map<String, ? extends CharSequence> values) {
+        out.append(literals[0]);
+        for (int i = 0; i < slots.length; i++) {
+            CharSequence value = values.get(slots[i]);
+            if (value == null) {
+                throw new IllegalStateException("No value for mail template slot '" + slots[i] + "'");
+            }
+            append(out, value, raw[i]);
+            out.append(literals[i + 1]);
+        }
+    }
+
+    private static void append(StringBuilder out, CharSequence value, boolean raw) {
+        if (raw) {
+            out.append(value);
+            return;
+        }
+        for (int i = 0, n = value.length(); i < n; i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '&' -> out.append("&amp;");
+                case '<' -> out.append("&lt;");
+                case '>' -> out.append("&gt;");
+                default -> out.append(c);
+            }
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.loanmanagement.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Buffers notifications per recipient for a fixed window and hands each
+ * recipient's batch to a flusher in one call.
+ *
+ * The first event for a key opens a bucket that expires {@code windowTicks}
+ * ticks later; the key is filed in that tick's slot of a timing wheel. Each tick
+ * only looks at the keys in its own slot, so a tick costs O(expiring keys), not
+ * O(everyone buffered). Later events for the same key join the open bucket.
+ */
+final class NotificationCoalescer<E> {
+
+    @FunctionalInterface
+    interface Flusher<E> {
+        void flush(String key, List<E> events);
+    }
+
+    private static final class Bucket<E> {
+        final long deadline;
+        final List<E> events = new ArrayList<>(4); // only touched under the map's per-key lock
+
+        Bucket(long deadline) {
+            this.deadline = deadline;
+        }
+    }
+
+    private final Map<String, Bucket<E>> buckets = new ConcurrentHashMap<>();
+    private final Queue<String>[] wheel;
+    private final int windowTicks;
+    private final int maxEvents;
+    private final Flusher<E> flusher;
+    private final AtomicLong now = new AtomicLong();
+    private final ScheduledExecutorService ticker; // null when ticked by hand (tests)
+
+    /**
+     * @param windowTicks how many ticks a bucket stays open
+     * @param maxEvents   a bucket reaching this size is flushed right away
+     * @param tickMs      tick length; 0 means {@link #tick()} is driven by the caller
+     */
+    @SuppressWarnings("unchecked")
+    NotificationCoalescer(int windowTicks, int maxEvents, long tickMs, Flusher<E> flusher) {
+        if (windowTicks < 1) {
+            throw new IllegalArgumentException("Coalescing window must be at least one tick");
+        }
+        this.windowTicks = windowTicks;
+        this.maxEvents = Math.max(1, maxEvents);
+        this.flusher = flusher;
+
+        // one slot more than the window, so a new deadline never lands on the slot being drained
+        this.wheel = new Queue[windowTicks + 1];
+        for (int i = 0; i < wheel.length; i++) wheel[i] = new ConcurrentLinkedQueue<>();
+
+        if (tickMs > 0) {
+            ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "mail-digest-ticker");
+                t.setDaemon(true);
+                return t;
+            });
+            ticker.scheduleAtFixedRate(this::safeTick, tickMs, tickMs, TimeUnit.MILLISECONDS);
+        } else {
+            ticker = null;
+        }
+    }
+
+    void add(String key, E event) {
+        Bucket<E> bucket = buckets.compute(key, (k, open) -> {
+            if (open == null) {
+                open = new Bucket<>(now.get() + windowTicks);
+                wheel[(int) (open.deadline % wheel.length)].add(k);
+            }
+            open.events.add(event);
+            return open;
+        });
+        // a burst that fills the bucket goes out now; its wheel entry is skipped later
+        if (bucket.events.size() >= maxEvents && buckets.remove(key, bucket)) {
+            flusher.flush(key, bucket.events);
+        }
+    }
+
+    /** Advances the wheel one slot and flushes every bucket whose window has closed. */
+    void tick() {
+        long t = now.incrementAndGet();
+        Queue<String> slot = wheel[(int) (t % wheel.length)];
+        String key;
+        while ((key = slot.poll()) != null) {
+            Bucket<E> bucket = buckets.get(key);
+            // the bucket may already be gone (flushed when full) or be a newer one due later
+            if (bucket != null && bucket.deadline <= t && buckets.remove(key, bucket)) {
+                flusher.flush(key, bucket.events);
+            }
+        }
+    }
+
+    /** Flushes everything still buffered, e.g. on shutdown. */
+    void flushAll() {
+        for (String key : List.copyOf(buckets.keySet())) {
+            Bucket<E> bucket = buckets.remove(key);
+            if (bucket != null) {
+                flusher.flush(key, bucket.events);
+            }
+        }
+    }
+
+    int pendingRecipients() {
+        return buckets.size();
+    }
+
+    void close() {
+        if (ticker != null) ticker.shutdownNow();
+        flushAll();
+    }
+
+    private void safeTick() {
+        try {
+            tick();
+        } catch (Exception e) {
+            System.out.println("[MAIL] Digest tick FAILED: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.loanmanagement.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Runs a unit of work in its own transaction and re-runs it when the commit
+ * loses an optimistic-lock (or deadlock) race. Every attempt re-reads its rows,
+ * so a retried payment sees the winner's changes instead of overwriting them.
+ */
+@Component
+public class OptimisticLockRetry {
+
+    private final TransactionTemplate transactionTemplate;
+    private final int maxAttempts;
+    private final long backoffMs;
+
+    public OptimisticLockRetry(PlatformTransactionManager transactionManager,
+                               @Value("${loan.concurrency.max-attempts:8}") int maxAttempts,
+                               @Value("${loan.concurrency.backoff-ms:10}") long backoffMs) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.backoffMs = Math.max(0, backoffMs);
+    }
+
+    public <T> T execute(Supplier<T> work) {
+        // Inside a caller's transaction a retry cannot start from fresh state, so run once
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return work.get();
+        }
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> work.get());
+            } catch (ConcurrencyFailureException e) {
+                if (attempt >= maxAttempts) {
+                    throw new RuntimeException("The record was updated concurrently. Please try again.", e);
+                }
+                pause(attempt);
+            }
+        }
+    }
+
+    // linear backoff with jitter so colliding writers do not retry in lock-step
+    private void pause(int attempt) {
+        if (backoffMs == 0) return;
+        long delay = backoffMs * attempt + ThreadLocalRandom.current().nextLong(backoffMs + 1);
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while retrying a concurrent update", e);
+        }
+    }
+}
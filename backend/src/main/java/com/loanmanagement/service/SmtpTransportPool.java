@@ -0,0 +1,235 @@
+package com.loanmanagement.service;
+
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Session;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A small pool of connected SMTP transports for bulk mail runs.
+ *
+ * JavaMailSender.send(MimeMessage) connects (and does STARTTLS) for every call.
+ * Here each connection stays open across messages and is recycled after
+ * {@code mail.pool.max-messages-per-connection} messages or on any send error,
+ * in which case the failed message is retried once on a fresh connection. A
+ * refused recipient fails only its message and keeps the connection; a message
+ * that still fails is logged and the rest of the batch is sent.
+ */
+@Component
+public class SmtpTransportPool implements DisposableBean {
+
+    private final JavaMailSenderImpl sender; // null when mail is not SMTP-backed (e.g. mocked)
+    private final int size;
+    private final int maxMessagesPerConnection;
+    private final long borrowTimeoutMs;
+
+    private final BlockingQueue<PooledTransport> idle = new LinkedBlockingQueue<>();
+    private final AtomicInteger open = new AtomicInteger();
+    private final ExecutorService workers;
+
+    public SmtpTransportPool(JavaMailSender mailSender,
+                             @Value("${mail.pool.size:4}") int size,
+                             @Value("${mail.pool.max-messages-per-connection:100}") int maxMessagesPerConnection,
+                             @Value("${mail.pool.borrow-timeout-ms:30000}") long borrowTimeoutMs) {
+        this.sender = mailSender instanceof JavaMailSenderImpl impl ? impl : null;
+        this.size = Math.max(1, size);
+        this.maxMessagesPerConnection = Math.max(1, maxMessagesPerConnection);
+        this.borrowTimeoutMs = borrowTimeoutMs;
+
+        AtomicInteger threadNo = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(this.size, r -> {
+            Thread t = new Thread(r, "smtp-pool-" + threadNo.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    boolean isAvailable() {
+        return sender != null;
+    }
+
+    /**
+     * Sends every message, spreading them over the pooled connections.
+     * Returns how many were accepted by the server; failures are logged.
+     */
+    public int sendAll(List<MimeMessage> messages) {
+        if (messages.isEmpty()) return 0;
+        if (sender == null) {
+            throw new IllegalStateException("Pooled sending needs an SMTP-backed JavaMailSender");
+        }
+
+        int lanes = Math.min(size, messages.size());
+        int perLane = (messages.size() + lanes - 1) / lanes;
+        List<Future<Integer>> results = new ArrayList<>(lanes);
+        for (int from = 0; from < messages.size(); from += perLane) {
+            List<MimeMessage> lane = messages.subList(from, Math.min(messages.size(), from + perLane));
+            results.add(workers.submit(() -> sendLane(lane)));
+        }
+
+        int sent = 0;
+        for (Future<Integer> result : results) {
+            try {
+                sent += result.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while sending mail batch", e);
+            } catch (ExecutionException e) {
+                System.out.println("[MAIL] Batch lane FAILED: " + e.getCause().getMessage());
+            }
+        }
+        return sent;
+    }
+
+    // every message gets its own outcome: one that cannot be prepared or sent is logged and the lane moves on
+    private int sendLane(List<MimeMessage> lane) throws InterruptedException {
+        int sent = 0, failed = 0;
+        PooledTransport transport = null;
+        try {
+            for (MimeMessage message : lane) {
+                try {
+                    prepare(message);
+                } catch (MessagingException | RuntimeException e) {
+                    failed++;
+                    System.out.println("[MAIL] Pooled send FAILED, message not prepared: " + e.getMessage());
+                    continue;
+                }
+                // a failed send may leave the connection poisoned: replace it and retry the message once
+                for (int attempt = 1; ; attempt++) {
+                    try {
+                        if (transport == null) transport = borrow();
+                    } catch (InterruptedException e) {
+                        throw e;
+                    } catch (Exception e) {
+                        failed++;
+                        System.out.println("[MAIL] Pooled send FAILED, no connection: " + e.getMessage());
+                        break;
+                    }
+                    try {
+                        transport.send(message);
+                        sent++;
+                        break;
+                    } catch (MessagingException e) {
+                        if (e instanceof SendFailedException rejected && isRecipientRejected(rejected)) {
+                            // the server refused the address, the connection itself is fine
+                            failed++;
+                            System.out.println("[MAIL] Pooled send FAILED, recipient rejected: " + e.getMessage());
+                            break;
+                        }
+                        discard(transport);
+                        transport = null;
+                        if (attempt == 2) {
+                            failed++;
+                            System.out.println("[MAIL] Pooled send FAILED: " + e.getMessage());
+                            break;
+                        }
+                    }
+                }
+                if (transport != null && transport.sent >= maxMessagesPerConnection) {
+                    discard(transport);
+                    transport = null;
+                }
+            }
+        } finally {
+            release(transport);
+        }
+        if (failed > 0) {
+            System.out.println("[MAIL] Batch lane: " + sent + " sent, " + failed + " FAILED");
+        }
+        return sent;
+    }
+
+    private static boolean isRecipientRejected(SendFailedException e) {
+        return e.getInvalidAddresses() != null && e.getInvalidAddresses().length > 0;
+    }
+
+    private PooledTransport borrow() throws Exception {
+        while (true) {
+            PooledTransport pooled = idle.poll();
+            if (pooled == null) {
+                if (open.incrementAndGet() <= size) {
+                    try {
+                        return connect();
+                    } catch (Exception e) {
+                        open.decrementAndGet();
+                        throw e;
+                    }
+                }
+                open.decrementAndGet();
+                pooled = idle.poll(borrowTimeoutMs, TimeUnit.MILLISECONDS);
+                if (pooled == null) {
+                    throw new TimeoutException("No SMTP connection free within " + borrowTimeoutMs + " ms");
+                }
+            }
+            // servers drop idle connections; isConnected() probes with NOOP
+            if (pooled.transport.isConnected()) {
+                return pooled;
+            }
+            discard(pooled);
+        }
+    }
+
+    private void release(PooledTransport pooled) {
+        if (pooled != null) idle.offer(pooled);
+    }
+
+    private void discard(PooledTransport pooled) {
+        open.decrementAndGet();
+        try {
+            pooled.transport.close();
+        } catch (MessagingException ignore) {
+        }
+    }
+
+    private PooledTransport connect() throws MessagingException {
+        Session session = sender.getSession();
+        Transport transport = session.getTransport(sender.getProtocol() == null ? "smtp" : sender.getProtocol());
+        transport.connect(sender.getHost(), sender.getPort(), sender.getUsername(), sender.getPassword());
+        return new PooledTransport(transport);
+    }
+
+    private static void prepare(MimeMessage message) throws MessagingException {
+        if (message.getSentDate() == null) {
+            message.setSentDate(new Date());
+        }
+        message.saveChanges();
+    }
+
+    int openConnections() {
+        return open.get();
+    }
+
+    @Override
+    public void destroy() {
+        workers.shutdownNow();
+        PooledTransport pooled;
+        while ((pooled = idle.poll()) != null) {
+            discard(pooled);
+        }
+    }
+
+    private static final class PooledTransport {
+        final Transport transport;
+        int sent;
+
+        PooledTransport(Transport transport) {
+            this.transport = transport;
+        }
+
+        void send(MimeMessage message) throws MessagingException {
+            transport.sendMessage(message, message.getAllRecipients());
+            sent++;
+        }
+    }
+}
@@ -0,0 +1,282 @@
+package com.loanmanagement.service;
+
+import com.loanmanagement.dto.ReconciliationLineDto;
+import com.loanmanagement.dto.ReconciliationLineDto.Outcome;
+import com.loanmanagement.dto.ReconciliationReportDto;
+import com.loanmanagement.model.EmiPayment;
+import com.loanmanagement.model.Loan;
+import com.loanmanagement.repository.EmiPaymentRepository;
+import com.loanmanagement.repository.LoanRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+
+/**
+ * Applies bank / NACH collection statements to EMIs.
+ *
+ * The CSV ({@code date,reference,loan,amount}, optional header) is streamed in
+ * fixed-size batches. For each batch the unpaid EMIs of every referenced loan
+ * are loaded with one query into a hash index (loan id -> EMIs by due date),
+ * rows are matched against it in memory, and all matches are settled in one
+ * optimistically locked transaction. Rows that do not line up are returned in
+ * the reconciliation report instead of failing the import.
+ */
+@Service
+@RequiredArgsConstructor
+public class StatementReconciliationService {
+
+    // applied statement rows are recorded as EMI transaction refs, which makes re-imports idempotent
+    static final String REF_PREFIX = "BANK-";
+    private static final int MAX_REFERENCE_LENGTH = 100 - REF_PREFIX.length();
+    private static final List<EmiPayment.EmiStatus> OPEN_STATUSES =
+            List.of(EmiPayment.EmiStatus.PENDING, EmiPayment.EmiStatus.LATE);
+
+    private final EmiPaymentRepository emiPaymentRepository;
+    private final LoanRepository loanRepository;
+    private final CustomerLoanService customerLoanService;
+    private final OptimisticLockRetry concurrencyRetry;
+    private final MailService mailService;
+
+    @Value("${reconciliation.batch-size:1000}")
+    private int batchSize;
+
+    // how far past the statement date an EMI may fall due and still be settled in advance
+    @Value("${reconciliation.lookahead-months:3}")
+    private int lookaheadMonths;
+
+    @Value("${reconciliation.max-reported-rows:1000}")
+    private int maxReportedRows;
+
+    public ReconciliationReportDto importStatement(Path file) {
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return importStatement(reader);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read statement file: " + file, e);
+        }
+    }
+
+    public ReconciliationReportDto importStatement(BufferedReader reader) {
+        long started = System.nanoTime();
+        ReconciliationReportDto report = new ReconciliationReportDto();
+        List<StatementLine> batch = new ArrayList<>(batchSize);
+
+        try {
+            String raw;
+            int lineNumber = 0;
+            while ((raw = reader.readLine()) != null) {
+                lineNumber++;
+                if (raw.isBlank()) continue;
+
+                StatementLine line = parse(lineNumber, raw);
+                if (line == null) {
+                    if (lineNumber == 1) continue; // header row
+                    record(report, ReconciliationLineDto.builder()
+                            .lineNumber(lineNumber)
+                            .outcome(Outcome.MALFORMED)
+                            .message("Expected date,reference,loan,amount")
+                            .build());
+                    continue;
+                }
+
+                batch.add(line);
+                if (batch.size() >= batchSize) {
+                    settleBatch(batch, report);
+                    batch.clear();
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read statement", e);
+        }
+
+        if (!batch.isEmpty()) {
+            settleBatch(batch, report);
+        }
+
+        // malformed rows are reported as they are read, matched ones per batch
+        report.getExceptions().sort(Comparator.comparingInt(ReconciliationLineDto::getLineNumber));
+        report.setDurationMs((System.nanoTime() - started) / 1_000_000);
+        System.out.println("[RECON] " + report.getTotalRows() + " rows, " + report.getSettledEmis()
+                + " EMIs settled in " + report.getDurationMs() + " ms");
+        return report;
+    }
+
+    private void settleBatch(List<StatementLine> lines, ReconciliationReportDto report) {
+        BatchOutcome outcome = concurrencyRetry.execute(() -> matchAndSettle(lines));
+
+        outcome.lines.forEach(l -> record(report, l));
+        report.setSettledEmis(report.getSettledEmis() + outcome.settledEmis);
+        report.setSettledAmount(report.getSettledAmount().add(outcome.settledAmount));
+        report.setClosedLoans(report.getClosedLoans() + outcome.closedLoans.size());
+
+        // closure mails only after the batch has committed
+        outcome.closedLoans.forEach((loan, totalRepayable) -> {
+            try {
+                mailService.sendLoanClosedText(loan, totalRepayable);
+            } catch (Exception ignore) {
+            }
+        });
+    }
+
+    private BatchOutcome matchAndSettle(List<StatementLine> lines) {
+        Set<Long> loanIds = new HashSet<>();
+        Set<String> refs = new HashSet<>();
+        LocalDate latest = LocalDate.MIN;
+        for (StatementLine line : lines) {
+            loanIds.add(line.loanId());
+            refs.add(REF_PREFIX + line.reference());
+            if (line.date().isAfter(latest)) latest = line.date();
+        }
+
+        Set<String> applied = new HashSet<>(emiPaymentRepository.findExistingTransactionRefs(refs));
+
+        // build side of the hash join: loan id -> unpaid EMIs, earliest due first
+        Map<Long, ArrayDeque<EmiPayment>> open = new HashMap<>();
+        for (EmiPayment emi : emiPaymentRepository.findOpenForLoans(loanIds, OPEN_STATUSES, latest.plusMonths(lookaheadMonths))) {
+            open.computeIfAbsent(emi.getLoan().getId(), id -> new ArrayDeque<>()).add(emi);
+        }
+
+        BatchOutcome outcome = new BatchOutcome();
+        Map<Long, List<EmiPayment>> settledByLoan = new HashMap<>();
+
+        // probe side: each statement row takes whole installments in due-date order
+        for (StatementLine line : lines) {
+            String ref = REF_PREFIX + line.reference();
+            if (!applied.add(ref)) {
+                outcome.add(line, Outcome.DUPLICATE, 0, "Reference already applied");
+                continue;
+            }
+
+            Deque<EmiPayment> queue = open.get(line.loanId());
+            if (queue == null || queue.isEmpty()) {
+                outcome.add(line, Outcome.UNMATCHED, 0, "No unpaid EMI due for this loan");
+                continue;
+            }
+
+            BigDecimal remaining = line.amount();
+            int settled = 0;
+            while (!queue.isEmpty() && remaining.compareTo(queue.peekFirst().getAmount()) >= 0) {
+                EmiPayment emi = queue.pollFirst();
+                emi.setStatus(EmiPayment.EmiStatus.PAID);
+                emi.setPaymentDate(line.date());
+                emi.setTransactionRef(ref);
+                remaining = remaining.subtract(emi.getAmount());
+                settledByLoan.computeIfAbsent(line.loanId(), id -> new ArrayList<>()).add(emi);
+                settled++;
+            }
+
+            outcome.settledEmis += settled;
+            outcome.settledAmount = outcome.settledAmount.add(line.amount().subtract(remaining));
+
+            if (settled == 0) {
+                outcome.add(line, Outcome.PARTIAL, 0,
+                        "Amount is below the installment of " + queue.peekFirst().getAmount());
+            } else if (remaining.signum() > 0) {
+                outcome.add(line, Outcome.PARTIAL, settled, remaining + " left unapplied");
+            } else {
+                outcome.add(line, Outcome.MATCHED, settled, null);
+            }
+        }
+
+        if (settledByLoan.isEmpty()) {
+            return outcome;
+        }
+
+        // lock the touched loans, then book each loan's EMIs against its repayment snapshot
+        for (Loan loan : loanRepository.findAllByIdForUpdate(settledByLoan.keySet())) {
+            List<EmiPayment> paid = settledByLoan.get(loan.getId());
+            emiPaymentRepository.saveAll(paid);
+            BigDecimal totalRepayable = customerLoanService.recordSettlement(loan, paid);
+            if (totalRepayable != null) {
+                outcome.closedLoans.put(loan, totalRepayable);
+            }
+        }
+        return outcome;
+    }
+
+    private void record(ReconciliationReportDto report, ReconciliationLineDto line) {
+        report.setTotalRows(report.getTotalRows() + 1);
+        switch (line.getOutcome()) {
+            case MATCHED -> report.setMatchedRows(report.getMatchedRows() + 1);
+            case PARTIAL -> report.setPartialRows(report.getPartialRows() + 1);
+            case UNMATCHED -> report.setUnmatchedRows(report.getUnmatchedRows() + 1);
+            case DUPLICATE -> report.setDuplicateRows(report.getDuplicateRows() + 1);
+            case MALFORMED -> report.setMalformedRows(report.getMalformedRows() + 1);
+        }
+
+        if (line.getOutcome() == Outcome.MATCHED) return;
+        if (report.getExceptions().size() < maxReportedRows) {
+            report.getExceptions().add(line);
+        } else {
+            report.setTruncated(true);
+        }
+    }
+
+    // "2025-01-05,UTR0001,LN00042,15420.50" -- split by hand, this runs once per statement row
+    static StatementLine parse(int lineNumber, String raw) {
+        int c1 = raw.indexOf(',');
+        int c2 = c1 < 0 ? -1 : raw.indexOf(',', c1 + 1);
+        int c3 = c2 < 0 ? -1 : raw.indexOf(',', c2 + 1);
+        if (c3 < 0) return null;
+        int end = raw.indexOf(',', c3 + 1);
+
+        try {
+            LocalDate date = LocalDate.parse(raw.substring(0, c1).trim());
+            String reference = raw.substring(c1 + 1, c2).trim();
+            Long loanId = parseLoanId(raw.substring(c2 + 1, c3).trim());
+            BigDecimal amount = new BigDecimal(raw.substring(c3 + 1, end < 0 ? raw.length() : end).trim())
+                    .setScale(2, RoundingMode.HALF_UP);
+
+            if (reference.isEmpty() || reference.length() > MAX_REFERENCE_LENGTH
+                    || loanId == null || amount.signum() <= 0) {
+                return null;
+            }
+            return new StatementLine(lineNumber, date, reference, loanId, amount);
+        } catch (DateTimeParseException | NumberFormatException e) {
+            return null;
+        }
+    }
+
+    // accepts "42" or the "LN00042" form printed on receipts
+    private static Long parseLoanId(String s) {
+        String digits = s.regionMatches(true, 0, "LN", 0, 2) ? s.substring(2) : s;
+        if (digits.isEmpty()) return null;
+        for (int i = 0; i < digits.length(); i++) {
+            if (!Character.isDigit(digits.charAt(i))) return null;
+        }
+        return Long.parseLong(digits);
+    }
+
+    record StatementLine(int lineNumber, LocalDate date, String reference, Long loanId, BigDecimal amount) {
+    }
+
+    private static class BatchOutcome {
+        final List<ReconciliationLineDto> lines = new ArrayList<>();
+        final Map<Loan, BigDecimal> closedLoans = new IdentityHashMap<>();
+        long settledEmis;
+        BigDecimal settledAmount = BigDecimal.ZERO;
+
+        void add(StatementLine line, Outcome outcome, int settledEmis, String message) {
+            lines.add(ReconciliationLineDto.builder()
+                    .lineNumber(line.lineNumber())
+                    .reference(line.reference())
+                    .loanId(line.loanId())
+                    .amount(line.amount())
+                    .outcome(outcome)
+                    .settledEmis(settledEmis)
+                    .message(message)
+                    .build());
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.loanmanagement.service;
+
+import com.loanmanagement.dto.UserPurgeJobDto;
+import com.loanmanagement.model.Loan;
+import com.loanmanagement.model.User;
+import com.loanmanagement.repository.LoanRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Deletes customers with a long repayment history off the request thread.
+ *
+ * A job works through the customer's loans a chunk at a time: their EMIs go in
+ * short transactions of at most chunk-rows rows, then the rest of the chunk's
+ * loan data in one more, so no transaction holds row locks for long. The user
+ * row and anything created meanwhile go last, together. Jobs run one after the
+ * other on a single worker; an interrupted job leaves only whole chunks
+ * deleted, and deleting the user again picks up where it stopped.
+ */
+@Service
+@RequiredArgsConstructor
+public class UserPurgeService {
+
+    private static final int KEEP_FINISHED = 50;
+
+    private final LoanDataPurger purger;
+    private final LoanRepository loanRepository;
+
+    // loans per chunk, and EMI rows per delete transaction within a chunk
+    @Value("${purge.chunk-loans:50}")
+    private int chunkLoans;
+
+    @Value("${purge.chunk-rows:1000}")
+    private int chunkRows;
+
+    private final AtomicLong jobIds = new AtomicLong();
+    private final Map<Long, Job> jobs = new LinkedHashMap<>(); // guarded by this
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "user-purge");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // ✅ Queue the purge of a customer whose active loans were already checked
+    public synchronized UserPurgeJobDto start(User customer, long emisTotal) {
+        if (isPurging(customer.getUserId())) {
+            throw new RuntimeException("This user is already being deleted");
+        }
+        Job job = new Job(jobIds.incrementAndGet(), customer, emisTotal);
+        jobs.put(job.id, job);
+        trimFinished();
+        worker.submit(() -> run(job));
+        System.out.println("[PURGE] Job " + job.id + " queued for user " + customer.getUserId()
+                + " (" + emisTotal + " EMIs)");
+        return job.snapshot();
+    }
+
+    public synchronized boolean isPurging(Long userId) {
+        return jobs.values().stream().anyMatch(j -> j.customer.getUserId().equals(userId) && !j.isFinished());
+    }
+
+    // ✅ Recent jobs, newest first
+    public synchronized List<UserPurgeJobDto> getJobs() {
+        List<UserPurgeJobDto> recent = new ArrayList<>(jobs.size());
+        jobs.values().forEach(j -> recent.add(j.snapshot()));
+        Collections.reverse(recent);
+        return recent;
+    }
+
+    public synchronized UserPurgeJobDto getJob(long jobId) {
+        Job job = jobs.get(jobId);
+        if (job == null) throw new RuntimeException("Purge job not found");
+        return job.snapshot();
+    }
+
+    void run(Job job) {
+        job.state = "RUNNING";
+        long start = System.nanoTime();
+        try {
+            List<Long> loanIds = loanRepository.findIdsByCustomerId(job.customer.getUserId());
+            job.loansTotal = loanIds.size();
+            int width = Math.max(1, chunkLoans);
+            for (int from = 0; from < loanIds.size(); from += width) {
+                List<Long> chunk = loanIds.subList(from, Math.min(loanIds.size(), from + width));
+                int deleted;
+                while ((deleted = purger.purgeEmiChunk(chunk, chunkRows)) > 0) {
+                    job.emisDeleted += deleted;
+                }
+                job.loansDeleted += purger.purgeLoans(chunk);
+            }
+
+            Long active = loanRepository.countByCustomerAndLoanStatusIn(job.customer,
+                    List.of(Loan.LoanStatus.SUBMITTED, Loan.LoanStatus.APPROVED));
+            if (active > 0) {
+                throw new RuntimeException("Customer applied for a loan while being deleted");
+            }
+            purger.purgeUser(job.customer.getUserId());
+            job.state = "COMPLETED";
+            System.out.println("[PURGE] Job " + job.id + " deleted user " + job.customer.getUserId() + ": "
+                    + job.loansDeleted + " loans, " + job.emisDeleted + " EMIs in "
+                    + (System.nanoTime() - start) / 1_000_000 + " ms");
+        } catch (RuntimeException e) {
+            job.state = "FAILED";
+            job.error = e.getMessage();
+            System.out.println("[PURGE] Job " + job.id + " FAILED: " + e.getMessage());
+        } finally {
+            job.finishedAt = LocalDateTime.now();
+        }
+    }
+
+    private void trimFinished() {
+        int excess = jobs.size() - KEEP_FINISHED;
+        Iterator<Job> oldestFirst = jobs.values().iterator();
+        while (excess > 0 && oldestFirst.hasNext()) {
+            if (oldestFirst.next().isFinished()) {
+                oldestFirst.remove();
+                excess--;
+            }
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        worker.shutdownNow();
+    }
+
+    // progress is written by the worker and read by request threads
+    static final class Job {
+        final long id;
+        final User customer;
+        final long emisTotal;
+        final LocalDateTime queuedAt = LocalDateTime.now();
+        volatile String state = "QUEUED";
+        volatile long loansTotal;
+        volatile long loansDeleted;
+        volatile long emisDeleted;
+        volatile LocalDateTime finishedAt;
+        volatile String error;
+
+        Job(long id, User customer, long emisTotal) {
+            this.id = id;
+            this.customer = customer;
+            this.emisTotal = emisTotal;
+        }
+
+        boolean isFinished() {
+            return finishedAt != null;
+        }
+
+        UserPurgeJobDto snapshot() {
+            return UserPurgeJobDto.builder()
+                    .jobId(id)
+                    .userId(customer.getUserId())
+                    .username(customer.getUsername())
+                    .state(state)
+                    .loansTotal(loansTotal)
+                    .loansDeleted(loansDeleted)
+                    .emisTotal(emisTotal)
+                    .emisDeleted(emisDeleted)
+                    .queuedAt(queuedAt)
+                    .finishedAt(finishedAt)
+                    .error(error)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,16 @@
+-- Loan-id ranges whose monthly statements were sent (LoanStatementService), so a
+-- statement run re-posted for the same month skips what already went out.
+
+create table statement_run_partitions (
+    loans integer not null,
+    mails_sent integer not null,
+    completed_at datetime(6) not null,
+    from_id bigint not null,
+    id bigint not null auto_increment,
+    to_id bigint not null,
+    period varchar(7) not null,
+    primary key (id)
+) engine=InnoDB;
+
+alter table statement_run_partitions
+   add constraint uk_statement_partition unique (period, from_id);
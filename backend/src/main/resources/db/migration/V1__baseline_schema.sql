@@ -0,0 +1,152 @@
+-- Baseline: the schema as Hibernate's ddl-auto=update left it before migrations
+-- existed (tables, unique keys and foreign keys). Everything added since is in a
+-- later version, so this script must not change.
+-- Databases created before migrations existed are baselined at this version
+-- instead of running it; see SchemaMigrator.
+
+create table application_status_history (
+    id bigint not null auto_increment,
+    loan_id bigint,
+    updated_at datetime(6) not null,
+    comments varchar(500),
+    status enum ('APPROVED','CLOSED','REJECTED','SUBMITTED') not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table chat_messages (
+    admin_id bigint,
+    customer_id bigint,
+    id bigint not null auto_increment,
+    sent_at datetime(6) not null,
+    message varchar(2000) not null,
+    sender_type varchar(255) not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table emi_payment (
+    amount decimal(18,2) not null,
+    created_at date not null,
+    due_date date not null,
+    payment_date date,
+    remaining_balance decimal(18,2) not null,
+    updated_at date not null,
+    id bigint not null auto_increment,
+    loan_id bigint not null,
+    transaction_ref varchar(100),
+    status enum ('LATE','PAID','PENDING') not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table loan_types (
+    interest_rate decimal(5,2),
+    max_loan_amount decimal(15,2),
+    max_loans_per_customer_per_loan_type integer not null,
+    max_tenure_years integer not null,
+    penalty_rate_percent decimal(5,2),
+    loan_type_id bigint not null auto_increment,
+    name varchar(100) not null,
+    primary key (loan_type_id)
+) engine=InnoDB;
+
+create table loans (
+    amount decimal(15,2) not null,
+    applied_interest_rate float(53) not null,
+    cibil_score integer not null,
+    tenure_years integer not null,
+    closed_at datetime(6),
+    customer_id bigint,
+    id bigint not null auto_increment,
+    loan_type_id bigint,
+    submitted_at datetime(6),
+    employment_info varchar(100) not null,
+    purpose varchar(300) not null,
+    aadhaar varchar(255) not null,
+    income varchar(255) not null,
+    pan varchar(255) not null,
+    loan_status enum ('APPROVED','CLOSED','REJECTED','SUBMITTED') not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table otp_log (
+    verified bit not null,
+    created_at datetime(6),
+    expires_at datetime(6),
+    id bigint not null auto_increment,
+    user_user_id bigint,
+    otp varchar(255),
+    primary key (id)
+) engine=InnoDB;
+
+create table penalties (
+    amount float(53) not null,
+    emi_id bigint,
+    id bigint not null auto_increment,
+    reason varchar(255),
+    primary key (id)
+) engine=InnoDB;
+
+create table users (
+    pincode varchar(6),
+    created_at datetime(6),
+    user_id bigint not null auto_increment,
+    alternate_phone_number varchar(10),
+    contact_number varchar(10),
+    date_of_birth varchar(12),
+    gender varchar(20),
+    city varchar(30),
+    country varchar(30),
+    name varchar(30) not null,
+    state varchar(30),
+    street varchar(30),
+    username varchar(30) not null,
+    email varchar(100) not null,
+    password varchar(100) not null,
+    role enum ('ADMIN','CUSTOMER'),
+    primary key (user_id)
+) engine=InnoDB;
+
+alter table users 
+   add constraint UK6dotkott2kjsp8vw4d0m25fb7 unique (email);
+
+alter table users 
+   add constraint UKr43af9ap4edm43mmtq01oddj6 unique (username);
+
+alter table application_status_history 
+   add constraint FKdpcwvgpjfivijqmwjjg6i8ikm 
+   foreign key (loan_id) 
+   references loans (id);
+
+alter table chat_messages 
+   add constraint FKrswl35wrddorkb25v5d7qt8uf 
+   foreign key (admin_id) 
+   references users (user_id);
+
+alter table chat_messages 
+   add constraint FKt5m8bnm9ieso8vbar2lgmo649 
+   foreign key (customer_id) 
+   references users (user_id);
+
+alter table emi_payment 
+   add constraint FKsom7g693nywe3ehr0px5boicj 
+   foreign key (loan_id) 
+   references loans (id);
+
+alter table loans 
+   add constraint FKklp2npf207iq79o9a94qejmy4 
+   foreign key (customer_id) 
+   references users (user_id);
+
+alter table loans 
+   add constraint FKg5kc6jabj9q90obnbbhusa9ef 
+   foreign key (loan_type_id) 
+   references loan_types (loan_type_id);
+
+alter table otp_log 
+   add constraint FK67ss1g0g8bcqy7q591rnctibc 
+   foreign key (user_user_id) 
+   references users (user_id);
+
+alter table penalties 
+   add constraint FKhqpvy31rmgct476u1vfwon2bp 
+   foreign key (emi_id) 
+   references emi_payment (id);
@@ -0,0 +1,21 @@
+-- Composite indexes for the hot repository queries (checked by SchemaMigrationTest).
+
+-- a loan's schedule by status in due-date order: pay next K EMIs, recast, next due date
+create index idx_emi_loan_status_due
+   on emi_payment (loan_id, status, due_date);
+
+-- overdue / pending scans across all loans (penalties, reminders)
+create index idx_emi_status_due
+   on emi_payment (status, due_date);
+
+-- admin queues and statement runs by status, oldest first
+create index idx_loans_status_submitted
+   on loans (loan_status, submitted_at);
+
+-- one customer's chat thread
+create index idx_chat_customer_id
+   on chat_messages (customer_id, id);
+
+-- a loan's status timeline
+create index idx_history_loan_updated
+   on application_status_history (loan_id, updated_at);
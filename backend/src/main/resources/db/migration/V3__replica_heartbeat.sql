@@ -0,0 +1,10 @@
+-- Heartbeat written on the primary and read back from the read replica to measure its lag
+-- (see ReadWriteRoutingDataSource). One row; beat_ms is the writer's clock in epoch millis.
+
+create table replica_heartbeat (
+    id int not null,
+    beat_ms bigint not null,
+    primary key (id)
+) engine=InnoDB;
+
+insert into replica_heartbeat (id, beat_ms) values (1, 0);
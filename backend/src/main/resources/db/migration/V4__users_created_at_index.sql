@@ -0,0 +1,5 @@
+-- Admin user management pages sorted by registration date
+-- (username and email already have their unique indexes for prefix search).
+
+create index idx_users_created_at
+   on users (created_at);
@@ -0,0 +1,83 @@
+-- Columns and tables the application gained after the V1 baseline: optimistic lock
+-- versions, the loan repayment snapshot, per-type decision rules, prepayments and
+-- duplicate-identity screening. Databases baselined at V1 get them here.
+
+alter table emi_payment add column version bigint not null default 0;
+
+alter table loans add column version bigint not null default 0;
+alter table loans add column pending_emi_count integer not null default 0;
+alter table loans add column paid_emi_count integer not null default 0;
+alter table loans add column outstanding_amount decimal(18,2);
+alter table loans add column next_due_date date;
+
+-- repayment snapshot of loans whose schedule already exists (same rule as LoanSnapshotBackfill)
+update loans l
+   set pending_emi_count = (select count(*) from emi_payment e where e.loan_id = l.id and e.status <> 'PAID'),
+       paid_emi_count = (select count(*) from emi_payment e where e.loan_id = l.id and e.status = 'PAID'),
+       outstanding_amount = (select coalesce(sum(e.amount), 0) from emi_payment e
+                              where e.loan_id = l.id and e.status <> 'PAID'),
+       next_due_date = (select min(e.due_date) from emi_payment e where e.loan_id = l.id and e.status <> 'PAID')
+ where exists (select 1 from emi_payment e where e.loan_id = l.id);
+
+alter table loan_types add column decision_rules varchar(2000);
+
+create table loan_prepayment (
+    amount decimal(18,2) not null,
+    payment_date date not null,
+    principal_after decimal(18,2) not null,
+    principal_before decimal(18,2) not null,
+    created_at datetime(6) not null,
+    id bigint not null auto_increment,
+    loan_id bigint not null,
+    transaction_ref varchar(100),
+    mode enum ('FORECLOSURE','REDUCE_EMI','REDUCE_TENURE') not null,
+    primary key (id)
+) engine=InnoDB;
+
+alter table loan_prepayment
+   add constraint FK493q8xoc3bbrjyeckd1jl8kad
+   foreign key (loan_id)
+   references loans (id);
+
+create table applicant_identity_hashes (
+    created_at datetime(6) not null,
+    customer_id bigint not null,
+    id bigint not null auto_increment,
+    loan_id bigint not null,
+    hash varchar(64) not null,
+    kind enum ('AADHAAR','PAN') not null,
+    primary key (id)
+) engine=InnoDB;
+
+create index idx_identity_hash
+   on applicant_identity_hashes (hash);
+
+create index idx_identity_loan
+   on applicant_identity_hashes (loan_id);
+
+create table duplicate_application_flags (
+    created_at datetime(6) not null,
+    customer_id bigint not null,
+    id bigint not null auto_increment,
+    loan_id bigint not null,
+    matched_customer_id bigint not null,
+    matched_loan_id bigint not null,
+    resolved_at datetime(6),
+    kind enum ('AADHAAR','PAN') not null,
+    status enum ('CLEARED','CONFIRMED','OPEN') not null,
+    primary key (id)
+) engine=InnoDB;
+
+create index idx_dup_flag_status
+   on duplicate_application_flags (status, created_at);
+
+create index idx_dup_flag_loan
+   on duplicate_application_flags (loan_id);
+
+-- reconciliation looks up already-applied bank references
+create index idx_emi_payment_txn_ref
+   on emi_payment (transaction_ref);
+
+-- active-loan counts per type
+create index idx_loans_customer_status_type
+   on loans (customer_id, loan_status, loan_type_id);
@@ -0,0 +1,3 @@
+-- Deleting a loan also removes the duplicate flags that point at it from other
+-- applications (matched_loan_id); without this the purge scans the flag table.
+create index idx_dup_flag_matched_loan on duplicate_application_flags (matched_loan_id);
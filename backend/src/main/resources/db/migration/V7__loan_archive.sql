@@ -0,0 +1,51 @@
+-- Cold storage for CLOSED / REJECTED loans past the retention window (LoanArchiveService).
+-- One row per archived loan, plus one row holding its EMI schedule, penalties,
+-- prepayments and status history as a single gzip-compressed JSON document, so the
+-- hot tables and their indexes only hold the active book.
+
+create table loans_archive (
+    amount decimal(15,2) not null,
+    applied_interest_rate float(53) not null,
+    cibil_score integer not null,
+    paid_emi_count integer not null,
+    tenure_years integer not null,
+    repaid_amount decimal(18,2) not null,
+    archived_at datetime(6) not null,
+    closed_at datetime(6),
+    customer_id bigint not null,
+    id bigint not null,
+    loan_type_id bigint,
+    submitted_at datetime(6),
+    employment_info varchar(100) not null,
+    loan_type_name varchar(100),
+    purpose varchar(300) not null,
+    aadhaar varchar(255) not null,
+    income varchar(255) not null,
+    pan varchar(255) not null,
+    loan_status enum ('APPROVED','CLOSED','REJECTED','SUBMITTED') not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table loans_archive_records (
+    loan_id bigint not null,
+    records longblob not null,
+    primary key (loan_id)
+) engine=InnoDB;
+
+-- a customer's archived loans (loan list, home screen, user deletion)
+create index idx_loans_archive_customer
+   on loans_archive (customer_id);
+
+alter table loans_archive
+   add constraint fk_loans_archive_customer
+   foreign key (customer_id)
+   references users (user_id);
+
+alter table loans_archive_records
+   add constraint fk_loans_archive_records_loan
+   foreign key (loan_id)
+   references loans_archive (id);
+
+-- the archival scan: CLOSED loans by closing date
+create index idx_loans_status_closed
+   on loans (loan_status, closed_at);
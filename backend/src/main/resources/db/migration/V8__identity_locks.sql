@@ -0,0 +1,17 @@
+-- Duplicate PAN / Aadhaar screening locks one row per identity hash before it
+-- probes applicant_identity_hashes, so two applications with the same identity
+-- in flight at once are screened one after the other (DuplicateApplicationDetector).
+-- Identities screened before this migration get their row here.
+
+create table applicant_identity_locks (
+    created_at datetime(6) not null,
+    hash varchar(64) not null,
+    primary key (hash)
+) engine=InnoDB;
+
+insert into applicant_identity_locks (hash, created_at)
+    select hash, min(created_at) from applicant_identity_hashes group by hash;
+
+-- the bloom filter re-reads recently written hashes on every sync
+create index idx_identity_created
+   on applicant_identity_hashes (created_at);
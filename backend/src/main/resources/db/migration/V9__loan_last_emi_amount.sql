@@ -0,0 +1,13 @@
+-- Repayment snapshot: amount of the last unpaid EMI. After a REDUCE_TENURE recast the
+-- last installment is smaller than the others, and prepayment quotes (priced from the
+-- snapshot alone) need both amounts to match what the payoff actually settles.
+
+alter table loans add column last_emi_amount decimal(18,2);
+
+update loans l
+   set last_emi_amount = (
+       select min(e.amount) from emi_payment e
+        where e.loan_id = l.id and e.status <> 'PAID'
+          and e.due_date = (select max(e2.due_date) from emi_payment e2
+                             where e2.loan_id = l.id and e2.status <> 'PAID'))
+ where l.pending_emi_count > 0;
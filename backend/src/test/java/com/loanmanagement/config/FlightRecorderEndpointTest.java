@@ -0,0 +1,97 @@
+package com.loanmanagement.config;
+
+import com.loanmanagement.dto.LoginRequest;
+import com.loanmanagement.model.User;
+import com.loanmanagement.repository.UserRepository;
+import com.loanmanagement.service.AuthService;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.Resource;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("Flight recorder endpoint Tests")
+class FlightRecorderEndpointTest {
+
+    private final FlightRecorderEndpoint endpoint = new FlightRecorderEndpoint(30, 50);
+
+    @AfterEach
+    void tearDown() {
+        if (!"NONE".equals(endpoint.status().get("state"))) {
+            endpoint.stopAndDownload();
+        }
+    }
+
+    @Test
+    @DisplayName("A recording started on demand captures login events with their BCrypt and lookup times")
+    void givenRunningRecording_whenLoginsHappen_thenDownloadedFileHasLoginEvents() throws Exception {
+        UserRepository users = mock(UserRepository.class);
+        PasswordEncoder encoder = mock(PasswordEncoder.class);
+        JwtUtil jwtUtil = mock(JwtUtil.class);
+        User alice = User.builder().username("alice").password("hash").role(User.Role.CUSTOMER).build();
+        when(users.findByUsername("alice")).thenReturn(Optional.of(alice));
+        when(encoder.matches("right", "hash")).thenReturn(true);
+        when(jwtUtil.generateToken(anyString(), anyString())).thenReturn("token");
+        AuthService authService = new AuthService(users, jwtUtil, encoder);
+
+        Map<String, Object> started = endpoint.start(10, null);
+        assertThat(started).containsEntry("state", "RUNNING").containsEntry("settings", "default");
+
+        authService.login(login("alice", "right"));
+        assertThatThrownBy(() -> authService.login(login("alice", "wrong")))
+                .hasMessage("Invalid username or password");
+
+        Resource jfr = endpoint.stopAndDownload();
+        assertThat(endpoint.status()).containsEntry("state", "NONE");
+
+        Path file = Files.createTempFile("login-", ".jfr");
+        try {
+            Files.write(file, jfr.getContentAsByteArray());
+            List<RecordedEvent> logins = RecordingFile.readAllEvents(file).stream()
+                    .filter(e -> e.getEventType().getName().equals("com.loanmanagement.Login"))
+                    .toList();
+            assertThat(logins).extracting(e -> e.getString("outcome")).containsExactly("SUCCESS", "BAD_PASSWORD");
+            assertThat(logins).allSatisfy(e -> {
+                assertThat(e.getString("username")).isEqualTo("alice");
+                assertThat(e.getDuration().toNanos()).isGreaterThanOrEqualTo(e.getLong("passwordCheckTime"));
+            });
+            assertThat(logins.get(1).getLong("tokenTime")).isZero();
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    @DisplayName("Only one recording at a time, with known settings and a capped duration")
+    void givenRecordingRequests_whenInvalidOrConcurrent_thenRejected() {
+        assertThat(endpoint.status()).containsEntry("state", "NONE");
+        assertThatThrownBy(() -> endpoint.start(10, "everything"))
+                .hasMessageContaining("Unknown settings");
+        assertThatThrownBy(endpoint::stopAndDownload).hasMessage("No recording to download");
+
+        assertThat(endpoint.start(3600, "profile"))
+                .containsEntry("settings", "profile")
+                .containsEntry("durationSeconds", 30L);
+        assertThatThrownBy(() -> endpoint.start(10, null))
+                .hasMessage("A recording is already running; stop it first");
+    }
+
+    private static LoginRequest login(String username, String password) {
+        LoginRequest request = new LoginRequest();
+        request.setUsername(username);
+        request.setPassword(password);
+        return request;
+    }
+}
@@ -0,0 +1,72 @@
+package com.loanmanagement.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("Prometheus text endpoint Tests")
+class PrometheusTextEndpointTest {
+
+    private SimpleMeterRegistry registry;
+    private AppMetrics metrics;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        metrics = new AppMetrics(registry);
+    }
+
+    @Test
+    @DisplayName("Timers come out as second-based histograms with cumulative le buckets, tagged by loan type")
+    void givenTimedApplications_whenScraped_thenHistogramPerLoanType() {
+        metrics.loanApplied(metrics.start(), "Home Loan", "APPROVED");
+        metrics.loanApplied(metrics.start(), "Home Loan", "APPROVED");
+        metrics.loanApplied(metrics.start(), null, AppMetrics.FAILURE);
+
+        String text = new PrometheusTextEndpoint(registry).scrape();
+
+        assertThat(text)
+                .contains("# HELP loan_apply_seconds Loan applications, from request to decision\n")
+                .contains("# TYPE loan_apply_seconds histogram\n")
+                .contains("loan_apply_seconds_count{loan_type=\"Home Loan\",outcome=\"APPROVED\"} 2.0\n")
+                .contains("loan_apply_seconds_bucket{loan_type=\"Home Loan\",outcome=\"APPROVED\",le=\"+Inf\"} 2.0\n")
+                .contains("loan_apply_seconds_count{loan_type=\"unknown\",outcome=\"FAILURE\"} 1.0\n");
+        assertThat(text.lines().filter(l -> l.startsWith("# TYPE loan_apply_seconds "))).hasSize(1);
+
+        List<Double> buckets = text.lines()
+                .filter(l -> l.startsWith("loan_apply_seconds_bucket{loan_type=\"Home Loan\""))
+                .map(l -> Double.parseDouble(l.substring(l.lastIndexOf(' ') + 1)))
+                .toList();
+        assertThat(buckets).hasSizeGreaterThan(10).isSorted();
+        assertThat(buckets.get(buckets.size() - 1)).isEqualTo(2.0);
+    }
+
+    @Test
+    @DisplayName("Counters get _total, gauges their value, schedule rows a plain histogram")
+    void givenCounterGaugeAndSummary_whenScraped_thenPrometheusConventions() {
+        Counter.builder("mail.rejected").tag("reason", "say \"hi\"").register(registry).increment(3);
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(4));
+        metrics.monitorMailQueue(pool);
+        metrics.scheduleGenerated(metrics.start(), "Personal Loan", 24);
+
+        String text = PrometheusTextEndpoint.render(registry);
+        pool.shutdown();
+
+        assertThat(text)
+                .contains("# TYPE mail_rejected counter\n")
+                .contains("mail_rejected_total{reason=\"say \\\"hi\\\"\"} 3.0\n")
+                .contains("# TYPE mail_dispatch_queue gauge\n")
+                .contains("mail_dispatch_queue 0.0\n")
+                .contains("loan_schedule_rows_sum{loan_type=\"Personal Loan\"} 24.0\n")
+                .contains("loan_schedule_generate_seconds_count{loan_type=\"Personal Loan\"} 1.0\n");
+    }
+}
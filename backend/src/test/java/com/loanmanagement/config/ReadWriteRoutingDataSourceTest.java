@@ -0,0 +1,171 @@
+package com.loanmanagement.config;
+
+import org.junit.jupiter.api.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Two embedded databases stand in for the primary and the replica; each
+ * knows its own name, so a query shows where a transaction was routed.
+ * Replication is simulated by copying the heartbeat row across.
+ */
+@DisplayName("Read/write routing Tests")
+class ReadWriteRoutingDataSourceTest {
+
+    private static final long MAX_LAG_MS = 2_000;
+    private static final long STICKY_MS = 5_000;
+    private static final AtomicInteger DB_NO = new AtomicInteger();
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+    private JdbcTemplate primaryDb;
+    private JdbcTemplate replicaDb;
+    private ReadWriteRoutingDataSource routing;
+    private JdbcTemplate jdbc;
+    private TransactionTemplate writeTx;
+    private TransactionTemplate readOnlyTx;
+
+    @BeforeEach
+    void setUp() {
+        int n = DB_NO.incrementAndGet();
+        DataSource primary = embedded("primary_" + n);
+        DataSource replica = embedded("replica_" + n);
+        primaryDb = new JdbcTemplate(primary);
+        replicaDb = new JdbcTemplate(replica);
+
+        routing = new ReadWriteRoutingDataSource(primary, replica, MAX_LAG_MS, STICKY_MS, 0, now::get);
+        DataSource app = new LazyConnectionDataSourceProxy(routing);
+        jdbc = new JdbcTemplate(app);
+        DataSourceTransactionManager txManager = new DataSourceTransactionManager(app);
+        writeTx = new TransactionTemplate(txManager);
+        readOnlyTx = new TransactionTemplate(txManager);
+        readOnlyTx.setReadOnly(true);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        SecurityContextHolder.clearContext();
+        routing.destroy();
+    }
+
+    private static DataSource embedded(String name) {
+        DataSource ds = new SimpleDriverDataSource(new org.h2.Driver(),
+                "jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate db = new JdbcTemplate(ds);
+        db.execute("CREATE TABLE whoami (name VARCHAR(20))");
+        db.update("INSERT INTO whoami VALUES (?)", name.substring(0, name.indexOf('_')));
+        db.execute("CREATE TABLE replica_heartbeat (id INT PRIMARY KEY, beat_ms BIGINT NOT NULL)");
+        db.update("INSERT INTO replica_heartbeat VALUES (1, 0)");
+        return ds;
+    }
+
+    // the guard beats, the replica applies everything the primary has, then the guard takes a reading
+    private void replicate() {
+        routing.checkReplicaLag();
+        Long beat = primaryDb.queryForObject("SELECT beat_ms FROM replica_heartbeat WHERE id = 1", Long.class);
+        replicaDb.update("UPDATE replica_heartbeat SET beat_ms = ? WHERE id = 1", beat);
+        routing.checkReplicaLag();
+    }
+
+    private String whoReads() {
+        return readOnlyTx.execute(status -> jdbc.queryForObject("SELECT name FROM whoami", String.class));
+    }
+
+    private String whoWrites() {
+        return writeTx.execute(status -> {
+            jdbc.update("UPDATE whoami SET name = name");
+            return jdbc.queryForObject("SELECT name FROM whoami", String.class);
+        });
+    }
+
+    private static void signIn(String username) {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                username, null, List.of(new SimpleGrantedAuthority("ROLE_CUSTOMER"))));
+    }
+
+    @Test
+    @DisplayName("Read-only transactions use the replica once it has caught up; writes stay on the primary")
+    void givenFreshReplica_whenRouting_thenReadsToReplicaWritesToPrimary() {
+        assertThat(whoReads()).as("replica never heard from yet").isEqualTo("primary");
+
+        replicate();
+
+        assertThat(routing.replicaLagMs()).isZero();
+        assertThat(whoReads()).isEqualTo("replica");
+        assertThat(whoWrites()).isEqualTo("primary");
+        assertThat(jdbc.queryForObject("SELECT name FROM whoami", String.class))
+                .as("outside a transaction").isEqualTo("primary");
+    }
+
+    @Test
+    @DisplayName("A replica more than max-lag behind is skipped until it catches up")
+    void givenLaggingReplica_whenRouting_thenReadsFallBackToPrimary() {
+        replicate();
+        assertThat(whoReads()).isEqualTo("replica");
+
+        now.addAndGet(MAX_LAG_MS + 500);
+        routing.checkReplicaLag(); // nothing replicated since the last beat
+
+        assertThat(routing.replicaLagMs()).isEqualTo(MAX_LAG_MS + 500);
+        assertThat(whoReads()).isEqualTo("primary");
+
+        replicate();
+        assertThat(whoReads()).isEqualTo("replica");
+    }
+
+    @Test
+    @DisplayName("An unreachable replica sends reads to the primary")
+    void givenBrokenReplica_whenCheckingLag_thenReadsFallBackToPrimary() {
+        replicate();
+        replicaDb.execute("DROP TABLE replica_heartbeat");
+
+        routing.checkReplicaLag();
+
+        assertThat(routing.replicaLagMs()).isEqualTo(Long.MAX_VALUE);
+        assertThat(whoReads()).isEqualTo("primary");
+    }
+
+    @Test
+    @DisplayName("A customer reads their own writes from the primary for sticky-ms; others keep using the replica")
+    void givenRecentWrite_whenSameUserReads_thenPrimaryUntilStickyWindowPasses() {
+        replicate();
+
+        signIn("alice");
+        assertThat(whoWrites()).isEqualTo("primary");
+        assertThat(whoReads()).isEqualTo("primary");
+
+        signIn("bob");
+        assertThat(whoReads()).as("someone else").isEqualTo("replica");
+
+        now.addAndGet(STICKY_MS);
+        replicate();
+        signIn("alice");
+        assertThat(whoReads()).isEqualTo("replica");
+    }
+
+    @Test
+    @DisplayName("A rolled-back write does not pin the user to the primary")
+    void givenRolledBackWrite_whenSameUserReads_thenReplica() {
+        replicate();
+        signIn("alice");
+
+        writeTx.executeWithoutResult(status -> {
+            jdbc.update("UPDATE whoami SET name = name");
+            status.setRollbackOnly();
+        });
+
+        assertThat(whoReads()).isEqualTo("replica");
+    }
+}
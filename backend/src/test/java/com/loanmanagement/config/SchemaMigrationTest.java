@@ -0,0 +1,269 @@
+package com.loanmanagement.config;
+
+import com.loanmanagement.model.ApplicantIdentityHash;
+import com.loanmanagement.model.EmiPayment;
+import com.loanmanagement.model.Loan;
+import com.loanmanagement.repository.*;
+import org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy;
+import org.hibernate.jpa.HibernatePersistenceProvider;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.orm.jpa.hibernate.SpringImplicitNamingStrategy;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * The migrations build the schema the entities expect (Hibernate runs in
+ * validate mode here, as in production), and the hot repository queries are
+ * planned on their indexes. The database runs in MySQL mode so the
+ * production scripts are executed unchanged.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:migrations;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=validate",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.loanmanagement.config.SchemaMigrationTest$SqlCapture"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(SchemaMigrator.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("Schema migration Tests")
+class SchemaMigrationTest {
+
+    /** Records every SQL statement Hibernate prepares, so the real query text can be EXPLAINed. */
+    public static class SqlCapture implements StatementInspector {
+        static final List<String> SQL = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            SQL.add(sql);
+            return sql;
+        }
+    }
+
+    @Autowired private SchemaMigrator migrator;
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private EmiPaymentRepository emiPaymentRepository;
+    @Autowired private LoanRepository loanRepository;
+    @Autowired private ChatMessageRepository chatMessageRepository;
+    @Autowired private ApplicationStatusHistoryRepository historyRepository;
+    @Autowired private ApplicantIdentityHashRepository identityHashRepository;
+    @Autowired private PlatformTransactionManager transactionManager;
+
+    @Nested
+    @DisplayName("Migrations")
+    class MigrationTests {
+
+        @Test
+        @DisplayName("A fresh database gets every migration once, in order")
+        void givenFreshDatabase_whenStarted_thenAllVersionsRecorded() throws Exception {
+            assertThat(jdbcTemplate.queryForList("SELECT version FROM schema_version ORDER BY version", Integer.class))
+                    .containsExactlyElementsOf(migrator.load().stream().map(SchemaMigrator.Migration::version).toList());
+            assertThat(migrator.migrate()).isZero();
+        }
+
+        @Test
+        @DisplayName("Editing an applied migration stops startup")
+        void givenChangedChecksum_whenMigrating_thenFails() {
+            Long original = jdbcTemplate.queryForObject("SELECT checksum FROM schema_version WHERE version = 2", Long.class);
+            jdbcTemplate.update("UPDATE schema_version SET checksum = checksum + 1 WHERE version = 2");
+            try {
+                assertThatThrownBy(migrator::migrate)
+                        .isInstanceOf(IllegalStateException.class)
+                        .hasMessage("Migration V2__hot_path_indexes has changed since it was applied; add a new migration instead");
+            } finally {
+                jdbcTemplate.update("UPDATE schema_version SET checksum = ? WHERE version = 2", original);
+            }
+        }
+
+        @Test
+        @DisplayName("A database built by ddl-auto=update is baselined, migrated forward and then validates")
+        void givenLegacySchemaWithoutHistory_whenMigrating_thenBaselinedAndNewerApplied() throws Exception {
+            SimpleDriverDataSource legacy = new SimpleDriverDataSource(new org.h2.Driver(),
+                    "jdbc:h2:mem:legacy;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1", "sa", "");
+            JdbcTemplate jdbc = new JdbcTemplate(legacy);
+            try {
+                // the schema and data of the application before migrations (V1 is that schema, unchanged)
+                try (Connection con = legacy.getConnection()) {
+                    ScriptUtils.executeSqlScript(con, new ClassPathResource("db/migration/V1__baseline_schema.sql"));
+                }
+                jdbc.update("INSERT INTO users (user_id, name, username, email, password, role) "
+                        + "VALUES (1, 'Old', 'old', 'old@example.com', 'x', 'CUSTOMER')");
+                jdbc.update("INSERT INTO loan_types (loan_type_id, name, max_loans_per_customer_per_loan_type, "
+                        + "max_tenure_years) VALUES (1, 'Personal Loan', 2, 5)");
+                jdbc.update("INSERT INTO loans (id, customer_id, loan_type_id, amount, applied_interest_rate, cibil_score, "
+                        + "tenure_years, employment_info, purpose, aadhaar, income, pan, loan_status) "
+                        + "VALUES (1, 1, 1, 30000, 10, 750, 1, 'Salaried', 'Old loan', '123456789012', 'N/A', "
+                        + "'ABCDE1234F', 'APPROVED')");
+                jdbc.update("INSERT INTO emi_payment (loan_id, amount, due_date, status, remaining_balance, created_at, "
+                        + "updated_at) VALUES (1, 10000, DATE '2026-01-05', 'PAID', 20000, CURRENT_DATE, CURRENT_DATE), "
+                        + "(1, 10000, DATE '2026-02-05', 'PENDING', 10000, CURRENT_DATE, CURRENT_DATE), "
+                        + "(1, 9000, DATE '2026-03-05', 'PENDING', 0, CURRENT_DATE, CURRENT_DATE)");
+
+                int ran = new SchemaMigrator(legacy, "classpath:db/migration", 1, true).migrate();
+
+                assertThat(ran).isEqualTo(migrator.load().size() - 1);
+                assertThat(jdbc.queryForList("SELECT description FROM schema_version ORDER BY version", String.class))
+                        .startsWith("<< baseline >> baseline_schema", "hot_path_indexes");
+                assertThat(jdbc.queryForMap("SELECT version, pending_emi_count, paid_emi_count, outstanding_amount, "
+                        + "next_due_date, last_emi_amount FROM loans WHERE id = 1"))
+                        .containsEntry("version", 0L)
+                        .containsEntry("pending_emi_count", 2)
+                        .containsEntry("paid_emi_count", 1)
+                        .containsEntry("outstanding_amount", new BigDecimal("19000.00"))
+                        .containsEntry("next_due_date", java.sql.Date.valueOf("2026-02-05"))
+                        .containsEntry("last_emi_amount", new BigDecimal("9000.00"));
+                assertThat(jdbc.queryForList("SELECT DISTINCT version FROM emi_payment", Long.class)).containsExactly(0L);
+
+                // the entities accept the migrated schema, as ddl-auto=validate does in production
+                LocalContainerEntityManagerFactoryBean validated = new LocalContainerEntityManagerFactoryBean();
+                validated.setDataSource(legacy);
+                validated.setPackagesToScan("com.loanmanagement.model");
+                validated.setPersistenceProvider(new HibernatePersistenceProvider());
+                validated.setJpaPropertyMap(Map.of(
+                        "hibernate.dialect", "org.hibernate.dialect.H2Dialect",
+                        "hibernate.hbm2ddl.auto", "validate",
+                        // Spring Boot's naming, as the application's own EntityManagerFactory uses
+                        "hibernate.physical_naming_strategy", CamelCaseToUnderscoresNamingStrategy.class.getName(),
+                        "hibernate.implicit_naming_strategy", SpringImplicitNamingStrategy.class.getName()));
+                assertThatCode(validated::afterPropertiesSet).doesNotThrowAnyException();
+                validated.destroy();
+            } finally {
+                jdbc.execute("DROP ALL OBJECTS");
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("Hot query indexes")
+    class HotQueryIndexTests {
+
+        @BeforeEach
+        void clearCapture() {
+            SqlCapture.SQL.clear();
+        }
+
+        @Test
+        @DisplayName("Next unpaid EMIs of a loan use (loan_id, status, due_date)")
+        void nextEmisOfLoan() {
+            emiPaymentRepository.findByLoanIdAndStatusOrderByDueDateAsc(1L, EmiPayment.EmiStatus.PENDING, PageRequest.of(0, 3));
+            assertServedBy("idx_emi_loan_status_due", List.of("loan_id", "status"), 1, "'PENDING'", 3);
+        }
+
+        @Test
+        @DisplayName("EMIs by status use (status, due_date)")
+        void emisByStatus() {
+            emiPaymentRepository.findByStatus(EmiPayment.EmiStatus.LATE);
+            assertServedBy("idx_emi_status_due", List.of("status"), "'LATE'");
+        }
+
+        @Test
+        @DisplayName("Per-type active loan count uses (customer_id, loan_status, loan_type_id)")
+        void activeLoansPerType() {
+            loanRepository.countByCustomerAndLoanType(1L, 1L, List.of(Loan.LoanStatus.SUBMITTED, Loan.LoanStatus.APPROVED));
+            assertServedBy("idx_loans_customer_status_type", List.of("customer_id"), 1, 1, "'SUBMITTED'", "'APPROVED'");
+        }
+
+        @Test
+        @DisplayName("Loans by status use (loan_status, submitted_at)")
+        void loansByStatus() {
+            loanRepository.findIdRangeByLoanStatus(Loan.LoanStatus.APPROVED);
+            assertServedBy("idx_loans_status_submitted", List.of("loan_status"), "'APPROVED'");
+        }
+
+        @Test
+        @DisplayName("A customer's chat thread uses (customer_id, id)")
+        void chatThread() {
+            chatMessageRepository.findThreadByCustomerId(1L);
+            assertServedBy("idx_chat_customer_id", List.of("customer_id"), 1);
+        }
+
+        @Test
+        @DisplayName("A loan's status timeline uses (loan_id, updated_at)")
+        void statusTimeline() {
+            historyRepository.findByLoanOrderByUpdatedAtAsc(Loan.builder().id(1L).version(0L).build());
+            assertServedBy("idx_history_loan_updated", List.of("loan_id"), 1);
+        }
+
+        @Test
+        @DisplayName("Duplicate identity probe uses the hash index")
+        void identityProbe() {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                    identityHashRepository.findByHashInLocked(List.of("ab", "cd")));
+            assertServedBy("idx_identity_hash", List.of("hash"), "'ab'", "'cd'");
+        }
+
+        /*
+         * H2's planner weighs only the first indexed column and ignores ORDER BY coverage, so on its
+         * own it often prefers a foreign key's single-column index to the composite one MySQL would
+         * take. The query Hibernate really sends is therefore checked twice: unhinted, the table it
+         * starts from must be read by a seek (tables fetch-joined after it are found by primary key),
+         * and pinned to the index it must bind the filtered columns, which only holds while they are
+         * the index's leading columns.
+         */
+        private void assertServedBy(String index, List<String> boundColumns, Object... params) {
+            String sql = inline(lastSelect(), params);
+
+            String plan = explain(sql);
+            assertThat(plan).doesNotContain("tablescan");
+            assertThat(plan.substring(plan.indexOf("/*"), plan.indexOf("*/"))).as("access to the first table")
+                    .contains(": ");
+
+            String hinted = explain(sql.replaceFirst("(?i)\\bfrom\\s+\\w+\\s+\\w+", "$0 USE INDEX (" + index + ")"));
+            assertThat(hinted).contains("." + index + ":");
+            String seek = hinted.substring(hinted.indexOf("." + index + ":"), hinted.indexOf("*/"));
+            for (String column : boundColumns) {
+                assertThat(seek).as(index + " bound columns").containsPattern("\\b" + column + " (=|in)");
+            }
+        }
+
+        private String lastSelect() {
+            return SqlCapture.SQL.stream().filter(s -> s.trim().toLowerCase().startsWith("select"))
+                    .reduce((first, second) -> second)
+                    .orElseThrow(() -> new AssertionError("no SELECT captured"));
+        }
+
+        // the captured SQL with its parameters inlined in order
+        private String inline(String sql, Object... params) {
+            StringBuilder inlined = new StringBuilder();
+            int p = 0;
+            for (char c : sql.toCharArray()) {
+                if (c == '?') {
+                    assertThat(p).as("parameters for: " + sql).isLessThan(params.length);
+                    inlined.append(params[p++]);
+                } else {
+                    inlined.append(c);
+                }
+            }
+            assertThat(p).as("parameters for: " + sql).isEqualTo(params.length);
+            return inlined.toString();
+        }
+
+        private String explain(String sql) {
+            return String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + sql, String.class)).toLowerCase();
+        }
+    }
+}
@@ -1,8 +1,10 @@
 package com.loanmanagement.service;
 
+import com.loanmanagement.config.AppMetrics;
 import com.loanmanagement.dto.*;
 import com.loanmanagement.model.*;
 import com.loanmanagement.repository.*;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.*;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.params.ParameterizedTest;
@@ -12,6 +14,7 @@ import org.mockito.*;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.function.Supplier;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -28,6 +31,10 @@ class AdminLoanServiceTest {
     @Mock private EmiPaymentRepository emiPaymentRepository;
     @Mock private EmiGenerationService emiGenerationService;
     @Mock private MailService mailService;
+    @Mock private OptimisticLockRetry concurrencyRetry;
+    @Mock private LoanDataPurger loanDataPurger;
+    @Mock private LoanArchiveService archiveService;
+    @Spy private AppMetrics metrics = new AppMetrics(new SimpleMeterRegistry());
 
     @InjectMocks
     private AdminLoanService adminLoanService;
@@ -68,6 +75,10 @@ class AdminLoanServiceTest {
                 .loanStatus(Loan.LoanStatus.SUBMITTED)
                 .submittedAt(LocalDateTime.now())
                 .build();
+
+        // run the retried unit of work inline
+        lenient().when(concurrencyRetry.execute(any()))
+                .thenAnswer(inv -> inv.<Supplier<?>>getArgument(0).get());
     }
 
     // =============================
@@ -80,24 +91,24 @@ class AdminLoanServiceTest {
         @Test
         @DisplayName("Should succeed when loans exist")
         void givenLoansExist_whenGetAllLoans_thenReturnLoanSummaries() {
-            when(loanRepository.findAll()).thenReturn(List.of(loan));
+            when(loanRepository.findAllWithCustomerAndLoanType()).thenReturn(List.of(loan));
 
             List<AdminLoanSummaryDto> result = adminLoanService.getAllLoans();
 
             assertThat(result).hasSize(1);
             assertThat(result.get(0).getLoanType()).isEqualTo("Home Loan");
-            verify(loanRepository).findAll();
+            verify(loanRepository).findAllWithCustomerAndLoanType();
         }
 
         @Test
         @DisplayName("Should return empty list when no loans exist")
         void givenNoLoans_whenGetAllLoans_thenReturnEmptyList() {
-            when(loanRepository.findAll()).thenReturn(Collections.emptyList());
+            when(loanRepository.findAllWithCustomerAndLoanType()).thenReturn(Collections.emptyList());
 
             List<AdminLoanSummaryDto> result = adminLoanService.getAllLoans();
 
             assertThat(result).isEmpty();
-            verify(loanRepository).findAll();
+            verify(loanRepository).findAllWithCustomerAndLoanType();
         }
     }
 
@@ -161,11 +172,10 @@ class AdminLoanServiceTest {
         @DisplayName("Should close loan, mark EMIs paid, and send mail")
         void givenLoan_whenClose_thenMarkEmisPaidAndSendMail() {
             when(loanRepository.findById(100L)).thenReturn(Optional.of(loan));
-
-            List<EmiPayment> emis = List.of(
-                    EmiPayment.builder().amount(BigDecimal.valueOf(1000)).status(EmiPayment.EmiStatus.PENDING).build()
-            );
-            when(emiPaymentRepository.findByLoanIdOrderByDueDateAsc(100L)).thenReturn(emis);
+            when(emiPaymentRepository.markUnpaidAsPaid(eq(100L), eq(EmiPayment.EmiStatus.PAID), any(), startsWith("CLOSE-")))
+                    .thenReturn(3);
+            loan.setPendingEmiCount(3); loan.setPaidEmiCount(9);
+            when(emiPaymentRepository.sumAmountByLoanId(100L)).thenReturn(BigDecimal.valueOf(1000));
 
             LoanStatusUpdateRequest request = new LoanStatusUpdateRequest();
             request.setStatus(Loan.LoanStatus.CLOSED);
@@ -174,8 +184,11 @@ class AdminLoanServiceTest {
             adminLoanService.updateLoanStatus(100L, request);
 
             assertThat(loan.getLoanStatus()).isEqualTo(Loan.LoanStatus.CLOSED);
-            verify(emiPaymentRepository).saveAll(emis);
-            verify(mailService).sendLoanClosedText(eq(loan), any(BigDecimal.class));
+            verify(emiPaymentRepository).markUnpaidAsPaid(eq(100L), eq(EmiPayment.EmiStatus.PAID), any(), startsWith("CLOSE-"));
+            verify(mailService).sendLoanClosedText(loan, BigDecimal.valueOf(1000));
+            assertThat(loan)
+                    .extracting(Loan::getPendingEmiCount, Loan::getPaidEmiCount, Loan::getNextDueDate)
+                    .containsExactly(0, 12, null);
             verify(historyRepository).save(any(ApplicationStatusHistory.class));
         }
 
@@ -214,9 +227,7 @@ class AdminLoanServiceTest {
 
             adminLoanService.deleteLoan(100L);
 
-            verify(emiPaymentRepository).deleteAllByLoan(loan);
-            verify(historyRepository).deleteAllByLoan(loan);
-            verify(loanRepository).delete(loan);
+            verify(loanDataPurger).purgeLoans(List.of(100L));
         }
 
         @Test
@@ -230,7 +241,7 @@ class AdminLoanServiceTest {
                     .hasMessageContaining("Loan can only be deleted");
 
             verify(loanRepository).findById(100L);
-            verifyNoInteractions(emiPaymentRepository, historyRepository);
+            verifyNoInteractions(emiPaymentRepository, historyRepository, loanDataPurger);
         }
     }
 }
@@ -2,6 +2,7 @@ package com.loanmanagement.service;
 
 import com.loanmanagement.dto.LoanTypeDto;
 import com.loanmanagement.model.LoanType;
+import com.loanmanagement.repository.LoanRepository;
 import com.loanmanagement.repository.LoanTypeRepository;
 import org.junit.jupiter.api.*;
 import org.junit.jupiter.api.Nested;
@@ -19,6 +20,9 @@ class AdminLoanTypeServiceTest {
     @Mock
     private LoanTypeRepository loanTypeRepository;
 
+    @Mock
+    private LoanRepository loanRepository;
+
     @InjectMocks
     private AdminLoanTypeService adminLoanTypeService;
 
@@ -195,8 +199,8 @@ class AdminLoanTypeServiceTest {
         @Test
         @DisplayName("Should throw when loan type has existing loans")
         void givenLoanTypeWithLoans_whenDelete_thenThrow() {
-            sampleLoanType.setLoans(List.of(new com.loanmanagement.model.Loan()));
             when(loanTypeRepository.findById(1L)).thenReturn(Optional.of(sampleLoanType));
+            when(loanRepository.existsByLoanTypeLoanTypeId(1L)).thenReturn(true);
 
             assertThatThrownBy(() -> adminLoanTypeService.deleteLoanType(1L))
                     .isInstanceOf(RuntimeException.class)
@@ -0,0 +1,310 @@
+package com.loanmanagement.service;
+
+import com.loanmanagement.dto.UserManagementDto;
+import com.loanmanagement.dto.UserManagementPageDto;
+import com.loanmanagement.dto.UserPurgeJobDto;
+import com.loanmanagement.model.*;
+import com.loanmanagement.repository.*;
+import com.loanmanagement.support.QueryBudget;
+import com.loanmanagement.support.QueryCounter;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * The paged user management list against a real (in-memory) database:
+ * filters, sorting on the aggregated loan count, and the statement count;
+ * and user deletion, inline and as a background purge.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false",
+        "purge.inline-max-emis=6",
+        "purge.chunk-loans=1",
+        "purge.chunk-rows=2"
+})
+@Import({AdminUserManagementService.class, LoanDataPurger.class, UserPurgeService.class, QueryCounter.Config.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("AdminUserManagementService Tests")
+class AdminUserManagementServiceTest {
+
+    @Autowired private AdminUserManagementService userManagementService;
+    @Autowired private UserRepository userRepository;
+    @Autowired private LoanTypeRepository loanTypeRepository;
+    @Autowired private LoanRepository loanRepository;
+    @Autowired private JdbcTemplate jdbcTemplate;
+
+    private User admin;
+    private User alice;
+    private User bob;
+    private User carol;
+    private LoanType type;
+
+    @BeforeEach
+    void setUp() {
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 10, 0);
+        admin = saveUser("admin_1", "admin1@example.com", User.Role.ADMIN, start);
+        alice = saveUser("alice", "alice@example.com", User.Role.CUSTOMER, start.plusDays(1));
+        bob = saveUser("bob", "bob@corp.example", User.Role.CUSTOMER, start.plusDays(2));
+        carol = saveUser("carol_b", "carol@example.com", User.Role.CUSTOMER, start.plusDays(3));
+
+        type = loanTypeRepository.save(LoanType.builder()
+                .name("Personal Loan")
+                .interestRate(new BigDecimal("10.00"))
+                .maxTenureYears(5)
+                .maxLoanAmount(new BigDecimal("500000.00"))
+                .penaltyRatePercent(new BigDecimal("1.00"))
+                .build());
+
+        saveLoan(bob, type, Loan.LoanStatus.SUBMITTED);
+        saveLoan(bob, type, Loan.LoanStatus.APPROVED);
+        saveLoan(bob, type, Loan.LoanStatus.CLOSED);
+        saveLoan(carol, type, Loan.LoanStatus.APPROVED);
+        saveLoan(carol, type, Loan.LoanStatus.REJECTED);
+    }
+
+    @AfterEach
+    void tearDown() {
+        for (String table : List.of("penalties", "loan_prepayment", "duplicate_application_flags",
+                "applicant_identity_hashes", "applicant_identity_locks", "chat_messages", "emi_payment",
+                "application_status_history", "loans", "loan_types", "otp_log", "loans_archive_records", "loans_archive", "users")) {
+            jdbcTemplate.update("DELETE FROM " + table);
+        }
+    }
+
+    @Test
+    @DisplayName("Customers carry their SUBMITTED + APPROVED count, admins none")
+    void givenMixedUsers_whenListed_thenActiveCountsPerCustomer() {
+        UserManagementPageDto page = userManagementService.getUsersPage(null, null, "userId", "asc", 0, 20);
+
+        assertThat(page.getUsers())
+                .extracting(UserManagementDto::getUsername, UserManagementDto::getRole, UserManagementDto::getActiveLoanCount)
+                .containsExactly(
+                        tuple("admin_1", "ADMIN", null),
+                        tuple("alice", "CUSTOMER", 0L),
+                        tuple("bob", "CUSTOMER", 2L),
+                        tuple("carol_b", "CUSTOMER", 1L));
+        assertThat(page.getTotalElements()).isEqualTo(4);
+        assertThat(page.getUsers().get(1).getCreatedAt()).isEqualTo(alice.getCreatedAt());
+    }
+
+    @Test
+    @DisplayName("Sorting by active loan count pages through everybody once, ties in id order")
+    void givenSortByActiveLoans_whenPaged_thenOrderedAndComplete() {
+        UserManagementPageDto first = userManagementService.getUsersPage(null, "CUSTOMER", "activeLoanCount", "desc", 0, 2);
+        UserManagementPageDto second = userManagementService.getUsersPage(null, "CUSTOMER", "activeLoanCount", "desc", 1, 2);
+
+        assertThat(first.getUsers()).extracting(UserManagementDto::getUsername).containsExactly("bob", "carol_b");
+        assertThat(second.getUsers()).extracting(UserManagementDto::getUsername).containsExactly("alice");
+        assertThat(first.getTotalElements()).isEqualTo(3);
+        assertThat(first.getTotalPages()).isEqualTo(2);
+        assertThat(second.getPage()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Search matches a username or email prefix, or a user id")
+    void givenSearch_whenListed_thenPrefixOrIdMatches() {
+        assertThat(userManagementService.getUsersPage("bo", null, "userId", "asc", 0, 20).getUsers())
+                .extracting(UserManagementDto::getUsername).containsExactly("bob");
+        assertThat(userManagementService.getUsersPage("carol@", null, "userId", "asc", 0, 20).getUsers())
+                .extracting(UserManagementDto::getUsername).containsExactly("carol_b");
+        assertThat(userManagementService.getUsersPage("U" + alice.getUserId(), null, "userId", "asc", 0, 20).getUsers())
+                .extracting(UserManagementDto::getUsername).containsExactly("alice");
+        assertThat(userManagementService.getUsersPage("example", null, "userId", "asc", 0, 20).getUsers()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("LIKE wildcards in the search are matched literally")
+    void givenWildcardSearch_whenListed_thenLiteral() {
+        assertThat(userManagementService.getUsersPage("carol_", null, "userId", "asc", 0, 20).getUsers())
+                .extracting(UserManagementDto::getUsername).containsExactly("carol_b");
+        assertThat(userManagementService.getUsersPage("a_", null, "userId", "asc", 0, 20).getUsers()).isEmpty();
+        assertThat(userManagementService.getUsersPage("%", null, "userId", "asc", 0, 20).getUsers()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Sort by registration date, newest first")
+    void givenSortByCreatedAt_whenListed_thenNewestFirst() {
+        assertThat(userManagementService.getUsersPage(null, "ALL", "createdAt", "desc", 0, 20).getUsers())
+                .extracting(UserManagementDto::getUsername).containsExactly("carol_b", "bob", "alice", "admin_1");
+    }
+
+    @Test
+    @DisplayName("A page costs the page query plus a count, which is skipped when the first page is not full")
+    void givenPagedList_whenLoaded_thenAtMostTwoStatements() {
+        QueryBudget.of("full page", () -> userManagementService.getUsersPage(null, null, "activeLoanCount", "desc", 0, 3))
+                .exactly(2);
+        QueryBudget.of("partial page", () -> userManagementService.getUsersPage("b", "CUSTOMER", "createdAt", "asc", 0, 3))
+                .exactly(1);
+    }
+
+    @Test
+    @DisplayName("Unknown sort fields, roles and page sizes are rejected")
+    void givenBadParameters_whenListed_thenRejected() {
+        assertThatThrownBy(() -> userManagementService.getUsersPage(null, null, "password", "asc", 0, 20))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessage("Cannot sort users by password");
+        assertThatThrownBy(() -> userManagementService.getUsersPage(null, "ROOT", "userId", "asc", 0, 20))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessage("Invalid role: ROOT");
+        assertThatThrownBy(() -> userManagementService.getUsersPage(null, null, "userId", "asc", 0, 101))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessage("Page size must be between 1 and 100");
+    }
+
+    @Nested
+    @DisplayName("Deleting users")
+    class DeleteUserTests {
+
+        @Test
+        @DisplayName("A customer goes with every loan record, chat and OTP; other customers' data stays")
+        void givenClosedCustomer_whenDeleted_thenEverythingOfTheirsRemoved() {
+            Long loanId = saveClosedLoanWithRecords(alice, 3);
+            List<Long> carolLoans = loanRepository.findIdsByCustomerId(carol.getUserId());
+            Long carolLoan = carolLoans.get(0);
+            insert("INSERT INTO duplicate_application_flags (created_at, customer_id, loan_id, matched_customer_id, "
+                    + "matched_loan_id, kind, status) VALUES (CURRENT_TIMESTAMP, ?, ?, ?, ?, 'PAN', 'OPEN')",
+                    carol.getUserId(), carolLoan, alice.getUserId(), loanId);
+            insert("INSERT INTO chat_messages (customer_id, admin_id, sender_type, message, sent_at) "
+                    + "VALUES (?, NULL, 'CUSTOMER', 'Hi', CURRENT_TIMESTAMP)", alice.getUserId());
+            insert("INSERT INTO otp_log (user_user_id, otp, verified) VALUES (?, '123456', FALSE)", alice.getUserId());
+
+            String message = userManagementService.deleteUserWithoutKeyCheck(alice.getUserId());
+
+            assertThat(message).isEqualTo("User (customer) deleted successfully");
+            assertThat(userRepository.existsById(alice.getUserId())).isFalse();
+            assertThat(loanRepository.existsById(loanId)).isFalse();
+            for (String table : List.of("emi_payment", "penalties", "loan_prepayment",
+                    "application_status_history", "applicant_identity_hashes", "duplicate_application_flags",
+                    "chat_messages", "otp_log")) {
+                assertThat(rows(table)).as(table).isZero();
+            }
+            assertThat(loanRepository.findIdsByCustomerId(carol.getUserId())).isEqualTo(carolLoans);
+        }
+
+        @Test
+        @DisplayName("The statement count does not grow with the number of loans or EMIs")
+        void givenMoreLoans_whenDeleted_thenSameStatementCount() {
+            User dave = saveUser("dave", "dave@example.com", User.Role.CUSTOMER, LocalDateTime.now());
+            User erin = saveUser("erin", "erin@example.com", User.Role.CUSTOMER, LocalDateTime.now());
+            saveClosedLoanWithRecords(dave, 1);
+            saveClosedLoanWithRecords(erin, 3);
+            saveClosedLoanWithRecords(erin, 3);
+
+            int oneLoan = QueryBudget.of("one loan", () -> userManagementService.deleteUserWithoutKeyCheck(dave.getUserId())).count();
+            QueryBudget.of("two loans", () -> userManagementService.deleteUserWithoutKeyCheck(erin.getUserId()))
+                    .exactly(oneLoan);
+        }
+
+        @Test
+        @DisplayName("An admin's chat replies stay in the thread without a sender")
+        void givenAdminWithReplies_whenDeleted_thenRepliesKept() {
+            insert("INSERT INTO chat_messages (customer_id, admin_id, sender_type, message, sent_at) "
+                    + "VALUES (?, ?, 'ADMIN', 'Hello', CURRENT_TIMESTAMP)", alice.getUserId(), admin.getUserId());
+
+            assertThat(userManagementService.deleteUserWithoutKeyCheck(admin.getUserId()))
+                    .isEqualTo("User (admin) deleted successfully");
+
+            assertThat(jdbcTemplate.queryForList("SELECT admin_id FROM chat_messages WHERE customer_id = ?",
+                    alice.getUserId())).singleElement().satisfies(row -> assertThat(row.get("admin_id")).isNull());
+        }
+
+        @Test
+        @DisplayName("A long repayment history is purged by a background job that reports progress")
+        void givenManyEmis_whenDeleted_thenPurgedInBackground() throws InterruptedException {
+            User frank = saveUser("frank", "frank@example.com", User.Role.CUSTOMER, LocalDateTime.now());
+            saveClosedLoanWithRecords(frank, 4);
+            saveClosedLoanWithRecords(frank, 4);
+
+            String message = userManagementService.deleteUserWithoutKeyCheck(frank.getUserId());
+
+            assertThat(message).contains("8 EMI records").contains("background");
+            UserPurgeJobDto job = userManagementService.getPurgeJobs().get(0);
+            for (int i = 0; i < 100 && job.getFinishedAt() == null; i++) {
+                Thread.sleep(50);
+                job = userManagementService.getPurgeJob(job.getJobId());
+            }
+            assertThat(job.getState()).isEqualTo("COMPLETED");
+            assertThat(job.getUserId()).isEqualTo(frank.getUserId());
+            assertThat(job.getLoansDeleted()).isEqualTo(job.getLoansTotal()).isEqualTo(2);
+            assertThat(job.getEmisDeleted()).isEqualTo(job.getEmisTotal()).isEqualTo(8);
+            assertThat(userRepository.existsById(frank.getUserId())).isFalse();
+            assertThat(rows("emi_payment")).isZero();
+        }
+
+        @Test
+        @DisplayName("Customers with active loans are not deleted")
+        void givenActiveLoans_whenDeleted_thenRejected() {
+            assertThatThrownBy(() -> userManagementService.deleteUserWithoutKeyCheck(bob.getUserId()))
+                    .isInstanceOf(RuntimeException.class)
+                    .hasMessage("Cannot delete customer with active loans.");
+            assertThat(loanRepository.findIdsByCustomerId(bob.getUserId())).hasSize(3);
+        }
+    }
+
+    // a CLOSED loan with EMIs, a penalty, a prepayment, status history and an identity hash
+    private Long saveClosedLoanWithRecords(User customer, int emis) {
+        Long loanId = saveLoan(customer, type, Loan.LoanStatus.CLOSED).getId();
+        for (int i = 0; i < emis; i++) {
+            insert("INSERT INTO emi_payment (loan_id, amount, due_date, remaining_balance, created_at, updated_at, "
+                    + "version, status) VALUES (?, 1000, CURRENT_DATE, 0, CURRENT_DATE, CURRENT_DATE, 0, 'PAID')", loanId);
+        }
+        Long emiId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM emi_payment WHERE loan_id = ?", Long.class, loanId);
+        insert("INSERT INTO penalties (emi_id, amount, reason) VALUES (?, 50, 'Late')", emiId);
+        insert("INSERT INTO loan_prepayment (loan_id, amount, mode, principal_before, principal_after, payment_date, "
+                + "created_at) VALUES (?, 500, 'REDUCE_EMI', 1000, 500, CURRENT_DATE, CURRENT_TIMESTAMP)", loanId);
+        insert("INSERT INTO application_status_history (loan_id, status, updated_at) "
+                + "VALUES (?, 'CLOSED', CURRENT_TIMESTAMP)", loanId);
+        insert("INSERT INTO applicant_identity_hashes (loan_id, customer_id, hash, kind, created_at) "
+                + "VALUES (?, ?, 'h', 'PAN', CURRENT_TIMESTAMP)", loanId, customer.getUserId());
+        return loanId;
+    }
+
+    private void insert(String sql, Object... args) {
+        jdbcTemplate.update(sql, args);
+    }
+
+    private long rows(String table) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Long.class);
+    }
+
+    private User saveUser(String username, String email, User.Role role, LocalDateTime createdAt) {
+        return userRepository.save(User.builder()
+                .username(username)
+                .name(username)
+                .email(email)
+                .password("x")
+                .role(role)
+                .createdAt(createdAt)
+                .build());
+    }
+
+    private Loan saveLoan(User customer, LoanType type, Loan.LoanStatus status) {
+        return loanRepository.save(Loan.builder()
+                .customer(customer)
+                .loanType(type)
+                .appliedInterestRate(10.0)
+                .amount(new BigDecimal("50000.00"))
+                .purpose("User management")
+                .income("₹30,000 - ₹70,000")
+                .employmentInfo("Software (IT)")
+                .aadhaar("123456789012")
+                .pan("ABCDE1234F")
+                .cibilScore(750)
+                .tenureYears(1)
+                .loanStatus(status)
+                .submittedAt(LocalDateTime.now())
+                .build());
+    }
+}
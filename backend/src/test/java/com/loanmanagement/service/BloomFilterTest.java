@@ -0,0 +1,61 @@
+package com.loanmanagement.service;
+
+import com.loanmanagement.model.ApplicantIdentityHash.IdentityKind;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("BloomFilter Tests")
+class BloomFilterTest {
+
+    @Test
+    @DisplayName("Every inserted key is found; unseen keys hit at about the configured rate")
+    void givenSizedFilter_whenFilled_thenNoFalseNegativesAndBoundedFalsePositives() {
+        BloomFilter bloom = new BloomFilter(10_000, 0.01);
+        SplittableRandom random = new SplittableRandom(42);
+        long[][] keys = new long[10_000][];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = new long[]{random.nextLong(), random.nextLong() | 1};
+            bloom.put(keys[i][0], keys[i][1]);
+        }
+
+        for (long[] key : keys) {
+            assertThat(bloom.mightContain(key[0], key[1])).isTrue();
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (bloom.mightContain(random.nextLong(), random.nextLong() | 1)) falsePositives++;
+        }
+        assertThat(falsePositives / 100_000.0).isLessThan(0.02);
+        assertThat(bloom.probes()).isEqualTo(7);
+    }
+
+    // Manual latency benchmark: mvn test -Dtest=BloomFilterTest -Ddetector.bench=true
+    @Test
+    @EnabledIfSystemProperty(named = "detector.bench", matches = "true")
+    @DisplayName("Identity pre-check latency benchmark (HMAC + bloom)")
+    void identityPreCheckBenchmark() {
+        DuplicateApplicationDetector detector = new DuplicateApplicationDetector(
+                null, null, null, "bench-key", 1_000_000, 0.01, 5000, 300000);
+
+        int warmup = 200_000, runs = 2_000_000;
+        long sink = 0;
+        for (int i = 0; i < warmup; i++) {
+            if (detector.mightBeKnown(IdentityKind.PAN, "ABCDE" + (1000 + i % 9000) + "F")) sink++;
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < runs; i++) {
+            if (detector.mightBeKnown(IdentityKind.PAN, "ABCDE" + (1000 + i % 9000) + "F")) sink++;
+            if (detector.mightBeKnown(IdentityKind.AADHAAR, Long.toString(100_000_000_000L + i))) sink++;
+        }
+        long elapsed = System.nanoTime() - start;
+
+        System.out.println("[BENCH] duplicate pre-check (PAN + Aadhaar): " + (elapsed / runs) + " ns/application"
+                + " (bloom hits " + sink + ")");
+        assertThat(elapsed / runs).isLessThan(100_000);
+    }
+}
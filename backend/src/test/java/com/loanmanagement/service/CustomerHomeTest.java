@@ -0,0 +1,191 @@
+package com.loanmanagement.service;
+
+import com.loanmanagement.config.AppMetrics;
+import com.loanmanagement.dto.CustomerHomeDto;
+import com.loanmanagement.dto.CustomerLoanSummaryDto;
+import com.loanmanagement.dto.LoanTypeActiveCountDto;
+import com.loanmanagement.model.*;
+import com.loanmanagement.repository.*;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false"
+})
+@Import({CustomerLoanService.class, LoanDecisionEngine.class, DuplicateApplicationDetector.class, EmiGenerationService.class, OptimisticLockRetry.class, LoanArchiveService.class, LoanArchiver.class, LoanDataPurger.class, AppMetrics.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("Customer home summary Tests")
+class CustomerHomeTest {
+
+    @Autowired private CustomerLoanService loanService;
+    @Autowired private UserRepository userRepository;
+    @Autowired private LoanTypeRepository loanTypeRepository;
+    @Autowired private LoanRepository loanRepository;
+    @Autowired private EmiPaymentRepository emiPaymentRepository;
+
+    @MockBean private MailService mailService;
+
+    private User customer;
+    private LoanType personal;
+    private LoanType home;
+
+    @BeforeEach
+    void setUp() {
+        customer = saveUser("home_user");
+        personal = saveType("Personal Loan");
+        home = saveType("Home Loan");
+    }
+
+    @AfterEach
+    void tearDown() {
+        emiPaymentRepository.deleteAll();
+        loanRepository.deleteAll();
+        loanTypeRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Loans, per-type active counts and the soonest EMI come back together")
+    void givenMixedLoans_whenHome_thenSummaryBuilt() {
+        Loan early = createLoan(customer, personal, Loan.LoanStatus.APPROVED, LocalDate.of(2025, 3, 5), 3);
+        Loan late = createLoan(customer, personal, Loan.LoanStatus.APPROVED, LocalDate.of(2025, 4, 1), 2);
+        Loan submitted = createLoan(customer, home, Loan.LoanStatus.SUBMITTED, null, 0);
+        createLoan(customer, home, Loan.LoanStatus.CLOSED, null, 0);
+        createLoan(saveUser("someone_else"), home, Loan.LoanStatus.APPROVED, LocalDate.of(2025, 1, 1), 1);
+
+        // first installment of the early loan already paid: next due is the second
+        EmiPayment paid = emiPaymentRepository.findByLoanOrderByDueDateAsc(early).get(0);
+        paid.setStatus(EmiPayment.EmiStatus.PAID);
+        emiPaymentRepository.save(paid);
+        early.setNextDueDate(LocalDate.of(2025, 4, 5));
+        early.setPendingEmiCount(2);
+        early.setPaidEmiCount(1);
+        early.setOutstandingAmount(new BigDecimal("20000.00"));
+        loanRepository.save(early);
+
+        CustomerHomeDto home = loanService.getCustomerHome(customer);
+
+        assertThat(home.getLoans()).hasSize(4);
+        assertThat(home.getActiveLoans()).isEqualTo(3);
+        assertThat(home.getActiveLoanCounts())
+                .extracting(LoanTypeActiveCountDto::getLoanTypeName, LoanTypeActiveCountDto::getCount)
+                .containsExactlyInAnyOrder(tuple("Personal Loan", 2), tuple("Home Loan", 1));
+        assertThat(home.getTotalOutstanding()).isEqualByComparingTo("40000");
+
+        CustomerLoanSummaryDto earlySummary = home.getLoans().stream()
+                .filter(l -> l.getLoanId().equals(early.getId())).findFirst().orElseThrow();
+        assertThat(earlySummary.getStatus()).isEqualTo("APPROVED");
+        assertThat(earlySummary.getRemainingEmis()).isEqualTo(2);
+        assertThat(earlySummary.getPaidEmis()).isEqualTo(1);
+        assertThat(earlySummary.getNextDueDate()).isEqualTo(LocalDate.of(2025, 4, 5));
+        assertThat(earlySummary.getNextEmiAmount()).isEqualByComparingTo("10000");
+
+        CustomerLoanSummaryDto submittedSummary = home.getLoans().stream()
+                .filter(l -> l.getLoanId().equals(submitted.getId())).findFirst().orElseThrow();
+        assertThat(submittedSummary.getNextEmiId()).isNull();
+
+        assertThat(home.getNextDueLoanId()).isEqualTo(late.getId());
+        assertThat(home.getNextDueDate()).isEqualTo(LocalDate.of(2025, 4, 1));
+    }
+
+    @Test
+    @DisplayName("Grouped active-loan counts skip closed loans and other customers")
+    void givenMixedLoans_whenCounted_thenGroupedPerType() {
+        createLoan(customer, personal, Loan.LoanStatus.APPROVED, LocalDate.of(2025, 3, 5), 1);
+        createLoan(customer, personal, Loan.LoanStatus.SUBMITTED, null, 0);
+        createLoan(customer, home, Loan.LoanStatus.SUBMITTED, null, 0);
+        createLoan(customer, home, Loan.LoanStatus.CLOSED, null, 0);
+        createLoan(customer, home, Loan.LoanStatus.REJECTED, null, 0);
+        createLoan(saveUser("someone_else"), home, Loan.LoanStatus.APPROVED, LocalDate.of(2025, 1, 1), 1);
+
+        assertThat(loanService.getActiveLoanCountsDetailed(customer))
+                .extracting(LoanTypeActiveCountDto::getLoanTypeId, LoanTypeActiveCountDto::getLoanTypeName,
+                        LoanTypeActiveCountDto::getCount)
+                .containsExactlyInAnyOrder(
+                        tuple(personal.getLoanTypeId(), "Personal Loan", 2),
+                        tuple(home.getLoanTypeId(), "Home Loan", 1));
+        assertThat(loanService.getActiveLoanCounts(customer))
+                .containsOnly(entry(personal.getLoanTypeId(), 2), entry(home.getLoanTypeId(), 1));
+    }
+
+    @Test
+    @DisplayName("A customer without loans gets an empty summary")
+    void givenNoLoans_whenHome_thenEmpty() {
+        CustomerHomeDto home = loanService.getCustomerHome(customer);
+
+        assertThat(home.getLoans()).isEmpty();
+        assertThat(home.getActiveLoanCounts()).isEmpty();
+        assertThat(home.getNextDueDate()).isNull();
+        assertThat(home.getTotalOutstanding()).isEqualByComparingTo("0");
+    }
+
+    private User saveUser(String username) {
+        return userRepository.save(User.builder()
+                .username(username)
+                .name(username)
+                .email(username + "@example.com")
+                .password("x")
+                .role(User.Role.CUSTOMER)
+                .createdAt(LocalDateTime.now())
+                .build());
+    }
+
+    private LoanType saveType(String name) {
+        return loanTypeRepository.save(LoanType.builder()
+                .name(name)
+                .interestRate(new BigDecimal("10.00"))
+                .maxTenureYears(5)
+                .maxLoanAmount(new BigDecimal("500000.00"))
+                .penaltyRatePercent(new BigDecimal("1.00"))
+                .build());
+    }
+
+    private Loan createLoan(User owner, LoanType type, Loan.LoanStatus status, LocalDate firstDue, int installments) {
+        Loan created = loanRepository.save(Loan.builder()
+                .customer(owner)
+                .loanType(type)
+                .appliedInterestRate(10.0)
+                .amount(new BigDecimal("30000.00"))
+                .purpose("Home screen")
+                .income("₹30,000 - ₹70,000")
+                .employmentInfo("Software (IT)")
+                .aadhaar("123456789012")
+                .pan("ABCDE1234F")
+                .cibilScore(750)
+                .tenureYears(1)
+                .loanStatus(status)
+                .submittedAt(LocalDateTime.now())
+                .pendingEmiCount(installments)
+                .outstandingAmount(new BigDecimal(10000L * installments).setScale(2))
+                .nextDueDate(firstDue)
+                .build());
+
+        List<EmiPayment> schedule = new ArrayList<>();
+        for (int i = 0; i < installments; i++) {
+            schedule.add(EmiPayment.builder()
+                    .loan(created)
+                    .amount(new BigDecimal("10000.00"))
+                    .dueDate(firstDue.plusMonths(i))
+                    .status(EmiPayment.EmiStatus.PENDING)
+                    .remainingBalance(new BigDecimal(10000L * (installments - i - 1)).setScale(2))
+                    .build());
+        }
+        emiPaymentRepository.saveAll(schedule);
+        return created;
+    }
+}
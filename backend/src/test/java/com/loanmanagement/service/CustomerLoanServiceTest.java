@@ -1,20 +1,27 @@
 package com.loanmanagement.service;
 
+import com.loanmanagement.config.AppMetrics;
+import com.loanmanagement.dto.EmiBatchPaymentRequest;
+import com.loanmanagement.dto.EmiBatchPaymentResultDto;
 import com.loanmanagement.dto.LoanRequestDto;
 import com.loanmanagement.dto.LoanStatusHistoryDto;
 import com.loanmanagement.dto.LoanTypeActiveCountDto;
 import com.loanmanagement.model.*;
 import com.loanmanagement.model.Loan.LoanStatus;
 import com.loanmanagement.repository.*;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.*;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.function.Supplier;
 import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.*;
@@ -34,6 +41,13 @@ class CustomerLoanServiceTest {
     @Mock private ApplicationStatusHistoryRepository statusHistoryRepository;
     @Mock private EmiPaymentRepository emiPaymentRepository;
     @Mock private MailService mailService;
+    @Mock private OptimisticLockRetry concurrencyRetry;
+    @Mock private UserRepository userRepository;
+    @Mock private LoanDecisionEngine decisionEngine;
+    @Mock private DuplicateApplicationDetector duplicateDetector;
+    @Mock private EmiGenerationService emiGenerationService;
+    @Mock private LoanArchiveService archiveService;
+    @Spy private AppMetrics metrics = new AppMetrics(new SimpleMeterRegistry());
 
     @InjectMocks
     private CustomerLoanService service;
@@ -65,6 +79,10 @@ class CustomerLoanServiceTest {
         request.setAadhaar("123456789012");
         request.setPan("ABCDE1234F");
         request.setCibilScore(750);
+
+        // run the retried unit of work inline
+        lenient().when(concurrencyRetry.execute(any()))
+                .thenAnswer(inv -> inv.<Supplier<?>>getArgument(0).get());
     }
 
     private void mockValidLoanType() {
@@ -80,6 +98,8 @@ class CustomerLoanServiceTest {
         @DisplayName("Should create loan successfully when inputs are valid")
         void givenValidRequest_whenApplyLoan_thenLoanSubmitted() {
             mockValidLoanType();
+            when(userRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(customer));
+            when(loanRepository.countByCustomerAndLoanType(eq(1L), eq(10L), anyCollection())).thenReturn(2L);
             when(loanRepository.save(any())).thenAnswer(inv -> inv.getArgument(0));
 
             Loan loan = service.applyLoan(request, customer);
@@ -87,6 +107,80 @@ class CustomerLoanServiceTest {
             assertThat(loan)
                     .extracting(Loan::getLoanType, Loan::getCustomer, Loan::getLoanStatus)
                     .containsExactly(loanType, customer, LoanStatus.SUBMITTED);
+            verify(statusHistoryRepository, never()).save(any());
+        }
+
+        @Test
+        @DisplayName("Auto-approved application gets a schedule and a history entry")
+        void givenApprovingRule_whenApplyLoan_thenApprovedAndRecorded() {
+            mockValidLoanType();
+            when(userRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(customer));
+            when(loanRepository.save(any())).thenAnswer(inv -> inv.getArgument(0));
+            when(decisionEngine.decide(any(), eq(loanType))).thenReturn(new LoanDecisionEngine.LoanDecision(
+                    LoanDecisionRules.Action.APPROVE, 0, "Auto-approved by rule 1: APPROVE when cibil >= 750"));
+
+            Loan loan = service.applyLoan(request, customer);
+
+            assertThat(loan.getLoanStatus()).isEqualTo(LoanStatus.APPROVED);
+            verify(emiGenerationService).generateSchedule(loan);
+            verify(statusHistoryRepository).save(argThat(h -> h.getStatus() == LoanStatus.APPROVED
+                    && h.getComments().equals("Auto-approved by rule 1: APPROVE when cibil >= 750")));
+        }
+
+        @Test
+        @DisplayName("Auto-rejected application is recorded without a schedule")
+        void givenRejectingRule_whenApplyLoan_thenRejected() {
+            mockValidLoanType();
+            when(userRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(customer));
+            when(loanRepository.save(any())).thenAnswer(inv -> inv.getArgument(0));
+            when(decisionEngine.decide(any(), eq(loanType))).thenReturn(new LoanDecisionEngine.LoanDecision(
+                    LoanDecisionRules.Action.REJECT, 0, "Auto-rejected by rule 1: REJECT when cibil < 600"));
+
+            Loan loan = service.applyLoan(request, customer);
+
+            assertThat(loan.getLoanStatus()).isEqualTo(LoanStatus.REJECTED);
+            verify(emiGenerationService, never()).generateSchedule(any());
+            verify(statusHistoryRepository).save(argThat(h -> h.getStatus() == LoanStatus.REJECTED));
+        }
+
+        @Test
+        @DisplayName("Should reject when the customer already holds the per-type maximum")
+        void givenLimitReached_whenApplyLoan_thenThrows() {
+            mockValidLoanType();
+            when(userRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(customer));
+            when(loanRepository.countByCustomerAndLoanType(eq(1L), eq(10L), anyCollection())).thenReturn(3L);
+
+            assertThatThrownBy(() -> service.applyLoan(request, customer))
+                    .hasMessage("You already have the maximum of 3 active Personal Loan loans");
+            verify(loanRepository, never()).save(any());
+        }
+
+        @Test
+        @DisplayName("Should save a fresh loan on each retried attempt")
+        void givenRetriedAttempt_whenApplyLoan_thenEachAttemptSavesNewEntity() {
+            mockValidLoanType();
+            when(userRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(customer));
+            when(loanRepository.countByCustomerAndLoanType(eq(1L), eq(10L), anyCollection())).thenReturn(0L);
+            List<Loan> saved = new ArrayList<>();
+            when(loanRepository.save(any())).thenAnswer(inv -> {
+                Loan loan = inv.getArgument(0);
+                saved.add(loan);
+                loan.setId(100L + saved.size()); // what a rolled-back attempt leaves behind
+                return loan;
+            });
+            // first attempt commits nothing, the second one goes through
+            doAnswer(inv -> {
+                Supplier<?> work = inv.getArgument(0);
+                work.get();
+                return work.get();
+            }).when(concurrencyRetry).execute(any());
+
+            Loan loan = service.applyLoan(request, customer);
+
+            assertThat(saved).hasSize(2);
+            assertThat(saved.get(0)).isNotSameAs(saved.get(1));
+            assertThat(loan).isSameAs(saved.get(1));
+            assertThat(loan.getCustomer()).isSameAs(customer);
         }
 
         @Test
@@ -165,9 +259,9 @@ class CustomerLoanServiceTest {
     class ActiveLoanCountsTests {
         @ParameterizedTest
         @MethodSource("com.loanmanagement.service.CustomerLoanServiceTest#provideLoanCountsScenarios")
-        void testActiveLoanCounts(String scenario, List<Loan> loans, boolean expectEmpty, int expectedCount) {
-            when(loanRepository.findByCustomerAndLoanStatusIn(eq(customer), anyList()))
-                    .thenReturn(loans);
+        void testActiveLoanCounts(String scenario, List<LoanRepository.LoanTypeCount> rows, boolean expectEmpty, int expectedCount) {
+            when(loanRepository.countByCustomerGroupedByLoanType(eq(1L), eq(List.of(LoanStatus.SUBMITTED, LoanStatus.APPROVED))))
+                    .thenReturn(rows);
 
             Map<Long, Integer> counts = service.getActiveLoanCounts(customer);
             List<LoanTypeActiveCountDto> detailed = service.getActiveLoanCountsDetailed(customer);
@@ -184,16 +278,20 @@ class CustomerLoanServiceTest {
     }
 
     static Stream<Arguments> provideLoanCountsScenarios() {
-        LoanType type = LoanType.builder().loanTypeId(10L).name("Personal Loan").build();
-        Loan l1 = new Loan(); l1.setLoanType(type); l1.setLoanStatus(LoanStatus.SUBMITTED);
-        Loan l2 = new Loan(); l2.setLoanType(type); l2.setLoanStatus(LoanStatus.APPROVED);
-
         return Stream.of(
                 Arguments.of("No active loans", List.of(), true, 0),
-                Arguments.of("Two active loans", List.of(l1, l2), false, 2)
+                Arguments.of("Two active loans", List.of(typeCount(10L, "Personal Loan", 2L)), false, 2)
         );
     }
 
+    private static LoanRepository.LoanTypeCount typeCount(Long typeId, String name, Long count) {
+        return new LoanRepository.LoanTypeCount() {
+            public Long getLoanTypeId() { return typeId; }
+            public String getLoanTypeName() { return name; }
+            public Long getCount() { return count; }
+        };
+    }
+
     // ---------------- STATUS HISTORY ----------------
     @Nested
     class StatusHistoryTests {
@@ -221,35 +319,182 @@ class CustomerLoanServiceTest {
     class PayEmiTests {
         @Test
         void givenPendingEmi_whenPay_thenPaidButLoanOpen() {
-            Loan loan = new Loan(); loan.setCustomer(customer);
+            Loan loan = new Loan(); loan.setId(5L); loan.setCustomer(customer);
+            loan.setPendingEmiCount(2); loan.setOutstandingAmount(BigDecimal.valueOf(2000));
+            loan.setNextDueDate(LocalDate.of(2030, 1, 5));
             EmiPayment emi = new EmiPayment(); emi.setLoan(loan); emi.setStatus(EmiPayment.EmiStatus.PENDING);
+            emi.setAmount(BigDecimal.valueOf(1000)); emi.setDueDate(LocalDate.of(2030, 1, 5));
+            EmiPayment next = new EmiPayment(); next.setDueDate(LocalDate.of(2030, 2, 5));
 
             when(emiPaymentRepository.findById(1L)).thenReturn(Optional.of(emi));
+            when(loanRepository.findByIdForUpdate(5L)).thenReturn(Optional.of(loan));
             when(emiPaymentRepository.save(any())).thenAnswer(inv -> inv.getArgument(0));
-            when(emiPaymentRepository.countByLoanAndStatus(loan, EmiPayment.EmiStatus.PENDING)).thenReturn(1L);
+            when(emiPaymentRepository.findFirstByLoanIdAndStatusNotOrderByDueDateAsc(5L, EmiPayment.EmiStatus.PAID))
+                    .thenReturn(Optional.of(next));
 
             EmiPayment result = service.payEmi(1L, customer);
 
             assertThat(result.getStatus()).isEqualTo(EmiPayment.EmiStatus.PAID);
-            verify(mailService).sendEmiPaidText(result);
+            assertThat(loan)
+                    .extracting(Loan::getPendingEmiCount, Loan::getPaidEmiCount, Loan::getNextDueDate)
+                    .containsExactly(1, 1, LocalDate.of(2030, 2, 5));
+            assertThat(loan.getOutstandingAmount()).isEqualByComparingTo("1000");
+            assertThat(loan.getLoanStatus()).isNull();
+            verify(mailService).sendEmiPaidText(argThat(m -> m.getTotalInstallments() == 2 && m.getLoanId() == 5L));
+            verify(mailService, never()).sendLoanClosedText(any(), any());
         }
 
         @Test
         void givenLastEmi_whenPay_thenLoanClosed() {
-            Loan loan = new Loan(); loan.setCustomer(customer);
+            Loan loan = new Loan(); loan.setId(5L); loan.setCustomer(customer);
+            loan.setPendingEmiCount(1); loan.setPaidEmiCount(11); loan.setOutstandingAmount(BigDecimal.valueOf(1000));
             EmiPayment emi = new EmiPayment(); emi.setLoan(loan); emi.setStatus(EmiPayment.EmiStatus.PENDING);
+            emi.setAmount(BigDecimal.valueOf(1000));
 
             when(emiPaymentRepository.findById(1L)).thenReturn(Optional.of(emi));
+            when(loanRepository.findByIdForUpdate(5L)).thenReturn(Optional.of(loan));
             when(emiPaymentRepository.save(any())).thenAnswer(inv -> inv.getArgument(0));
-            when(emiPaymentRepository.countByLoanAndStatus(loan, EmiPayment.EmiStatus.PENDING)).thenReturn(0L);
-            when(emiPaymentRepository.findByLoanOrderByDueDateAsc(loan)).thenReturn(List.of(emi));
+            when(emiPaymentRepository.sumAmountByLoanId(5L)).thenReturn(BigDecimal.valueOf(12000));
 
             EmiPayment result = service.payEmi(1L, customer);
 
             assertThat(result.getStatus()).isEqualTo(EmiPayment.EmiStatus.PAID);
             assertThat(loan.getLoanStatus()).isEqualTo(LoanStatus.CLOSED);
             // FIX: accept either closure mail OR just EMI mail
-            verify(mailService, atLeastOnce()).sendEmiPaidText(result);
+            verify(mailService, atLeastOnce()).sendEmiPaidText(any());
+            verify(mailService).sendLoanClosedText(eq(loan), eq(new BigDecimal("12000.00")));
+            assertThat(loan.getPendingEmiCount()).isZero();
+            assertThat(loan.getPaidEmiCount()).isEqualTo(12);
+            assertThat(loan.getNextDueDate()).isNull();
+            verify(emiPaymentRepository, never()).countByLoanAndStatus(any(), any());
+        }
+
+        @Test
+        void givenLegacyLoanWithoutSnapshot_whenPay_thenSnapshotDerivedFromRows() {
+            Loan loan = new Loan(); loan.setId(5L); loan.setCustomer(customer);
+            EmiPayment emi = new EmiPayment(); emi.setLoan(loan); emi.setStatus(EmiPayment.EmiStatus.PENDING);
+            emi.setAmount(BigDecimal.valueOf(1000));
+
+            when(emiPaymentRepository.findById(1L)).thenReturn(Optional.of(emi));
+            when(loanRepository.findByIdForUpdate(5L)).thenReturn(Optional.of(loan));
+            when(emiPaymentRepository.save(any())).thenAnswer(inv -> inv.getArgument(0));
+            when(emiPaymentRepository.countByLoanAndStatus(loan, EmiPayment.EmiStatus.PAID)).thenReturn(4L);
+            when(emiPaymentRepository.countByLoan(loan)).thenReturn(12L);
+            when(emiPaymentRepository.sumAmountByLoanIdAndStatusNot(5L, EmiPayment.EmiStatus.PAID))
+                    .thenReturn(BigDecimal.valueOf(8000));
+
+            service.payEmi(1L, customer);
+
+            assertThat(loan)
+                    .extracting(Loan::getPendingEmiCount, Loan::getPaidEmiCount)
+                    .containsExactly(8, 4);
+            assertThat(loan.getOutstandingAmount()).isEqualByComparingTo("8000");
+            verify(mailService, never()).sendLoanClosedText(any(), any());
+        }
+
+        @Test
+        void givenAlreadyPaidEmi_whenPay_thenThrowsWithoutSaving() {
+            Loan loan = new Loan(); loan.setId(5L); loan.setCustomer(customer);
+            EmiPayment emi = new EmiPayment(); emi.setLoan(loan); emi.setStatus(EmiPayment.EmiStatus.PAID);
+
+            when(emiPaymentRepository.findById(1L)).thenReturn(Optional.of(emi));
+            when(loanRepository.findByIdForUpdate(5L)).thenReturn(Optional.of(loan));
+
+            assertThatThrownBy(() -> service.payEmi(1L, customer))
+                    .hasMessageContaining("already paid");
+            verify(emiPaymentRepository, never()).save(any());
+            verifyNoInteractions(mailService);
+        }
+    }
+
+    // ---------------- PAY MULTIPLE EMIs ----------------
+    @Nested
+    class PayEmisTests {
+        private Loan loan;
+
+        @BeforeEach
+        void setupLoan() {
+            loan = new Loan(); loan.setId(5L); loan.setCustomer(customer);
+            loan.setPendingEmiCount(5); loan.setOutstandingAmount(BigDecimal.valueOf(5000));
+        }
+
+        private EmiPayment pendingEmi(long id) {
+            EmiPayment emi = new EmiPayment();
+            emi.setId(id); emi.setLoan(loan); emi.setAmount(BigDecimal.valueOf(1000));
+            emi.setStatus(EmiPayment.EmiStatus.PENDING);
+            return emi;
+        }
+
+        @Test
+        void givenNextK_whenPay_thenSettledTogetherWithOneReceipt() {
+            List<EmiPayment> next = List.of(pendingEmi(11L), pendingEmi(12L));
+            EmiBatchPaymentRequest body = new EmiBatchPaymentRequest();
+            body.setNextInstallments(2);
+
+            when(loanRepository.findByIdForUpdate(5L)).thenReturn(Optional.of(loan));
+            when(emiPaymentRepository.findByLoanIdAndStatusOrderByDueDateAsc(eq(5L), eq(EmiPayment.EmiStatus.PENDING), any()))
+                    .thenReturn(next);
+            when(emiPaymentRepository.saveAll(next)).thenReturn(next);
+
+            EmiBatchPaymentResultDto result = service.payEmis(5L, body, customer);
+
+            assertThat(result.getPaidCount()).isEqualTo(2);
+            assertThat(result.getTotalPaid()).isEqualByComparingTo("2000");
+            assertThat(result.isLoanClosed()).isFalse();
+            assertThat(loan.getPendingEmiCount()).isEqualTo(3);
+            assertThat(loan.getOutstandingAmount()).isEqualByComparingTo("3000");
+            assertThat(next).allSatisfy(e -> {
+                assertThat(e.getStatus()).isEqualTo(EmiPayment.EmiStatus.PAID);
+                assertThat(e.getTransactionRef()).endsWith("-" + e.getId());
+            });
+            verify(mailService).sendEmiBatchPaidText(argThat(m -> m.getLines().size() == 2));
+            verify(mailService, never()).sendEmiPaidText(any());
+            verify(mailService, never()).sendLoanClosedText(any(), any());
+        }
+
+        @Test
+        void givenRemainingIds_whenPay_thenLoanClosedOnce() {
+            List<EmiPayment> last = List.of(pendingEmi(11L), pendingEmi(12L));
+            loan.setPendingEmiCount(2); loan.setPaidEmiCount(3);
+            EmiBatchPaymentRequest body = new EmiBatchPaymentRequest();
+            body.setEmiIds(List.of(11L, 12L));
+
+            when(loanRepository.findByIdForUpdate(5L)).thenReturn(Optional.of(loan));
+            when(emiPaymentRepository.findByLoanIdAndIdInOrderByDueDateAsc(5L, Set.of(11L, 12L))).thenReturn(last);
+            when(emiPaymentRepository.saveAll(last)).thenReturn(last);
+            when(emiPaymentRepository.sumAmountByLoanId(5L)).thenReturn(BigDecimal.valueOf(5000));
+
+            EmiBatchPaymentResultDto result = service.payEmis(5L, body, customer);
+
+            assertThat(result.isLoanClosed()).isTrue();
+            assertThat(loan.getLoanStatus()).isEqualTo(LoanStatus.CLOSED);
+            verify(mailService).sendLoanClosedText(eq(loan), eq(new BigDecimal("5000.00")));
+        }
+
+        @Test
+        void givenForeignEmiId_whenPay_thenThrows() {
+            EmiBatchPaymentRequest body = new EmiBatchPaymentRequest();
+            body.setEmiIds(List.of(11L, 99L));
+
+            when(loanRepository.findByIdForUpdate(5L)).thenReturn(Optional.of(loan));
+            when(emiPaymentRepository.findByLoanIdAndIdInOrderByDueDateAsc(5L, Set.of(11L, 99L)))
+                    .thenReturn(List.of(pendingEmi(11L)));
+
+            assertThatThrownBy(() -> service.payEmis(5L, body, customer))
+                    .hasMessageContaining("do not belong");
+            verify(emiPaymentRepository, never()).saveAll(any());
+            verifyNoInteractions(mailService);
+        }
+
+        @Test
+        void givenBothIdsAndCount_whenPay_thenRejected() {
+            EmiBatchPaymentRequest body = new EmiBatchPaymentRequest();
+            body.setEmiIds(List.of(11L));
+            body.setNextInstallments(1);
+
+            assertThatThrownBy(() -> service.payEmis(5L, body, customer))
+                    .hasMessageContaining("either EMI ids or the number");
+            verifyNoInteractions(loanRepository, emiPaymentRepository);
         }
     }
 }
@@ -0,0 +1,295 @@
+package com.loanmanagement.service;
+
+import com.loanmanagement.config.AppMetrics;
+import com.loanmanagement.dto.BulkIngestionReportDto;
+import com.loanmanagement.dto.BulkLoanResultDto;
+import com.loanmanagement.dto.LoanRequestDto;
+import com.loanmanagement.model.*;
+import com.loanmanagement.model.ApplicantIdentityHash.IdentityKind;
+import com.loanmanagement.model.DuplicateApplicationFlag.FlagStatus;
+import com.loanmanagement.repository.*;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.validation.ValidationAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Duplicate PAN / Aadhaar screening against a real (in-memory) database.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false",
+        "fraud.identity.hmac-key=test-key"
+})
+@Import({CustomerLoanService.class, LoanIngestionService.class, LoanDecisionEngine.class,
+        DuplicateApplicationDetector.class, DuplicateReviewService.class, EmiGenerationService.class,
+        OptimisticLockRetry.class, LoanArchiveService.class, LoanArchiver.class, LoanDataPurger.class, AppMetrics.class})
+@ImportAutoConfiguration({JacksonAutoConfiguration.class, ValidationAutoConfiguration.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("DuplicateApplicationDetector Tests")
+class DuplicateApplicationDetectorTest {
+
+    @Autowired private CustomerLoanService customerLoanService;
+    @Autowired private LoanIngestionService ingestionService;
+    @Autowired private DuplicateApplicationDetector detector;
+    @Autowired private DuplicateReviewService reviewService;
+    @Autowired private UserRepository userRepository;
+    @Autowired private LoanTypeRepository loanTypeRepository;
+    @Autowired private LoanRepository loanRepository;
+    @Autowired private EmiPaymentRepository emiPaymentRepository;
+    @Autowired private ApplicationStatusHistoryRepository statusHistoryRepository;
+    @Autowired private ApplicantIdentityHashRepository identityHashRepository;
+    @Autowired private DuplicateApplicationFlagRepository flagRepository;
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private PlatformTransactionManager transactionManager;
+
+    @MockBean private MailService mailService;
+
+    private LoanType personal;
+    private User alice;
+    private User bob;
+
+    @BeforeEach
+    void setUp() {
+        // approves everything, so a held application is visibly not auto-approved
+        personal = loanTypeRepository.save(LoanType.builder()
+                .name("Personal Loan")
+                .interestRate(new BigDecimal("10.00"))
+                .maxTenureYears(5)
+                .maxLoanAmount(new BigDecimal("500000.00"))
+                .penaltyRatePercent(new BigDecimal("1.00"))
+                .maxLoansPerCustomerPerLoanType(3)
+                .decisionRules("APPROVE when cibil >= 300")
+                .build());
+        alice = saveUser("dup_alice");
+        bob = saveUser("dup_bob");
+    }
+
+    @AfterEach
+    void tearDown() {
+        flagRepository.deleteAll();
+        identityHashRepository.deleteAll();
+        jdbcTemplate.update("DELETE FROM applicant_identity_locks");
+        emiPaymentRepository.deleteAll();
+        statusHistoryRepository.deleteAll();
+        loanRepository.deleteAll();
+        loanTypeRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("A PAN already used by another customer holds the application for review")
+    void givenPanOfAnotherCustomer_whenApplying_thenFlaggedAndHeld() {
+        Loan first = customerLoanService.applyLoan(request("ABCDE1234F", "111122223333"), alice);
+        Loan second = customerLoanService.applyLoan(request("ABCDE1234F", "444455556666"), bob);
+
+        assertThat(loanRepository.findById(first.getId()).orElseThrow().getLoanStatus()).isEqualTo(Loan.LoanStatus.APPROVED);
+        assertThat(loanRepository.findById(second.getId()).orElseThrow().getLoanStatus()).isEqualTo(Loan.LoanStatus.SUBMITTED);
+
+        assertThat(reviewService.getFlags(FlagStatus.OPEN))
+                .extracting(DuplicateApplicationFlag::getLoanId, DuplicateApplicationFlag::getMatchedLoanId,
+                        DuplicateApplicationFlag::getMatchedCustomerId, DuplicateApplicationFlag::getKind)
+                .containsExactly(tuple(second.getId(), first.getId(), alice.getUserId(), IdentityKind.PAN));
+        assertThat(statusHistoryRepository.findByLoanOrderByUpdatedAtAsc(second))
+                .extracting(ApplicationStatusHistory::getComments)
+                .containsExactly("Held for review: PAN also used on 1 application(s) from customer(s) [" + alice.getUserId() + "]");
+    }
+
+    @Test
+    @DisplayName("A customer reusing their own PAN and Aadhaar is not flagged")
+    void givenSameCustomer_whenApplyingAgain_thenNotFlagged() {
+        customerLoanService.applyLoan(request("ABCDE1234F", "111122223333"), alice);
+        Loan again = customerLoanService.applyLoan(request("ABCDE1234F", "111122223333"), alice);
+
+        assertThat(flagRepository.count()).isZero();
+        assertThat(loanRepository.findById(again.getId()).orElseThrow().getLoanStatus()).isEqualTo(Loan.LoanStatus.APPROVED);
+    }
+
+    @Test
+    @DisplayName("Only keyed hashes are stored, never the raw numbers")
+    void givenApplication_whenScreened_thenOnlyHashesStored() {
+        Loan loan = customerLoanService.applyLoan(request("ABCDE1234F", "111122223333"), alice);
+
+        assertThat(identityHashRepository.findAll())
+                .extracting(ApplicantIdentityHash::getKind, ApplicantIdentityHash::getHash, ApplicantIdentityHash::getLoanId)
+                .containsExactlyInAnyOrder(
+                        tuple(IdentityKind.PAN, detector.hash(IdentityKind.PAN, "abcde1234f "), loan.getId()),
+                        tuple(IdentityKind.AADHAAR, detector.hash(IdentityKind.AADHAAR, "111122223333"), loan.getId()));
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM applicant_identity_hashes WHERE hash LIKE '%ABCDE1234F%' OR hash LIKE '%111122223333%'",
+                Long.class)).isZero();
+    }
+
+    @Test
+    @DisplayName("A fresh detector warms its bloom filter from the hash table")
+    void givenStoredHashes_whenNewDetectorScreens_thenBloomLoadedFirst() {
+        customerLoanService.applyLoan(request("ABCDE1234F", "111122223333"), alice);
+        DuplicateApplicationDetector fresh = new DuplicateApplicationDetector(
+                identityHashRepository, flagRepository, jdbcTemplate, "test-key", 1000, 0.01, 5000, 300000);
+        assertThat(fresh.mightBeKnown(IdentityKind.AADHAAR, "111122223333")).isFalse(); // nothing loaded yet
+
+        Loan bobs = loanRepository.save(Loan.builder()
+                .loanType(personal).customer(bob).appliedInterestRate(10.0)
+                .amount(new BigDecimal("50000.00")).purpose("Warm-up").income("N/A").employmentInfo("Other")
+                .aadhaar("111122223333").pan("ZZZZZ9999Z").cibilScore(700).tenureYears(2)
+                .loanStatus(Loan.LoanStatus.SUBMITTED).submittedAt(LocalDateTime.now()).build());
+        Map<Long, List<DuplicateApplicationFlag>> flags =
+                new TransactionTemplate(transactionManager).execute(status -> fresh.screen(List.of(bobs)));
+
+        assertThat(fresh.mightBeKnown(IdentityKind.AADHAAR, "111122223333")).isTrue();
+        assertThat(fresh.mightBeKnown(IdentityKind.PAN, "ZZZZZ9999Z")).isTrue();
+        assertThat(flags.get(bobs.getId()))
+                .extracting(DuplicateApplicationFlag::getMatchedCustomerId, DuplicateApplicationFlag::getKind)
+                .containsExactly(tuple(alice.getUserId(), IdentityKind.AADHAAR));
+    }
+
+    @Test
+    @DisplayName("A hash with a lower id that commits after a sync still reaches the bloom filter")
+    void givenHashCommittedBehindWatermark_whenNextSync_thenBloomHasIt() {
+        DuplicateApplicationDetector fresh = new DuplicateApplicationDetector(
+                identityHashRepository, flagRepository, jdbcTemplate, "test-key", 1000, 0.01, 0, 300000);
+        Loan first = saveLoan(alice, "ABCDE1234F", "111122223333");
+        new TransactionTemplate(transactionManager).execute(status -> fresh.screen(List.of(first)));
+
+        // another instance's transaction got an earlier id but committed only now
+        jdbcTemplate.update("INSERT INTO applicant_identity_hashes (id, hash, kind, loan_id, customer_id, created_at) "
+                        + "VALUES (-5, ?, 'PAN', ?, ?, CURRENT_TIMESTAMP)",
+                fresh.hash(IdentityKind.PAN, "LATER1234L"), first.getId(), bob.getUserId());
+        assertThat(fresh.mightBeKnown(IdentityKind.PAN, "LATER1234L")).isFalse();
+
+        Loan second = saveLoan(alice, "QWERT1234Y", "777788889999");
+        new TransactionTemplate(transactionManager).execute(status -> fresh.screen(List.of(second)));
+
+        assertThat(fresh.mightBeKnown(IdentityKind.PAN, "LATER1234L")).isTrue();
+    }
+
+    @Test
+    @DisplayName("Two applications with one PAN in flight at once: the second waits for the first and is flagged")
+    void givenSamePanInConcurrentTransactions_whenScreened_thenSecondWaitsAndIsFlagged() throws Exception {
+        Loan alices = saveLoan(alice, "ABCDE1234F", "111122223333");
+        Loan bobs = saveLoan(bob, "ABCDE1234F", "444455556666");
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        CountDownLatch aliceScreened = new CountDownLatch(1);
+        CountDownLatch releaseAlice = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<Map<Long, List<DuplicateApplicationFlag>>> first = pool.submit(() -> tx.execute(status -> {
+                Map<Long, List<DuplicateApplicationFlag>> flags = detector.screen(List.of(alices));
+                aliceScreened.countDown();
+                try {
+                    releaseAlice.await(10, TimeUnit.SECONDS); // keep the transaction open
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return flags;
+            }));
+            assertThat(aliceScreened.await(10, TimeUnit.SECONDS)).isTrue();
+            Future<Map<Long, List<DuplicateApplicationFlag>>> second =
+                    pool.submit(() -> tx.execute(status -> detector.screen(List.of(bobs))));
+
+            assertThatThrownBy(() -> second.get(300, TimeUnit.MILLISECONDS)).isInstanceOf(TimeoutException.class);
+            releaseAlice.countDown();
+
+            assertThat(first.get(10, TimeUnit.SECONDS)).isEmpty();
+            assertThat(second.get(10, TimeUnit.SECONDS).get(bobs.getId()))
+                    .extracting(DuplicateApplicationFlag::getMatchedLoanId, DuplicateApplicationFlag::getKind)
+                    .containsExactly(tuple(alices.getId(), IdentityKind.PAN));
+        } finally {
+            releaseAlice.countDown();
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Duplicates inside one bulk upload are caught")
+    void givenSharedAadhaarInOneUpload_whenIngested_thenLaterLineFlagged() {
+        String upload = String.join("\n",
+                line(alice, "ABCDE1234F", "111122223333"),
+                line(bob, "PQRST6789K", "111122223333"));
+
+        BulkIngestionReportDto report = ingestionService.ingest(new ByteArrayInputStream(upload.getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(report.getResults())
+                .extracting(BulkLoanResultDto::getResult, BulkLoanResultDto::getLoanStatus)
+                .containsExactly(tuple("CREATED", "APPROVED"), tuple("CREATED", "SUBMITTED"));
+        assertThat(flagRepository.findByLoanId(report.getResults().get(1).getLoanId()))
+                .extracting(DuplicateApplicationFlag::getMatchedLoanId, DuplicateApplicationFlag::getKind)
+                .containsExactly(tuple(report.getResults().get(0).getLoanId(), IdentityKind.AADHAAR));
+    }
+
+    @Test
+    @DisplayName("Resolving a flag closes it once")
+    void givenOpenFlag_whenResolved_thenLeavesQueue() {
+        customerLoanService.applyLoan(request("ABCDE1234F", "111122223333"), alice);
+        customerLoanService.applyLoan(request("ABCDE1234F", "444455556666"), bob);
+        Long flagId = reviewService.getFlags(FlagStatus.OPEN).get(0).getId();
+
+        DuplicateApplicationFlag resolved = reviewService.resolveFlag(flagId, FlagStatus.CONFIRMED);
+
+        assertThat(resolved.getResolvedAt()).isNotNull();
+        assertThat(reviewService.getFlags(FlagStatus.OPEN)).isEmpty();
+        assertThatThrownBy(() -> reviewService.resolveFlag(flagId, FlagStatus.CLEARED))
+                .hasMessage("Flag is already CONFIRMED");
+    }
+
+    private LoanRequestDto request(String pan, String aadhaar) {
+        LoanRequestDto dto = new LoanRequestDto();
+        dto.setLoanTypeId(personal.getLoanTypeId());
+        dto.setLoanAmount(new BigDecimal("50000.00"));
+        dto.setLoanDuration(2);
+        dto.setLoanPurpose("Duplicate check");
+        dto.setEmploymentInfo("Software (IT)");
+        dto.setIncome("₹30,000 - ₹70,000");
+        dto.setAadhaar(aadhaar);
+        dto.setPan(pan);
+        dto.setCibilScore(750);
+        return dto;
+    }
+
+    private Loan saveLoan(User customer, String pan, String aadhaar) {
+        return loanRepository.save(Loan.builder()
+                .loanType(personal).customer(customer).appliedInterestRate(10.0)
+                .amount(new BigDecimal("50000.00")).purpose("Concurrent").income("N/A").employmentInfo("Other")
+                .aadhaar(aadhaar).pan(pan).cibilScore(700).tenureYears(2)
+                .loanStatus(Loan.LoanStatus.SUBMITTED).submittedAt(LocalDateTime.now()).build());
+    }
+
+    private String line(User customer, String pan, String aadhaar) {
+        return "{\"customerId\":" + customer.getUserId()
+                + ",\"loanTypeId\":" + personal.getLoanTypeId()
+                + ",\"loanAmount\":50000.00,\"loanDuration\":2,\"loanPurpose\":\"Partner\""
+                + ",\"income\":\"₹30,000 - ₹70,000\",\"employmentInfo\":\"Software (IT)\""
+                + ",\"aadhaar\":\"" + aadhaar + "\",\"pan\":\"" + pan + "\",\"cibilScore\":750}";
+    }
+
+    private User saveUser(String username) {
+        return userRepository.save(User.builder()
+                .username(username)
+                .name(username)
+                .email(username + "@example.com")
+                .password("x")
+                .role(User.Role.CUSTOMER)
+                .createdAt(LocalDateTime.now())
+                .build());
+    }
+}
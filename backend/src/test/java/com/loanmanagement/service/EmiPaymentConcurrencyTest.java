@@ -0,0 +1,257 @@
+package com.loanmanagement.service;
+
+import com.loanmanagement.config.AppMetrics;
+import com.loanmanagement.dto.EmiBatchPaymentRequest;
+import com.loanmanagement.dto.EmiBatchPaymentResultDto;
+import com.loanmanagement.dto.LoanStatusUpdateRequest;
+import com.loanmanagement.model.*;
+import com.loanmanagement.repository.*;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * Multi-threaded stress test for the optimistic-locking payment model, run
+ * against a real (in-memory) database so version checks actually race.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false",
+        "loan.concurrency.max-attempts=20",
+        "loan.concurrency.backoff-ms=5"
+})
+@Import({CustomerLoanService.class, LoanDecisionEngine.class, DuplicateApplicationDetector.class, AdminLoanService.class, OptimisticLockRetry.class,
+        LoanDataPurger.class, LoanArchiveService.class, LoanArchiver.class, AppMetrics.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("EMI payment concurrency stress tests")
+class EmiPaymentConcurrencyTest {
+
+    private static final int THREADS = 8;
+
+    @Autowired private CustomerLoanService customerLoanService;
+    @Autowired private AdminLoanService adminLoanService;
+    @Autowired private UserRepository userRepository;
+    @Autowired private LoanTypeRepository loanTypeRepository;
+    @Autowired private LoanRepository loanRepository;
+    @Autowired private EmiPaymentRepository emiPaymentRepository;
+    @Autowired private ApplicationStatusHistoryRepository historyRepository;
+
+    @MockBean private MailService mailService;
+    @MockBean private EmiGenerationService emiGenerationService;
+
+    private User customer;
+    private Loan loan;
+    private List<EmiPayment> emis;
+
+    @BeforeEach
+    void setUp() {
+        customer = userRepository.save(User.builder()
+                .username("stress_user")
+                .name("Stress User")
+                .email("stress@example.com")
+                .password("x")
+                .role(User.Role.CUSTOMER)
+                .createdAt(LocalDateTime.now())
+                .build());
+
+        LoanType type = loanTypeRepository.save(LoanType.builder()
+                .name("Personal Loan")
+                .interestRate(new BigDecimal("10.00"))
+                .maxTenureYears(5)
+                .maxLoanAmount(new BigDecimal("500000.00"))
+                .penaltyRatePercent(new BigDecimal("1.00"))
+                .build());
+
+        loan = loanRepository.save(Loan.builder()
+                .customer(customer)
+                .loanType(type)
+                .appliedInterestRate(10.0)
+                .amount(new BigDecimal("80000.00"))
+                .purpose("Stress testing")
+                .income("₹30,000 - ₹70,000")
+                .employmentInfo("Software (IT)")
+                .aadhaar("123456789012")
+                .pan("ABCDE1234F")
+                .cibilScore(750)
+                .tenureYears(1)
+                .loanStatus(Loan.LoanStatus.APPROVED)
+                .submittedAt(LocalDateTime.now())
+                .pendingEmiCount(THREADS)
+                .outstandingAmount(new BigDecimal("80000.00"))
+                .nextDueDate(LocalDate.now().plusMonths(1))
+                .build());
+
+        emis = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            emis.add(EmiPayment.builder()
+                    .loan(loan)
+                    .amount(new BigDecimal("10000.00"))
+                    .dueDate(LocalDate.now().plusMonths(i + 1))
+                    .status(EmiPayment.EmiStatus.PENDING)
+                    .remainingBalance(new BigDecimal(10000L * (THREADS - i - 1)).setScale(2))
+                    .build());
+        }
+        emis = emiPaymentRepository.saveAll(emis);
+    }
+
+    @AfterEach
+    void tearDown() {
+        historyRepository.deleteAll();
+        emiPaymentRepository.deleteAll();
+        loanRepository.deleteAll();
+        loanTypeRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Paying every EMI in parallel closes the loan exactly once")
+    void givenParallelPaymentsOnOneLoan_whenAllSettle_thenLoanClosedOnce() throws Exception {
+        List<Callable<EmiPayment>> tasks = emis.stream()
+                .<Callable<EmiPayment>>map(e -> () -> customerLoanService.payEmi(e.getId(), customer))
+                .toList();
+
+        List<Future<EmiPayment>> results = runConcurrently(tasks);
+        for (Future<EmiPayment> f : results) {
+            assertThat(f.get().getStatus()).isEqualTo(EmiPayment.EmiStatus.PAID);
+        }
+
+        assertThat(emiPaymentRepository.countByLoanAndStatus(loan, EmiPayment.EmiStatus.PENDING)).isZero();
+        Loan reloaded = loanRepository.findById(loan.getId()).orElseThrow();
+        assertThat(reloaded.getLoanStatus()).isEqualTo(Loan.LoanStatus.CLOSED);
+        assertThat(reloaded.getClosedAt()).isNotNull();
+        assertThat(reloaded.getPaidEmiCount()).isEqualTo(THREADS);
+        assertThat(reloaded.getPendingEmiCount()).isZero();
+        assertThat(reloaded.getOutstandingAmount()).isEqualByComparingTo("0");
+
+        verify(mailService, times(THREADS)).sendEmiPaidText(any());
+        verify(mailService, times(1)).sendLoanClosedText(any(), eq(new BigDecimal("80000.00")));
+    }
+
+    @Test
+    @DisplayName("Paying the same EMI from many threads succeeds exactly once")
+    void givenSameEmiFromManyThreads_whenPaid_thenOnlyOneWins() throws Exception {
+        Long emiId = emis.get(0).getId();
+        List<Callable<EmiPayment>> tasks = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            tasks.add(() -> customerLoanService.payEmi(emiId, customer));
+        }
+
+        AtomicInteger wins = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        for (Future<EmiPayment> f : runConcurrently(tasks)) {
+            try {
+                f.get();
+                wins.incrementAndGet();
+            } catch (ExecutionException e) {
+                assertThat(e.getCause()).hasMessageContaining("already paid");
+                rejected.incrementAndGet();
+            }
+        }
+
+        assertThat(wins.get()).isEqualTo(1);
+        assertThat(rejected.get()).isEqualTo(THREADS - 1);
+        assertThat(emiPaymentRepository.countByLoanAndStatus(loan, EmiPayment.EmiStatus.PAID)).isEqualTo(1);
+        verify(mailService, times(1)).sendEmiPaidText(any());
+    }
+
+    @Test
+    @DisplayName("Admin closure racing customer payments leaves every EMI paid once")
+    void givenAdminCloseRacingPayments_whenSettled_thenNoLostUpdates() throws Exception {
+        List<Callable<Object>> tasks = new ArrayList<>();
+        for (EmiPayment e : emis.subList(0, THREADS / 2)) {
+            tasks.add(() -> customerLoanService.payEmi(e.getId(), customer));
+        }
+        tasks.add(() -> {
+            LoanStatusUpdateRequest request = new LoanStatusUpdateRequest();
+            request.setStatus(Loan.LoanStatus.CLOSED);
+            request.setComments("Foreclosed by admin");
+            adminLoanService.updateLoanStatus(loan.getId(), request);
+            return null;
+        });
+
+        for (Future<Object> f : runConcurrently(tasks)) {
+            try {
+                f.get();
+            } catch (ExecutionException e) {
+                // a customer losing to the admin sees the EMI as already settled
+                assertThat(e.getCause()).hasMessageContaining("already paid");
+            }
+        }
+
+        assertThat(emiPaymentRepository.countByLoanAndStatus(loan, EmiPayment.EmiStatus.PAID)).isEqualTo(THREADS);
+        assertThat(emiPaymentRepository.findByLoanOrderByDueDateAsc(loan))
+                .allSatisfy(e -> assertThat(e.getTransactionRef()).isNotBlank());
+        assertThat(loanRepository.findById(loan.getId()).orElseThrow().getLoanStatus())
+                .isEqualTo(Loan.LoanStatus.CLOSED);
+    }
+
+    @Test
+    @DisplayName("A multi-installment payment racing single payments never pays an EMI twice")
+    void givenBatchPaymentRacingSinglePayments_whenSettled_thenEachEmiPaidOnce() throws Exception {
+        List<Callable<Object>> tasks = new ArrayList<>();
+        EmiBatchPaymentRequest body = new EmiBatchPaymentRequest();
+        body.setNextInstallments(THREADS / 2);
+        tasks.add(() -> customerLoanService.payEmis(loan.getId(), body, customer));
+        for (EmiPayment e : emis.subList(0, 2)) {
+            tasks.add(() -> customerLoanService.payEmi(e.getId(), customer));
+        }
+
+        int paidByCalls = 0;
+        for (Future<Object> f : runConcurrently(tasks)) {
+            try {
+                Object result = f.get();
+                paidByCalls += result instanceof EmiBatchPaymentResultDto r ? r.getPaidCount() : 1;
+            } catch (ExecutionException e) {
+                // a single payment losing to the batch sees its EMI as already settled
+                assertThat(e.getCause()).hasMessageContaining("already paid");
+            }
+        }
+
+        // the batch re-resolves "next K" on retry, so it never re-pays what a single payment took
+        assertThat(emiPaymentRepository.countByLoanAndStatus(loan, EmiPayment.EmiStatus.PAID)).isEqualTo(paidByCalls);
+        Loan reloaded = loanRepository.findById(loan.getId()).orElseThrow();
+        assertThat(reloaded.getPaidEmiCount()).isEqualTo(paidByCalls);
+        assertThat(reloaded.getPendingEmiCount()).isEqualTo(THREADS - paidByCalls);
+        assertThat(reloaded.getOutstandingAmount())
+                .isEqualByComparingTo(new BigDecimal(10000L * (THREADS - paidByCalls)));
+        verify(mailService, times(1)).sendEmiBatchPaidText(any());
+    }
+
+    private <T> List<Future<T>> runConcurrently(List<Callable<T>> tasks) throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(tasks.size());
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<T>> futures = new ArrayList<>();
+            for (Callable<T> task : tasks) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    return task.call();
+                }));
+            }
+            start.countDown();
+            pool.shutdown();
+            assertThat(pool.awaitTermination(60, TimeUnit.SECONDS)).isTrue();
+            return futures;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.loanmanagement.service;
+
+import com.loanmanagement.config.AppMetrics;
+import com.loanmanagement.dto.LoanRequestDto;
+import com.loanmanagement.model.*;
+import com.loanmanagement.repository.*;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Parallel loan submissions against a real (in-memory) database: the
+ * per-customer-per-type limit must hold however the requests interleave.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false",
+        "loan.concurrency.max-attempts=20",
+        "loan.concurrency.backoff-ms=5"
+})
+@Import({CustomerLoanService.class, LoanDecisionEngine.class, DuplicateApplicationDetector.class, EmiGenerationService.class, OptimisticLockRetry.class, LoanArchiveService.class, LoanArchiver.class, LoanDataPurger.class, AppMetrics.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("Loan application limit concurrency tests")
+class LoanApplicationLimitConcurrencyTest {
+
+    private static final int THREADS = 16;
+
+    @Autowired private CustomerLoanService customerLoanService;
+    @Autowired private UserRepository userRepository;
+    @Autowired private LoanTypeRepository loanTypeRepository;
+    @Autowired private LoanRepository loanRepository;
+
+    @MockBean private MailService mailService;
+
+    private LoanType personal;
+    private LoanType home;
+
+    @BeforeEach
+    void setUp() {
+        personal = saveType("Personal Loan", 3);
+        home = saveType("Home Loan", 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        loanRepository.deleteAll();
+        loanTypeRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Parallel submissions by one customer stop exactly at the per-type limit")
+    void givenParallelSubmissions_whenApplied_thenLimitHolds() throws Exception {
+        User customer = saveUser("limit_user");
+
+        List<Callable<Loan>> tasks = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            LoanType type = i % 2 == 0 ? personal : home;
+            tasks.add(() -> customerLoanService.applyLoan(request(type), customer));
+        }
+
+        int accepted = 0, rejected = 0;
+        for (Future<Loan> f : runConcurrently(tasks)) {
+            try {
+                assertThat(f.get().getId()).isNotNull();
+                accepted++;
+            } catch (ExecutionException e) {
+                assertThat(e.getCause()).hasMessageContaining("You already have the maximum of");
+                rejected++;
+            }
+        }
+
+        assertThat(accepted).isEqualTo(5);
+        assertThat(rejected).isEqualTo(THREADS - 5);
+        assertThat(customerLoanService.getActiveLoanCounts(customer))
+                .containsOnly(entry(personal.getLoanTypeId(), 3), entry(home.getLoanTypeId(), 2));
+    }
+
+    @Test
+    @DisplayName("Customers do not block each other's quota")
+    void givenManyCustomers_whenApplyingInParallel_thenEachGetsFullQuota() throws Exception {
+        List<User> customers = new ArrayList<>();
+        for (int i = 0; i < 4; i++) customers.add(saveUser("limit_user_" + i));
+
+        List<Callable<Loan>> tasks = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            User customer = customers.get(i % customers.size());
+            tasks.add(() -> customerLoanService.applyLoan(request(personal), customer));
+        }
+
+        long accepted = 0;
+        for (Future<Loan> f : runConcurrently(tasks)) {
+            try {
+                f.get();
+                accepted++;
+            } catch (ExecutionException ignored) {
+            }
+        }
+
+        // 4 customers x 4 attempts each, 3 allowed per customer
+        assertThat(accepted).isEqualTo(12);
+        for (User customer : customers) {
+            assertThat(customerLoanService.getActiveLoanCounts(customer)).containsOnly(entry(personal.getLoanTypeId(), 3));
+        }
+    }
+
+    @Test
+    @DisplayName("Closed or rejected loans free up the quota")
+    void givenInactiveLoans_whenApplying_thenNotCounted() {
+        User customer = saveUser("limit_user");
+        for (int i = 0; i < 2; i++) {
+            Loan loan = customerLoanService.applyLoan(request(home), customer);
+            loan.setLoanStatus(i == 0 ? Loan.LoanStatus.CLOSED : Loan.LoanStatus.REJECTED);
+            loanRepository.save(loan);
+        }
+
+        customerLoanService.applyLoan(request(home), customer);
+        customerLoanService.applyLoan(request(home), customer);
+        assertThatThrownBy(() -> customerLoanService.applyLoan(request(home), customer))
+                .hasMessage("You already have the maximum of 2 active Home Loan loans");
+    }
+
+    private LoanRequestDto request(LoanType type) {
+        LoanRequestDto dto = new LoanRequestDto();
+        dto.setLoanTypeId(type.getLoanTypeId());
+        dto.setLoanAmount(new BigDecimal("50000.00"));
+        dto.setLoanDuration(2);
+        dto.setLoanPurpose("Concurrency");
+        dto.setEmploymentInfo("Software (IT)");
+        dto.setIncome("₹30,000 - ₹70,000");
+        dto.setAadhaar("123456789012");
+        dto.setPan("ABCDE1234F");
+        dto.setCibilScore(750);
+        return dto;
+    }
+
+    private User saveUser(String username) {
+        return userRepository.save(User.builder()
+                .username(username)
+                .name(username)
+                .email(username + "@example.com")
+                .password("x")
+                .role(User.Role.CUSTOMER)
+                .createdAt(LocalDateTime.now())
+                .build());
+    }
+
+    private LoanType saveType(String name, int maxPerCustomer) {
+        return loanTypeRepository.save(LoanType.builder()
+                .name(name)
+                .interestRate(new BigDecimal("10.00"))
+                .maxTenureYears(5)
+                .maxLoanAmount(new BigDecimal("500000.00"))
+                .penaltyRatePercent(new BigDecimal("1.00"))
+                .maxLoansPerCustomerPerLoanType(maxPerCustomer)
+                .build());
+    }
+
+    private <T> List<Future<T>> runConcurrently(List<Callable<T>> tasks) throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(tasks.size());
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<T>> futures = new ArrayList<>();
+            for (Callable<T> task : tasks) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    return task.call();
+                }));
+            }
+            start.countDown();
+            pool.shutdown();
+            assertThat(pool.awaitTermination(60, TimeUnit.SECONDS)).isTrue();
+            return futures;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
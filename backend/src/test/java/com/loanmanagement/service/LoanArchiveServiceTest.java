@@ -0,0 +1,226 @@
+package com.loanmanagement.service;
+
+import com.loanmanagement.config.AppMetrics;
+import com.loanmanagement.dto.*;
+import com.loanmanagement.model.*;
+import com.loanmanagement.repository.*;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Archival of settled loans against a real (in-memory) database: which loans
+ * move, that their child rows go with them, and that customers, admins and
+ * the dashboard still see them afterwards.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false",
+        "archive.retention-months=24",
+        "archive.chunk-size=2"
+})
+@Import({LoanArchiveService.class, LoanArchiver.class, LoanDataPurger.class, CustomerLoanService.class,
+        AdminLoanService.class, AdminDashboardService.class, LoanDecisionEngine.class, DuplicateApplicationDetector.class,
+        EmiGenerationService.class, OptimisticLockRetry.class, AppMetrics.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("LoanArchiveService Tests")
+class LoanArchiveServiceTest {
+
+    @Autowired private LoanArchiveService archiveService;
+    @Autowired private CustomerLoanService customerLoanService;
+    @Autowired private AdminLoanService adminLoanService;
+    @Autowired private AdminDashboardService dashboardService;
+    @Autowired private UserRepository userRepository;
+    @Autowired private LoanTypeRepository loanTypeRepository;
+    @Autowired private LoanRepository loanRepository;
+    @Autowired private JdbcTemplate jdbcTemplate;
+
+    @MockBean private MailService mailService;
+
+    private User alice;
+    private User bob;
+    private LoanType type;
+    private final LocalDateTime longAgo = LocalDateTime.now().minusYears(3);
+
+    @BeforeEach
+    void setUp() {
+        alice = saveUser("alice");
+        bob = saveUser("bob");
+        type = loanTypeRepository.save(LoanType.builder()
+                .name("Personal Loan")
+                .interestRate(new BigDecimal("10.00"))
+                .maxTenureYears(5)
+                .maxLoanAmount(new BigDecimal("500000.00"))
+                .penaltyRatePercent(new BigDecimal("1.00"))
+                .build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        for (String table : List.of("penalties", "loan_prepayment", "duplicate_application_flags",
+                "applicant_identity_hashes", "applicant_identity_locks", "chat_messages", "emi_payment",
+                "application_status_history", "loans", "loan_types", "otp_log", "loans_archive_records", "loans_archive", "users")) {
+            jdbcTemplate.update("DELETE FROM " + table);
+        }
+    }
+
+    @Test
+    @DisplayName("Loans settled before the retention window move in chunks; recent and open loans stay")
+    void givenOldAndRecentLoans_whenArchived_thenOnlyOldSettledLoansMove() {
+        Long oldClosed = saveClosedLoanWithRecords(alice, 3, longAgo);
+        Long oldRejected = saveLoan(alice, Loan.LoanStatus.REJECTED, longAgo, null).getId();
+        Long bobClosed = saveClosedLoanWithRecords(bob, 2, longAgo);
+        Long recentClosed = saveClosedLoanWithRecords(alice, 2, LocalDateTime.now().minusMonths(1));
+        Long oldApproved = saveLoan(alice, Loan.LoanStatus.APPROVED, longAgo, null).getId();
+
+        LoanArchiveRunDto run = archiveService.archiveSettledLoans();
+
+        assertThat(run.getLoansArchived()).isEqualTo(3);
+        assertThat(run.getChunks()).isEqualTo(2);
+        assertThat(loanRepository.findAll()).extracting(Loan::getId).containsExactlyInAnyOrder(recentClosed, oldApproved);
+        assertThat(rows("loans_archive")).isEqualTo(3);
+        assertThat(rows("loans_archive_records")).isEqualTo(3);
+        assertThat(count("SELECT COUNT(*) FROM emi_payment WHERE loan_id IN (?, ?)", oldClosed, bobClosed)).isZero();
+        assertThat(count("SELECT COUNT(*) FROM application_status_history WHERE loan_id IN (?, ?, ?)",
+                oldClosed, oldRejected, bobClosed)).isZero();
+        assertThat(rows("penalties")).isEqualTo(1); // the recent loan's
+        // identity rows stay behind for duplicate screening
+        assertThat(count("SELECT COUNT(*) FROM applicant_identity_hashes WHERE loan_id = ?", oldClosed)).isEqualTo(1);
+
+        assertThat(archiveService.archiveSettledLoans().getLoansArchived()).isZero();
+    }
+
+    @Test
+    @DisplayName("Customers read archived loans, their history and EMI schedule as before")
+    void givenArchivedLoan_whenCustomerReads_thenServedFromArchive() {
+        Long loanId = saveClosedLoanWithRecords(alice, 3, longAgo);
+        archiveService.archiveSettledLoans();
+
+        List<Loan> loans = customerLoanService.getLoansByCustomer(alice);
+        assertThat(loans).extracting(Loan::getId).containsExactly(loanId);
+        assertThat(loans.get(0).getLoanType().getName()).isEqualTo("Personal Loan");
+        assertThat(loans.get(0).getStatusHistory()).extracting(ApplicationStatusHistory::getStatus)
+                .containsExactly(Loan.LoanStatus.CLOSED);
+
+        assertThat(customerLoanService.getLoanByIdForCustomer(loanId, alice).getLoanStatus()).isEqualTo(Loan.LoanStatus.CLOSED);
+        assertThat(customerLoanService.getStatusHistoryByLoanId(loanId, alice))
+                .extracting(LoanStatusHistoryDto::getStatus).containsExactly("CLOSED");
+
+        LoanWithEmiDto withEmis = customerLoanService.getLoanWithEmis(loanId);
+        assertThat(withEmis.getEmis()).hasSize(3).allMatch(e -> e.getStatus() == EmiPayment.EmiStatus.PAID);
+        assertThat(withEmis.getRemainingEmis()).isZero();
+
+        CustomerHomeDto home = customerLoanService.getCustomerHome(alice);
+        assertThat(home.getLoans()).extracting(CustomerLoanSummaryDto::getLoanId).containsExactly(loanId);
+        assertThat(home.getActiveLoans()).isZero();
+
+        assertThatThrownBy(() -> customerLoanService.getLoanByIdForCustomer(loanId, bob))
+                .hasMessage("Unauthorized access to loan");
+    }
+
+    @Test
+    @DisplayName("Dashboard totals and the admin loan list are unchanged by archival")
+    void givenArchivedLoans_whenAdminReads_thenTotalsUnchanged() {
+        saveClosedLoanWithRecords(alice, 3, longAgo);
+        saveLoan(bob, Loan.LoanStatus.REJECTED, longAgo, null);
+        saveLoan(bob, Loan.LoanStatus.APPROVED, longAgo, null);
+
+        AdminDashboardDto before = dashboardService.getSummaryStats();
+        LoanBreakdownDto breakdownBefore = dashboardService.getLoanBreakdown();
+        List<Long> listedBefore = adminLoanService.getAllLoans().stream().map(AdminLoanSummaryDto::getId).toList();
+
+        archiveService.archiveSettledLoans();
+
+        AdminDashboardDto after = dashboardService.getSummaryStats();
+        assertThat(after.getTotalLoanApplications()).isEqualTo(before.getTotalLoanApplications());
+        assertThat(after.getTotalApprovedLoanAmount()).isEqualByComparingTo(before.getTotalApprovedLoanAmount());
+        assertThat(after.getTotalRepaidAmount()).isEqualByComparingTo(before.getTotalRepaidAmount());
+        assertThat(dashboardService.getLoanBreakdown()).usingRecursiveComparison().isEqualTo(breakdownBefore);
+        assertThat(adminLoanService.getAllLoans()).extracting(AdminLoanSummaryDto::getId)
+                .containsExactlyInAnyOrderElementsOf(listedBefore);
+    }
+
+    @Test
+    @DisplayName("Admins delete archived loans; deleting their customer removes the archive rows too")
+    void givenArchivedLoans_whenDeleted_thenArchiveRowsGone() {
+        Long aliceLoan = saveClosedLoanWithRecords(alice, 2, longAgo);
+        saveClosedLoanWithRecords(bob, 2, longAgo);
+        archiveService.archiveSettledLoans();
+
+        assertThat(adminLoanService.getLoanById(aliceLoan).getLoanStatus()).isEqualTo("CLOSED");
+        adminLoanService.deleteLoan(aliceLoan);
+
+        assertThat(archiveService.findArchivedLoan(aliceLoan)).isEmpty();
+        assertThat(count("SELECT COUNT(*) FROM applicant_identity_hashes WHERE loan_id = ?", aliceLoan)).isZero();
+        assertThat(rows("loans_archive_records")).isEqualTo(1);
+        assertThatThrownBy(() -> adminLoanService.deleteLoan(aliceLoan)).hasMessage("Loan not found");
+    }
+
+    private Long saveClosedLoanWithRecords(User customer, int emis, LocalDateTime closedAt) {
+        Long loanId = saveLoan(customer, Loan.LoanStatus.CLOSED, closedAt.minusYears(1), closedAt).getId();
+        for (int i = 0; i < emis; i++) {
+            insert("INSERT INTO emi_payment (loan_id, amount, due_date, remaining_balance, created_at, updated_at, "
+                    + "version, status) VALUES (?, 1000, CURRENT_DATE, 0, CURRENT_DATE, CURRENT_DATE, 0, 'PAID')", loanId);
+        }
+        Long emiId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM emi_payment WHERE loan_id = ?", Long.class, loanId);
+        insert("INSERT INTO penalties (emi_id, amount, reason) VALUES (?, 50, 'Late')", emiId);
+        insert("INSERT INTO application_status_history (loan_id, status, updated_at) "
+                + "VALUES (?, 'CLOSED', CURRENT_TIMESTAMP)", loanId);
+        insert("INSERT INTO applicant_identity_hashes (loan_id, customer_id, hash, kind, created_at) "
+                + "VALUES (?, ?, 'h', 'PAN', CURRENT_TIMESTAMP)", loanId, customer.getUserId());
+        return loanId;
+    }
+
+    private void insert(String sql, Object... args) {
+        jdbcTemplate.update(sql, args);
+    }
+
+    private long rows(String table) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Long.class);
+    }
+
+    private long count(String sql, Object... args) {
+        return jdbcTemplate.queryForObject(sql, Long.class, args);
+    }
+
+    private User saveUser(String username) {
+        return userRepository.save(User.builder()
+                .username(username)
+                .name(username)
+                .email(username + "@example.com")
+                .password("x")
+                .role(User.Role.CUSTOMER)
+                .build());
+    }
+
+    private Loan saveLoan(User customer, Loan.LoanStatus status, LocalDateTime submittedAt, LocalDateTime closedAt) {
+        return loanRepository.save(Loan.builder()
+                .customer(customer)
+                .loanType(type)
+                .appliedInterestRate(10.0)
+                .amount(new BigDecimal("50000.00"))
+                .purpose("Archival")
+                .income("₹30,000 - ₹70,000")
+                .employmentInfo("Software (IT)")
+                .aadhaar("123456789012")
+                .pan("ABCDE1234F")
+                .cibilScore(750)
+                .tenureYears(1)
+                .loanStatus(status)
+                .submittedAt(submittedAt)
+                .closedAt(closedAt)
+                .build());
+    }
+}
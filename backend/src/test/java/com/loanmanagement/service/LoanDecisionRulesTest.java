@@ -0,0 +1,164 @@
+package com.loanmanagement.service;
+
+import com.loanmanagement.model.Loan;
+import com.loanmanagement.model.LoanType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("LoanDecisionRules Tests")
+class LoanDecisionRulesTest {
+
+    private static final String RULES = """
+            # hard stops first
+            REJECT  when cibil < 600
+            REJECT  when amountRatio > 0.8 and cibil < 700
+            REVIEW  when employment in [Student, Other]
+            APPROVE when cibil >= 750 and income >= 2 and employment in [Software (IT), Government Employee] and tenure <= 10
+            """;
+
+    private LoanType type;
+
+    @BeforeEach
+    void setUp() {
+        type = LoanType.builder()
+                .loanTypeId(10L)
+                .name("Personal Loan")
+                .maxLoanAmount(new BigDecimal("500000"))
+                .maxTenureYears(20)
+                .build();
+    }
+
+    @Nested
+    @DisplayName("Evaluation")
+    class EvaluationTests {
+
+        @ParameterizedTest(name = "cibil={0}, amount={1}, {3} -> rule {5}")
+        @CsvSource(delimiter = '|', value = {
+                "550 | 100000 | 5  | Software (IT)        | ₹70,001 - ₹1,00,000 | 0",
+                "650 | 450000 | 5  | Software (IT)        | ₹70,001 - ₹1,00,000 | 1",
+                "650 | 100000 | 5  | Software (IT)        | ₹70,001 - ₹1,00,000 | -1",
+                "800 | 100000 | 5  | Student              | N/A                 | 2",
+                "800 | 100000 | 5  | Government Employee  | ₹30,000 - ₹70,000   | 3",
+                "800 | 100000 | 15 | Government Employee  | ₹30,000 - ₹70,000   | -1",
+                "800 | 100000 | 5  | Entrepreneur         | > ₹1,00,000         | -1",
+                "800 | 100000 | 5  | Software (IT)        | < ₹30,000           | -1",
+        })
+        void givenApplication_whenMatched_thenFirstHoldingRuleWins(int cibil, String amount, int tenure,
+                                                                   String employment, String income, int expectedRule) {
+            LoanDecisionRules rules = LoanDecisionRules.compile(RULES);
+
+            assertThat(rules.match(features(cibil, amount, tenure, employment, income))).isEqualTo(expectedRule);
+        }
+
+        @Test
+        @DisplayName("Rules can be separated by ';' and use not in / = / !=")
+        void givenCompactRules_whenMatched_thenOperatorsApply() {
+            LoanDecisionRules rules = LoanDecisionRules.compile(
+                    "REJECT when employment not in [Software (IT), Entrepreneur]; APPROVE when employment = Entrepreneur and amount != 100000");
+
+            assertThat(rules.size()).isEqualTo(2);
+            assertThat(rules.action(1)).isEqualTo(LoanDecisionRules.Action.APPROVE);
+            assertThat(rules.match(features(700, "100000", 5, "Healthcare / Medical", "N/A"))).isZero();
+            assertThat(rules.match(features(700, "100000", 5, "Entrepreneur", "N/A"))).isEqualTo(-1);
+            assertThat(rules.match(features(700, "200000", 5, "Entrepreneur", "N/A"))).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Blank rules compile to an empty set that never matches")
+        void givenBlank_whenCompiled_thenNone() {
+            assertThat(LoanDecisionRules.compile("  \n# only a comment\n")).isSameAs(LoanDecisionRules.NONE);
+            assertThat(LoanDecisionRules.NONE.match(new double[LoanDecisionRules.FEATURES])).isEqualTo(-1);
+        }
+
+        @Test
+        @DisplayName("Scoring an application allocates nothing")
+        void givenCompiledRules_whenMatchedRepeatedly_thenNoAllocation() {
+            LoanDecisionRules rules = LoanDecisionRules.compile(RULES);
+            double[] f = features(800, "100000", 5, "Government Employee", "₹30,000 - ₹70,000");
+            if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads)
+                    || !threads.isThreadAllocatedMemorySupported()) {
+                return;
+            }
+            long tid = Thread.currentThread().getId();
+            int sink = 0;
+            for (int i = 0; i < 10_000; i++) sink += rules.match(f); // warm up
+
+            long before = threads.getThreadAllocatedBytes(tid);
+            for (int i = 0; i < 100_000; i++) sink += rules.match(f);
+            long allocated = threads.getThreadAllocatedBytes(tid) - before;
+
+            assertThat(sink).isEqualTo(3 * 110_000);
+            assertThat(allocated).isLessThan(4096); // measurement noise only, nothing per call
+        }
+    }
+
+    @Nested
+    @DisplayName("Compilation errors")
+    class CompileErrorTests {
+
+        @ParameterizedTest
+        @CsvSource(delimiter = '|', value = {
+                "APPROVE cibil > 700                | Rule 1: expected '<ACTION> when <conditions>'",
+                "ACCEPT when cibil > 700            | Rule 1: action must be APPROVE, REJECT or REVIEW",
+                "APPROVE when salary > 5            | Rule 1: unknown field 'salary'",
+                "APPROVE when cibil ~ 5             | Rule 1: expected a comparison after 'cibil'",
+                "APPROVE when cibil > high          | Rule 1: 'high' is not a number",
+                "REJECT when employment in [Pilot]  | Rule 1: unknown employment 'Pilot'",
+                "REJECT when employment > 3         | Rule 1: employment supports =, !=, in [..] and not in [..]",
+        })
+        void givenBadRule_whenCompiled_thenPointsAtIt(String source, String message) {
+            assertThatThrownBy(() -> LoanDecisionRules.compile(source))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessage(message);
+        }
+    }
+
+    // Manual throughput benchmark: mvn test -Dtest=LoanDecisionRulesTest -Ddecision.bench=true
+    @Test
+    @EnabledIfSystemProperty(named = "decision.bench", matches = "true")
+    @DisplayName("Evaluator throughput benchmark")
+    void evaluatorBenchmark() {
+        LoanDecisionRules rules = LoanDecisionRules.compile(RULES);
+        String[] employments = LoanDecisionRules.EMPLOYMENTS.toArray(String[]::new);
+        String[] incomes = LoanDecisionRules.INCOME_BANDS.toArray(String[]::new);
+        double[][] apps = new double[1024][];
+        for (int i = 0; i < apps.length; i++) {
+            apps[i] = features(300 + (i * 37) % 600, Integer.toString(20_000 + (i * 7919) % 480_000), 1 + i % 30,
+                    employments[i % employments.length], incomes[i % incomes.length]);
+        }
+
+        int warmup = 2_000_000, runs = 20_000_000;
+        long sink = 0;
+        for (int i = 0; i < warmup; i++) sink += rules.match(apps[i & 1023]);
+        long start = System.nanoTime();
+        for (int i = 0; i < runs; i++) sink += rules.match(apps[i & 1023]);
+        long elapsed = System.nanoTime() - start;
+
+        System.out.println("[BENCH] decision rules: " + (elapsed / runs) + " ns/application, "
+                + (runs * 1_000_000_000L / elapsed) + " applications/s (sink " + sink + ")");
+        assertThat(sink).isNotZero();
+    }
+
+    private double[] features(int cibil, String amount, int tenure, String employment, String income) {
+        Loan loan = Loan.builder()
+                .cibilScore(cibil)
+                .amount(new BigDecimal(amount))
+                .tenureYears(tenure)
+                .employmentInfo(employment)
+                .income(income)
+                .build();
+        double[] f = new double[LoanDecisionRules.FEATURES];
+        LoanDecisionRules.features(loan, type, f);
+        return f;
+    }
+}
@@ -0,0 +1,216 @@
+package com.loanmanagement.service;
+
+import com.loanmanagement.config.AppMetrics;
+import com.loanmanagement.dto.BulkIngestionReportDto;
+import com.loanmanagement.dto.BulkLoanResultDto;
+import com.loanmanagement.model.*;
+import com.loanmanagement.repository.*;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.validation.ValidationAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Partner NDJSON uploads against a real (in-memory) database: per-line results,
+ * chunked JDBC inserts and the same limits and rules as single applications.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false",
+        "ingest.chunk-size=3",
+        "fraud.identity.hmac-key=" // lines share PANs across customers; duplicate screening has its own test
+})
+@Import({LoanIngestionService.class, CustomerLoanService.class, LoanDecisionEngine.class, DuplicateApplicationDetector.class,
+        EmiGenerationService.class, OptimisticLockRetry.class, LoanArchiveService.class, LoanArchiver.class, LoanDataPurger.class, AppMetrics.class})
+@ImportAutoConfiguration({JacksonAutoConfiguration.class, ValidationAutoConfiguration.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("LoanIngestionService Tests")
+class LoanIngestionServiceTest {
+
+    @Autowired private LoanIngestionService ingestionService;
+    @Autowired private UserRepository userRepository;
+    @Autowired private LoanTypeRepository loanTypeRepository;
+    @Autowired private LoanRepository loanRepository;
+    @Autowired private EmiPaymentRepository emiPaymentRepository;
+    @Autowired private ApplicationStatusHistoryRepository statusHistoryRepository;
+    @Autowired private JdbcTemplate jdbcTemplate;
+
+    @MockBean private MailService mailService;
+
+    private LoanType personal;
+    private User alice;
+    private User bob;
+
+    @BeforeEach
+    void setUp() {
+        personal = saveType("Personal Loan", 2, null);
+        alice = saveUser("ingest_alice", User.Role.CUSTOMER);
+        bob = saveUser("ingest_bob", User.Role.CUSTOMER);
+    }
+
+    @AfterEach
+    void tearDown() {
+        emiPaymentRepository.deleteAll();
+        statusHistoryRepository.deleteAll();
+        loanRepository.deleteAll();
+        loanTypeRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Bad lines are reported one by one and the rest of the upload is inserted")
+    void givenMixedUpload_whenIngested_thenPerLineResults() {
+        User admin = saveUser("ingest_admin", User.Role.ADMIN);
+        String upload = String.join("\n",
+                line(alice, personal, "P-1", 750),
+                "{not json",
+                line(bob, personal, "P-3", 750).replace("\"pan\":\"ABCDE1234F\"", "\"pan\":\"bad\""),
+                "",
+                line(alice, personal, "P-5", 750).replace("\"loanTypeId\":" + personal.getLoanTypeId(), "\"loanTypeId\":-1"),
+                line(admin, personal, "P-6", 750),
+                line(bob, personal, "P-7", 750),
+                line(alice, personal, "P-8", 750),
+                line(alice, personal, "P-9", 750));
+
+        BulkIngestionReportDto report = ingest(upload);
+
+        assertThat(report.getReceived()).isEqualTo(8);
+        assertThat(report.getCreated()).isEqualTo(3);
+        assertThat(report.getFailed()).isEqualTo(5);
+        assertThat(report.getResults())
+                .extracting(BulkLoanResultDto::getLine, BulkLoanResultDto::getReference, BulkLoanResultDto::getResult)
+                .containsExactly(
+                        tuple(1, "P-1", "CREATED"),
+                        tuple(2, null, "FAILED"),
+                        tuple(3, "P-3", "FAILED"),
+                        tuple(5, "P-5", "FAILED"),
+                        tuple(6, "P-6", "FAILED"),
+                        tuple(7, "P-7", "CREATED"),
+                        tuple(8, "P-8", "CREATED"),
+                        tuple(9, "P-9", "FAILED"));
+        assertThat(report.getResults().get(1).getError()).startsWith("Malformed JSON");
+        assertThat(report.getResults().get(2).getError()).isEqualTo("pan: Invalid PAN format (e.g., ABCDE1234F)");
+        assertThat(report.getResults().get(3).getError()).isEqualTo("Loan Type not found");
+        assertThat(report.getResults().get(4).getError()).isEqualTo("Customer not found: " + admin.getUserId());
+        assertThat(report.getResults().get(7).getError())
+                .isEqualTo("Customer already has the maximum of 2 active Personal Loan loans");
+
+        Loan created = loanRepository.findById(report.getResults().get(0).getLoanId()).orElseThrow();
+        assertThat(created.getCustomer().getUserId()).isEqualTo(alice.getUserId());
+        assertThat(created.getLoanStatus()).isEqualTo(Loan.LoanStatus.SUBMITTED);
+        assertThat(created.getPurpose()).isEqualTo("Partner P-1");
+        assertThat(created.getAppliedInterestRate()).isEqualTo(10.0);
+        assertThat(created.getVersion()).isZero();
+        assertThat(loanRepository.count()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Loans the customer already holds count against the per-type limit")
+    void givenExistingActiveLoans_whenIngested_thenLimitHolds() {
+        ingest(line(alice, personal, "A-1", 750));
+
+        BulkIngestionReportDto report = ingest(String.join("\n",
+                line(alice, personal, "A-2", 750),
+                line(alice, personal, "A-3", 750)));
+
+        assertThat(report.getResults()).extracting(BulkLoanResultDto::getResult).containsExactly("CREATED", "FAILED");
+        assertThat(loanRepository.countByCustomerAndLoanType(alice.getUserId(), personal.getLoanTypeId(),
+                CustomerLoanService.ACTIVE_STATUSES)).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("A row the database rejects fails alone; the rest of its chunk is inserted")
+    void givenRowRejectedByDatabase_whenIngested_thenOnlyThatRowFails() {
+        jdbcTemplate.execute("ALTER TABLE loans ADD CONSTRAINT ck_reject_d2 CHECK (purpose <> 'Partner D-2')");
+        try {
+            BulkIngestionReportDto report = ingest(String.join("\n",
+                    line(alice, personal, "D-1", 750),
+                    line(bob, personal, "D-2", 750),
+                    line(bob, personal, "D-3", 750)));
+
+            assertThat(report.getResults())
+                    .extracting(BulkLoanResultDto::getReference, BulkLoanResultDto::getResult)
+                    .containsExactly(tuple("D-1", "CREATED"), tuple("D-2", "FAILED"), tuple("D-3", "CREATED"));
+            assertThat(report.getResults().get(1).getError()).startsWith("Insert failed");
+            assertThat(report.getCreated()).isEqualTo(2);
+            assertThat(loanRepository.count()).isEqualTo(2);
+        } finally {
+            jdbcTemplate.execute("ALTER TABLE loans DROP CONSTRAINT ck_reject_d2");
+        }
+    }
+
+    @Test
+    @DisplayName("Decision rules apply to bulk applications as they do to single ones")
+    void givenRules_whenIngested_thenAutoDecided() {
+        LoanType auto = saveType("Auto Loan", 3, "REJECT when cibil < 600\nAPPROVE when cibil >= 800");
+
+        BulkIngestionReportDto report = ingest(String.join("\n",
+                line(alice, auto, "R-1", 550),
+                line(alice, auto, "R-2", 820),
+                line(bob, auto, "R-3", 700)));
+
+        assertThat(report.getResults())
+                .extracting(BulkLoanResultDto::getResult, BulkLoanResultDto::getLoanStatus)
+                .containsExactly(tuple("CREATED", "REJECTED"), tuple("CREATED", "APPROVED"), tuple("CREATED", "SUBMITTED"));
+
+        Loan approved = loanRepository.findById(report.getResults().get(1).getLoanId()).orElseThrow();
+        assertThat(approved.getLoanStatus()).isEqualTo(Loan.LoanStatus.APPROVED);
+        assertThat(approved.getPendingEmiCount()).isEqualTo(24);
+        assertThat(emiPaymentRepository.countByLoan(approved)).isEqualTo(24);
+        assertThat(statusHistoryRepository.count()).isEqualTo(3); // the unmatched one is logged as sent for review
+    }
+
+    private BulkIngestionReportDto ingest(String upload) {
+        return ingestionService.ingest(new ByteArrayInputStream(upload.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private String line(User customer, LoanType type, String reference, int cibil) {
+        return "{\"customerId\":" + customer.getUserId()
+                + ",\"reference\":\"" + reference + "\""
+                + ",\"loanTypeId\":" + type.getLoanTypeId()
+                + ",\"loanAmount\":50000.00,\"loanDuration\":2"
+                + ",\"loanPurpose\":\"Partner " + reference + "\""
+                + ",\"income\":\"₹30,000 - ₹70,000\",\"employmentInfo\":\"Software (IT)\""
+                + ",\"aadhaar\":\"123456789012\",\"pan\":\"ABCDE1234F\""
+                + ",\"cibilScore\":" + cibil + "}";
+    }
+
+    private User saveUser(String username, User.Role role) {
+        return userRepository.save(User.builder()
+                .username(username)
+                .name(username)
+                .email(username + "@example.com")
+                .password("x")
+                .role(role)
+                .createdAt(LocalDateTime.now())
+                .build());
+    }
+
+    private LoanType saveType(String name, int maxPerCustomer, String rules) {
+        return loanTypeRepository.save(LoanType.builder()
+                .name(name)
+                .interestRate(new BigDecimal("10.00"))
+                .maxTenureYears(5)
+                .maxLoanAmount(new BigDecimal("500000.00"))
+                .penaltyRatePercent(new BigDecimal("1.00"))
+                .maxLoansPerCustomerPerLoanType(maxPerCustomer)
+                .decisionRules(rules)
+                .build());
+    }
+}
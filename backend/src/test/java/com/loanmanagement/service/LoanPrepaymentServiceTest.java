@@ -0,0 +1,210 @@
+package com.loanmanagement.service;
+
+import com.loanmanagement.config.AppMetrics;
+import com.loanmanagement.dto.PrepaymentQuoteDto;
+import com.loanmanagement.dto.PrepaymentRequest;
+import com.loanmanagement.dto.PrepaymentResultDto;
+import com.loanmanagement.model.*;
+import com.loanmanagement.repository.*;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false"
+})
+@Import({LoanPrepaymentService.class, CustomerLoanService.class, LoanDecisionEngine.class, DuplicateApplicationDetector.class, EmiGenerationService.class, OptimisticLockRetry.class, LoanArchiveService.class, LoanArchiver.class, LoanDataPurger.class, AppMetrics.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("LoanPrepaymentService Tests")
+class LoanPrepaymentServiceTest {
+
+    // 1,20,000 at 12% over 12 months -> EMI 10,661.85
+    private static final BigDecimal EMI = new BigDecimal("10661.85");
+
+    @Autowired private LoanPrepaymentService prepaymentService;
+    @Autowired private EmiGenerationService emiGenerationService;
+    @Autowired private UserRepository userRepository;
+    @Autowired private LoanTypeRepository loanTypeRepository;
+    @Autowired private LoanRepository loanRepository;
+    @Autowired private EmiPaymentRepository emiPaymentRepository;
+    @Autowired private LoanPrepaymentRepository prepaymentRepository;
+
+    @MockBean private MailService mailService;
+
+    private User customer;
+    private Loan loan;
+
+    @BeforeEach
+    void setUp() {
+        customer = userRepository.save(User.builder()
+                .username("prepay_user")
+                .name("Prepay User")
+                .email("prepay@example.com")
+                .password("x")
+                .role(User.Role.CUSTOMER)
+                .createdAt(LocalDateTime.now())
+                .build());
+
+        LoanType type = loanTypeRepository.save(LoanType.builder()
+                .name("Personal Loan")
+                .interestRate(new BigDecimal("12.00"))
+                .maxTenureYears(5)
+                .maxLoanAmount(new BigDecimal("500000.00"))
+                .penaltyRatePercent(new BigDecimal("1.00"))
+                .build());
+
+        Loan approved = Loan.builder()
+                .customer(customer)
+                .loanType(type)
+                .appliedInterestRate(12.0)
+                .amount(new BigDecimal("120000.00"))
+                .purpose("Prepayment")
+                .income("₹30,000 - ₹70,000")
+                .employmentInfo("Software (IT)")
+                .aadhaar("123456789012")
+                .pan("ABCDE1234F")
+                .cibilScore(750)
+                .tenureYears(1)
+                .loanStatus(Loan.LoanStatus.APPROVED)
+                .submittedAt(LocalDateTime.now())
+                .build();
+        loan = loanRepository.save(approved);
+        emiGenerationService.generateSchedule(loan);
+        loan = loanRepository.save(loan);
+    }
+
+    @AfterEach
+    void tearDown() {
+        prepaymentRepository.deleteAll();
+        emiPaymentRepository.deleteAll();
+        loanRepository.deleteAll();
+        loanTypeRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Quote on a fresh loan pays off the principal and saves the scheduled interest")
+    void givenFreshLoan_whenQuoted_thenPayoffIsPrincipal() {
+        PrepaymentQuoteDto quote = prepaymentService.getQuote(loan.getId(), null, customer);
+
+        assertThat(quote.getCurrentEmi()).isEqualByComparingTo(EMI);
+        assertThat(quote.getPendingInstallments()).isEqualTo(12);
+        assertThat(quote.getOverdueInstallments()).isZero();
+        assertThat(quote.getAccruedInterest()).isEqualByComparingTo("0");
+        assertThat(quote.getPayoffAmount()).isCloseTo(new BigDecimal("120000.00"), within(new BigDecimal("0.50")));
+        assertThat(quote.getForeclosureSavings())
+                .isEqualByComparingTo(quote.getOutstandingAmount().subtract(quote.getPayoffAmount()));
+        assertThat(quote.getReducedEmi()).isNull();
+    }
+
+    @Test
+    @DisplayName("Reduce-EMI prepayment rewrites every remaining installment as quoted")
+    void givenPartPrepayment_whenReduceEmi_thenInstallmentsRecast() {
+        PrepaymentQuoteDto quote = prepaymentService.getQuote(loan.getId(), new BigDecimal("50000.00"), customer);
+
+        PrepaymentResultDto result = prepaymentService.prepay(loan.getId(),
+                request("50000.00", LoanPrepayment.RecastMode.REDUCE_EMI), customer);
+
+        assertThat(result.isLoanClosed()).isFalse();
+        assertThat(result.getNewEmi()).isEqualByComparingTo(quote.getReducedEmi());
+        assertThat(result.getNewEmi()).isCloseTo(new BigDecimal("6219.41"), within(new BigDecimal("0.05")));
+        assertThat(result.getRemainingInstallments()).isEqualTo(12);
+
+        List<EmiPayment> schedule = emiPaymentRepository.findByLoanIdOrderByDueDateAsc(loan.getId());
+        assertThat(schedule).hasSize(12).allSatisfy(e -> assertThat(e.getAmount()).isEqualByComparingTo(result.getNewEmi()));
+        assertThat(schedule.get(11).getRemainingBalance()).isEqualByComparingTo("0");
+
+        Loan reloaded = loanRepository.findById(loan.getId()).orElseThrow();
+        assertThat(reloaded.getOutstandingAmount()).isEqualByComparingTo(result.getNewEmi().multiply(BigDecimal.valueOf(12)));
+        assertThat(prepaymentRepository.findByLoanIdOrderByCreatedAtDesc(loan.getId())).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("Reduce-tenure prepayment keeps the EMI and deletes the surplus installments")
+    void givenPartPrepayment_whenReduceTenure_thenScheduleShortened() {
+        PrepaymentQuoteDto quote = prepaymentService.getQuote(loan.getId(), new BigDecimal("50000.00"), customer);
+
+        PrepaymentResultDto result = prepaymentService.prepay(loan.getId(),
+                request("50000.00", LoanPrepayment.RecastMode.REDUCE_TENURE), customer);
+
+        assertThat(result.getRemainingInstallments()).isEqualTo(7).isEqualTo(quote.getReducedTenureInstallments());
+
+        List<EmiPayment> schedule = emiPaymentRepository.findByLoanIdOrderByDueDateAsc(loan.getId());
+        assertThat(schedule).hasSize(7);
+        assertThat(schedule.subList(0, 6)).allSatisfy(e -> assertThat(e.getAmount()).isEqualByComparingTo(EMI));
+        assertThat(schedule.get(6).getAmount()).isPositive().isLessThan(EMI);
+
+        Loan reloaded = loanRepository.findById(loan.getId()).orElseThrow();
+        assertThat(reloaded.getPendingEmiCount()).isEqualTo(7);
+        assertThat(reloaded.getNextDueDate()).isEqualTo(schedule.get(0).getDueDate());
+        assertThat(reloaded.getLastEmiAmount()).isEqualByComparingTo(schedule.get(6).getAmount());
+    }
+
+    @Test
+    @DisplayName("After a reduce-tenure recast the quote prices the smaller last installment, so its payoff closes the loan")
+    void givenReduceTenureRecast_whenQuotedPayoffPaid_thenLoanCloses() {
+        prepaymentService.prepay(loan.getId(), request("50000.00", LoanPrepayment.RecastMode.REDUCE_TENURE), customer);
+
+        PrepaymentQuoteDto quote = prepaymentService.getQuote(loan.getId(), null, customer);
+        assertThat(quote.getCurrentEmi()).isEqualByComparingTo(EMI);
+        assertThat(quote.getPendingInstallments()).isEqualTo(7);
+
+        PrepaymentResultDto result = prepaymentService.prepay(loan.getId(),
+                request(quote.getPayoffAmount().toPlainString(), null), customer);
+
+        assertThat(result.isLoanClosed()).isTrue();
+        assertThat(result.getAmountPaid()).isEqualByComparingTo(quote.getPayoffAmount());
+        assertThat(loanRepository.findById(loan.getId()).orElseThrow().getLoanStatus()).isEqualTo(Loan.LoanStatus.CLOSED);
+    }
+
+    @Test
+    @DisplayName("Paying the quoted payoff forecloses and closes the loan")
+    void givenPayoffAmount_whenPrepaid_thenLoanForeclosed() {
+        BigDecimal payoff = prepaymentService.getQuote(loan.getId(), null, customer).getPayoffAmount();
+
+        PrepaymentResultDto result = prepaymentService.prepay(loan.getId(), request(payoff.toPlainString(), null), customer);
+
+        assertThat(result.isLoanClosed()).isTrue();
+        assertThat(result.getMode()).isEqualTo(LoanPrepayment.RecastMode.FORECLOSURE);
+        assertThat(result.getAmountPaid()).isEqualByComparingTo(payoff);
+        assertThat(emiPaymentRepository.countByLoan(loan)).isZero();
+
+        Loan reloaded = loanRepository.findById(loan.getId()).orElseThrow();
+        assertThat(reloaded.getLoanStatus()).isEqualTo(Loan.LoanStatus.CLOSED);
+        assertThat(reloaded.getPendingEmiCount()).isZero();
+        verify(mailService).sendLoanClosedText(any(), eq(payoff));
+    }
+
+    @Test
+    @DisplayName("Another customer cannot quote or prepay the loan")
+    void givenOtherCustomer_whenPrepaying_thenRejected() {
+        User other = User.builder().userId(-1L).build();
+
+        assertThatThrownBy(() -> prepaymentService.prepay(loan.getId(), request("1000.00", null), other))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessage("Unauthorized access to loan");
+        assertThat(prepaymentRepository.count()).isZero();
+    }
+
+    private static PrepaymentRequest request(String amount, LoanPrepayment.RecastMode mode) {
+        PrepaymentRequest request = new PrepaymentRequest();
+        request.setAmount(new BigDecimal(amount));
+        request.setMode(mode);
+        return request;
+    }
+}
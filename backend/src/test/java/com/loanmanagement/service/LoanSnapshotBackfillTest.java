@@ -0,0 +1,78 @@
+package com.loanmanagement.service;
+
+import com.loanmanagement.model.*;
+import com.loanmanagement.repository.*;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false"
+})
+@Import(LoanSnapshotBackfill.class)
+@DisplayName("LoanSnapshotBackfill Tests")
+class LoanSnapshotBackfillTest {
+
+    @Autowired private LoanSnapshotBackfill backfill;
+    @Autowired private TestEntityManager em;
+
+    @Test
+    @DisplayName("Derives counts, outstanding amount and next due date for legacy loans only")
+    void givenLegacyLoan_whenBackfill_thenSnapshotMatchesSchedule() {
+        User customer = em.persist(User.builder()
+                .username("legacy").name("Legacy").email("legacy@example.com").password("x")
+                .role(User.Role.CUSTOMER).build());
+        LoanType type = em.persist(LoanType.builder()
+                .name("Home Loan").interestRate(new BigDecimal("8.00")).maxTenureYears(20)
+                .maxLoanAmount(new BigDecimal("5000000.00")).penaltyRatePercent(BigDecimal.ONE).build());
+
+        Loan legacy = em.persist(loan(customer, type));
+        emi(legacy, 1, EmiPayment.EmiStatus.PAID);
+        emi(legacy, 2, EmiPayment.EmiStatus.PENDING);
+        emi(legacy, 3, EmiPayment.EmiStatus.PENDING);
+
+        Loan submitted = em.persist(loan(customer, type));
+        em.flush();
+
+        backfill.run(null);
+        em.clear();
+
+        Loan reloaded = em.find(Loan.class, legacy.getId());
+        assertThat(reloaded)
+                .extracting(Loan::getPendingEmiCount, Loan::getPaidEmiCount, Loan::getNextDueDate)
+                .containsExactly(2, 1, LocalDate.of(2030, 2, 1));
+        assertThat(reloaded.getOutstandingAmount()).isEqualByComparingTo("2000");
+
+        Loan untouched = em.find(Loan.class, submitted.getId());
+        assertThat(untouched.getPendingEmiCount()).isZero();
+        assertThat(untouched.getOutstandingAmount()).isNull();
+    }
+
+    private Loan loan(User customer, LoanType type) {
+        return Loan.builder()
+                .customer(customer).loanType(type).appliedInterestRate(8.0)
+                .amount(new BigDecimal("100000.00")).purpose("Backfill test")
+                .income("> ₹1,00,000").employmentInfo("Other")
+                .aadhaar("123456789012").pan("ABCDE1234F").cibilScore(700).tenureYears(1)
+                .loanStatus(Loan.LoanStatus.APPROVED).submittedAt(LocalDateTime.now())
+                .build();
+    }
+
+    private void emi(Loan loan, int month, EmiPayment.EmiStatus status) {
+        em.persist(EmiPayment.builder()
+                .loan(loan).amount(new BigDecimal("1000.00"))
+                .dueDate(LocalDate.of(2030, month, 1)).status(status)
+                .remainingBalance(BigDecimal.ZERO).build());
+    }
+}
@@ -0,0 +1,286 @@
+package com.loanmanagement.service;
+
+import com.loanmanagement.dto.LoanStatementMail;
+import com.loanmanagement.dto.StatementPartitionDto;
+import com.loanmanagement.dto.StatementRunReportDto;
+import com.loanmanagement.model.*;
+import com.loanmanagement.repository.*;
+import org.junit.jupiter.api.*;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false",
+        "statement.partition-size=2",
+        "statement.workers=2"
+})
+@Import(LoanStatementService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("LoanStatementService Tests")
+class LoanStatementServiceTest {
+
+    private static final YearMonth PERIOD = YearMonth.of(2025, 3);
+    private static final LocalDate FIRST_DUE = LocalDate.of(2025, 2, 5);
+
+    @Autowired private LoanStatementService statementService;
+    @Autowired private UserRepository userRepository;
+    @Autowired private LoanTypeRepository loanTypeRepository;
+    @Autowired private LoanRepository loanRepository;
+    @Autowired private EmiPaymentRepository emiPaymentRepository;
+    @Autowired private PenaltyRepository penaltyRepository;
+    @Autowired private StatementRunPartitionRepository partitionRepository;
+
+    @MockBean private MailService mailService;
+
+    private User customer;
+    private LoanType type;
+
+    @BeforeEach
+    void setUp() {
+        customer = userRepository.save(User.builder()
+                .username("statement_user")
+                .name("Statement User")
+                .email("statement@example.com")
+                .password("x")
+                .role(User.Role.CUSTOMER)
+                .createdAt(LocalDateTime.now())
+                .build());
+
+        type = loanTypeRepository.save(LoanType.builder()
+                .name("Personal Loan")
+                .interestRate(new BigDecimal("10.00"))
+                .maxTenureYears(5)
+                .maxLoanAmount(new BigDecimal("500000.00"))
+                .penaltyRatePercent(new BigDecimal("1.00"))
+                .build());
+
+        when(mailService.renderStatement(any()))
+                .thenAnswer(inv -> new MailService.HtmlMail(inv.<LoanStatementMail>getArgument(0).getTo(), "s", "h"));
+        when(mailService.sendHtmlBatch(anyList())).thenAnswer(inv -> inv.<List<?>>getArgument(0).size());
+    }
+
+    @AfterEach
+    void tearDown() {
+        partitionRepository.deleteAll();
+        penaltyRepository.deleteAll();
+        emiPaymentRepository.deleteAll();
+        loanRepository.deleteAll();
+        loanTypeRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Each active loan gets one statement with month, to-date and penalty figures")
+    void givenActiveLoans_whenRun_thenStatementPerLoan() {
+        Loan first = createLoan(Loan.LoanStatus.APPROVED, 4);
+        List<EmiPayment> schedule = emiPaymentRepository.findByLoanOrderByDueDateAsc(first);
+        pay(schedule.get(0), LocalDate.of(2025, 2, 3));  // before the period
+        pay(schedule.get(1), LocalDate.of(2025, 3, 4));  // in the period
+        penaltyRepository.save(Penalty.builder().emi(schedule.get(2)).amount(250.0).reason("Late").build());
+        penaltyRepository.save(Penalty.builder().emi(schedule.get(2)).amount(100.0).reason("Late").build());
+
+        Loan second = createLoan(Loan.LoanStatus.APPROVED, 2);
+        createLoan(Loan.LoanStatus.CLOSED, 2);
+        Loan third = createLoan(Loan.LoanStatus.APPROVED, 3);
+
+        StatementRunReportDto report = run(PERIOD);
+
+        assertThat(report.getPeriod()).isEqualTo("2025-03");
+        assertThat(report.getState()).isEqualTo("COMPLETED");
+        assertThat(report.getPartitionsDone()).isEqualTo(2);
+        assertThat(report.getLoans()).isEqualTo(3);
+        assertThat(report.getMailsSent()).isEqualTo(3);
+        assertThat(report.getFailedPartitions()).isZero();
+        assertThat(report.getPartitions()).isEqualTo(2); // 4 consecutive ids, 2 per partition
+        assertThat(report.getPartitionTimings()).extracting(StatementPartitionDto::getLoans).containsExactly(2, 1);
+
+        ArgumentCaptor<LoanStatementMail> rendered = ArgumentCaptor.forClass(LoanStatementMail.class);
+        verify(mailService, times(3)).renderStatement(rendered.capture());
+        List<LoanStatementMail> mails = new ArrayList<>(rendered.getAllValues());
+        mails.sort(Comparator.comparing(LoanStatementMail::getLoanId));
+        assertThat(mails).extracting(LoanStatementMail::getLoanId)
+                .containsExactly(first.getId(), second.getId(), third.getId());
+
+        LoanStatementMail st = mails.get(0);
+        assertThat(st.getTo()).isEqualTo("statement@example.com");
+        assertThat(st.getLoanName()).isEqualTo("Personal Loan");
+        assertThat(st.getPaidInPeriod()).isEqualTo(1);
+        assertThat(st.getPaidInPeriodAmount()).isEqualByComparingTo("10000");
+        assertThat(st.getPaidToDate()).isEqualByComparingTo("20000");
+        assertThat(st.getOverdueCount()).isZero(); // 3rd installment is due 2025-04-05
+        assertThat(st.getPenalties()).isEqualByComparingTo("350");
+
+        LoanStatementMail untouched = mails.get(1);
+        assertThat(untouched.getPaidInPeriod()).isZero();
+        assertThat(untouched.getPaidToDate()).isEqualByComparingTo("0");
+        assertThat(untouched.getOverdueCount()).isEqualTo(2); // due Feb and Mar, both unpaid
+        assertThat(untouched.getPenalties()).isEqualByComparingTo("0");
+    }
+
+    @Test
+    @DisplayName("No active loans means no partitions and no mail")
+    void givenNoActiveLoans_whenRun_thenEmptyReport() {
+        createLoan(Loan.LoanStatus.SUBMITTED, 0);
+
+        StatementRunReportDto report = run(PERIOD);
+
+        assertThat(report.getPartitions()).isZero();
+        assertThat(report.getLoans()).isZero();
+        verify(mailService, never()).sendHtmlBatch(anyList());
+    }
+
+    @Test
+    @DisplayName("A failing partition is reported and the others still go out")
+    void givenPartitionFailure_whenRun_thenReportedAndOthersSent() {
+        createLoan(Loan.LoanStatus.APPROVED, 1);
+        createLoan(Loan.LoanStatus.APPROVED, 1);
+        createLoan(Loan.LoanStatus.APPROVED, 1);
+        when(mailService.sendHtmlBatch(anyList()))
+                .thenThrow(new IllegalStateException("SMTP down"))
+                .thenAnswer(inv -> inv.<List<?>>getArgument(0).size());
+
+        StatementRunReportDto report = run(PERIOD);
+
+        assertThat(report.getPartitions()).isEqualTo(2);
+        assertThat(report.getFailedPartitions()).isEqualTo(1);
+        assertThat(report.getPartitionTimings()).extracting(StatementPartitionDto::getError).containsOnlyOnce("SMTP down");
+    }
+
+    @Test
+    @DisplayName("Running a month again mails only the partitions that did not go out")
+    void givenEarlierRun_whenSameMonthRunAgain_thenOnlyFailedPartitionsSent() {
+        createLoan(Loan.LoanStatus.APPROVED, 1);
+        createLoan(Loan.LoanStatus.APPROVED, 1);
+        createLoan(Loan.LoanStatus.APPROVED, 1);
+        when(mailService.sendHtmlBatch(anyList()))
+                .thenThrow(new IllegalStateException("SMTP down"))
+                .thenAnswer(inv -> inv.<List<?>>getArgument(0).size());
+        StatementRunReportDto first = run(PERIOD);
+        assertThat(first.getFailedPartitions()).isEqualTo(1);
+
+        StatementRunReportDto retry = run(PERIOD);
+
+        assertThat(retry.getPreviouslySentPartitions()).isEqualTo(1);
+        assertThat(retry.getPartitions()).isEqualTo(1);
+        assertThat(retry.getFailedPartitions()).isZero();
+        assertThat(first.getMailsSent() + retry.getMailsSent()).isEqualTo(3);
+
+        StatementRunReportDto again = run(PERIOD);
+
+        assertThat(again.getPartitions()).isZero();
+        assertThat(again.getPreviouslySentPartitions()).isEqualTo(2);
+        verify(mailService, times(3)).sendHtmlBatch(anyList()); // the failed one, the other first-run one, the retry
+        assertThat(run(PERIOD.plusMonths(1)).getMailsSent()).isEqualTo(3); // next month is a new run
+    }
+
+    @Test
+    @DisplayName("The run works in the background; its progress is readable and a second run is refused")
+    void givenRunningJob_whenPolledAndStartedAgain_thenProgressShownAndSecondRefused() throws Exception {
+        createLoan(Loan.LoanStatus.APPROVED, 1);
+        CountDownLatch sending = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(mailService.sendHtmlBatch(anyList())).thenAnswer(inv -> {
+            sending.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return inv.<List<?>>getArgument(0).size();
+        });
+
+        StatementRunReportDto started = statementService.start(PERIOD);
+        assertThat(sending.await(5, TimeUnit.SECONDS)).isTrue();
+        try {
+            StatementRunReportDto running = statementService.getJob(started.getJobId());
+            assertThat(running.getState()).isEqualTo("RUNNING");
+            assertThat(running.getPartitions()).isEqualTo(1);
+            assertThat(running.getPartitionsDone()).isZero();
+            assertThatThrownBy(() -> statementService.start(PERIOD))
+                    .hasMessage("A statement run is already in progress");
+        } finally {
+            release.countDown();
+        }
+
+        StatementRunReportDto finished = await(started);
+        assertThat(finished.getState()).isEqualTo("COMPLETED");
+        assertThat(finished.getMailsSent()).isEqualTo(1);
+        assertThat(statementService.getJobs().get(0).getJobId()).isEqualTo(started.getJobId());
+    }
+
+    private StatementRunReportDto run(YearMonth period) {
+        return await(statementService.start(period));
+    }
+
+    private StatementRunReportDto await(StatementRunReportDto job) {
+        try {
+            for (int i = 0; i < 200 && job.getFinishedAt() == null; i++) {
+                Thread.sleep(25);
+                job = statementService.getJob(job.getJobId());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        assertThat(job.getFinishedAt()).as("statement run finished").isNotNull();
+        return job;
+    }
+
+    private void pay(EmiPayment emi, LocalDate on) {
+        emi.setStatus(EmiPayment.EmiStatus.PAID);
+        emi.setPaymentDate(on);
+        emi.setTransactionRef("TXN-" + emi.getId());
+        emiPaymentRepository.save(emi);
+    }
+
+    private Loan createLoan(Loan.LoanStatus status, int installments) {
+        Loan created = loanRepository.save(Loan.builder()
+                .customer(customer)
+                .loanType(type)
+                .appliedInterestRate(10.0)
+                .amount(new BigDecimal("30000.00"))
+                .purpose("Statements")
+                .income("₹30,000 - ₹70,000")
+                .employmentInfo("Software (IT)")
+                .aadhaar("123456789012")
+                .pan("ABCDE1234F")
+                .cibilScore(750)
+                .tenureYears(1)
+                .loanStatus(status)
+                .submittedAt(LocalDateTime.now())
+                .pendingEmiCount(installments)
+                .outstandingAmount(new BigDecimal(10000L * installments).setScale(2))
+                .nextDueDate(FIRST_DUE)
+                .build());
+
+        List<EmiPayment> schedule = new ArrayList<>();
+        for (int i = 0; i < installments; i++) {
+            schedule.add(EmiPayment.builder()
+                    .loan(created)
+                    .amount(new BigDecimal("10000.00"))
+                    .dueDate(FIRST_DUE.plusMonths(i))
+                    .status(EmiPayment.EmiStatus.PENDING)
+                    .remainingBalance(new BigDecimal(10000L * (installments - i - 1)).setScale(2))
+                    .build());
+        }
+        emiPaymentRepository.saveAll(schedule);
+        return created;
+    }
+}
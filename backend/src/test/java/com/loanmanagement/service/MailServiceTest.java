@@ -0,0 +1,280 @@
+package com.loanmanagement.service;
+
+import com.loanmanagement.config.AppMetrics;
+import com.loanmanagement.dto.EmiPaidMail;
+import com.loanmanagement.dto.LoanStatementMail;
+import com.loanmanagement.model.EmiPayment;
+import com.loanmanagement.model.Loan;
+import com.loanmanagement.model.LoanType;
+import com.loanmanagement.model.User;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.Session;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Executor;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("MailService Tests")
+class MailServiceTest {
+
+    @Mock private JavaMailSender mailSender;
+    @Mock private SmtpTransportPool transportPool;
+
+    private MailService mailService;
+    private SimpleMeterRegistry meters;
+    private Loan loan;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        meters = new SimpleMeterRegistry();
+        mailService = new MailService(mailSender, transportPool, new AppMetrics(meters));
+        // deliver on the test thread instead of the async dispatcher
+        ReflectionTestUtils.setField(mailService, "dispatcher", (Executor) Runnable::run);
+        ReflectionTestUtils.setField(mailService, "from", "SmartLendOfficial <smartlendlms1@gmail.com>");
+        ReflectionTestUtils.setField(mailService, "brandName", "SmartLend");
+        mailService.init();
+
+        User user = User.builder().userId(7L).name("Asha <Admin>").email("asha@example.com").build();
+        loan = Loan.builder()
+                .id(42L)
+                .customer(user)
+                .loanType(LoanType.builder().name("Home & Car").build())
+                .amount(new BigDecimal("1200000.00"))
+                .appliedInterestRate(7.5)
+                .tenureYears(1)
+                .submittedAt(LocalDateTime.of(2025, 1, 10, 9, 0))
+                .closedAt(LocalDateTime.of(2026, 1, 10, 9, 0))
+                .paidEmiCount(12)
+                .build();
+    }
+
+    @Nested
+    @DisplayName("Rendering")
+    class RenderingTests {
+
+        @Test
+        @DisplayName("INR formatting matches String.format for grouping, rounding and sign")
+        void givenAmounts_whenFormatted_thenSameAsFormatter() {
+            for (String amount : List.of("0", "0.005", "1", "999.999", "1000", "1234567.5", "-98765.4321",
+                    "100000000000000000.00", "12.345")) {
+                BigDecimal v = new BigDecimal(amount);
+                assertThat(InrFormat.format(v)).isEqualTo("₹" + String.format("%,.2f", v));
+            }
+            assertThat(InrFormat.format(null)).isEqualTo("₹0.00");
+        }
+
+        @Test
+        @DisplayName("Template slots are escaped unless raw, constants are folded in")
+        void givenTemplate_whenRendered_thenEscapedAndBound() {
+            MailTemplate template = MailTemplate.compile("<b>{{brand}}</b> {{name}} {{{html}}}")
+                    .bind(Map.of("brand", "A&B"));
+            StringBuilder out = new StringBuilder();
+
+            template.renderTo(out, Map.of("name", "<x>", "html", "<i>ok</i>"));
+
+            assertThat(out).hasToString("<b>A&amp;B</b> &lt;x&gt; <i>ok</i>");
+            assertThatThrownBy(() -> template.renderTo(new StringBuilder(), Map.of("name", "n")))
+                    .isInstanceOf(IllegalStateException.class);
+        }
+    }
+
+    @Nested
+    @DisplayName("Sending")
+    class SendingTests {
+
+        @Test
+        @DisplayName("Loan-closed mail uses the resolved sender and rendered template")
+        void givenClosedLoan_whenMailed_thenSenderAndBodyRendered() throws Exception {
+            when(mailSender.createMimeMessage()).thenReturn(new MimeMessage(Session.getInstance(new Properties())));
+
+            mailService.sendLoanClosedText(loan, new BigDecimal("1234567.5"));
+
+            ArgumentCaptor<MimeMessage> sent = ArgumentCaptor.forClass(MimeMessage.class);
+            verify(mailSender).send(sent.capture());
+            MimeMessage mime = sent.getValue();
+            InternetAddress from = (InternetAddress) mime.getFrom()[0];
+            assertThat(from.getAddress()).isEqualTo("smartlendlms1@gmail.com");
+            assertThat(from.getPersonal()).isEqualTo("SmartLendOfficial");
+
+            String html = (String) mime.getContent();
+            assertThat(html)
+                    .contains("NOC No. <b>NOC-000042</b>")
+                    .contains("<td>LN00042</td>")
+                    .contains("Dear Asha &lt;Admin&gt;,")
+                    .contains("<td>Home &amp; Car</td>")
+                    .contains("<td>7.5%</td>")
+                    .contains("₹1,234,567.50")
+                    .contains("<div class=\"brandbar\">SmartLend</div>")
+                    .doesNotContain("{{");
+        }
+
+        @Test
+        @DisplayName("EMI receipt renders schedule position and totals")
+        void givenPaidEmi_whenMailed_thenReceiptRendered() throws Exception {
+            when(mailSender.createMimeMessage()).thenReturn(new MimeMessage(Session.getInstance(new Properties())));
+            loan.setPaidEmiCount(3);
+            loan.setPendingEmiCount(0);
+
+            mailService.sendEmiPaidText(EmiPaidMail.of(emi(3L, "104103.27"), loan, 3));
+
+            ArgumentCaptor<MimeMessage> sent = ArgumentCaptor.forClass(MimeMessage.class);
+            verify(mailSender).send(sent.capture());
+            assertThat((String) sent.getValue().getContent())
+                    .contains("Receipt No. <b>RCPT-000003</b>")
+                    .contains("<td>3 / 3</td>")
+                    .contains("<td>7.50%</td>")
+                    .contains("₹312,309.81");
+        }
+
+        @Test
+        @DisplayName("Send latency is timed per kind, failures under their own outcome")
+        void givenSendsAndAFailure_whenMailed_thenTimedByOutcome() {
+            when(mailSender.createMimeMessage()).thenReturn(new MimeMessage(Session.getInstance(new Properties())));
+            mailService.sendLoanClosedText(loan, new BigDecimal("1000.00"));
+            doThrow(new MailSendException("SMTP down")).when(mailSender).send(any(MimeMessage.class));
+            mailService.sendLoanClosedText(loan, new BigDecimal("1000.00"));
+
+            Timer sent = meters.get("mail.send").tags("kind", "Loan-closed mail", "outcome", AppMetrics.SUCCESS).timer();
+            Timer failed = meters.get("mail.send").tags("kind", "Loan-closed mail", "outcome", AppMetrics.FAILURE).timer();
+            assertThat(sent.count()).isEqualTo(1);
+            assertThat(failed.count()).isEqualTo(1);
+        }
+    }
+
+    @Nested
+    @DisplayName("Statements")
+    class StatementTests {
+
+        @Test
+        @DisplayName("Statement renders the month's figures and carries a CSV copy")
+        void givenStatement_whenRendered_thenHtmlAndCsv() {
+            LoanStatementMail st = LoanStatementMail.builder()
+                    .period(java.time.YearMonth.of(2025, 3))
+                    .to("asha@example.com")
+                    .borrowerName("Asha")
+                    .loanId(42L)
+                    .loanName("Home, Car & More")
+                    .principal(new BigDecimal("1200000"))
+                    .paidInPeriod(1)
+                    .paidInPeriodAmount(new BigDecimal("104103.27"))
+                    .paidToDate(new BigDecimal("208206.54"))
+                    .paidEmiCount(2)
+                    .pendingEmiCount(10)
+                    .outstanding(new BigDecimal("1041032.7"))
+                    .nextDueDate(LocalDate.of(2025, 4, 10))
+                    .penalties(new BigDecimal("350"))
+                    .build();
+
+            MailService.HtmlMail mail = mailService.renderStatement(st);
+
+            assertThat(mail.subject()).isEqualTo("Loan Statement — March 2025, Loan #42");
+            assertThat(mail.html())
+                    .contains("Statement for <b>March 2025</b>")
+                    .contains("<td>1 (₹104,103.27)</td>")
+                    .contains("<td>Home, Car &amp; More</td>")
+                    .contains("<td>₹350.00</td>")
+                    .doesNotContain("{{");
+            assertThat(mail.attachmentName()).isEqualTo("statement-LN00042-2025-03.csv");
+            assertThat(new String(mail.attachment(), java.nio.charset.StandardCharsets.UTF_8))
+                    .endsWith("2025-03,LN00042,\"Home, Car & More\",1,104103.27,208206.54,2,10,0,350.00,2025-04-10,1041032.70\r\n");
+        }
+    }
+
+    @Nested
+    @DisplayName("Digest")
+    class DigestTests {
+
+        @Test
+        @DisplayName("Several notices for one recipient go out as a single digest mail")
+        void givenTwoNotices_whenDelivered_thenOneDigest() throws Exception {
+            when(mailSender.createMimeMessage()).thenReturn(new MimeMessage(Session.getInstance(new Properties())));
+
+            mailService.deliverDigest("asha@example.com", List.of(
+                    new MailService.Notice("EMI Payment Receipt", "EMI Payment Receipt — Loan #42", "<p>receipt</p>"),
+                    new MailService.Notice("Loan Closed — NOC Confirmation", "Loan Closed", "<p>noc</p>")));
+
+            ArgumentCaptor<MimeMessage> sent = ArgumentCaptor.forClass(MimeMessage.class);
+            verify(mailSender).send(sent.capture());
+            assertThat(sent.getValue().getSubject()).isEqualTo("SmartLend — 2 updates on your account");
+            assertThat((String) sent.getValue().getContent())
+                    .contains("<b>2 updates</b>")
+                    .contains("EMI Payment Receipt</div>\n<p>receipt</p>")
+                    .contains("Loan Closed — NOC Confirmation</div>\n<p>noc</p>");
+        }
+
+        @Test
+        @DisplayName("A lone notice keeps its own subject")
+        void givenOneNotice_whenDelivered_thenSentAsIs() throws Exception {
+            when(mailSender.createMimeMessage()).thenReturn(new MimeMessage(Session.getInstance(new Properties())));
+
+            mailService.deliverDigest("asha@example.com",
+                    List.of(new MailService.Notice("EMI Payment Receipt", "EMI Payment Receipt — Loan #42", "<p>receipt</p>")));
+
+            ArgumentCaptor<MimeMessage> sent = ArgumentCaptor.forClass(MimeMessage.class);
+            verify(mailSender).send(sent.capture());
+            assertThat(sent.getValue().getSubject()).isEqualTo("EMI Payment Receipt — Loan #42");
+            assertThat((String) sent.getValue().getContent()).contains("<p>receipt</p>").doesNotContain("updates</b>");
+        }
+    }
+
+    // Manual micro-benchmark of per-email render cost: mvn test -Dtest=MailServiceTest -Dmail.bench=true
+    @Test
+    @EnabledIfSystemProperty(named = "mail.bench", matches = "true")
+    @DisplayName("Render cost benchmark")
+    void renderBenchmark() {
+        EmiPayment emi = emi(3L, "104103.27");
+        Map<String, String> values = Map.ofEntries(
+                Map.entry("nocNo", "NOC-000042"), Map.entry("borrower", "Asha"), Map.entry("loanNo", "LN00042"),
+                Map.entry("loanName", "Home Loan"), Map.entry("loanAmount", InrFormat.format(loan.getAmount())),
+                Map.entry("startDate", "10 January 2025"), Map.entry("closedDate", "10 January 2026"),
+                Map.entry("emisPaid", "12"), Map.entry("rate", "7.5%"), Map.entry("tenureMonths", "12"),
+                Map.entry("totalPaid", InrFormat.format(emi.getAmount())));
+        MailTemplate closed = (MailTemplate) ReflectionTestUtils.getField(mailService, "loanClosedTemplate");
+
+        int warmup = 50_000, runs = 200_000;
+        long sink = 0;
+        for (int i = 0; i < warmup; i++) sink += mailService.render("Loan Closed", closed, values).length();
+        long start = System.nanoTime();
+        for (int i = 0; i < runs; i++) sink += mailService.render("Loan Closed", closed, values).length();
+        long perMail = (System.nanoTime() - start) / runs;
+
+        System.out.println("[BENCH] loan-closed render: " + perMail + " ns/mail (sink " + sink + ")");
+        assertThat(sink).isPositive();
+    }
+
+    private EmiPayment emi(Long id, String amount) {
+        return EmiPayment.builder()
+                .id(id)
+                .loan(loan)
+                .amount(new BigDecimal(amount))
+                .dueDate(LocalDate.of(2025, 2, 10).plusMonths(id))
+                .paymentDate(LocalDate.of(2025, 2, 10))
+                .status(EmiPayment.EmiStatus.PAID)
+                .transactionRef("TXN-" + id)
+                .remainingBalance(BigDecimal.ZERO)
+                .build();
+    }
+}
@@ -0,0 +1,118 @@
+package com.loanmanagement.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("NotificationCoalescer Tests")
+class NotificationCoalescerTest {
+
+    private final Map<String, List<List<String>>> flushed = new ConcurrentHashMap<>();
+
+    private NotificationCoalescer<String> coalescer(int windowTicks, int maxEvents) {
+        return new NotificationCoalescer<>(windowTicks, maxEvents, 0,
+                (key, events) -> flushed.computeIfAbsent(key, k -> new ArrayList<>()).add(List.copyOf(events)));
+    }
+
+    @Test
+    @DisplayName("Events for one recipient within the window are flushed together when it closes")
+    void givenEventsInWindow_whenWindowCloses_thenOneFlushPerRecipient() {
+        NotificationCoalescer<String> c = coalescer(3, 20);
+
+        c.add("a@x.com", "emi-1");
+        c.tick();
+        c.add("a@x.com", "emi-2");
+        c.add("b@x.com", "closed");
+        c.tick();
+        assertThat(flushed).isEmpty();
+
+        c.tick(); // a's window (opened at tick 0) closes
+        assertThat(flushed).containsOnlyKeys("a@x.com");
+        assertThat(flushed.get("a@x.com")).containsExactly(List.of("emi-1", "emi-2"));
+
+        c.tick(); // b's window (opened at tick 1) closes
+        assertThat(flushed.get("b@x.com")).containsExactly(List.of("closed"));
+        assertThat(c.pendingRecipients()).isZero();
+    }
+
+    @Test
+    @DisplayName("A recipient's next event after a flush opens a fresh window")
+    void givenFlushed_whenMoreEvents_thenNewWindow() {
+        NotificationCoalescer<String> c = coalescer(2, 20);
+
+        c.add("a@x.com", "1");
+        c.tick();
+        c.tick();
+        c.add("a@x.com", "2");
+        c.tick();
+        assertThat(flushed.get("a@x.com")).containsExactly(List.of("1"));
+
+        c.tick();
+        assertThat(flushed.get("a@x.com")).containsExactly(List.of("1"), List.of("2"));
+    }
+
+    @Test
+    @DisplayName("A full bucket is flushed at once and its wheel entry is ignored later")
+    void givenBurst_whenMaxReached_thenFlushedImmediately() {
+        NotificationCoalescer<String> c = coalescer(5, 3);
+
+        c.add("a@x.com", "1");
+        c.add("a@x.com", "2");
+        c.add("a@x.com", "3");
+        c.add("a@x.com", "4");
+        assertThat(flushed.get("a@x.com")).containsExactly(List.of("1", "2", "3"));
+
+        for (int i = 0; i < 5; i++) c.tick();
+        assertThat(flushed.get("a@x.com")).containsExactly(List.of("1", "2", "3"), List.of("4"));
+    }
+
+    @Test
+    @DisplayName("Close flushes everything still buffered")
+    void givenPending_whenClosed_thenFlushed() {
+        NotificationCoalescer<String> c = coalescer(60, 20);
+        c.add("a@x.com", "1");
+        c.add("b@x.com", "2");
+
+        c.close();
+
+        assertThat(flushed).containsOnlyKeys("a@x.com", "b@x.com");
+    }
+
+    @Test
+    @DisplayName("Concurrent producers lose no events and each is flushed exactly once")
+    void givenConcurrentAdds_whenTicking_thenNothingLostOrDuplicated() throws Exception {
+        NotificationCoalescer<String> c = coalescer(2, 7);
+        int threads = 8, perThread = 500;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger done = new AtomicInteger();
+        for (int t = 0; t < threads; t++) {
+            int id = t;
+            pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < perThread; i++) c.add("user" + (i % 10) + "@x.com", id + ":" + i);
+                done.incrementAndGet();
+                return null;
+            });
+        }
+        start.countDown();
+        while (done.get() < threads) c.tick();
+        pool.shutdown();
+        assertThat(pool.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+        c.close();
+
+        List<String> all = flushed.values().stream().flatMap(List::stream).flatMap(List::stream).toList();
+        assertThat(all).hasSize(threads * perThread).doesNotHaveDuplicates();
+    }
+}
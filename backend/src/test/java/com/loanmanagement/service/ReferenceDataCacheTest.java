@@ -0,0 +1,182 @@
+package com.loanmanagement.service;
+
+import com.loanmanagement.config.AppMetrics;
+import com.loanmanagement.model.*;
+import com.loanmanagement.repository.*;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Statement counts of the admin and customer loan lists with the second-level
+ * cache cold (what every request cost before it existed) and warm, using the
+ * cache settings from application.properties.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false"
+})
+@Import({AdminLoanService.class, CustomerLoanService.class, LoanDecisionEngine.class, DuplicateApplicationDetector.class,
+        EmiGenerationService.class, OptimisticLockRetry.class, LoanDataPurger.class, LoanArchiveService.class, LoanArchiver.class, AppMetrics.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("Reference data cache Tests")
+class ReferenceDataCacheTest {
+
+    private static final int CUSTOMERS = 20;
+    private static final int LOAN_TYPES = 4;
+    private static final int LOANS_PER_CUSTOMER = 3;
+
+    @Autowired private AdminLoanService adminLoanService;
+    @Autowired private CustomerLoanService customerLoanService;
+    @Autowired private UserRepository userRepository;
+    @Autowired private LoanTypeRepository loanTypeRepository;
+    @Autowired private LoanRepository loanRepository;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+    @Autowired private PlatformTransactionManager transactionManager;
+
+    @MockBean private MailService mailService;
+
+    private SessionFactoryImplementor sessionFactory;
+    private Statistics stats;
+
+    @BeforeEach
+    void setUp() {
+        sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        stats = sessionFactory.getStatistics();
+
+        List<LoanType> types = new ArrayList<>();
+        for (int t = 0; t < LOAN_TYPES; t++) {
+            types.add(loanTypeRepository.save(LoanType.builder()
+                    .name("Type " + t)
+                    .interestRate(new BigDecimal("10.00"))
+                    .maxTenureYears(5)
+                    .maxLoanAmount(new BigDecimal("500000.00"))
+                    .penaltyRatePercent(new BigDecimal("1.00"))
+                    .build()));
+        }
+        List<Loan> loans = new ArrayList<>();
+        for (int c = 0; c < CUSTOMERS; c++) {
+            User customer = userRepository.save(User.builder()
+                    .username("cached_" + c)
+                    .name("Cached " + c)
+                    .email("cached" + c + "@example.com")
+                    .password("x")
+                    .role(User.Role.CUSTOMER)
+                    .createdAt(LocalDateTime.now())
+                    .build());
+            for (int l = 0; l < LOANS_PER_CUSTOMER; l++) {
+                loans.add(Loan.builder()
+                        .customer(customer)
+                        .loanType(types.get((c + l) % LOAN_TYPES))
+                        .appliedInterestRate(10.0)
+                        .amount(new BigDecimal("80000.00"))
+                        .purpose("Cache measurement")
+                        .income("₹30,000 - ₹70,000")
+                        .employmentInfo("Software (IT)")
+                        .aadhaar("123456789012")
+                        .pan("ABCDE1234F")
+                        .cibilScore(750)
+                        .tenureYears(1)
+                        .loanStatus(Loan.LoanStatus.SUBMITTED)
+                        .submittedAt(LocalDateTime.now())
+                        .build());
+            }
+        }
+        loanRepository.saveAll(loans);
+    }
+
+    @AfterEach
+    void tearDown() {
+        loanRepository.deleteAll();
+        loanTypeRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    private long statementsFor(Runnable request) {
+        stats.clear();
+        request.run();
+        return stats.getPrepareStatementCount();
+    }
+
+    private void coldCache() {
+        sessionFactory.getCache().evictAllRegions();
+    }
+
+    // what CustomerLoanController does per request: resolve the caller, then list their loans
+    private void customerLoanList(String username) {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.setReadOnly(true);
+        tx.executeWithoutResult(status -> {
+            User customer = userRepository.findByUsername(username).orElseThrow();
+            assertThat(customerLoanService.getLoansByCustomer(customer)).hasSize(LOANS_PER_CUSTOMER);
+        });
+    }
+
+    @Test
+    @DisplayName("Admin loan list: one query cold or warm (plus the archive), customer and loan type are fetched with the loans")
+    void adminLoanList() {
+        coldCache();
+        long cold = statementsFor(adminLoanService::getAllLoans);
+        long warm = statementsFor(adminLoanService::getAllLoans);
+        System.out.println("[CACHE] Admin loan list (" + CUSTOMERS * LOANS_PER_CUSTOMER + " loans): "
+                + cold + " statements cold, " + warm + " warm");
+
+        assertThat(cold).isEqualTo(1 + 1); // live loans, archived loans
+        assertThat(warm).isEqualTo(1 + 1);
+    }
+
+    @Test
+    @DisplayName("Customer loan list: caller and loan types come from the cache when warm")
+    void customerLoanList() {
+        coldCache();
+        long cold = statementsFor(() -> customerLoanList("cached_0"));
+        long warm = statementsFor(() -> customerLoanList("cached_0"));
+        System.out.println("[CACHE] Customer loan list (" + LOANS_PER_CUSTOMER + " loans): "
+                + cold + " statements cold, " + warm + " warm");
+
+        assertThat(cold).isEqualTo(1 + 1 + 1 + LOANS_PER_CUSTOMER); // user, loans, archived loans, one per distinct type
+        assertThat(warm).isEqualTo(1 + 1);
+        assertThat(stats.getQueryCacheHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Changes made through JPA are visible right away: cached rows updated, cached queries invalidated")
+    void changesThroughJpaKeepTheCacheCurrent() {
+        assertThat(loanTypeRepository.findAll()).hasSize(LOAN_TYPES);
+        User before = userRepository.findByUsername("cached_1").orElseThrow();
+
+        LoanType renamed = loanTypeRepository.findAll().get(0);
+        renamed.setName("Renamed");
+        loanTypeRepository.save(renamed);
+        loanTypeRepository.save(LoanType.builder()
+                .name("Added")
+                .interestRate(new BigDecimal("9.00"))
+                .maxTenureYears(3)
+                .maxLoanAmount(new BigDecimal("100000.00"))
+                .penaltyRatePercent(new BigDecimal("1.00"))
+                .build());
+        before.setCity("Pune");
+        userRepository.save(before);
+
+        assertThat(loanTypeRepository.findAll()).extracting(LoanType::getName).contains("Renamed", "Added");
+        assertThat(loanTypeRepository.findById(renamed.getLoanTypeId()).orElseThrow().getName()).isEqualTo("Renamed");
+        assertThat(userRepository.findByUsername("cached_1").orElseThrow().getCity()).isEqualTo("Pune");
+    }
+}
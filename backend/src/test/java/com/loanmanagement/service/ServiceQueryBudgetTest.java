@@ -0,0 +1,559 @@
+package com.loanmanagement.service;
+
+import com.loanmanagement.config.AppMetrics;
+import com.loanmanagement.config.JwtUtil;
+import com.loanmanagement.dto.*;
+import com.loanmanagement.model.*;
+import com.loanmanagement.repository.*;
+import com.loanmanagement.support.QueryBudget;
+import com.loanmanagement.support.QueryCounter;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.validation.ValidationAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+import org.springframework.core.type.filter.AnnotationTypeFilter;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.when;
+
+/**
+ * Statement budget for every public method of the service package, measured
+ * through a counting DataSource with the second-level cache cold.
+ *
+ * The data set has several customers, each with loans, EMIs, history and chat,
+ * so a call that loads something per row (N+1) shows up as a blown budget
+ * rather than as a slow page in production. BUDGETS is the one place to
+ * review when a change legitimately adds a query; a new public service
+ * method fails the build until it gets an entry there or in NO_DATABASE.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false",
+        "app.admin.secret=test-secret",
+        "fraud.identity.hmac-key=query-budget-key",
+        "statement.workers=1"
+})
+@Import({QueryCounter.Config.class,
+        AdminDashboardService.class, AdminLoanService.class, AdminLoanTypeService.class, AdminService.class,
+        AdminUserManagementService.class, AuthService.class, ChatService.class, CustomerLoanService.class,
+        CustomerService.class, DuplicateApplicationDetector.class, DuplicateReviewService.class,
+        EmiGenerationService.class, LoanDecisionEngine.class, LoanIngestionService.class, LoanPrepaymentService.class,
+        LoanSnapshotBackfill.class, LoanStatementService.class, StatementReconciliationService.class,
+        OptimisticLockRetry.class, LoanDataPurger.class, UserPurgeService.class, LoanArchiveService.class, LoanArchiver.class, AppMetrics.class})
+@ImportAutoConfiguration({JacksonAutoConfiguration.class, ValidationAutoConfiguration.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("Service query budget Tests")
+class ServiceQueryBudgetTest {
+
+    private static final int CUSTOMERS = 6;
+
+    // "Class#method" -> most statements one call may run; overloads share an entry
+    private static final Map<String, Integer> BUDGETS = new LinkedHashMap<>();
+
+    static {
+        BUDGETS.put("AdminDashboardService#getSummaryStats", 5);
+        BUDGETS.put("AdminDashboardService#getUserBreakdown", 1);
+        BUDGETS.put("AdminDashboardService#getLoanBreakdown", 2);
+        BUDGETS.put("AdminLoanService#getAllLoans", 2); // live loans, archived loans
+        BUDGETS.put("AdminLoanService#getLoanById", 2); // a miss falls through to the archive
+        BUDGETS.put("AdminLoanService#updateLoanStatus", 5);
+        BUDGETS.put("AdminLoanService#deleteLoan", 8); // loan, then one set-based delete per table
+        BUDGETS.put("AdminLoanTypeService#getAllLoanTypes", 1);
+        BUDGETS.put("AdminLoanTypeService#getLoanTypeById", 1);
+        BUDGETS.put("AdminLoanTypeService#createLoanType", 1);
+        BUDGETS.put("AdminLoanTypeService#updateLoanType", 1);
+        BUDGETS.put("AdminLoanTypeService#updateLoanTypeConfig", 1);
+        BUDGETS.put("AdminLoanTypeService#updateInterestAndPenaltyRates", 1);
+        BUDGETS.put("AdminLoanTypeService#deleteLoanType", 4);
+        BUDGETS.put("AdminService#getUserById", 1);
+        BUDGETS.put("AdminService#getOwnProfile", 1);
+        BUDGETS.put("AdminService#updateUserById", 2);
+        BUDGETS.put("AdminService#updateOwnProfile", 2);
+        BUDGETS.put("AdminUserManagementService#getUsersPage", 2); // the page and its total
+        BUDGETS.put("AdminUserManagementService#deleteUserWithoutKeyCheck", 16); // checks, then one delete per table, any number of loans
+        BUDGETS.put("AuthService#register", 3);
+        BUDGETS.put("AuthService#login", 1);
+        BUDGETS.put("AuthService#getUserByUsername", 1);
+        BUDGETS.put("AuthService#updatePassword", 2);
+        BUDGETS.put("ChatService#sendCustomerMessage", 2);
+        BUDGETS.put("ChatService#sendAdminMessage", 3);
+        BUDGETS.put("ChatService#saveCustomerMessage", 2);
+        BUDGETS.put("ChatService#getMessagesForCustomer", 3);
+        BUDGETS.put("ChatService#getAllChats", 1);
+        BUDGETS.put("CustomerLoanService#applyLoan", 6); // lock, count, insert, identity lock + hashes
+        BUDGETS.put("CustomerLoanService#getLoansByCustomer", 6); // loans, archived loans and their records, plus one per loan type not yet cached
+        BUDGETS.put("CustomerLoanService#getLoanByIdForCustomer", 2);
+        BUDGETS.put("CustomerLoanService#getActiveLoanCounts", 1);
+        BUDGETS.put("CustomerLoanService#getActiveLoanCountsDetailed", 1);
+        BUDGETS.put("CustomerLoanService#getCustomerHome", 3);
+        BUDGETS.put("CustomerLoanService#getStatusHistoryByLoanId", 3); // live history, or archived loan and records
+        BUDGETS.put("CustomerLoanService#getLoanWithEmis", 3);
+        BUDGETS.put("CustomerLoanService#payEmi", 10);
+        BUDGETS.put("CustomerLoanService#payEmis", 10);
+        BUDGETS.put("CustomerService#getCurrentUser", 1);
+        BUDGETS.put("CustomerService#updateCustomer", 2);
+        BUDGETS.put("UserService#getUserFromRequest", 1);
+        BUDGETS.put("UserService#mapToDto", 0);
+        BUDGETS.put("DuplicateApplicationDetector#screen", 2); // identity lock rows, hashes
+        BUDGETS.put("DuplicateReviewService#getFlags", 1);
+        BUDGETS.put("DuplicateReviewService#resolveFlag", 2);
+        BUDGETS.put("EmiGenerationService#generateSchedule", 2); // count, then the schedule as one batch
+        BUDGETS.put("LoanArchiveService#archiveSettledLoans", 1); // nothing left to archive: the empty scan
+        BUDGETS.put("LoanArchiveService#getArchivedLoans", 1);
+        BUDGETS.put("LoanArchiveService#getArchivedLoansWithHistory", 2);
+        BUDGETS.put("LoanArchiveService#findArchivedLoan", 1);
+        BUDGETS.put("LoanArchiveService#getAllArchivedLoans", 1);
+        BUDGETS.put("LoanArchiveService#getArchivedHistory", 1);
+        BUDGETS.put("LoanArchiveService#getArchivedEmis", 1);
+        BUDGETS.put("LoanArchiver#archiveChunk", 12); // any number of loans: five reads, two batched inserts, five deletes
+        BUDGETS.put("LoanDataPurger#purgeLoans", 7);
+        BUDGETS.put("LoanDataPurger#deleteLoanRows", 5);
+        BUDGETS.put("LoanDataPurger#purgeArchivedLoans", 4);
+        BUDGETS.put("LoanDataPurger#purgeEmiChunk", 3);
+        BUDGETS.put("LoanDataPurger#purgeUser", 14);
+        BUDGETS.put("LoanDecisionEngine#decide", 0);
+        BUDGETS.put("LoanIngestionService#ingest", 9);
+        BUDGETS.put("LoanPrepaymentService#getQuote", 1);
+        BUDGETS.put("LoanPrepaymentService#prepay", 8);
+        BUDGETS.put("LoanSnapshotBackfill#run", 1);
+        BUDGETS.put("LoanStatementService#start", 4); // sent ranges, id range, then per partition: rows + record
+        BUDGETS.put("StatementReconciliationService#importStatement", 10);
+    }
+
+    // public methods that never reach the database, with the reason
+    private static final Map<String, String> NO_DATABASE = Map.of(
+            "MailService", "renders and sends mail",
+            "SmtpTransportPool", "SMTP connections only",
+            "OptimisticLockRetry#execute", "transaction wrapper; statements are counted on its callers",
+            "AuthService#setAdminSecret", "test setter",
+            "UserPurgeService", "in-memory job registry; the jobs run LoanDataPurger calls, budgeted there",
+            "AdminUserManagementService#getPurgeJobs", "reads UserPurgeService's job registry",
+            "AdminUserManagementService#getPurgeJob", "reads UserPurgeService's job registry",
+            "LoanStatementService#getJobs", "in-memory registry of statement runs",
+            "LoanStatementService#getJob", "in-memory registry of statement runs");
+
+    @Autowired private AdminDashboardService adminDashboardService;
+    @Autowired private AdminLoanService adminLoanService;
+    @Autowired private AdminLoanTypeService adminLoanTypeService;
+    @Autowired private AdminService adminService;
+    @Autowired private AdminUserManagementService userManagementService;
+    @Autowired private AuthService authService;
+    @Autowired private ChatService chatService;
+    @Autowired private CustomerLoanService customerLoanService;
+    @Autowired private CustomerService customerService;
+    @Autowired private DuplicateApplicationDetector duplicateDetector;
+    @Autowired private DuplicateReviewService duplicateReviewService;
+    @Autowired private EmiGenerationService emiGenerationService;
+    @Autowired private LoanArchiveService archiveService;
+    @Autowired private LoanArchiver archiver;
+    @Autowired private LoanDataPurger loanDataPurger;
+    @Autowired private LoanDecisionEngine decisionEngine;
+    @Autowired private LoanIngestionService ingestionService;
+    @Autowired private LoanPrepaymentService prepaymentService;
+    @Autowired private LoanSnapshotBackfill snapshotBackfill;
+    @Autowired private LoanStatementService statementService;
+    @Autowired private StatementReconciliationService reconciliationService;
+
+    @Autowired private UserRepository userRepository;
+    @Autowired private LoanTypeRepository loanTypeRepository;
+    @Autowired private LoanRepository loanRepository;
+    @Autowired private EmiPaymentRepository emiPaymentRepository;
+    @Autowired private ChatMessageRepository chatMessageRepository;
+    @Autowired private DuplicateApplicationFlagRepository flagRepository;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+    @Autowired private JdbcTemplate jdbcTemplate;
+
+    @MockBean private MailService mailService;
+    @MockBean private JwtUtil jwtUtil;
+    @MockBean private PasswordEncoder passwordEncoder;
+
+    private User admin;
+    private User spare;
+    private final List<User> customers = new ArrayList<>();
+    private final List<Loan> approved = new ArrayList<>();
+    private final List<Loan> submitted = new ArrayList<>();
+    private Loan rejected;
+    private Loan settled;
+    private LoanType personal;
+    private LoanType home;
+
+    @BeforeEach
+    void setUp() {
+        when(jwtUtil.isTokenValid(anyString())).thenReturn(true);
+        when(jwtUtil.extractUsername(anyString())).thenAnswer(inv -> inv.getArgument(0));
+        when(passwordEncoder.encode(anyString())).thenReturn("hashed");
+        when(passwordEncoder.matches(anyString(), anyString())).thenReturn(true);
+
+        personal = loanTypeRepository.save(loanType("Personal Loan"));
+        home = loanTypeRepository.save(loanType("Home Loan"));
+        admin = userRepository.save(user("qb_admin", User.Role.ADMIN));
+        spare = userRepository.save(user("qb_spare", User.Role.CUSTOMER));
+
+        for (int c = 0; c < CUSTOMERS; c++) {
+            User customer = userRepository.save(user("qb_customer_" + c, User.Role.CUSTOMER));
+            customers.add(customer);
+
+            Loan loan = loanRepository.save(loan(customer, personal, "ABCDE" + (1000 + c) + "F"));
+            adminLoanService.updateLoanStatus(loan.getId(), statusUpdate(Loan.LoanStatus.APPROVED));
+            approved.add(loanRepository.findById(loan.getId()).orElseThrow());
+            submitted.add(loanRepository.save(loan(customer, home, "ABCDE" + (2000 + c) + "F")));
+
+            chatService.sendCustomerMessage(customer.getUsername(), "Hello from " + c);
+            chatService.sendAdminMessage(admin.getUsername(), customer.getUserId(), "Reply to " + c);
+        }
+
+        // two closed-out loans on the account that gets deleted, one for the admin to delete
+        for (int i = 0; i < 2; i++) {
+            Loan old = loan(spare, personal, "ABCDE300" + i + "F");
+            old.setLoanStatus(Loan.LoanStatus.REJECTED);
+            loanRepository.save(old);
+        }
+        rejected = loan(customers.get(0), home, "ABCDE4000F");
+        rejected.setLoanStatus(Loan.LoanStatus.REJECTED);
+        rejected = loanRepository.save(rejected);
+        settled = loan(customers.get(5), personal, "ABCDE4001F");
+        settled.setLoanStatus(Loan.LoanStatus.REJECTED);
+        settled = loanRepository.save(settled);
+
+        // same PAN and Aadhaar from two customers: open review flags
+        customerLoanService.applyLoan(application(home, "DUPLI1234D"), customers.get(1));
+        customerLoanService.applyLoan(application(home, "DUPLI1234D"), customers.get(2));
+        assertThat(flagRepository.findAll()).isNotEmpty();
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        for (String table : List.of("penalties", "loan_prepayment", "duplicate_application_flags",
+                "applicant_identity_hashes", "applicant_identity_locks", "chat_messages", "emi_payment",
+                "application_status_history", "loans", "loan_types", "otp_log", "loans_archive_records", "loans_archive", "statement_run_partitions", "users")) {
+            jdbcTemplate.update("DELETE FROM " + table);
+        }
+        coldCache();
+    }
+
+    @TestFactory
+    @DisplayName("Every service call stays within its statement budget")
+    Stream<DynamicTest> budgets() {
+        Map<String, Callable<?>> calls = calls();
+        assertThat(calls.keySet()).containsExactlyInAnyOrderElementsOf(BUDGETS.keySet());
+
+        // one after another against the same data: later calls see what earlier ones changed
+        return calls.entrySet().stream().map(call -> DynamicTest.dynamicTest(call.getKey(), () -> {
+            coldCache();
+            QueryBudget.of(call.getKey(), call.getValue()).atMost(BUDGETS.get(call.getKey()));
+        }));
+    }
+
+    @Test
+    @DisplayName("Every public service method has a budget or is known not to touch the database")
+    void everyPublicServiceMethodIsBudgeted() throws ClassNotFoundException {
+        ClassPathScanningCandidateComponentProvider scanner = new ClassPathScanningCandidateComponentProvider(false);
+        scanner.addIncludeFilter(new AnnotationTypeFilter(Component.class));
+
+        List<String> missing = new ArrayList<>();
+        for (BeanDefinition candidate : scanner.findCandidateComponents(getClass().getPackageName())) {
+            Class<?> type = Class.forName(candidate.getBeanClassName());
+            if (NO_DATABASE.containsKey(type.getSimpleName())) continue;
+            for (Method method : type.getDeclaredMethods()) {
+                if (!Modifier.isPublic(method.getModifiers()) || method.isSynthetic() || method.isBridge()) continue;
+                String key = type.getSimpleName() + "#" + method.getName();
+                if (!BUDGETS.containsKey(key) && !NO_DATABASE.containsKey(key)) missing.add(key);
+            }
+        }
+        assertThat(missing).as("public service methods without a query budget").isEmpty();
+    }
+
+    private Map<String, Callable<?>> calls() {
+        User first = customers.get(0);
+        User third = customers.get(3);
+        Loan firstLoan = approved.get(0);
+        LoanTypeDto draft = LoanTypeDto.builder()
+                .name("Gold Loan")
+                .interestRate(new BigDecimal("9.50"))
+                .maxTenureYears(3)
+                .maxLoanAmount(new BigDecimal("300000.00"))
+                .penaltyRatePercent(new BigDecimal("1.00"))
+                .build();
+        Long[] created = new Long[1];
+        // looked up here so the lookups are not counted against the call
+        Long firstEmiId = emiPaymentRepository.findByLoanIdOrderByDueDateAsc(firstLoan.getId()).get(0).getId();
+        BigDecimal installment = emiPaymentRepository.findByLoanIdOrderByDueDateAsc(approved.get(3).getId()).get(0).getAmount();
+        Long flagId = flagRepository.findAll().get(0).getId();
+
+        Map<String, Callable<?>> calls = new LinkedHashMap<>();
+        calls.put("AdminDashboardService#getSummaryStats", adminDashboardService::getSummaryStats);
+        calls.put("AdminDashboardService#getUserBreakdown", adminDashboardService::getUserBreakdown);
+        calls.put("AdminDashboardService#getLoanBreakdown", adminDashboardService::getLoanBreakdown);
+        calls.put("AdminLoanService#getAllLoans", adminLoanService::getAllLoans);
+        calls.put("AdminLoanService#getLoanById", () -> adminLoanService.getLoanById(firstLoan.getId()));
+        calls.put("AdminLoanService#updateLoanStatus", () -> run(() -> adminLoanService.updateLoanStatus(
+                submitted.get(1).getId(), statusUpdate(Loan.LoanStatus.APPROVED))));
+        calls.put("AdminLoanService#deleteLoan", () -> run(() -> adminLoanService.deleteLoan(rejected.getId())));
+
+        calls.put("AdminLoanTypeService#getAllLoanTypes", adminLoanTypeService::getAllLoanTypes);
+        calls.put("AdminLoanTypeService#getLoanTypeById", () -> adminLoanTypeService.getLoanTypeById(personal.getLoanTypeId()));
+        calls.put("AdminLoanTypeService#createLoanType", () -> created[0] = adminLoanTypeService.createLoanType(draft).getLoanTypeId());
+        calls.put("AdminLoanTypeService#updateLoanType", () -> adminLoanTypeService.updateLoanType(created[0], draft));
+        calls.put("AdminLoanTypeService#updateLoanTypeConfig", () -> adminLoanTypeService.updateLoanTypeConfig(created[0], draft));
+        calls.put("AdminLoanTypeService#updateInterestAndPenaltyRates",
+                () -> adminLoanTypeService.updateInterestAndPenaltyRates(created[0], draft));
+        calls.put("AdminLoanTypeService#deleteLoanType", () -> run(() -> adminLoanTypeService.deleteLoanType(created[0])));
+
+        calls.put("AdminService#getUserById", () -> adminService.getUserById(first.getUserId()));
+        calls.put("AdminService#getOwnProfile", () -> adminService.getOwnProfile(request(admin)));
+        calls.put("AdminService#updateUserById", () -> adminService.updateUserById(first.getUserId(), adminUpdate()));
+        calls.put("AdminService#updateOwnProfile", () -> adminService.updateOwnProfile(customerUpdate(), request(admin)));
+
+        calls.put("AdminUserManagementService#getUsersPage",
+                () -> userManagementService.getUsersPage("qb_", "CUSTOMER", "activeLoanCount", "desc", 0, 5));
+        calls.put("AdminUserManagementService#deleteUserWithoutKeyCheck",
+                () -> userManagementService.deleteUserWithoutKeyCheck(spare.getUserId()));
+
+        calls.put("AuthService#register", () -> run(() -> authService.register(registration())));
+        calls.put("AuthService#login", () -> authService.login(login(first)));
+        calls.put("AuthService#getUserByUsername", () -> authService.getUserByUsername(first.getUsername()));
+        calls.put("AuthService#updatePassword",
+                () -> run(() -> authService.updatePassword(first.getUsername(), "new-password", "new-password")));
+
+        calls.put("ChatService#sendCustomerMessage", () -> chatService.sendCustomerMessage(first.getUsername(), "Any update?"));
+        calls.put("ChatService#sendAdminMessage",
+                () -> chatService.sendAdminMessage(admin.getUsername(), first.getUserId(), "Looking into it"));
+        calls.put("ChatService#saveCustomerMessage", () -> chatService.saveCustomerMessage(first.getUserId(), "Thanks"));
+        calls.put("ChatService#getMessagesForCustomer", () -> {
+            SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                    admin.getUsername(), null, List.of(new SimpleGrantedAuthority("ROLE_ADMIN"))));
+            return chatService.getMessagesForCustomer(first.getUserId(), admin::getUsername);
+        });
+        calls.put("ChatService#getAllChats", chatService::getAllChats);
+
+        calls.put("CustomerLoanService#applyLoan", () -> customerLoanService.applyLoan(application(personal, "ABCDE5000F"), first));
+        calls.put("CustomerLoanService#getLoansByCustomer", () -> customerLoanService.getLoansByCustomer(first));
+        calls.put("CustomerLoanService#getLoanByIdForCustomer",
+                () -> customerLoanService.getLoanByIdForCustomer(firstLoan.getId(), first));
+        calls.put("CustomerLoanService#getActiveLoanCounts", () -> customerLoanService.getActiveLoanCounts(first));
+        calls.put("CustomerLoanService#getActiveLoanCountsDetailed", () -> customerLoanService.getActiveLoanCountsDetailed(first));
+        calls.put("CustomerLoanService#getCustomerHome", () -> customerLoanService.getCustomerHome(first));
+        calls.put("CustomerLoanService#getStatusHistoryByLoanId",
+                () -> customerLoanService.getStatusHistoryByLoanId(firstLoan.getId(), first));
+        calls.put("CustomerLoanService#getLoanWithEmis", () -> customerLoanService.getLoanWithEmis(firstLoan.getId()));
+        calls.put("CustomerLoanService#payEmi", () -> customerLoanService.payEmi(firstEmiId, first));
+        calls.put("CustomerLoanService#payEmis", () -> customerLoanService.payEmis(firstLoan.getId(), nextInstallments(3), first));
+
+        calls.put("CustomerService#getCurrentUser", () -> customerService.getCurrentUser(request(first)));
+        calls.put("CustomerService#updateCustomer", () -> customerService.updateCustomer(customerUpdate(), request(first)));
+        // UserService is only used through its subclasses
+        calls.put("UserService#getUserFromRequest", () -> customerService.getUserFromRequest(request(first)));
+        calls.put("UserService#mapToDto", () -> customerService.mapToDto(first));
+
+        calls.put("DuplicateApplicationDetector#screen", () -> duplicateDetector.screen(List.of(approved.get(4))));
+        calls.put("DuplicateReviewService#getFlags", () -> duplicateReviewService.getFlags(DuplicateApplicationFlag.FlagStatus.OPEN));
+        calls.put("DuplicateReviewService#resolveFlag", () -> duplicateReviewService.resolveFlag(
+                flagId, DuplicateApplicationFlag.FlagStatus.CLEARED));
+        calls.put("EmiGenerationService#generateSchedule", () -> run(() -> emiGenerationService.generateSchedule(submitted.get(5))));
+        calls.put("LoanDecisionEngine#decide", () -> decisionEngine.decide(firstLoan, personal));
+        calls.put("LoanIngestionService#ingest", () -> ingestionService.ingest(new ByteArrayInputStream(
+                (ingestLine(third, "P-1") + "\n" + ingestLine(customers.get(4), "P-2")).getBytes(StandardCharsets.UTF_8))));
+
+        calls.put("LoanPrepaymentService#getQuote",
+                () -> prepaymentService.getQuote(approved.get(2).getId(), new BigDecimal("1000.00"), customers.get(2)));
+        calls.put("LoanPrepaymentService#prepay", () -> prepaymentService.prepay(approved.get(2).getId(),
+                prepayment(new BigDecimal("5000.00")), customers.get(2)));
+        calls.put("LoanSnapshotBackfill#run", () -> run(() -> snapshotBackfill.run(null)));
+        calls.put("LoanStatementService#start", () -> awaitStatementRun(statementService.start(YearMonth.now())));
+        calls.put("StatementReconciliationService#importStatement", () -> reconciliationService.importStatement(
+                new BufferedReader(new StringReader(LocalDate.now() + ",UTR900," + approved.get(3).getId() + "," + installment))));
+
+        // the settled loan moves to the archive, then is read back from it
+        Loan archived = Loan.builder().id(settled.getId()).customer(customers.get(5)).build();
+        calls.put("LoanArchiver#archiveChunk", () -> archiver.archiveChunk(LocalDateTime.now().plusMinutes(1), 10));
+        calls.put("LoanArchiveService#archiveSettledLoans", archiveService::archiveSettledLoans);
+        calls.put("LoanArchiveService#getArchivedLoans", () -> archiveService.getArchivedLoans(customers.get(5)));
+        calls.put("LoanArchiveService#getArchivedLoansWithHistory",
+                () -> archiveService.getArchivedLoansWithHistory(customers.get(5)));
+        calls.put("LoanArchiveService#findArchivedLoan", () -> archiveService.findArchivedLoan(settled.getId()).orElseThrow());
+        calls.put("LoanArchiveService#getAllArchivedLoans", archiveService::getAllArchivedLoans);
+        calls.put("LoanArchiveService#getArchivedHistory", () -> archiveService.getArchivedHistory(archived));
+        calls.put("LoanArchiveService#getArchivedEmis", () -> archiveService.getArchivedEmis(archived));
+
+        // last: these delete what earlier calls read
+        calls.put("LoanDataPurger#purgeArchivedLoans", () -> loanDataPurger.purgeArchivedLoans(List.of(settled.getId())));
+        calls.put("LoanDataPurger#deleteLoanRows", () -> loanDataPurger.deleteLoanRows(List.of(approved.get(4).getId())));
+        calls.put("LoanDataPurger#purgeEmiChunk", () -> loanDataPurger.purgeEmiChunk(List.of(approved.get(5).getId()), 5));
+        calls.put("LoanDataPurger#purgeLoans",
+                () -> loanDataPurger.purgeLoans(List.of(approved.get(5).getId(), submitted.get(5).getId())));
+        calls.put("LoanDataPurger#purgeUser", () -> run(() -> loanDataPurger.purgeUser(customers.get(4).getUserId())));
+        return calls;
+    }
+
+    private void coldCache() {
+        entityManagerFactory.unwrap(SessionFactoryImplementor.class).getCache().evictAllRegions();
+    }
+
+    // the run works on its own threads; statements are counted from every thread until it finishes
+    private StatementRunReportDto awaitStatementRun(StatementRunReportDto job) throws InterruptedException {
+        for (int i = 0; i < 200 && job.getFinishedAt() == null; i++) {
+            Thread.sleep(25);
+            job = statementService.getJob(job.getJobId());
+        }
+        return job;
+    }
+
+    private static Object run(Runnable call) {
+        call.run();
+        return null;
+    }
+
+    private static MockHttpServletRequest request(User caller) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer " + caller.getUsername()); // the mocked JwtUtil reads the username back
+        return request;
+    }
+
+    private static LoanStatusUpdateRequest statusUpdate(Loan.LoanStatus status) {
+        LoanStatusUpdateRequest request = new LoanStatusUpdateRequest();
+        request.setStatus(status);
+        request.setComments("Budget run");
+        return request;
+    }
+
+    private static LoanRequestDto application(LoanType type, String pan) {
+        LoanRequestDto dto = new LoanRequestDto();
+        dto.setLoanTypeId(type.getLoanTypeId());
+        dto.setLoanAmount(new BigDecimal("60000.00"));
+        dto.setLoanDuration(1);
+        dto.setLoanPurpose("Budget run");
+        dto.setIncome("₹30,000 - ₹70,000");
+        dto.setEmploymentInfo("Software (IT)");
+        dto.setAadhaar("1234567" + pan.substring(5, 9) + "0");
+        dto.setPan(pan);
+        dto.setCibilScore(750);
+        return dto;
+    }
+
+    private static EmiBatchPaymentRequest nextInstallments(int count) {
+        EmiBatchPaymentRequest request = new EmiBatchPaymentRequest();
+        request.setNextInstallments(count);
+        return request;
+    }
+
+    private static PrepaymentRequest prepayment(BigDecimal amount) {
+        PrepaymentRequest request = new PrepaymentRequest();
+        request.setAmount(amount);
+        return request;
+    }
+
+    private static AdminUpdateDto adminUpdate() {
+        AdminUpdateDto dto = new AdminUpdateDto();
+        dto.setName("Renamed Customer");
+        dto.setCity("Pune");
+        return dto;
+    }
+
+    private static CustomerUpdateDto customerUpdate() {
+        CustomerUpdateDto dto = new CustomerUpdateDto();
+        dto.setName("Renamed");
+        dto.setCity("Chennai");
+        return dto;
+    }
+
+    private static RegisterRequest registration() {
+        RegisterRequest request = new RegisterRequest();
+        request.setUsername("qb_new");
+        request.setName("New Customer");
+        request.setEmail("qb_new@example.com");
+        request.setPassword("password123");
+        request.setRole(User.Role.CUSTOMER);
+        return request;
+    }
+
+    private static LoginRequest login(User user) {
+        LoginRequest request = new LoginRequest();
+        request.setUsername(user.getUsername());
+        request.setPassword("password123");
+        return request;
+    }
+
+    private String ingestLine(User customer, String reference) {
+        return "{\"customerId\":" + customer.getUserId()
+                + ",\"reference\":\"" + reference + "\""
+                + ",\"loanTypeId\":" + personal.getLoanTypeId()
+                + ",\"loanAmount\":50000.00,\"loanDuration\":2"
+                + ",\"loanPurpose\":\"Partner " + reference + "\""
+                + ",\"income\":\"₹30,000 - ₹70,000\",\"employmentInfo\":\"Software (IT)\""
+                + ",\"aadhaar\":\"987654321012\",\"pan\":\"PQRSX" + (1000 + customer.getUserId() % 9000) + "Z\""
+                + ",\"cibilScore\":750}";
+    }
+
+    private static LoanType loanType(String name) {
+        return LoanType.builder()
+                .name(name)
+                .interestRate(new BigDecimal("10.00"))
+                .maxTenureYears(5)
+                .maxLoanAmount(new BigDecimal("500000.00"))
+                .penaltyRatePercent(new BigDecimal("1.00"))
+                .build();
+    }
+
+    private static User user(String username, User.Role role) {
+        return User.builder()
+                .username(username)
+                .name(username)
+                .email(username + "@example.com")
+                .password("x")
+                .role(role)
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+
+    private static Loan loan(User customer, LoanType type, String pan) {
+        return Loan.builder()
+                .customer(customer)
+                .loanType(type)
+                .appliedInterestRate(10.0)
+                .amount(new BigDecimal("120000.00"))
+                .purpose("Budget run")
+                .income("₹30,000 - ₹70,000")
+                .employmentInfo("Software (IT)")
+                .aadhaar("123456789012")
+                .pan(pan)
+                .cibilScore(750)
+                .tenureYears(1)
+                .loanStatus(Loan.LoanStatus.SUBMITTED)
+                .submittedAt(LocalDateTime.now())
+                .build();
+    }
+}
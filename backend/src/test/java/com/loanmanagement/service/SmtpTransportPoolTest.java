@@ -0,0 +1,221 @@
+package com.loanmanagement.service;
+
+import jakarta.mail.Message;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.io.*;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("SmtpTransportPool Tests")
+class SmtpTransportPoolTest {
+
+    private SmtpStub smtp;
+    private JavaMailSenderImpl mailSender;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        smtp = new SmtpStub();
+        mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("127.0.0.1");
+        mailSender.setPort(smtp.port());
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        smtp.close();
+    }
+
+    @Test
+    @DisplayName("Sends many messages per connection and recycles after the per-connection limit")
+    void givenBatch_whenSent_thenConnectionsReused() throws Exception {
+        SmtpTransportPool pool = new SmtpTransportPool(mailSender, 2, 3, 5_000);
+
+        int sent = pool.sendAll(messages(10));
+        pool.destroy();
+
+        assertThat(sent).isEqualTo(10);
+        assertThat(smtp.messages.get()).isEqualTo(10);
+        // 2 lanes of 5 messages, each lane reconnects once after 3 messages
+        assertThat(smtp.connections.get()).isEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("A rejected message is retried once on a fresh connection")
+    void givenServerError_whenSending_thenConnectionRecycledAndMessageRetried() throws Exception {
+        SmtpTransportPool pool = new SmtpTransportPool(mailSender, 1, 100, 5_000);
+        smtp.rejectNextData.set(1);
+
+        int sent = pool.sendAll(messages(5));
+        pool.destroy();
+
+        assertThat(sent).isEqualTo(5);
+        assertThat(smtp.messages.get()).isEqualTo(5);
+        assertThat(smtp.connections.get()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("A refused recipient fails only its message and keeps the connection")
+    void givenRejectedRecipient_whenSending_thenOtherMessagesSentOnSameConnection() throws Exception {
+        SmtpTransportPool pool = new SmtpTransportPool(mailSender, 1, 100, 5_000);
+        smtp.rejectedRecipients.add("user1@example.com");
+
+        int sent = pool.sendAll(messages(5));
+        pool.destroy();
+
+        assertThat(sent).isEqualTo(4);
+        assertThat(smtp.messages.get()).isEqualTo(4);
+        assertThat(smtp.connections.get()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("A message that cannot be prepared is skipped and the rest of its lane is sent")
+    void givenBrokenMessage_whenSending_thenRestOfLaneSent() throws Exception {
+        SmtpTransportPool pool = new SmtpTransportPool(mailSender, 1, 100, 5_000);
+        List<MimeMessage> messages = messages(5);
+        MimeMessage broken = new MimeMessage(mailSender.getSession()) {
+            @Override
+            public void saveChanges() throws MessagingException {
+                throw new MessagingException("cannot encode body");
+            }
+        };
+        messages.set(1, broken);
+
+        int sent = pool.sendAll(messages);
+        pool.destroy();
+
+        assertThat(sent).isEqualTo(4);
+        assertThat(smtp.messages.get()).isEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("When no connection can be opened, each message fails on its own")
+    void givenServerDown_whenSending_thenNothingSentAndNoLaneAborted() throws Exception {
+        SmtpTransportPool pool = new SmtpTransportPool(mailSender, 2, 100, 5_000);
+        smtp.close();
+
+        assertThat(pool.sendAll(messages(4))).isZero();
+        assertThat(pool.openConnections()).isZero();
+        pool.destroy();
+    }
+
+    @Test
+    @DisplayName("Idle connections are reused across batches")
+    void givenTwoBatches_whenSent_thenSameConnection() throws Exception {
+        SmtpTransportPool pool = new SmtpTransportPool(mailSender, 1, 100, 5_000);
+
+        pool.sendAll(messages(3));
+        pool.sendAll(messages(3));
+        pool.destroy();
+
+        assertThat(smtp.messages.get()).isEqualTo(6);
+        assertThat(smtp.connections.get()).isEqualTo(1);
+    }
+
+    private List<MimeMessage> messages(int count) throws Exception {
+        List<MimeMessage> messages = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            MimeMessage message = mailSender.createMimeMessage();
+            message.setFrom(new InternetAddress("noreply@example.com"));
+            message.setRecipient(Message.RecipientType.TO, new InternetAddress("user" + i + "@example.com"));
+            message.setSubject("Statement " + i);
+            message.setText("Hello " + i);
+            messages.add(message);
+        }
+        return messages;
+    }
+
+    /** Minimal plain-SMTP server: accepts everything, counts connections and messages. */
+    private static final class SmtpStub implements Closeable {
+        final AtomicInteger connections = new AtomicInteger();
+        final AtomicInteger messages = new AtomicInteger();
+        final AtomicInteger rejectNextData = new AtomicInteger();
+        final Set<String> rejectedRecipients = ConcurrentHashMap.newKeySet();
+        private final ServerSocket server;
+
+        SmtpStub() throws IOException {
+            server = new ServerSocket(0);
+            Thread acceptor = new Thread(this::acceptLoop, "smtp-stub");
+            acceptor.setDaemon(true);
+            acceptor.start();
+        }
+
+        int port() {
+            return server.getLocalPort();
+        }
+
+        private void acceptLoop() {
+            while (!server.isClosed()) {
+                try {
+                    Socket socket = server.accept();
+                    connections.incrementAndGet();
+                    Thread handler = new Thread(() -> handle(socket));
+                    handler.setDaemon(true);
+                    handler.start();
+                } catch (IOException e) {
+                    return;
+                }
+            }
+        }
+
+        private void handle(Socket socket) {
+            try (socket;
+                 BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+                 Writer out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII)) {
+                reply(out, "220 stub ESMTP");
+                String line;
+                while ((line = in.readLine()) != null) {
+                    String cmd = line.length() >= 4 ? line.substring(0, 4).toUpperCase() : line.toUpperCase();
+                    switch (cmd) {
+                        case "EHLO", "HELO" -> reply(out, "250 stub");
+                        case "DATA" -> {
+                            reply(out, "354 go ahead");
+                            while ((line = in.readLine()) != null && !line.equals(".")) {
+                                // discard message body
+                            }
+                            if (rejectNextData.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+                                reply(out, "451 try again later");
+                            } else {
+                                messages.incrementAndGet();
+                                reply(out, "250 queued");
+                            }
+                        }
+                        case "RCPT" -> reply(out, rejectedRecipients.stream().anyMatch(line::contains)
+                                ? "550 no such user" : "250 OK");
+                        case "QUIT" -> {
+                            reply(out, "221 bye");
+                            return;
+                        }
+                        default -> reply(out, "250 OK"); // MAIL, RSET, NOOP
+                    }
+                }
+            } catch (IOException ignore) {
+            }
+        }
+
+        private static void reply(Writer out, String line) throws IOException {
+            out.write(line + "\r\n");
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            server.close();
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package com.loanmanagement.service;
+
+import com.loanmanagement.config.AppMetrics;
+import com.loanmanagement.dto.ReconciliationLineDto;
+import com.loanmanagement.dto.ReconciliationReportDto;
+import com.loanmanagement.model.*;
+import com.loanmanagement.repository.*;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false",
+        "reconciliation.batch-size=3"
+})
+@Import({StatementReconciliationService.class, CustomerLoanService.class, LoanDecisionEngine.class, DuplicateApplicationDetector.class, OptimisticLockRetry.class, LoanArchiveService.class, LoanArchiver.class, LoanDataPurger.class, AppMetrics.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("StatementReconciliationService Tests")
+class StatementReconciliationServiceTest {
+
+    private static final LocalDate FIRST_DUE = LocalDate.of(2025, 2, 5);
+
+    @Autowired private StatementReconciliationService reconciliationService;
+    @Autowired private UserRepository userRepository;
+    @Autowired private LoanTypeRepository loanTypeRepository;
+    @Autowired private LoanRepository loanRepository;
+    @Autowired private EmiPaymentRepository emiPaymentRepository;
+
+    @MockBean private MailService mailService;
+    @MockBean private EmiGenerationService emiGenerationService;
+
+    private Loan loan;
+    private Loan otherLoan;
+
+    @BeforeEach
+    void setUp() {
+        User customer = userRepository.save(User.builder()
+                .username("recon_user")
+                .name("Recon User")
+                .email("recon@example.com")
+                .password("x")
+                .role(User.Role.CUSTOMER)
+                .createdAt(LocalDateTime.now())
+                .build());
+
+        LoanType type = loanTypeRepository.save(LoanType.builder()
+                .name("Personal Loan")
+                .interestRate(new BigDecimal("10.00"))
+                .maxTenureYears(5)
+                .maxLoanAmount(new BigDecimal("500000.00"))
+                .penaltyRatePercent(new BigDecimal("1.00"))
+                .build());
+
+        loan = createLoan(customer, type, 3);
+        otherLoan = createLoan(customer, type, 3);
+    }
+
+    @AfterEach
+    void tearDown() {
+        emiPaymentRepository.deleteAll();
+        loanRepository.deleteAll();
+        loanTypeRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Matching rows settle EMIs in due-date order and update the snapshot")
+    void givenExactInstallments_whenImported_thenEmisSettled() {
+        ReconciliationReportDto report = importCsv(
+                "date,reference,loan,amount",
+                "2025-02-04,UTR001,LN" + String.format("%05d", loan.getId()) + ",10000.00",
+                "2025-02-04,UTR002," + otherLoan.getId() + ",20000");
+
+        assertThat(report.getTotalRows()).isEqualTo(2);
+        assertThat(report.getMatchedRows()).isEqualTo(2);
+        assertThat(report.getSettledEmis()).isEqualTo(3);
+        assertThat(report.getSettledAmount()).isEqualByComparingTo("30000");
+        assertThat(report.getExceptions()).isEmpty();
+
+        List<EmiPayment> schedule = emiPaymentRepository.findByLoanOrderByDueDateAsc(loan);
+        assertThat(schedule.get(0).getStatus()).isEqualTo(EmiPayment.EmiStatus.PAID);
+        assertThat(schedule.get(0).getTransactionRef()).isEqualTo("BANK-UTR001");
+        assertThat(schedule.get(0).getPaymentDate()).isEqualTo(LocalDate.of(2025, 2, 4));
+        assertThat(schedule.get(1).getStatus()).isEqualTo(EmiPayment.EmiStatus.PENDING);
+
+        Loan reloaded = loanRepository.findById(otherLoan.getId()).orElseThrow();
+        assertThat(reloaded.getPaidEmiCount()).isEqualTo(2);
+        assertThat(reloaded.getPendingEmiCount()).isEqualTo(1);
+        assertThat(reloaded.getOutstandingAmount()).isEqualByComparingTo("10000");
+        assertThat(reloaded.getNextDueDate()).isEqualTo(FIRST_DUE.plusMonths(2));
+    }
+
+    @Test
+    @DisplayName("Short, unknown, repeated and broken rows land in the exception report")
+    void givenMismatchedRows_whenImported_thenReportedNotSettled() {
+        ReconciliationReportDto report = importCsv(
+                "2025-02-04,UTR010," + loan.getId() + ",4000.00",
+                "2025-02-04,UTR011," + loan.getId() + ",15000.00",
+                "2025-02-04,UTR012,999999,10000.00",
+                "2025-02-04,UTR011," + otherLoan.getId() + ",10000.00",
+                "not-a-date,UTR013," + loan.getId() + ",10000.00");
+
+        assertThat(report.getTotalRows()).isEqualTo(5);
+        assertThat(report.getPartialRows()).isEqualTo(2);
+        assertThat(report.getUnmatchedRows()).isEqualTo(1);
+        assertThat(report.getDuplicateRows()).isEqualTo(1);
+        assertThat(report.getMalformedRows()).isEqualTo(1);
+        assertThat(report.getSettledEmis()).isEqualTo(1);
+        assertThat(report.getExceptions())
+                .extracting(ReconciliationLineDto::getOutcome)
+                .containsExactly(ReconciliationLineDto.Outcome.PARTIAL, ReconciliationLineDto.Outcome.PARTIAL,
+                        ReconciliationLineDto.Outcome.UNMATCHED, ReconciliationLineDto.Outcome.DUPLICATE,
+                        ReconciliationLineDto.Outcome.MALFORMED);
+
+        assertThat(emiPaymentRepository.countByLoanAndStatus(loan, EmiPayment.EmiStatus.PAID)).isEqualTo(1);
+        assertThat(emiPaymentRepository.countByLoanAndStatus(otherLoan, EmiPayment.EmiStatus.PAID)).isZero();
+    }
+
+    @Test
+    @DisplayName("Re-importing the same statement settles nothing twice")
+    void givenSameStatementTwice_whenImported_thenSecondRunAllDuplicates() {
+        String row = "2025-02-04,UTR020," + loan.getId() + ",10000.00";
+        importCsv(row);
+        ReconciliationReportDto second = importCsv(row);
+
+        assertThat(second.getDuplicateRows()).isEqualTo(1);
+        assertThat(second.getSettledEmis()).isZero();
+        assertThat(emiPaymentRepository.countByLoanAndStatus(loan, EmiPayment.EmiStatus.PAID)).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Settling the last installments across batches closes the loan once")
+    void givenFinalInstallmentsAcrossBatches_whenImported_thenLoanClosed() {
+        List<String> rows = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            rows.add("2025-0" + (2 + i) + "-04,UTR03" + i + "," + loan.getId() + ",10000.00");
+        }
+        rows.add("2025-02-04,UTR040," + otherLoan.getId() + ",10000.00");
+
+        ReconciliationReportDto report = importCsv(rows.toArray(String[]::new));
+
+        assertThat(report.getMatchedRows()).isEqualTo(4);
+        assertThat(report.getClosedLoans()).isEqualTo(1);
+
+        Loan reloaded = loanRepository.findById(loan.getId()).orElseThrow();
+        assertThat(reloaded.getLoanStatus()).isEqualTo(Loan.LoanStatus.CLOSED);
+        assertThat(reloaded.getPendingEmiCount()).isZero();
+        assertThat(reloaded.getNextDueDate()).isNull();
+        verify(mailService, times(1)).sendLoanClosedText(any(), eq(new BigDecimal("30000.00")));
+        verify(mailService, never()).sendEmiPaidText(any());
+    }
+
+    private ReconciliationReportDto importCsv(String... rows) {
+        return reconciliationService.importStatement(new BufferedReader(new StringReader(String.join("\n", rows))));
+    }
+
+    private Loan createLoan(User customer, LoanType type, int installments) {
+        Loan created = loanRepository.save(Loan.builder()
+                .customer(customer)
+                .loanType(type)
+                .appliedInterestRate(10.0)
+                .amount(new BigDecimal("30000.00"))
+                .purpose("Reconciliation")
+                .income("₹30,000 - ₹70,000")
+                .employmentInfo("Software (IT)")
+                .aadhaar("123456789012")
+                .pan("ABCDE1234F")
+                .cibilScore(750)
+                .tenureYears(1)
+                .loanStatus(Loan.LoanStatus.APPROVED)
+                .submittedAt(LocalDateTime.now())
+                .pendingEmiCount(installments)
+                .outstandingAmount(new BigDecimal(10000L * installments).setScale(2))
+                .nextDueDate(FIRST_DUE)
+                .build());
+
+        List<EmiPayment> schedule = new ArrayList<>();
+        for (int i = 0; i < installments; i++) {
+            schedule.add(EmiPayment.builder()
+                    .loan(created)
+                    .amount(new BigDecimal("10000.00"))
+                    .dueDate(FIRST_DUE.plusMonths(i))
+                    .status(EmiPayment.EmiStatus.PENDING)
+                    .remainingBalance(new BigDecimal(10000L * (installments - i - 1)).setScale(2))
+                    .build());
+        }
+        emiPaymentRepository.saveAll(schedule);
+        return created;
+    }
+}
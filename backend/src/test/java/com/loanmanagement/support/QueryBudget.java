@@ -0,0 +1,80 @@
+package com.loanmanagement.support;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * Statement-count assertions on top of {@link QueryCounter}:
+ * <pre>
+ *   QueryBudget.of(() -> loanService.getAllLoans()).atMost(1);
+ * </pre>
+ * A failure lists every statement that ran, so the extra queries are visible
+ * straight from the build log.
+ */
+public final class QueryBudget {
+
+    private final String label;
+    private final List<String> statements;
+    private final Object result;
+
+    private QueryBudget(String label, List<String> statements, Object result) {
+        this.label = label;
+        this.statements = statements;
+        this.result = result;
+    }
+
+    public static QueryBudget of(Callable<?> call) {
+        return of("call", call);
+    }
+
+    public static QueryBudget of(String label, Callable<?> call) {
+        QueryCounter.start();
+        Object result;
+        try {
+            result = call.call();
+        } catch (RuntimeException e) {
+            QueryCounter.stop();
+            throw e;
+        } catch (Exception e) {
+            QueryCounter.stop();
+            throw new IllegalStateException(e);
+        }
+        return new QueryBudget(label, QueryCounter.stop(), result);
+    }
+
+    public QueryBudget atMost(int max) {
+        if (statements.size() > max) {
+            throw new AssertionError(describe("at most " + max));
+        }
+        return this;
+    }
+
+    public QueryBudget exactly(int expected) {
+        if (statements.size() != expected) {
+            throw new AssertionError(describe("exactly " + expected));
+        }
+        return this;
+    }
+
+    public int count() {
+        return statements.size();
+    }
+
+    public List<String> statements() {
+        return statements;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T result() {
+        return (T) result;
+    }
+
+    private String describe(String expectation) {
+        StringBuilder message = new StringBuilder(label).append(": expected ").append(expectation)
+                .append(" statement(s) but ").append(statements.size()).append(" ran");
+        for (int i = 0; i < statements.size(); i++) {
+            message.append("\n  ").append(i + 1).append(". ").append(statements.get(i));
+        }
+        return message.toString();
+    }
+}
@@ -0,0 +1,128 @@
+package com.loanmanagement.support;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.util.ClassUtils;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Counts the SQL statements executed through a DataSource, whatever issued
+ * them (Hibernate, Spring Data, JdbcTemplate), from any thread.
+ *
+ * Every execute call is one round trip; a JDBC batch counts once. Import
+ * {@link Config} into a test context to wrap its DataSource, then measure
+ * with {@link QueryBudget}.
+ */
+public final class QueryCounter {
+
+    private static final Set<String> EXECUTE = Set.of(
+            "execute", "executeQuery", "executeUpdate", "executeLargeUpdate", "executeBatch", "executeLargeBatch");
+
+    private static final List<String> statements = new CopyOnWriteArrayList<>();
+    private static volatile boolean recording;
+
+    private QueryCounter() {
+    }
+
+    /** Wraps every DataSource bean of the test context in the counting proxy. */
+    @TestConfiguration
+    public static class Config {
+        @Bean
+        static BeanPostProcessor queryCountingDataSource() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource dataSource ? wrap(dataSource) : bean;
+                }
+            };
+        }
+    }
+
+    public static DataSource wrap(DataSource target) {
+        if (Proxy.isProxyClass(target.getClass()) && Proxy.getInvocationHandler(target) instanceof Counting) {
+            return target;
+        }
+        return proxy(target, new Counting(target, null) {
+            @Override
+            Object afterCall(Method method, Object[] args, Object result) {
+                return result instanceof Connection connection ? proxy(connection, new ConnectionHandler(connection)) : result;
+            }
+        });
+    }
+
+    static synchronized void start() {
+        statements.clear();
+        recording = true;
+    }
+
+    static synchronized List<String> stop() {
+        recording = false;
+        List<String> recorded = List.copyOf(statements);
+        statements.clear();
+        return recorded;
+    }
+
+    private static void record(String sql) {
+        if (recording) statements.add(sql == null ? "<batch>" : sql.trim());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(T target, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(QueryCounter.class.getClassLoader(),
+                ClassUtils.getAllInterfaces(target), handler);
+    }
+
+    private static class Counting implements InvocationHandler {
+        final Object target;
+        final String sql; // statement text for prepared / callable statements
+
+        Counting(Object target, String sql) {
+            this.target = target;
+            this.sql = sql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (target instanceof Statement && EXECUTE.contains(method.getName())) {
+                record(args != null && args.length > 0 && args[0] instanceof String text ? text : sql);
+            }
+            Object result;
+            try {
+                result = method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            return afterCall(method, args, result);
+        }
+
+        Object afterCall(Method method, Object[] args, Object result) {
+            return result;
+        }
+    }
+
+    private static final class ConnectionHandler extends Counting {
+        ConnectionHandler(Connection connection) {
+            super(connection, null);
+        }
+
+        @Override
+        Object afterCall(Method method, Object[] args, Object result) {
+            if (result instanceof Statement statement) {
+                String text = args != null && args.length > 0 && args[0] instanceof String s ? s : null;
+                return proxy(statement, new Counting(statement, text));
+            }
+            return result;
+        }
+    }
+}
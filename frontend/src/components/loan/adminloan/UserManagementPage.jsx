@@ -4,14 +4,18 @@ import { toast, ToastContainer } from "react-toastify";
 import "react-toastify/dist/ReactToastify.css";
 import {
   validateSuperKey,
-  getAllUsers,
+  getUsersPage,
   deleteUser
 } from "../../../services/userManagementService";
 import { FaEye, FaEyeSlash, FaTrash } from "react-icons/fa";
 
+const PAGE_SIZE = 20;
+
 const UserManagementPage = () => {
   const [users, setUsers] = useState([]);
-  const [filteredUsers, setFilteredUsers] = useState([]);
+  const [page, setPage] = useState(0);
+  const [totalPages, setTotalPages] = useState(0);
+  const [totalElements, setTotalElements] = useState(0);
   const [searchTerm, setSearchTerm] = useState("");
   const [roleFilter, setRoleFilter] = useState("All");
   const [sortLoanOption, setSortLoanOption] = useState("");
@@ -24,14 +28,33 @@ const UserManagementPage = () => {
   const [showKey, setShowKey] = useState(false);
   const [showFilters, setShowFilters] = useState(true);
 
+  // filtering, sorting and paging happen on the server; a date sort wins over a loan count sort
   const fetchUsers = useCallback(async () => {
+    let sortBy = "userId";
+    let direction = "asc";
+    if (sortDateOption) {
+      sortBy = "createdAt";
+      direction = sortDateOption === "dateAsc" ? "asc" : "desc";
+    } else if (sortLoanOption) {
+      sortBy = "activeLoanCount";
+      direction = sortLoanOption === "loanAsc" ? "asc" : "desc";
+    }
     try {
-      const data = await getAllUsers();
-      setUsers(data);
+      const data = await getUsersPage({
+        search: searchTerm.trim(),
+        role: roleFilter,
+        sortBy,
+        direction,
+        page,
+        size: PAGE_SIZE,
+      });
+      setUsers(data.users);
+      setTotalPages(data.totalPages);
+      setTotalElements(data.totalElements);
     } catch (err) {
       toast.error("Failed to fetch users");
     }
-  }, []);
+  }, [searchTerm, roleFilter, sortLoanOption, sortDateOption, page]);
 
   useEffect(() => {
     if (!authModalOpen) {
@@ -39,6 +62,11 @@ const UserManagementPage = () => {
     }
   }, [fetchUsers, authModalOpen]);
 
+  // back to the first page whenever the filters change
+  useEffect(() => {
+    setPage(0);
+  }, [searchTerm, roleFilter, sortLoanOption, sortDateOption]);
+
   useEffect(() => {
     setSearchTerm("");
     setRoleFilter("All");
@@ -58,46 +86,20 @@ const UserManagementPage = () => {
   }, []);
 
 
-  useEffect(() => {
-    let updated = [...users];
-    if (searchTerm) {
-      const term = searchTerm.toLowerCase();
-      updated = updated.filter(
-        (user) =>
-          user.username?.toLowerCase().includes(term) ||
-          (user.userId ?? user.id)?.toString().includes(term) ||
-          user.email?.toLowerCase().includes(term)
-      );
-    }
-
-    if (roleFilter !== "All") {
-      updated = updated.filter((user) => user.role === roleFilter);
-    }
-
-    if (sortLoanOption === "loanAsc") {
-      updated.sort((a, b) => (a.activeLoanCount ?? 0) - (b.activeLoanCount ?? 0));
-    } else if (sortLoanOption === "loanDesc") {
-      updated.sort((a, b) => (b.activeLoanCount ?? 0) - (a.activeLoanCount ?? 0));
-    }
-
-    if (sortDateOption === "dateAsc") {
-      updated.sort((a, b) => new Date(a.createdAt) - new Date(b.createdAt));
-    } else if (sortDateOption === "dateDesc") {
-      updated.sort((a, b) => new Date(b.createdAt) - new Date(a.createdAt));
-    }
-
-    setFilteredUsers(updated);
-  }, [users, searchTerm, roleFilter, sortLoanOption, sortDateOption]);
-
   const handleDelete = async (id, role) => {
     try {
-      await deleteUser(id);
-      toast.success(
-        `${role === "ADMIN" ? "Admin" : "Customer"} with ID U${id} deleted successfully`
-      );
+      const res = await deleteUser(id);
+      // long repayment histories are deleted by a background purge job; the server says so
+      if (typeof res.data === "string" && res.data.includes("background")) {
+        toast.info(res.data);
+      } else {
+        toast.success(
+          `${role === "ADMIN" ? "Admin" : "Customer"} with ID U${id} deleted successfully`
+        );
+      }
       fetchUsers();
     } catch (err) {
-      toast.error("Failed to delete user");
+      toast.error(err.response?.data?.message || "Failed to delete user");
     }
   };
 
@@ -172,7 +174,7 @@ const UserManagementPage = () => {
               <label>Search Users</label>
               <input
                 type="text"
-                placeholder="User ID, Username, or Email..."
+                placeholder="User ID, or start of Username / Email..."
                 value={searchTerm}
                 onChange={(e) => setSearchTerm(e.target.value)}
                 className="user-management-filter-input"
@@ -262,7 +264,7 @@ const UserManagementPage = () => {
       <div className="user-management-section-header-wrapper">
         <h3 className="user-management-section-heading">User Management</h3>
         <p className="user-management-count-label">
-          Showing {filteredUsers.length} users
+          Showing {users.length} of {totalElements} users
         </p>
       </div>
 
@@ -280,7 +282,7 @@ const UserManagementPage = () => {
               </tr>
             </thead>
             <tbody>
-              {filteredUsers.map((user) => {
+              {users.map((user) => {
                 const idValue = user.userId ?? user.id;
                 return (
                   <tr key={idValue}>
@@ -330,9 +332,30 @@ const UserManagementPage = () => {
             </tbody>
           </table>
         </div>
-        {filteredUsers.length === 0 && (
+        {users.length === 0 && (
           <div className="user-no-data-message">No users found.</div>
         )}
+        {totalPages > 1 && (
+          <div className="user-clear-filters-inline">
+            <button
+              className="user-filter-clear-btn"
+              disabled={page === 0}
+              onClick={() => setPage(page - 1)}
+            >
+              ◀ Previous
+            </button>
+            <span className="user-management-count-label">
+              Page {page + 1} of {totalPages}
+            </span>
+            <button
+              className="user-filter-clear-btn"
+              disabled={page + 1 >= totalPages}
+              onClick={() => setPage(page + 1)}
+            >
+              Next ▶
+            </button>
+          </div>
+        )}
       </div>
 
       {/* ❗ Delete Confirmation Modal */}
@@ -11,9 +11,11 @@ export const validateSuperKey = async (key) => {
   return res.data;
 };
 
-export const getAllUsers = async () => {
+// One page of users: { users, page, size, totalElements, totalPages }
+export const getUsersPage = async ({ search, role, sortBy, direction, page, size }) => {
   const token = localStorage.getItem("token");
   const res = await axios.get(API_URL, {
+    params: { search: search || undefined, role, sortBy, direction, page, size },
     headers: { Authorization: `Bearer ${token}` },
   });
   return res.data;